@@ -1,6 +1,6 @@
-import { useEffect, useState } from 'react';
+import { useEffect, useRef, useState } from 'react';
 import { Card, CardContent, CardDescription, CardHeader, CardTitle } from '@/components/ui/card';
-import { taskApi, TaskStatistics } from '@/lib/api';
+import { taskApi, TaskStatistics, subscribeStateEvents } from '@/lib/api';
 import { Clock, Activity, CheckCircle, XCircle, TrendingUp, TrendingDown } from 'lucide-react';
 
 export default function Dashboard() {
@@ -16,9 +16,24 @@ export default function Dashboard() {
     successRate: 0,
   });
   const [loading, setLoading] = useState(true);
+  const reloadTimer = useRef<ReturnType<typeof setTimeout>>();
 
   useEffect(() => {
     loadStatistics();
+    // 收到状态变更后合并 1 秒再刷新统计，避免批量变更时频繁请求
+    const scheduleReload = () => {
+      if (!reloadTimer.current) {
+        reloadTimer.current = setTimeout(() => {
+          reloadTimer.current = undefined;
+          loadStatistics();
+        }, 1000);
+      }
+    };
+    const unsubscribe = subscribeStateEvents({ onTask: scheduleReload, onReset: scheduleReload });
+    return () => {
+      unsubscribe();
+      clearTimeout(reloadTimer.current);
+    };
   }, []);
 
   const loadStatistics = async () => {
@@ -2,22 +2,43 @@ import { useEffect, useState } from 'react';
 import { useNavigate } from 'react-router-dom';
 import { Card, CardContent, CardHeader, CardTitle } from '@/components/ui/card';
 import { Button } from '@/components/ui/button';
-import { taskApi, Task } from '@/lib/api';
+import { taskApi, Task, subscribeStateEvents } from '@/lib/api';
 import { Play, Pause, Trash2, MoreVertical } from 'lucide-react';
 
+const PAGE_SIZE = 50;
+
 export default function TaskList() {
   const navigate = useNavigate();
   const [tasks, setTasks] = useState<Task[]>([]);
   const [loading, setLoading] = useState(true);
+  const [nextCursor, setNextCursor] = useState<string | undefined>();
+  const [total, setTotal] = useState<number | undefined>();
 
   useEffect(() => {
     loadTasks();
+    // 已加载的任务随推送更新状态，新建任务或续传失败时重新加载第一页
+    return subscribeStateEvents({
+      onTask: (change) => {
+        if (!change.previousStatus) {
+          loadTasks();
+          return;
+        }
+        setTasks((prev) =>
+          prev.map((task) =>
+            task.id === change.taskId ? { ...task, status: change.status as Task['status'] } : task
+          )
+        );
+      },
+      onReset: () => loadTasks(),
+    });
   }, []);
 
   const loadTasks = async () => {
     try {
-      const data = await taskApi.getTasks();
-      setTasks(data);
+      const page = await taskApi.getTaskPage({ limit: PAGE_SIZE });
+      setTasks(page.items);
+      setNextCursor(page.hasMore ? page.nextCursor : undefined);
+      setTotal(page.approximateTotal);
     } catch (error) {
       console.error('Failed to load tasks:', error);
     } finally {
@@ -25,6 +46,17 @@ export default function TaskList() {
     }
   };
 
+  const loadMore = async () => {
+    if (!nextCursor) return;
+    try {
+      const page = await taskApi.getTaskPage({ limit: PAGE_SIZE, cursor: nextCursor });
+      setTasks((prev) => [...prev, ...page.items]);
+      setNextCursor(page.hasMore ? page.nextCursor : undefined);
+    } catch (error) {
+      console.error('Failed to load more tasks:', error);
+    }
+  };
+
   const handleRetry = async (id: number) => {
     try {
       await taskApi.retryTask(id);
@@ -95,7 +127,9 @@ export default function TaskList() {
       <div className="flex justify-between items-center">
         <div>
           <h2 className="text-3xl font-bold tracking-tight">任务列表</h2>
-          <p className="text-muted-foreground">管理和监控所有定时任务</p>
+          <p className="text-muted-foreground">
+            管理和监控所有定时任务{total !== undefined ? `（约 ${total} 个）` : ''}
+          </p>
         </div>
       </div>
 
@@ -200,6 +234,13 @@ export default function TaskList() {
           </Card>
         ))
         )}
+        {nextCursor && (
+          <div className="flex justify-center">
+            <Button variant="outline" onClick={loadMore}>
+              加载更多
+            </Button>
+          </div>
+        )}
       </div>
     </div>
   );
@@ -50,6 +50,27 @@ export interface Task {
   parameters?: Record<string, any>;
 }
 
+export interface TaskPage {
+  items: Task[];
+  nextCursor?: string;
+  hasMore: boolean;
+  approximateTotal?: number;
+}
+
+export interface TaskQueryParams {
+  sortBy?: 'createdAt' | 'executeTime';
+  cursor?: string;
+  limit?: number;
+  taskType?: string;
+  scheduleMode?: string;
+  status?: string;
+  minPriority?: number;
+  from?: string;
+  to?: string;
+  namePrefix?: string;
+  includeTaskData?: boolean;
+}
+
 export interface CreateTaskRequest {
   taskName: string;
   taskType: string;
@@ -81,6 +102,10 @@ export const taskApi = {
   getTasks: (params?: { status?: string }) =>
     apiClient.get<any, Task[]>('/tasks', { params }),
 
+  // 分页获取任务列表（键集分页，传入上一页的 nextCursor 获取下一页）
+  getTaskPage: (params?: TaskQueryParams) =>
+    apiClient.get<any, TaskPage>('/tasks/page', { params }),
+
   // 获取单个任务
   getTask: (id: number) =>
     apiClient.get<any, Task>(`/tasks/${id}`),
@@ -134,6 +159,60 @@ export const taskApi = {
     apiClient.get('/tasks/scheduler/status'),
 };
 
+// =========================
+// 状态推送（SSE）
+// =========================
+
+export interface TaskChangeEvent {
+  taskId: number;
+  taskName: string;
+  taskType: string;
+  status: string;
+  previousStatus?: string;
+  retryCount?: number;
+  executeTime?: string;
+  executionDurationMs?: number;
+  errorMessage?: string;
+  changedAt: string;
+}
+
+export interface AlertChangeEvent {
+  eventType: 'ALERT_TRIGGERED' | 'ALERT_ESCALATED' | 'ALERT_RESOLVED' | 'ALERT_RECOVERED';
+  exceptionEventId?: number;
+  businessId?: string;
+  businessType?: string;
+  alertRuleId?: number;
+  level?: string;
+  previousLevel?: string;
+  resolutionReason?: string;
+  changedAt: string;
+}
+
+export interface StateEventHandlers {
+  onTask?: (event: TaskChangeEvent) => void;
+  onAlert?: (event: AlertChangeEvent) => void;
+  // 续传失败（缓冲已覆盖或服务端重启），需要重新拉取全量数据
+  onReset?: () => void;
+}
+
+// 订阅任务与报警状态变更，返回取消订阅函数；断线后浏览器自动重连并按 Last-Event-ID 续传
+export const subscribeStateEvents = (handlers: StateEventHandlers) => {
+  const source = new EventSource(`${API_BASE_URL}/events/stream`);
+  if (handlers.onTask) {
+    const onTask = handlers.onTask;
+    source.addEventListener('task', (e) => onTask(JSON.parse((e as MessageEvent).data)));
+  }
+  if (handlers.onAlert) {
+    const onAlert = handlers.onAlert;
+    source.addEventListener('alert', (e) => onAlert(JSON.parse((e as MessageEvent).data)));
+  }
+  if (handlers.onReset) {
+    const onReset = handlers.onReset;
+    source.addEventListener('reset', () => onReset());
+  }
+  return () => source.close();
+};
+
 export default apiClient;
 
 // =========================
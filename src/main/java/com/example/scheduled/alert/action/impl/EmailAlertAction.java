@@ -3,6 +3,10 @@ package com.example.scheduled.alert.action.impl;
 import com.example.scheduled.alert.action.AlertActionExecutor;
 import com.example.scheduled.alert.entity.AlertRule;
 import com.example.scheduled.alert.entity.ExceptionEvent;
+import com.example.scheduled.alert.notify.MessageTemplateCache;
+import com.example.scheduled.alert.notify.Notification;
+import com.example.scheduled.alert.notify.NotificationDispatcher;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -11,11 +15,18 @@ import java.util.Map;
 
 /**
  * 邮件报警动作执行器
+ * 按收件人生成通知交给 NotificationDispatcher 异步发送，不在评估线程内调用邮件服务
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class EmailAlertAction implements AlertActionExecutor {
 
+    private static final String DEFAULT_TEMPLATE = "发现 %s 级别异常（ID: %d），请及时处理";
+
+    private final MessageTemplateCache templateCache;
+    private final NotificationDispatcher notificationDispatcher;
+
     @Override
     public void execute(Map<String, Object> actionConfig, ExceptionEvent event, AlertRule rule) throws Exception {
         if (actionConfig == null) {
@@ -33,13 +44,13 @@ public class EmailAlertAction implements AlertActionExecutor {
             return;
         }
 
-        String emailContent = buildEmailContent(event, rule, template);
+        String emailContent = templateCache.get(template, DEFAULT_TEMPLATE).render(event, rule);
 
-        log.info("【邮件报警】发送到: {} | 主题: {} | 内容: {}", 
-            String.join(",", recipients), subject, emailContent);
-
-        // TODO: 调用邮件服务发送邮件
-        // mailService.send(recipients, subject, emailContent);
+        for (String recipient : recipients) {
+            notificationDispatcher.submit(Notification.of(getActionType(), recipient, subject, emailContent,
+                    event.getId(), rule.getLevel()));
+        }
+        log.debug("【邮件报警】已提交: {} | 主题: {}", String.join(",", recipients), subject);
     }
 
     @Override
@@ -51,11 +62,4 @@ public class EmailAlertAction implements AlertActionExecutor {
     public String getActionType() {
         return "EMAIL";
     }
-
-    private String buildEmailContent(ExceptionEvent event, AlertRule rule, String template) {
-        if (template == null) {
-            template = "发现 %s 级别异常（ID: %d），请及时处理";
-        }
-        return String.format(template, rule.getLevel(), event.getId());
-    }
 }
@@ -3,6 +3,10 @@ package com.example.scheduled.alert.action.impl;
 import com.example.scheduled.alert.action.AlertActionExecutor;
 import com.example.scheduled.alert.entity.AlertRule;
 import com.example.scheduled.alert.entity.ExceptionEvent;
+import com.example.scheduled.alert.notify.MessageTemplateCache;
+import com.example.scheduled.alert.notify.Notification;
+import com.example.scheduled.alert.notify.NotificationDispatcher;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -11,11 +15,18 @@ import java.util.Map;
 
 /**
  * 短信报警动作执行器
+ * 按手机号生成通知交给 NotificationDispatcher 异步发送，不在评估线程内调用短信服务
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class SmsAlertAction implements AlertActionExecutor {
 
+    private static final String DEFAULT_TEMPLATE = "异常报警：%s级别异常，异常ID: %d";
+
+    private final MessageTemplateCache templateCache;
+    private final NotificationDispatcher notificationDispatcher;
+
     @Override
     public void execute(Map<String, Object> actionConfig, ExceptionEvent event, AlertRule rule) throws Exception {
         if (actionConfig == null) {
@@ -32,13 +43,13 @@ public class SmsAlertAction implements AlertActionExecutor {
             return;
         }
 
-        String smsContent = buildSmsContent(event, rule, messageTemplate);
+        String smsContent = templateCache.get(messageTemplate, DEFAULT_TEMPLATE).render(event, rule);
 
-        log.info("【短信报警】发送到: {} | 内容: {}", 
-            String.join(",", phoneNumbers), smsContent);
-
-        // TODO: 调用短信服务发送短信
-        // smsService.send(phoneNumbers, smsContent);
+        for (String phoneNumber : phoneNumbers) {
+            notificationDispatcher.submit(Notification.of(getActionType(), phoneNumber, null, smsContent,
+                    event.getId(), rule.getLevel()));
+        }
+        log.debug("【短信报警】已提交: {}", String.join(",", phoneNumbers));
     }
 
     @Override
@@ -50,11 +61,4 @@ public class SmsAlertAction implements AlertActionExecutor {
     public String getActionType() {
         return "SMS";
     }
-
-    private String buildSmsContent(ExceptionEvent event, AlertRule rule, String template) {
-        if (template == null) {
-            template = "异常报警：%s级别异常，异常ID: %d";
-        }
-        return String.format(template, rule.getLevel(), event.getId());
-    }
 }
@@ -64,6 +64,27 @@ public final class AlertConstants {
         public static boolean isHigherThan(String level1, String level2) {
             return getPriority(level1) > getPriority(level2);
         }
+
+        /**
+         * 报警等级在 exception_event.triggered_levels 位集中对应的位
+         *
+         * @param level 报警等级
+         * @return 位掩码；NONE 或未知等级返回 0
+         */
+        public static int bitOf(String level) {
+            if (level == null) {
+                return 0;
+            }
+            return switch (level) {
+                case LEVEL_1 -> 1;
+                case LEVEL_2 -> 1 << 1;
+                case LEVEL_3 -> 1 << 2;
+                case BLUE -> 1 << 3;
+                case YELLOW -> 1 << 4;
+                case RED -> 1 << 5;
+                default -> 0;
+            };
+        }
     }
 
     /**
@@ -90,6 +111,7 @@ public final class AlertConstants {
         public static final String TASK_CANCELLED = "TASK_CANCELLED";
         public static final String SYSTEM_RECOVERY = "SYSTEM_RECOVERY";
         public static final String ALERT_RECOVERED = "ALERT_RECOVERED";
+        public static final String EVALUATION_ERROR = "EVALUATION_ERROR";
 
         private AlertEventType() {
             throw new AssertionError("Cannot instantiate constants class");
@@ -119,6 +141,9 @@ public final class AlertConstants {
         public static final String ABSOLUTE = "ABSOLUTE";
         public static final String RELATIVE = "RELATIVE";
         public static final String HYBRID = "HYBRID";
+        public static final String CRON = "CRON";
+        public static final String WEEKLY = "WEEKLY";
+        public static final String MONTHLY = "MONTHLY";
 
         private TriggerType() {
             throw new AssertionError("Cannot instantiate constants class");
@@ -131,6 +156,8 @@ public final class AlertConstants {
     public static final class LogicalOperator {
         public static final String AND = "AND";
         public static final String OR = "OR";
+        /** 仅用于混合条件，取反唯一的子条件 */
+        public static final String NOT = "NOT";
 
         private LogicalOperator() {
             throw new AssertionError("Cannot instantiate constants class");
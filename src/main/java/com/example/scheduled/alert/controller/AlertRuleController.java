@@ -2,8 +2,14 @@ package com.example.scheduled.alert.controller;
 
 import com.example.scheduled.alert.constant.AlertConstants;
 import com.example.scheduled.alert.entity.*;
+import com.example.scheduled.alert.notify.NotificationDispatcher;
 import com.example.scheduled.alert.repository.*;
+import com.example.scheduled.alert.service.ActiveExceptionIndex;
 import com.example.scheduled.alert.service.AlertEscalationService;
+import com.example.scheduled.alert.service.AlertEscalationTimer;
+import com.example.scheduled.alert.service.AlertEventPipeline;
+import com.example.scheduled.alert.service.AlertRuleCache;
+import com.example.scheduled.config.ScheduledTaskProperties;
 import com.example.scheduled.dto.ApiResponse;
 import com.example.scheduled.dto.AlertRuleConfigDTO;
 import lombok.RequiredArgsConstructor;
@@ -32,6 +38,12 @@ public class AlertRuleController {
     private final ExceptionEventRepository exceptionEventRepository;
     private final AlertEventLogRepository alertEventLogRepository;
     private final AlertEscalationService alertEscalationService;
+    private final AlertEventPipeline alertEventPipeline;
+    private final ActiveExceptionIndex activeExceptionIndex;
+    private final AlertRuleCache alertRuleCache;
+    private final AlertEscalationTimer alertEscalationTimer;
+    private final NotificationDispatcher notificationDispatcher;
+    private final ScheduledTaskProperties properties;
 
     // ==================== 异常类型管理 ====================
 
@@ -92,6 +104,7 @@ public class AlertRuleController {
             exceptionType.setUpdatedAt(LocalDateTime.now());
             exceptionType.setEnabled(true);
             exceptionTypeRepository.insert(exceptionType);
+            alertRuleCache.invalidateAll();
             return ApiResponse.success("异常类型创建成功", exceptionType);
         } catch (Exception e) {
             log.error("创建异常类型失败", e);
@@ -170,6 +183,7 @@ public class AlertRuleController {
             condition.setCreatedAt(LocalDateTime.now());
             condition.setUpdatedAt(LocalDateTime.now());
             triggerConditionRepository.insert(condition);
+            alertRuleCache.invalidateAll();
             return ApiResponse.success("触发条件创建成功", condition);
         } catch (Exception e) {
             log.error("创建触发条件失败", e);
@@ -280,6 +294,7 @@ public class AlertRuleController {
                 rule.setPriority(5);
             }
             alertRuleRepository.insert(rule);
+            alertRuleCache.invalidateAll();
             return ApiResponse.success("报警规则创建成功", rule);
         } catch (Exception e) {
             log.error("创建报警规则失败", e);
@@ -481,6 +496,7 @@ public class AlertRuleController {
             patch.setId(id);
             patch.setUpdatedAt(LocalDateTime.now());
             alertRuleRepository.updateById(patch);
+            alertRuleCache.invalidateAll();
             return ApiResponse.success("更新成功", alertRuleRepository.selectById(id));
         } catch (Exception e) {
             log.error("更新报警规则失败", e);
@@ -514,6 +530,7 @@ public class AlertRuleController {
         try {
             int rows = alertRuleRepository.deleteById(id);
             if (rows == 0) return ApiResponse.error("报警规则不存在或已删除");
+            alertRuleCache.invalidateAll();
             return ApiResponse.success("删除成功", id);
         } catch (Exception e) {
             log.error("删除报警规则失败", e);
@@ -565,6 +582,7 @@ public class AlertRuleController {
             rule.setEnabled((Boolean) enabledObj);
             rule.setUpdatedAt(LocalDateTime.now());
             alertRuleRepository.updateById(rule);
+            alertRuleCache.invalidateAll();
             return ApiResponse.success("更新成功", rule);
         } catch (Exception e) {
             log.error("更新启用状态失败", e);
@@ -639,10 +657,8 @@ public class AlertRuleController {
             event.setCreatedAt(LocalDateTime.now());
             event.setUpdatedAt(LocalDateTime.now());
 
-            exceptionEventRepository.insert(event);
-
-            // 为这个异常事件创建初始的评估任务
-            alertEscalationService.scheduleInitialEvaluation(event);
+            // 写入事件并创建初始的评估任务（同一事务）
+            alertEscalationService.reportEvent(event);
 
             return ApiResponse.success("异常事件报告成功", event);
         } catch (Exception e) {
@@ -651,6 +667,62 @@ public class AlertRuleController {
         }
     }
 
+    /**
+     * 批量报告异常事件
+     * 多行 INSERT 写入事件，按异常类型各加载一次规则与触发条件，评估任务批量创建并整批提交调度器；
+     * 写入与调度在同一事务内，失败时不会留下没有评估任务的事件
+     * 
+     * 【示例请求】
+     * POST /api/alert/events/batch
+     * [
+     *   {"exceptionTypeId": 1, "businessId": "SHIFT_20251213_001", "businessType": "SHIFT"},
+     *   {"exceptionTypeId": 1, "businessId": "SHIFT_20251213_002", "businessType": "SHIFT"}
+     * ]
+     * 
+     * 【示例响应】
+     * {
+     *   "code": 200,
+     *   "message": "批量报告异常事件成功",
+     *   "data": { "accepted": 2, "evaluationTasks": 2, "eventIds": [100, 101] }
+     * }
+     */
+    @PostMapping("/events/batch")
+    public ApiResponse<?> reportExceptionEvents(@RequestBody List<ExceptionEvent> events) {
+        if (events == null || events.isEmpty()) {
+            return ApiResponse.error(400, "异常事件列表不能为空");
+        }
+        if (events.size() > properties.getAlertEventBatchMaxSize()) {
+            return ApiResponse.error(400, "单次最多报告 " + properties.getAlertEventBatchMaxSize() + " 个异常事件");
+        }
+        for (ExceptionEvent event : events) {
+            if (event.getExceptionTypeId() == null) {
+                return ApiResponse.error(400, "exceptionTypeId 不能为空");
+            }
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            for (ExceptionEvent event : events) {
+                event.setId(null);
+                event.setDetectedAt(now);
+                event.setStatus(AlertConstants.ExceptionEventStatus.ACTIVE);
+                event.setCurrentAlertLevel(AlertConstants.AlertLevels.NONE);
+                event.setCreatedAt(now);
+                event.setUpdatedAt(now);
+            }
+            // 写入事件与创建初始评估任务在同一事务内，任一失败时整批回滚，客户端可直接重试
+            int taskCount = alertEscalationService.reportEvents(events);
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("accepted", events.size());
+            result.put("evaluationTasks", taskCount);
+            result.put("eventIds", events.stream().map(ExceptionEvent::getId).collect(Collectors.toList()));
+            return ApiResponse.success("批量报告异常事件成功", result);
+        } catch (Exception e) {
+            log.error("批量报告异常事件失败", e);
+            return ApiResponse.error("批量报告异常事件失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 获取所有活跃异常事件
      * 
@@ -712,6 +784,27 @@ public class AlertRuleController {
         }
     }
 
+    /**
+     * 告警事件处理管道状态（队列深度、处理量、合并数、处理延迟）及活跃异常索引、规则缓存命中情况、升级评估定时器、通知分发
+     *
+     * 【示例请求】
+     * GET /api/alert/pipeline/status
+     */
+    @GetMapping("/pipeline/status")
+    public ApiResponse<?> getPipelineStatus() {
+        try {
+            Map<String, Object> status = new HashMap<>(alertEventPipeline.getMetrics());
+            status.put("activeIndex", activeExceptionIndex.getStats());
+            status.put("ruleCache", alertRuleCache.getStats());
+            status.put("escalationTimer", alertEscalationTimer.getMetrics());
+            status.put("notification", notificationDispatcher.getMetrics());
+            return ApiResponse.success("查询成功", status);
+        } catch (Exception e) {
+            log.error("查询告警事件处理管道状态失败", e);
+            return ApiResponse.error("查询告警事件处理管道状态失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 获取异常事件详情（包括完整的报警日志历史）
      * 
@@ -918,6 +1011,9 @@ public class AlertRuleController {
             }
             triggerCondition.setLogicalOperator(tcInfo.getLogicalOperator());
             triggerCondition.setCombinedConditionIds(tcInfo.getCombinedConditionIds());
+            triggerCondition.setCronExpression(tcInfo.getCronExpression());
+            triggerCondition.setDayOfWeek(tcInfo.getDayOfWeek());
+            triggerCondition.setDayOfMonth(tcInfo.getDayOfMonth());
             triggerCondition.setCreatedAt(LocalDateTime.now());
             triggerCondition.setUpdatedAt(LocalDateTime.now());
             triggerConditionRepository.insert(triggerCondition);
@@ -951,6 +1047,7 @@ public class AlertRuleController {
             }
             
             alertRuleRepository.insert(rule);
+            alertRuleCache.invalidateAll();
 
             // 3. 返回完整的配置信息
             return ApiResponse.success("规则配置创建成功", convertToDTO(rule, triggerCondition));
@@ -1069,6 +1166,7 @@ public class AlertRuleController {
             
             existingRule.setUpdatedAt(LocalDateTime.now());
             alertRuleRepository.updateById(existingRule);
+            alertRuleCache.invalidateAll();
 
             TriggerCondition triggerCondition = triggerConditionRepository.selectById(existingRule.getTriggerConditionId());
             
@@ -1105,6 +1203,7 @@ public class AlertRuleController {
             
             // 删除规则
             alertRuleRepository.deleteById(id);
+            alertRuleCache.invalidateAll();
 
             return ApiResponse.success("规则配置删除成功", id);
         } catch (Exception e) {
@@ -1199,6 +1298,9 @@ public class AlertRuleController {
                 .timeWindowEnd(timeWindowEndStr)
                 .logicalOperator(triggerCondition.getLogicalOperator())
                 .combinedConditionIds(triggerCondition.getCombinedConditionIds())
+                .cronExpression(triggerCondition.getCronExpression())
+                .dayOfWeek(triggerCondition.getDayOfWeek())
+                .dayOfMonth(triggerCondition.getDayOfMonth())
                 .displayName(generateDisplayName(triggerCondition))
                 .build();
 
@@ -1233,6 +1335,12 @@ public class AlertRuleController {
                 return "相对事件: " + tc.getRelativeEventType() + " 后 " + tc.getRelativeDurationMinutes() + " 分钟";
             case "HYBRID":
                 return "混合条件: " + tc.getLogicalOperator() + " (" + tc.getCombinedConditionIds() + ")";
+            case "CRON":
+                return "Cron: " + tc.getCronExpression();
+            case "WEEKLY":
+                return "每周: 星期" + tc.getDayOfWeek() + " " + tc.getAbsoluteTime();
+            case "MONTHLY":
+                return "每月: " + tc.getDayOfMonth() + "号 " + tc.getAbsoluteTime();
             default:
                 return tc.getConditionType();
         }
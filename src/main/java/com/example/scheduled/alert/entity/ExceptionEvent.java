@@ -66,6 +66,11 @@ public class ExceptionEvent {
      */
     private String currentAlertLevel;
 
+    /**
+     * 已触发过的报警等级位集（见 AlertConstants.AlertLevels.bitOf），与等级变更在同一条 UPDATE 中写入
+     */
+    private Integer triggeredLevels;
+
     /**
      * 最后一次升级的时刻
      */
@@ -23,7 +23,7 @@ public class TriggerCondition {
     private Long id;
 
     /**
-     * 条件类型：ABSOLUTE(固定时刻)、RELATIVE(相对事件)、HYBRID(混合)
+     * 条件类型：ABSOLUTE(固定时刻)、RELATIVE(相对事件)、HYBRID(混合)、CRON(Cron表达式)、WEEKLY(每周)、MONTHLY(每月)
      */
     private String conditionType;
 
@@ -53,7 +53,7 @@ public class TriggerCondition {
     private LocalTime timeWindowEnd;
 
     /**
-     * 混合条件时的逻辑操作符：AND、OR
+     * 混合条件时的逻辑操作符：AND、OR、NOT
      */
     private String logicalOperator;
 
@@ -62,6 +62,21 @@ public class TriggerCondition {
      */
     private String combinedConditionIds;
 
+    /**
+     * Cron 触发：Quartz Cron 表达式（如 0 0 16 ? * WED 每周三 16:00）
+     */
+    private String cronExpression;
+
+    /**
+     * 每周触发：星期几（1=周一 ... 7=周日），触发时刻取 absoluteTime
+     */
+    private Integer dayOfWeek;
+
+    /**
+     * 每月触发：几号（1-31，超过当月天数时取月末），触发时刻取 absoluteTime
+     */
+    private Integer dayOfMonth;
+
     private LocalDateTime createdAt;
 
     private LocalDateTime updatedAt;
@@ -72,7 +87,10 @@ public class TriggerCondition {
     public enum ConditionType {
         ABSOLUTE,   // 固定时刻
         RELATIVE,   // 相对事件时间
-        HYBRID      // 混合条件
+        HYBRID,     // 混合条件
+        CRON,       // Cron 表达式
+        WEEKLY,     // 每周固定时刻
+        MONTHLY     // 每月固定时刻
     }
 
     /**
@@ -0,0 +1,34 @@
+package com.example.scheduled.alert.event;
+
+import com.example.scheduled.alert.constant.AlertConstants;
+import lombok.Getter;
+
+/**
+ * 报警触发事件
+ * 报警规则条件满足并执行动作后发布；异常此前已有报警等级时视为升级（ALERT_ESCALATED）
+ */
+@Getter
+public class AlertTriggeredEvent extends AlertSystemEvent {
+
+    private final Long alertRuleId;
+    private final String level;
+    private final String previousLevel;
+
+    public AlertTriggeredEvent(
+            Object source,
+            Long exceptionEventId,
+            String businessId,
+            String businessType,
+            Long alertRuleId,
+            String level,
+            String previousLevel) {
+        super(source, exceptionEventId,
+                previousLevel == null
+                        ? AlertConstants.AlertEventType.ALERT_TRIGGERED
+                        : AlertConstants.AlertEventType.ALERT_ESCALATED,
+                businessId, businessType);
+        this.alertRuleId = alertRuleId;
+        this.level = level;
+        this.previousLevel = previousLevel;
+    }
+}
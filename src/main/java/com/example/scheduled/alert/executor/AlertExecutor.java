@@ -2,51 +2,49 @@ package com.example.scheduled.alert.executor;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.example.scheduled.alert.action.AlertActionExecutor;
+import com.example.scheduled.alert.constant.AlertConstants;
 import com.example.scheduled.alert.entity.AlertEventLog;
 import com.example.scheduled.alert.entity.AlertRule;
 import com.example.scheduled.alert.entity.ExceptionEvent;
 import com.example.scheduled.alert.entity.ExceptionType;
 import com.example.scheduled.alert.entity.TriggerCondition;
 import com.example.scheduled.alert.detection.ExceptionDetectionStrategy;
+import com.example.scheduled.alert.event.AlertTriggeredEvent;
 import com.example.scheduled.alert.repository.AlertEventLogRepository;
-import com.example.scheduled.alert.repository.AlertRuleRepository;
 import com.example.scheduled.alert.repository.ExceptionEventRepository;
-import com.example.scheduled.alert.repository.ExceptionTypeRepository;
-import com.example.scheduled.alert.repository.TriggerConditionRepository;
 import com.example.scheduled.alert.service.AlertEscalationService;
+import com.example.scheduled.alert.service.AlertRuleCache;
+import com.example.scheduled.alert.service.RuleLadder;
 import com.example.scheduled.alert.trigger.TriggerStrategy;
-import com.example.scheduled.alert.trigger.TriggerStrategyFactory;
 import com.example.scheduled.entity.ScheduledTask;
 import com.example.scheduled.executor.TaskExecutor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Component;
 
 import static com.example.scheduled.alert.constant.AlertConstants.AlertEventType.ALERT_TRIGGERED;
+import static com.example.scheduled.alert.constant.AlertConstants.AlertEventType.EVALUATION_ERROR;
 import static com.example.scheduled.alert.constant.AlertConstants.ExceptionEventStatus.ACTIVE;
 
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Map;
 
 /**
  * 报警评估执行器 - 实现 TaskExecutor 接口
- * 由任务调度系统在指定时间调用，评估报警条件是否满足
+ * 由任务调度系统或 AlertEscalationTimer 在指定时间调用，评估报警条件是否满足
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class AlertExecutor implements TaskExecutor {
 
-    private final AlertRuleRepository alertRuleRepository;
     private final ExceptionEventRepository exceptionEventRepository;
-    private final TriggerConditionRepository triggerConditionRepository;
-    private final ExceptionTypeRepository exceptionTypeRepository;
     private final AlertEventLogRepository alertEventLogRepository;
-    private final TriggerStrategyFactory triggerStrategyFactory;
     private final AlertEscalationService alertEscalationService;
-    private final List<AlertActionExecutor> actionExecutors;
-    private final List<ExceptionDetectionStrategy> detectionStrategies;
+    private final AlertRuleCache alertRuleCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public boolean support(ScheduledTask.TaskType taskType) {
@@ -62,18 +60,27 @@ public class AlertExecutor implements TaskExecutor {
         // 模式1：从 alertRuleId 直接查询规则（初始调度）
         // 模式2：从 levelName 查询规则（依赖管理器调度或恢复调度）
         Long alertRuleId = null;
-        final String[] levelNameHolder = {null};
+        String levelName = null;
         
         if (taskData.containsKey("alertRuleId")) {
             alertRuleId = ((Number) taskData.get("alertRuleId")).longValue();
         } else if (taskData.containsKey("levelName")) {
-            levelNameHolder[0] = (String) taskData.get("levelName");
+            levelName = (String) taskData.get("levelName");
         } else {
             log.error("任务数据缺少alertRuleId或levelName: exceptionEventId={}", exceptionEventId);
             return;
         }
 
-        log.info("开始执行报警评估任务: 异常[{}] ruleId={} levelName={}", exceptionEventId, alertRuleId, levelNameHolder[0]);
+        evaluate(exceptionEventId, alertRuleId, levelName);
+    }
+
+    /**
+     * 评估异常的某一等级是否应触发报警（调度任务与内存评估定时器共用）
+     *
+     * @param alertRuleId 规则ID，为 null 时按 levelName 查找当前启用的规则
+     */
+    public void evaluate(Long exceptionEventId, Long alertRuleId, String levelName) throws Exception {
+        log.info("开始执行报警评估任务: 异常[{}] ruleId={} levelName={}", exceptionEventId, alertRuleId, levelName);
 
         try {
             // 1. 获取异常事件和报警规则
@@ -83,26 +90,24 @@ public class AlertExecutor implements TaskExecutor {
                 return;
             }
 
-            AlertRule rule;
+            // 规则、触发条件、策略、异常类型均取自缓存的升级阶梯
+            RuleLadder ladder = alertRuleCache.getLadder(event.getExceptionTypeId());
+            RuleLadder.Step step;
             if (alertRuleId != null) {
-                rule = alertRuleRepository.selectById(alertRuleId);
-                if (rule == null) {
-                    log.warn("报警规则 [{}] 不存在", alertRuleId);
+                step = ladder.findByRuleId(alertRuleId);
+                if (step == null) {
+                    log.warn("报警规则 [{}] 不存在或已禁用", alertRuleId);
                     return;
                 }
             } else {
                 // 从 levelName 查询规则
-                final String finalLevelName = levelNameHolder[0];
-                List<AlertRule> rules = alertRuleRepository.findEnabledRulesByExceptionType(event.getExceptionTypeId());
-                rule = rules.stream()
-                        .filter(r -> r.getLevel().equals(finalLevelName))
-                        .findFirst()
-                        .orElse(null);
-                if (rule == null) {
-                    log.warn("异常类型 [{}] 的等级 [{}] 规则不存在", event.getExceptionTypeId(), finalLevelName);
+                step = ladder.findByLevel(levelName);
+                if (step == null) {
+                    log.warn("异常类型 [{}] 的等级 [{}] 规则不存在", event.getExceptionTypeId(), levelName);
                     return;
                 }
             }
+            AlertRule rule = step.getRule();
 
             // 【关键】幂等性检查：如果事件已解除，跳过执行
             if (!ACTIVE.equals(event.getStatus())) {
@@ -119,30 +124,29 @@ public class AlertExecutor implements TaskExecutor {
             }
 
             // 2. 校验异常当前是否仍满足检测逻辑（不同异常类型有不同的业务判断）
-            ExceptionType exceptionType = exceptionTypeRepository.selectById(event.getExceptionTypeId());
-            if (exceptionType == null) {
+            if (ladder.getExceptionType() == null) {
                 log.warn("异常类型 [{}] 不存在", event.getExceptionTypeId());
                 return;
             }
 
-            if (!isExceptionStillActive(exceptionType, event)) {
+            if (!isExceptionStillActive(ladder, event)) {
                 log.info("异常事件 [{}] 当前未满足业务检测逻辑，跳过本次告警评估", exceptionEventId);
                 return;
             }
 
             // 3. 获取触发条件并评估
-            TriggerCondition condition = triggerConditionRepository.selectById(rule.getTriggerConditionId());
-            if (condition == null) {
-                log.warn("触发条件 [{}] 不存在", rule.getTriggerConditionId());
+            TriggerCondition condition = step.getCondition();
+            TriggerStrategy strategy = step.getStrategy();
+            if (condition == null || strategy == null) {
+                log.warn("触发条件 [{}] 不存在或类型无效", rule.getTriggerConditionId());
                 return;
             }
 
-            TriggerStrategy strategy = triggerStrategyFactory.createStrategy(condition);
             boolean shouldTrigger = strategy.shouldTrigger(condition, event, LocalDateTime.now());
 
             if (shouldTrigger) {
                 // ✅ 当前等级应该触发报警了！
-                handleAlertTriggered(event, rule, condition, strategy);
+                handleAlertTriggered(event, step);
             } else {
                 // ❌ 条件还不满足，继续等待
                 handleAlertNotTriggered(event, rule, condition, strategy);
@@ -157,28 +161,40 @@ public class AlertExecutor implements TaskExecutor {
     /**
      * 处理报警被触发的情况
      */
-    private void handleAlertTriggered(
-            ExceptionEvent event,
-            AlertRule rule,
-            TriggerCondition condition,
-            TriggerStrategy strategy) {
+    private void handleAlertTriggered(ExceptionEvent event, RuleLadder.Step step) {
+        AlertRule rule = step.getRule();
 
         log.info("报警条件满足: 异常[{}] 规则[{}] 等级[{}]", event.getId(), rule.getId(), rule.getLevel());
 
-        // 1. 记录报警事件日志
-        alertEscalationService.logAlertEvent(event, rule, "触发条件已满足");
+        // 1. 原子地标记等级已触发并更新当前等级，并发的重复评估只有一个能成功
+        String previousLevel = event.getCurrentAlertLevel();
+        LocalDateTime escalatedAt = LocalDateTime.now();
+        int marked = exceptionEventRepository.markLevelTriggered(event.getId(), rule.getLevel(),
+                AlertConstants.AlertLevels.bitOf(rule.getLevel()), escalatedAt);
+        if (marked == 0) {
+            log.info("等级 [{}] 已被其他执行触发或异常已解除，跳过: exceptionEventId={}", rule.getLevel(), event.getId());
+            return;
+        }
+        event.setCurrentAlertLevel(rule.getLevel());
+        event.setLastEscalatedAt(escalatedAt);
+
+        // 2. 记录报警事件日志（唯一约束兜底未纳入位集的等级）
+        try {
+            alertEscalationService.logAlertEvent(event, rule, "触发条件已满足");
+        } catch (DuplicateKeyException e) {
+            log.info("等级 [{}] 已有触发记录，跳过重复执行: exceptionEventId={}", rule.getLevel(), event.getId());
+            return;
+        }
 
-        // 2. 执行报警动作（发邮件、短信等）
+        // 3. 执行报警动作（发邮件、短信等）
         try {
-            executeAlertAction(event, rule);
+            executeAlertAction(event, step);
         } catch (Exception e) {
             log.error("报警动作执行失败", e);
         }
 
-        // 3. 更新异常事件的当前等级
-        event.setCurrentAlertLevel(rule.getLevel());
-        event.setLastEscalatedAt(LocalDateTime.now());
-        exceptionEventRepository.updateById(event);
+        eventPublisher.publishEvent(new AlertTriggeredEvent(this, event.getId(),
+                event.getBusinessId(), event.getBusinessType(), rule.getId(), rule.getLevel(), previousLevel));
 
         // 4. 检查是否有更高等级的规则，如果有则为下一等级创建评估任务
         alertEscalationService.scheduleNextLevelEvaluation(event, rule);
@@ -222,29 +238,24 @@ public class AlertExecutor implements TaskExecutor {
                     event.getId(), rule.getId(), rule.getLevel(), 
                     condition, event.getDetectionContext());
             
-            // 记录异常日志到数据库，便于排查
-            alertEscalationService.logAlertEvent(event, rule, 
-                    "报警评估异常：条件判断失败，nextEvaluationTime=" + nextEvaluationTime);
+            // 记录异常日志到数据库，便于排查（不能记为 ALERT_TRIGGERED，否则该等级会被当作已触发）
+            alertEscalationService.logAlertEvent(event, rule,
+                    "报警评估异常：条件判断失败，nextEvaluationTime=" + nextEvaluationTime, EVALUATION_ERROR);
         }
     }
 
     /**
      * 执行报警动作
      */
-    private void executeAlertAction(ExceptionEvent event, AlertRule rule) throws Exception {
-        String actionType = rule.getActionType();
-        Map<String, Object> actionConfig = rule.getActionConfig();
-
-        // 查找对应的动作执行器
-        for (AlertActionExecutor executor : actionExecutors) {
-            if (executor.supports(actionType)) {
-                executor.execute(actionConfig, event, rule);
-                log.info("已执行报警动作: 类型[{}]", actionType);
-                return;
-            }
+    private void executeAlertAction(ExceptionEvent event, RuleLadder.Step step) throws Exception {
+        AlertRule rule = step.getRule();
+        AlertActionExecutor executor = step.getActionExecutor();
+        if (executor == null) {
+            log.warn("未找到对应的报警动作执行器: {}", rule.getActionType());
+            return;
         }
-
-        log.warn("未找到对应的报警动作执行器: {}", actionType);
+        executor.execute(rule.getActionConfig(), event, rule);
+        log.info("已执行报警动作: 类型[{}]", rule.getActionType());
     }
 
     @Override
@@ -255,7 +266,8 @@ public class AlertExecutor implements TaskExecutor {
     /**
      * 针对不同异常类型的业务检测逻辑，判断异常是否仍然成立
      */
-    private boolean isExceptionStillActive(ExceptionType exceptionType, ExceptionEvent event) {
+    private boolean isExceptionStillActive(RuleLadder ladder, ExceptionEvent event) {
+        ExceptionType exceptionType = ladder.getExceptionType();
         String logicType = exceptionType.getDetectionLogicType();
         Map<String, Object> config = exceptionType.getDetectionConfig();
         Map<String, Object> context = event.getDetectionContext();
@@ -265,10 +277,7 @@ public class AlertExecutor implements TaskExecutor {
             return true;
         }
 
-        ExceptionDetectionStrategy strategy = detectionStrategies.stream()
-                .filter(s -> logicType.equalsIgnoreCase(s.getStrategyName()))
-                .findFirst()
-                .orElse(null);
+        ExceptionDetectionStrategy strategy = ladder.getDetectionStrategy();
 
         if (strategy == null) {
             log.warn("未找到检测策略 [{}]，默认跳过本次评估", logicType);
@@ -284,9 +293,16 @@ public class AlertExecutor implements TaskExecutor {
 
     /**
      * 检查指定等级是否已触发过（幂等性保护）
-     * 防止Quartz持久化冲突导致重复执行
+     * 防止Quartz持久化冲突导致重复执行；已知等级直接读取刚按主键查出的位集，
+     * 未纳入位集的自定义等级才查询 alert_event_log
      */
     private boolean isLevelAlreadyTriggered(ExceptionEvent event, String level) {
+        int bit = AlertConstants.AlertLevels.bitOf(level);
+        if (bit != 0) {
+            Integer triggeredLevels = event.getTriggeredLevels();
+            return triggeredLevels != null && (triggeredLevels & bit) != 0;
+        }
+
         // 检查 alert_event_log 中是否有该等级的 ALERT_TRIGGERED 记录
         LambdaQueryWrapper<AlertEventLog> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(AlertEventLog::getExceptionEventId, event.getId())
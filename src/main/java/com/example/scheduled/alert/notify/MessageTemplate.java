@@ -0,0 +1,111 @@
+package com.example.scheduled.alert.notify;
+
+import com.example.scheduled.alert.entity.AlertRule;
+import com.example.scheduled.alert.entity.ExceptionEvent;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预编译的报警消息模板（不可变）
+ * 模板只解析一次，渲染时按片段顺序拼接，不再逐条调用 String.format。支持两类占位符：
+ * - 兼容旧配置的顺序占位符 %s / %d：依次为等级、异常ID；%% 输出百分号，%n 输出换行
+ * - 命名占位符 ${level}、${eventId}、${exceptionTypeId}、${businessId}、${businessType}、${detectedAt}、${currentLevel}
+ * 含其他格式说明符（如 %5s）的模板无法预编译，渲染时退回 String.format，行为与旧实现一致
+ */
+public final class MessageTemplate {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /** 顺序占位符依次取值的字段 */
+    private static final String[] POSITIONAL_FIELDS = {"level", "eventId"};
+
+    private final String source;
+    /** 字面量片段为 String，占位符片段为 Field；为 null 表示退回 String.format */
+    private final Object[] segments;
+
+    private MessageTemplate(String source, Object[] segments) {
+        this.source = source;
+        this.segments = segments;
+    }
+
+    public static MessageTemplate compile(String source) {
+        List<Object> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int positional = 0;
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (c == '%' && i + 1 < source.length()) {
+                char next = source.charAt(i + 1);
+                if (next == '%') {
+                    literal.append('%');
+                } else if (next == 'n') {
+                    literal.append(System.lineSeparator());
+                } else if ((next == 's' || next == 'd') && positional < POSITIONAL_FIELDS.length) {
+                    flush(literal, segments);
+                    segments.add(new Field(POSITIONAL_FIELDS[positional++]));
+                } else {
+                    return new MessageTemplate(source, null);
+                }
+                i += 2;
+                continue;
+            }
+            if (c == '%') {
+                return new MessageTemplate(source, null);
+            }
+            if (c == '$' && i + 1 < source.length() && source.charAt(i + 1) == '{') {
+                int end = source.indexOf('}', i + 2);
+                if (end > 0) {
+                    flush(literal, segments);
+                    segments.add(new Field(source.substring(i + 2, end).trim()));
+                    i = end + 1;
+                    continue;
+                }
+            }
+            literal.append(c);
+            i++;
+        }
+        flush(literal, segments);
+        return new MessageTemplate(source, segments.toArray());
+    }
+
+    public String render(ExceptionEvent event, AlertRule rule) {
+        if (segments == null) {
+            return String.format(source, rule.getLevel(), event.getId());
+        }
+        StringBuilder sb = new StringBuilder(source.length() + 32);
+        for (Object segment : segments) {
+            if (segment instanceof Field field) {
+                sb.append(field.valueOf(event, rule));
+            } else {
+                sb.append((String) segment);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void flush(StringBuilder literal, List<Object> segments) {
+        if (!literal.isEmpty()) {
+            segments.add(literal.toString());
+            literal.setLength(0);
+        }
+    }
+
+    private record Field(String name) {
+
+        Object valueOf(ExceptionEvent event, AlertRule rule) {
+            return switch (name) {
+                case "level" -> rule.getLevel();
+                case "eventId" -> event.getId();
+                case "exceptionTypeId" -> event.getExceptionTypeId();
+                case "businessId" -> event.getBusinessId();
+                case "businessType" -> event.getBusinessType();
+                case "detectedAt" -> event.getDetectedAt() != null ? event.getDetectedAt().format(FORMATTER) : null;
+                case "currentLevel" -> event.getCurrentAlertLevel();
+                default -> "${" + name + "}";
+            };
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.scheduled.alert.notify;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 报警消息模板缓存
+ * 按模板原文缓存预编译结果，同一规则的多次报警、不同规则的相同模板共用同一实例
+ */
+@Component
+public class MessageTemplateCache {
+
+    /** 模板原文来自报警规则配置，数量有限，缓存不做淘汰 */
+    private final Map<String, MessageTemplate> templates = new ConcurrentHashMap<>();
+
+    /**
+     * 获取模板，template 为空时使用 defaultTemplate
+     */
+    public MessageTemplate get(String template, String defaultTemplate) {
+        String source = template != null ? template : defaultTemplate;
+        return templates.computeIfAbsent(source, MessageTemplate::compile);
+    }
+}
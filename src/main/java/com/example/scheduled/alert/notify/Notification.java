@@ -0,0 +1,19 @@
+package com.example.scheduled.alert.notify;
+
+/**
+ * 一条待发送的报警通知（发给单个收件人）
+ * 摘要窗口内发给同一收件人的多条通知合并后仍以本类型交给发送器，alertCount 为合并的报警数
+ *
+ * @param channel   通知渠道（EMAIL / SMS）
+ * @param recipient 收件人（邮箱或手机号）
+ * @param subject   主题，短信为 null
+ * @param content   正文
+ */
+public record Notification(String channel, String recipient, String subject, String content,
+                           Long exceptionEventId, String level, int alertCount) {
+
+    public static Notification of(String channel, String recipient, String subject, String content,
+                                  Long exceptionEventId, String level) {
+        return new Notification(channel, recipient, subject, content, exceptionEventId, level, 1);
+    }
+}
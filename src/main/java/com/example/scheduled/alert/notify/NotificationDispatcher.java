@@ -0,0 +1,315 @@
+package com.example.scheduled.alert.notify;
+
+import com.example.scheduled.config.ScheduledTaskProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 报警通知分发器
+ * 每个渠道一个有界队列和一个后台线程，报警动作只负责入队，评估耗时与提供方延迟解耦。
+ * 同一收件人在摘要窗口内的多条通知合并为一条摘要，到期的摘要按批调用一次发送器；
+ * 发送失败按指数退避重试，超过最大重试次数后丢弃。队列中待发送的收件人数达到上限时新收件人的通知被丢弃，
+ * 已在排队的收件人只累加摘要计数，报警风暴期间提供方调用量不超过每个窗口的收件人数
+ */
+@Slf4j
+@Component
+public class NotificationDispatcher {
+
+    private final Map<String, NotificationSender> senders;
+    private final ScheduledTaskProperties properties;
+
+    private final Map<String, ChannelQueue> queues = new HashMap<>();
+    private volatile boolean running;
+
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong mergedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong providerCallCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    public NotificationDispatcher(List<NotificationSender> senderBeans, ScheduledTaskProperties properties) {
+        Map<String, NotificationSender> registry = new HashMap<>();
+        for (NotificationSender sender : senderBeans) {
+            registry.put(sender.getChannel().toUpperCase(Locale.ROOT), sender);
+        }
+        this.senders = Map.copyOf(registry);
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!properties.isAlertNotifyAsyncEnabled()) {
+            return;
+        }
+        running = true;
+        for (NotificationSender sender : senders.values()) {
+            ChannelQueue queue = new ChannelQueue(sender);
+            Thread thread = new Thread(queue::runLoop, "alert-notify-" + sender.getChannel().toLowerCase(Locale.ROOT));
+            thread.setDaemon(true);
+            queue.thread = thread;
+            queues.put(sender.getChannel().toUpperCase(Locale.ROOT), queue);
+            thread.start();
+        }
+        log.info("报警通知分发器已启用，渠道：{}，摘要窗口：{}ms", queues.keySet(), properties.getAlertNotifyDigestWindowMs());
+    }
+
+    /**
+     * 提交一条通知；未启用异步分发时在调用线程内直接发送
+     *
+     * @return false 表示渠道不存在或通知因队列已满被丢弃
+     */
+    public boolean submit(Notification notification) throws Exception {
+        String channel = notification.channel().toUpperCase(Locale.ROOT);
+        submittedCount.incrementAndGet();
+        if (!running) {
+            NotificationSender sender = senders.get(channel);
+            if (sender == null) {
+                log.warn("未找到通知渠道的发送器: {}", notification.channel());
+                return false;
+            }
+            sender.sendBatch(List.of(notification));
+            providerCallCount.incrementAndGet();
+            sentCount.incrementAndGet();
+            return true;
+        }
+        ChannelQueue queue = queues.get(channel);
+        if (queue == null) {
+            log.warn("未找到通知渠道的发送器: {}", notification.channel());
+            return false;
+        }
+        if (!queue.offer(notification)) {
+            droppedCount.incrementAndGet();
+            log.warn("通知队列已满，丢弃通知: channel={}, recipient={}, exceptionEventId={}",
+                    channel, notification.recipient(), notification.exceptionEventId());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 队列深度、合并、丢弃、发送与重试统计
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", running);
+        Map<String, Integer> depths = new LinkedHashMap<>();
+        queues.forEach((channel, queue) -> depths.put(channel, queue.size()));
+        metrics.put("pendingRecipients", depths);
+        metrics.put("submitted", submittedCount.get());
+        metrics.put("merged", mergedCount.get());
+        metrics.put("dropped", droppedCount.get());
+        metrics.put("sent", sentCount.get());
+        metrics.put("providerCalls", providerCallCount.get());
+        metrics.put("retries", retryCount.get());
+        metrics.put("failed", failedCount.get());
+        return metrics;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (ChannelQueue queue : queues.values()) {
+            queue.thread.interrupt();
+        }
+        for (ChannelQueue queue : queues.values()) {
+            try {
+                queue.thread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // 停机前不再等待摘要窗口，剩余通知各尝试发送一次
+            List<Notification> remaining;
+            while (!(remaining = queue.drain(Long.MAX_VALUE)).isEmpty()) {
+                queue.send(remaining, false);
+            }
+        }
+    }
+
+    /**
+     * 同一收件人在一个摘要窗口内的通知，只保留前 digestMaxItems 条正文，其余只计数
+     */
+    private final class Digest {
+
+        private final String recipient;
+        private final long firstAtMs;
+        private final List<Notification> items = new ArrayList<>();
+        private int count;
+
+        Digest(String recipient, long firstAtMs) {
+            this.recipient = recipient;
+            this.firstAtMs = firstAtMs;
+        }
+
+        void add(Notification notification) {
+            if (items.size() < properties.getAlertNotifyDigestMaxItems()) {
+                items.add(notification);
+            }
+            count++;
+        }
+
+        Notification toNotification() {
+            Notification first = items.get(0);
+            if (count == 1) {
+                return first;
+            }
+            StringBuilder content = new StringBuilder();
+            for (int i = 0; i < items.size(); i++) {
+                content.append(i + 1).append(". ").append(items.get(i).content()).append('\n');
+            }
+            if (count > items.size()) {
+                content.append("……另有 ").append(count - items.size()).append(" 条报警");
+            }
+            String subject = first.subject() != null ? "[" + count + " 条报警] " + first.subject() : null;
+            return new Notification(first.channel(), recipient, subject, content.toString().stripTrailing(),
+                    first.exceptionEventId(), first.level(), count);
+        }
+    }
+
+    /**
+     * 单个渠道：按收件人合并的有界摘要队列 + 一个发送线程
+     */
+    private final class ChannelQueue {
+
+        private final NotificationSender sender;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        /** 按收件人首条通知的到达顺序排列，窗口长度相同，到期的摘要总在队首 */
+        private final LinkedHashMap<String, Digest> digests = new LinkedHashMap<>();
+        private Thread thread;
+
+        ChannelQueue(NotificationSender sender) {
+            this.sender = sender;
+        }
+
+        boolean offer(Notification notification) {
+            lock.lock();
+            try {
+                Digest digest = digests.get(notification.recipient());
+                if (digest != null) {
+                    digest.add(notification);
+                    mergedCount.incrementAndGet();
+                    return true;
+                }
+                if (digests.size() >= properties.getAlertNotifyQueueCapacity()) {
+                    return false;
+                }
+                digest = new Digest(notification.recipient(), System.currentTimeMillis());
+                digest.add(notification);
+                digests.put(notification.recipient(), digest);
+                notEmpty.signal();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return digests.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 取出首条通知早于 dueBeforeMs 的摘要，最多一批
+         */
+        List<Notification> drain(long dueBeforeMs) {
+            lock.lock();
+            try {
+                List<Notification> batch = new ArrayList<>();
+                Iterator<Digest> iterator = digests.values().iterator();
+                while (iterator.hasNext() && batch.size() < properties.getAlertNotifyBatchSize()) {
+                    Digest digest = iterator.next();
+                    if (digest.firstAtMs > dueBeforeMs) {
+                        break;
+                    }
+                    batch.add(digest.toNotification());
+                    iterator.remove();
+                }
+                return batch;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void runLoop() {
+            while (running) {
+                try {
+                    long windowMs = properties.getAlertNotifyDigestWindowMs();
+                    lock.lock();
+                    try {
+                        while (digests.isEmpty()) {
+                            notEmpty.await();
+                        }
+                        long waitMs = digests.values().iterator().next().firstAtMs + windowMs
+                                - System.currentTimeMillis();
+                        if (waitMs > 0) {
+                            notEmpty.await(waitMs, TimeUnit.MILLISECONDS);
+                            continue;
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                    List<Notification> batch;
+                    while (!(batch = drain(System.currentTimeMillis() - windowMs)).isEmpty()) {
+                        send(batch, true);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    log.error("报警通知发送线程异常: channel={}", sender.getChannel(), e);
+                }
+            }
+        }
+
+        /**
+         * 调用一次发送器；失败时按 retryBackoffMs * 2^n 退避重试，达到最大重试次数后丢弃整批
+         */
+        void send(List<Notification> batch, boolean retry) {
+            int maxRetries = retry ? Math.max(0, properties.getAlertNotifyMaxRetries()) : 0;
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    providerCallCount.incrementAndGet();
+                    sender.sendBatch(batch);
+                    sentCount.addAndGet(batch.size());
+                    return;
+                } catch (Exception e) {
+                    if (attempt >= maxRetries) {
+                        failedCount.addAndGet(batch.size());
+                        log.error("报警通知发送失败，已丢弃: channel={}, 批大小={}, 已重试={}",
+                                sender.getChannel(), batch.size(), attempt, e);
+                        return;
+                    }
+                    retryCount.incrementAndGet();
+                    long backoffMs = properties.getAlertNotifyRetryBackoffMs() << Math.min(attempt, 16);
+                    log.warn("报警通知发送失败，{}ms 后重试: channel={}, 批大小={}, 原因: {}",
+                            backoffMs, sender.getChannel(), batch.size(), e.getMessage());
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(backoffMs);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        failedCount.addAndGet(batch.size());
+                        log.error("停机中断重试，丢弃报警通知: channel={}, 批大小={}", sender.getChannel(), batch.size());
+                        return;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.scheduled.alert.notify;
+
+import java.util.List;
+
+/**
+ * 通知渠道发送器 - 对接邮件、短信等提供方
+ * 由 NotificationDispatcher 在渠道的后台线程中调用，每次调用对应一次提供方批量请求
+ */
+public interface NotificationSender {
+
+    /**
+     * 渠道名称，与报警规则的 action_type 一致（如 EMAIL、SMS）
+     */
+    String getChannel();
+
+    /**
+     * 批量发送；抛出异常表示整批失败，由分发器按重试策略重发
+     */
+    void sendBatch(List<Notification> notifications) throws Exception;
+}
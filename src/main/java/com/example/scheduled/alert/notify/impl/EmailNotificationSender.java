@@ -0,0 +1,32 @@
+package com.example.scheduled.alert.notify.impl;
+
+import com.example.scheduled.alert.notify.Notification;
+import com.example.scheduled.alert.notify.NotificationSender;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 邮件通知发送器
+ */
+@Slf4j
+@Component
+public class EmailNotificationSender implements NotificationSender {
+
+    @Override
+    public String getChannel() {
+        return "EMAIL";
+    }
+
+    @Override
+    public void sendBatch(List<Notification> notifications) throws Exception {
+        for (Notification notification : notifications) {
+            log.info("【邮件报警】发送到: {} | 主题: {} | 内容: {}",
+                notification.recipient(), notification.subject(), notification.content());
+        }
+
+        // TODO: 调用邮件服务批量发送邮件
+        // mailService.sendBatch(notifications);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.scheduled.alert.notify.impl;
+
+import com.example.scheduled.alert.notify.Notification;
+import com.example.scheduled.alert.notify.NotificationSender;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 短信通知发送器
+ */
+@Slf4j
+@Component
+public class SmsNotificationSender implements NotificationSender {
+
+    @Override
+    public String getChannel() {
+        return "SMS";
+    }
+
+    @Override
+    public void sendBatch(List<Notification> notifications) throws Exception {
+        for (Notification notification : notifications) {
+            log.info("【短信报警】发送到: {} | 内容: {}", notification.recipient(), notification.content());
+        }
+
+        // TODO: 调用短信服务批量发送短信
+        // smsService.sendBatch(notifications);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.scheduled.alert.repository;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * 报警配置版本号（alert_config_version，需先执行 alert-config-version.sql）
+ */
+@Mapper
+public interface AlertConfigVersionRepository {
+
+    @Select("SELECT version FROM alert_config_version WHERE id = 1")
+    Long currentVersion();
+
+    /**
+     * 配置变更后递增版本号，通知其他节点清空规则缓存
+     */
+    @Update("UPDATE alert_config_version SET version = version + 1 WHERE id = 1")
+    int increment();
+}
@@ -2,9 +2,14 @@ package com.example.scheduled.alert.repository;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.scheduled.alert.entity.ExceptionEvent;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.ResultMap;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -19,6 +24,21 @@ public interface ExceptionEventRepository extends BaseMapper<ExceptionEvent> {
     @Select("SELECT * FROM exception_event WHERE status = 'ACTIVE' ORDER BY detected_at DESC")
     List<ExceptionEvent> findActiveEvents();
 
+    /**
+     * 查询所有活跃异常的业务归属与待机升级（用于构建内存索引，不读取 detection_context）
+     */
+    @Select("SELECT id, business_id, business_type, pending_escalations FROM exception_event WHERE status = 'ACTIVE'")
+    @ResultMap("mybatis-plus_ExceptionEvent")
+    List<ExceptionEvent> findActiveEventKeys();
+
+    /**
+     * 查询有待机升级的活跃异常的升级状态（用于扫描过期未触发的定时器等级，不读取 detection_context）
+     */
+    @Select("SELECT id, pending_escalations, triggered_levels FROM exception_event " +
+            "WHERE status = 'ACTIVE' AND pending_escalations IS NOT NULL")
+    @ResultMap("mybatis-plus_ExceptionEvent")
+    List<ExceptionEvent> findActiveEscalationStates();
+
     /**
      * 根据异常类型查询活跃事件
      */
@@ -38,4 +58,122 @@ public interface ExceptionEventRepository extends BaseMapper<ExceptionEvent> {
     @Select("SELECT * FROM exception_event WHERE business_id = #{businessId} AND business_type = #{businessType} " +
             "AND status = 'ACTIVE' ORDER BY detected_at DESC")
     List<ExceptionEvent> findActiveEventsByBusinessIdAndType(String businessId, String businessType);
+
+    /**
+     * 多行 INSERT 批量写入异常事件，自增 ID 回填到各事件对象
+     */
+    @Insert("<script>INSERT INTO exception_event (exception_type_id, business_id, business_type, detected_at, " +
+            "detection_context, status, current_alert_level, created_at, updated_at) VALUES " +
+            "<foreach collection='list' item='e' separator=','>" +
+            "(#{e.exceptionTypeId}, #{e.businessId}, #{e.businessType}, #{e.detectedAt}, " +
+            "#{e.detectionContext,typeHandler=com.example.scheduled.config.JsonTypeHandler}, " +
+            "#{e.status}, #{e.currentAlertLevel}, #{e.createdAt}, #{e.updatedAt})" +
+            "</foreach></script>")
+    @Options(useGeneratedKeys = true, keyProperty = "id", keyColumn = "id")
+    int insertBatch(List<ExceptionEvent> events);
+
+    /**
+     * 加锁读取异常事件（读到最新已提交的 JSON 字段，并与其他节点的状态流转互斥）
+     */
+    @Select("SELECT * FROM exception_event WHERE id = #{id} FOR UPDATE")
+    @ResultMap("mybatis-plus_ExceptionEvent")
+    ExceptionEvent selectByIdForUpdate(Long id);
+
+    /**
+     * 原子地标记等级已触发并更新当前等级，不回写 JSON 字段
+     * 异常已不活跃或该等级的位已置上时不更新；levelBit 为 0（未知等级）时只做等级更新
+     *
+     * @return 1 表示本次成功标记，0 表示已被其他执行标记或异常已解除
+     */
+    @Update("UPDATE exception_event SET current_alert_level = #{level}, last_escalated_at = #{escalatedAt}, " +
+            "triggered_levels = triggered_levels | #{levelBit} " +
+            "WHERE id = #{id} AND status = 'ACTIVE' AND (triggered_levels & #{levelBit}) = 0")
+    int markLevelTriggered(Long id, String level, int levelBit, LocalDateTime escalatedAt);
+
+    /**
+     * 在 detection_context 中原地写入单个键（活跃异常）
+     */
+    @Update("UPDATE exception_event SET detection_context = " +
+            "JSON_SET(COALESCE(detection_context, JSON_OBJECT()), CONCAT('$.\"', #{key}, '\"'), #{value}) " +
+            "WHERE id = #{id} AND status = 'ACTIVE'")
+    int setDetectionContextValue(Long id, String key, String value);
+
+    /**
+     * 在某业务下所有活跃异常的 detection_context 中原地写入单个键
+     */
+    @Update("UPDATE exception_event SET detection_context = " +
+            "JSON_SET(COALESCE(detection_context, JSON_OBJECT()), CONCAT('$.\"', #{key}, '\"'), #{value}) " +
+            "WHERE business_id = #{businessId} AND business_type = #{businessType} AND status = 'ACTIVE'")
+    int setDetectionContextValueByBusiness(String businessId, String businessType, String key, String value);
+
+    /**
+     * pending_escalations 中不存在该等级时插入初始状态，已存在则不变
+     */
+    @Update("UPDATE exception_event SET pending_escalations = " +
+            "JSON_INSERT(COALESCE(pending_escalations, JSON_OBJECT()), CONCAT('$.\"', #{level}, '\"'), " +
+            "JSON_OBJECT('status', #{status}, 'createdAt', #{createdAt})) " +
+            "WHERE id = #{id}")
+    int insertPendingLevel(Long id, String level, String status, String createdAt);
+
+    /**
+     * 向等级的 dependencies 追加依赖（同一 eventType 已存在时不重复追加），缺省 logicalOperator 为 AND，并刷新 updatedAt
+     */
+    @Update("UPDATE exception_event SET pending_escalations = JSON_SET(" +
+            "JSON_INSERT(pending_escalations, CONCAT('$.\"', #{level}, '\".logicalOperator'), 'AND'), " +
+            "CONCAT('$.\"', #{level}, '\".updatedAt'), #{updatedAt}, " +
+            "CONCAT('$.\"', #{level}, '\".dependencies'), " +
+            "IF(JSON_CONTAINS(COALESCE(JSON_EXTRACT(pending_escalations, CONCAT('$.\"', #{level}, '\".dependencies')), JSON_ARRAY()), " +
+            "JSON_OBJECT('eventType', #{eventType})), " +
+            "JSON_EXTRACT(pending_escalations, CONCAT('$.\"', #{level}, '\".dependencies')), " +
+            "JSON_ARRAY_APPEND(COALESCE(JSON_EXTRACT(pending_escalations, CONCAT('$.\"', #{level}, '\".dependencies')), JSON_ARRAY()), " +
+            "'$', JSON_OBJECT('eventType', #{eventType}, 'delayMinutes', #{delayMinutes,jdbcType=INTEGER}, 'required', CAST('true' AS JSON))))) " +
+            "WHERE id = #{id}")
+    int appendPendingDependency(Long id, String level, String eventType, Integer delayMinutes, String updatedAt);
+
+    /**
+     * 记录混合条件降级信息
+     */
+    @Update("UPDATE exception_event SET pending_escalations = JSON_SET(pending_escalations, " +
+            "CONCAT('$.\"', #{level}, '\".hybridConditionId'), #{hybridConditionId}, " +
+            "CONCAT('$.\"', #{level}, '\".hybridLogicalOperator'), #{hybridLogicalOperator}, " +
+            "CONCAT('$.\"', #{level}, '\".updatedAt'), #{updatedAt}) " +
+            "WHERE id = #{id}")
+    int setPendingHybrid(Long id, String level, Long hybridConditionId, String hybridLogicalOperator, String updatedAt);
+
+    /**
+     * 记录等级评估任务ID与计划时间，不修改 status 与 dependencies；
+     * 该等级尚不存在时先以 SCHEDULED 状态创建
+     */
+    @Update("UPDATE exception_event SET pending_escalations = JSON_SET(" +
+            "JSON_INSERT(COALESCE(pending_escalations, JSON_OBJECT()), CONCAT('$.\"', #{level}, '\"'), " +
+            "JSON_OBJECT('status', 'SCHEDULED', 'createdAt', #{updatedAt})), " +
+            "CONCAT('$.\"', #{level}, '\".taskId'), #{taskId}, " +
+            "CONCAT('$.\"', #{level}, '\".scheduledTime'), #{scheduledTime}, " +
+            "CONCAT('$.\"', #{level}, '\".updatedAt'), #{updatedAt}) " +
+            "WHERE id = #{id}")
+    int setPendingTask(Long id, String level, String taskId, String scheduledTime, String updatedAt);
+
+    /**
+     * 记录由内存定时器调度的等级评估时间（不关联任务，移除旧的 taskId），不修改 status 与 dependencies；
+     * 该等级尚不存在时先以 SCHEDULED 状态创建
+     */
+    @Update("UPDATE exception_event SET pending_escalations = JSON_REMOVE(JSON_SET(" +
+            "JSON_INSERT(COALESCE(pending_escalations, JSON_OBJECT()), CONCAT('$.\"', #{level}, '\"'), " +
+            "JSON_OBJECT('status', 'SCHEDULED', 'createdAt', #{updatedAt})), " +
+            "CONCAT('$.\"', #{level}, '\".scheduledTime'), #{scheduledTime}, " +
+            "CONCAT('$.\"', #{level}, '\".updatedAt'), #{updatedAt}), " +
+            "CONCAT('$.\"', #{level}, '\".taskId')) " +
+            "WHERE id = #{id}")
+    int setPendingSchedule(Long id, String level, String scheduledTime, String updatedAt);
+
+    /**
+     * 等级由 WAITING 转为 READY 并记录评估时间；只有一个并发调用者能成功（返回 1），其余返回 0
+     */
+    @Update("UPDATE exception_event SET pending_escalations = JSON_SET(pending_escalations, " +
+            "CONCAT('$.\"', #{level}, '\".status'), 'READY', " +
+            "CONCAT('$.\"', #{level}, '\".readyAt'), #{readyAt}, " +
+            "CONCAT('$.\"', #{level}, '\".scheduledTime'), #{scheduledTime}) " +
+            "WHERE id = #{id} " +
+            "AND JSON_UNQUOTE(JSON_EXTRACT(pending_escalations, CONCAT('$.\"', #{level}, '\".status'))) = 'WAITING'")
+    int markPendingReady(Long id, String level, String readyAt, String scheduledTime);
 }
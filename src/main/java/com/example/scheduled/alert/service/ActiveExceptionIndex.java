@@ -0,0 +1,289 @@
+package com.example.scheduled.alert.service;
+
+import com.example.scheduled.alert.entity.ExceptionEvent;
+import com.example.scheduled.alert.event.AlertResolutionEvent;
+import com.example.scheduled.alert.repository.ExceptionEventRepository;
+import com.example.scheduled.config.ScheduledTaskProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.scheduled.alert.constant.AlertConstants.JsonFields.*;
+import static com.example.scheduled.alert.constant.AlertConstants.PendingEscalationStatus.WAITING;
+
+/**
+ * 活跃异常内存索引
+ * 维护 businessId → 活跃异常ID 及其待机等级所等待的事件类型，外部业务事件写入 detection_context 后
+ * 先查索引，没有等级在等待该事件类型时不再查询待机升级（写入本身不依赖索引）。
+ * <p>
+ * 索引只允许"多报"不允许"漏报"：本节点新建异常、写入待机依赖时立即登记，
+ * 解除在事务提交后移除，其余变化（包括其他节点的变更）由定期全量对账修正。
+ * 对账发现本节点此前不知道的待机事件类型时（其他节点写入的依赖），对应异常的 WAITING 等级按 detection_context
+ * 重新检查一次，弥补对账前到达本节点、因索引未命中而跳过的依赖事件
+ */
+@Slf4j
+@Component
+public class ActiveExceptionIndex {
+
+    /** 混合条件待机时不展开具体事件类型，任何事件都需要检查 */
+    private static final String ANY_EVENT = "*";
+
+    /** 本地登记后在此时间内保留，避免对账查询读不到尚未提交的新异常而误删 */
+    private static final long LOCAL_GRACE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final ExceptionEventRepository exceptionEventRepository;
+    private final ScheduledTaskProperties properties;
+    private final ObjectProvider<AlertDependencyManager> dependencyManagerProvider;
+
+    /** businessId → (异常ID → 条目) */
+    private volatile Map<String, Map<Long, Entry>> byBusiness = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong matchedCount = new AtomicLong();
+    private volatile long lastRebuildAt;
+
+    public ActiveExceptionIndex(ExceptionEventRepository exceptionEventRepository,
+                                ScheduledTaskProperties properties,
+                                ObjectProvider<AlertDependencyManager> dependencyManagerProvider) {
+        this.exceptionEventRepository = exceptionEventRepository;
+        this.properties = properties;
+        // AlertDependencyManager 依赖本类，重新检查时再获取以打破循环依赖
+        this.dependencyManagerProvider = dependencyManagerProvider;
+    }
+
+    /**
+     * 启动后构建索引，构建完成前不拒绝任何事件
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (properties.isAlertActiveIndexEnabled()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 定期与数据库对账，修正其他节点的变更和本节点未能及时移除的条目
+     */
+    @Scheduled(fixedDelayString = "${scheduled.task.alert-active-index-reconcile-interval-ms:5000}",
+            initialDelayString = "${scheduled.task.alert-active-index-reconcile-interval-ms:5000}")
+    public void reconcile() {
+        if (!properties.isAlertActiveIndexEnabled() || !ready) {
+            return;
+        }
+        List<Long> discovered;
+        try {
+            discovered = rebuild();
+        } catch (Exception e) {
+            log.error("活跃异常索引对账失败", e);
+            return;
+        }
+        for (Long exceptionEventId : discovered) {
+            try {
+                dependencyManagerProvider.getObject().recheckWaitingLevels(exceptionEventId);
+            } catch (Exception e) {
+                log.error("重新检查待机等级失败: exceptionEventId={}", exceptionEventId, e);
+            }
+        }
+    }
+
+    /**
+     * 从数据库全量重建索引；查询在锁外进行，只有合并与替换持锁，与本地登记互斥
+     *
+     * @return 出现了旧索引中没有的待机事件类型的异常ID（首次构建时为空）
+     */
+    public List<Long> rebuild() {
+        long keepAfter = System.nanoTime() - LOCAL_GRACE_NANOS;
+        Map<String, Map<Long, Entry>> rebuilt = new ConcurrentHashMap<>();
+        int count = 0;
+        for (ExceptionEvent event : exceptionEventRepository.findActiveEventKeys()) {
+            if (event.getBusinessId() == null) {
+                continue;
+            }
+            Entry entry = new Entry(event.getBusinessType(), keepAfter);
+            collectWaiting(event.getPendingEscalations(), entry.waitingEventTypes);
+            rebuilt.computeIfAbsent(event.getBusinessId(), k -> new ConcurrentHashMap<>()).put(event.getId(), entry);
+            count++;
+        }
+
+        List<Long> discovered = new ArrayList<>();
+        synchronized (this) {
+            if (ready) {
+                for (Map.Entry<String, Map<Long, Entry>> business : rebuilt.entrySet()) {
+                    Map<Long, Entry> previous = byBusiness.get(business.getKey());
+                    for (Map.Entry<Long, Entry> item : business.getValue().entrySet()) {
+                        Entry old = previous != null ? previous.get(item.getKey()) : null;
+                        if (!item.getValue().waitingEventTypes.isEmpty()
+                                && (old == null || !old.waitingEventTypes.containsAll(item.getValue().waitingEventTypes))) {
+                            discovered.add(item.getKey());
+                        }
+                    }
+                }
+            }
+            // 最近本地登记或追加依赖的条目，数据库快照可能尚未包含（事务未提交或查询期间写入），合并进新索引
+            for (Map.Entry<String, Map<Long, Entry>> business : byBusiness.entrySet()) {
+                for (Map.Entry<Long, Entry> item : business.getValue().entrySet()) {
+                    Entry local = item.getValue();
+                    if (local.modifiedAt - keepAfter < 0) {
+                        continue;
+                    }
+                    Entry merged = rebuilt.computeIfAbsent(business.getKey(), k -> new ConcurrentHashMap<>())
+                            .computeIfAbsent(item.getKey(), k -> new Entry(local.businessType, local.modifiedAt));
+                    merged.waitingEventTypes.addAll(local.waitingEventTypes);
+                }
+            }
+            byBusiness = rebuilt;
+        }
+        lastRebuildAt = System.currentTimeMillis();
+        if (!ready) {
+            ready = true;
+            log.info("活跃异常索引已构建，活跃异常数：{}，业务数：{}", count, rebuilt.size());
+        }
+        return discovered;
+    }
+
+    /**
+     * 登记新建的活跃异常
+     */
+    public synchronized void register(ExceptionEvent event) {
+        if (event.getId() == null || event.getBusinessId() == null) {
+            return;
+        }
+        byBusiness.computeIfAbsent(event.getBusinessId(), k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(event.getId(), k -> new Entry(event.getBusinessType(), System.nanoTime()));
+    }
+
+    /**
+     * 登记待机等级所等待的事件类型；eventType 为 null 表示混合条件待机
+     */
+    public synchronized void addWaiting(ExceptionEvent event, String eventType) {
+        if (event.getId() == null || event.getBusinessId() == null) {
+            return;
+        }
+        Entry entry = byBusiness.computeIfAbsent(event.getBusinessId(), k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(event.getId(), k -> new Entry(event.getBusinessType(), System.nanoTime()));
+        entry.waitingEventTypes.add(eventType != null ? eventType : ANY_EVENT);
+        entry.modifiedAt = System.nanoTime();
+    }
+
+    /**
+     * 报警解除事务提交后移除
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onAlertResolved(AlertResolutionEvent event) {
+        if (event.getExceptionEventId() == null || event.getBusinessId() == null) {
+            return;
+        }
+        Map<Long, Entry> entries = byBusiness.get(event.getBusinessId());
+        if (entries != null) {
+            entries.remove(event.getExceptionEventId());
+            if (entries.isEmpty()) {
+                byBusiness.remove(event.getBusinessId(), entries);
+            }
+        }
+    }
+
+    /**
+     * 该业务下是否可能存在活跃异常；索引未就绪或未启用时总是返回 true
+     *
+     * @param businessType 为 null 时匹配任意业务类型
+     */
+    public boolean mayHaveActive(String businessId, String businessType) {
+        if (!isAuthoritative()) {
+            return true;
+        }
+        Map<Long, Entry> entries = byBusiness.get(businessId);
+        if (entries != null) {
+            for (Entry entry : entries.values()) {
+                if (businessType == null || businessType.equals(entry.businessType)) {
+                    matchedCount.incrementAndGet();
+                    return true;
+                }
+            }
+        }
+        rejectedCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 该业务下是否可能有待机等级在等待该事件类型
+     */
+    public boolean mayBeWaitingFor(String businessId, String businessType, String eventType) {
+        if (!isAuthoritative()) {
+            return true;
+        }
+        Map<Long, Entry> entries = byBusiness.get(businessId);
+        if (entries == null) {
+            return false;
+        }
+        for (Entry entry : entries.values()) {
+            if ((businessType == null || businessType.equals(entry.businessType))
+                    && (entry.waitingEventTypes.contains(eventType) || entry.waitingEventTypes.contains(ANY_EVENT))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.isAlertActiveIndexEnabled());
+        stats.put("ready", ready);
+        Map<String, Map<Long, Entry>> snapshot = byBusiness;
+        stats.put("businessCount", snapshot.size());
+        stats.put("activeCount", snapshot.values().stream().mapToInt(Map::size).sum());
+        stats.put("matched", matchedCount.get());
+        stats.put("rejected", rejectedCount.get());
+        stats.put("lastRebuildAt", lastRebuildAt);
+        return stats;
+    }
+
+    private boolean isAuthoritative() {
+        return ready && properties.isAlertActiveIndexEnabled();
+    }
+
+    /**
+     * 收集 pending_escalations 中 WAITING 等级所等待的事件类型
+     */
+    private static void collectWaiting(Map<String, Object> pendingEscalations, Set<String> waitingEventTypes) {
+        if (pendingEscalations == null) {
+            return;
+        }
+        for (Object levelData : pendingEscalations.values()) {
+            if (!(levelData instanceof Map<?, ?> levelStatus) || !WAITING.equals(levelStatus.get(STATUS))) {
+                continue;
+            }
+            if (levelStatus.get("hybridConditionId") != null) {
+                waitingEventTypes.add(ANY_EVENT);
+            }
+            if (levelStatus.get(DEPENDENCIES) instanceof List<?> dependencies) {
+                for (Object dependency : dependencies) {
+                    if (dependency instanceof Map<?, ?> dep && dep.get(EVENT_TYPE) != null) {
+                        waitingEventTypes.add(dep.get(EVENT_TYPE).toString());
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final String businessType;
+        private final Set<String> waitingEventTypes = ConcurrentHashMap.newKeySet();
+        private volatile long modifiedAt;
+
+        Entry(String businessType, long modifiedAt) {
+            this.businessType = businessType;
+            this.modifiedAt = modifiedAt;
+        }
+    }
+}
@@ -6,11 +6,12 @@ import com.example.scheduled.alert.event.AlertSystemEvent;
 import com.example.scheduled.alert.repository.ExceptionEventRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -29,7 +30,7 @@ import static com.example.scheduled.alert.constant.AlertConstants.TimeFieldSuffi
  * 事件流：
  * 1. 外部系统（如钻孔系统）发布事件（如 BoreholStartEvent）
  * 2. Spring ApplicationEventPublisher 广播事件
- * 3. AlertDependencyManager 监听事件 (@EventListener)
+ * 3. AlertEventPipeline 监听事件并按业务ID分区排队，后台线程合并、批量调用 process
  * 4. 更新 detection_context 记录事件时间
  * 5. 检查所有 ACTIVE 异常的 pending_escalations
  * 6. 如果依赖满足，调用 AlertEscalationService 创建下一级任务
@@ -41,29 +42,25 @@ public class AlertDependencyManager {
 
     private final ExceptionEventRepository exceptionEventRepository;
     private final AlertEscalationService alertEscalationService;
+    private final ActiveExceptionIndex activeExceptionIndex;
 
     /**
-     * 监听所有告警系统事件
+     * 处理一个告警系统事件（由 AlertEventPipeline 在后台线程、事务内调用）
      * 包括外部业务事件（如钻孔开始、班次结束等）
+     * 异常（含死锁等数据访问异常）不在此吞掉：同批事件共用一个事务，由管道回滚整批后逐条重试
      *
      * @param event Spring 事件
      */
-    @EventListener
-    @Transactional(rollbackFor = Exception.class)
-    public void onAlertSystemEvent(AlertSystemEvent event) {
-        log.info("监听到告警系统事件: eventType={}, exceptionEventId={}",
+    public void process(AlertSystemEvent event) {
+        log.info("处理告警系统事件: eventType={}, exceptionEventId={}",
                 event.getEventType(), event.getExceptionEventId());
 
-        try {
-            // 记录事件时间到 detection_context
-            recordEventToContext(event);
-
-            // 检查所有待机的升级任务
-            checkAndTriggerPendingEscalations(event);
+        // 记录事件时间到 detection_context：总是执行这一条 UPDATE，不依赖内存索引，
+        // 其他节点刚创建、本节点索引尚未对账到的异常也能记下事件时间
+        int updated = recordEventToContext(event);
 
-        } catch (Exception e) {
-            log.error("处理告警系统事件时出现异常: eventType={}", event.getEventType(), e);
-        }
+        // 检查所有待机的升级任务
+        checkAndTriggerPendingEscalations(event, updated);
     }
 
     /**
@@ -73,54 +70,36 @@ public class AlertDependencyManager {
      * 逻辑：
      * 1. 如果事件指定了 exceptionEventId，则只更新该异常事件
      * 2. 如果事件只有 businessId，则更新所有归属于该业务的活跃异常事件
+     *
+     * @return 更新的异常数
      */
-    private void recordEventToContext(AlertSystemEvent event) {
-        try {
-            List<ExceptionEvent> eventsToUpdate = new ArrayList<>();
-
-            // 情况1：指定了异常事件ID，直接更新该异常
-            if (event.getExceptionEventId() != null) {
-                ExceptionEvent exceptionEvent = exceptionEventRepository.selectById(event.getExceptionEventId());
-                if (exceptionEvent != null && ACTIVE.equals(exceptionEvent.getStatus())) {
-                    eventsToUpdate.add(exceptionEvent);
-                }
-            }
-            // 情况2：只有业务ID，查询所有归属于该业务的活跃异常事件
-            else if (event.getBusinessId() != null) {
-                eventsToUpdate = exceptionEventRepository.findActiveEventsByBusinessIdAndType(
-                        event.getBusinessId(),
-                        event.getBusinessType()
-                );
-                log.debug("根据业务ID查询到 {} 个活跃异常事件: businessId={}, businessType={}",
-                        eventsToUpdate.size(), event.getBusinessId(), event.getBusinessType());
-            }
-
-            // 更新所有匹配的异常事件的 detection_context
-            for (ExceptionEvent exceptionEvent : eventsToUpdate) {
-                // 初始化或更新 detection_context
-                if (exceptionEvent.getDetectionContext() == null) {
-                    exceptionEvent.setDetectionContext(new java.util.HashMap<>());
-                }
-
-                // 记录事件发生时间
-                exceptionEvent.getDetectionContext().put(
-                        event.getEventType() + TIME,
-                        LocalDateTime.now().toString()
-                );
-
-                exceptionEventRepository.updateById(exceptionEvent);
-                log.info("已更新事件上下文: exceptionEventId={}, businessId={}, eventType={}",
-                        exceptionEvent.getId(), exceptionEvent.getBusinessId(), event.getEventType());
-            }
-
-            if (eventsToUpdate.isEmpty()) {
-                log.debug("未找到需要更新的异常事件: eventType={}, businessId={}, exceptionEventId={}",
-                        event.getEventType(), event.getBusinessId(), event.getExceptionEventId());
-            }
+    private int recordEventToContext(AlertSystemEvent event) {
+        // 以 JSON_SET 原地写入单个键，不读取、不回写整行，同一异常上的并发事件互不覆盖
+        String key = event.getEventType() + TIME;
+        // 使用事件发布时间，异步处理的排队延迟不影响相对时间计算
+        String eventTime = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(event.getTimestamp()), ZoneId.systemDefault()).toString();
+        int updated = 0;
+
+        // 情况1：指定了异常事件ID，直接更新该异常
+        if (event.getExceptionEventId() != null) {
+            updated = exceptionEventRepository.setDetectionContextValue(
+                    event.getExceptionEventId(), key, eventTime);
+        }
+        // 情况2：只有业务ID，更新所有归属于该业务的活跃异常事件
+        else if (event.getBusinessId() != null) {
+            updated = exceptionEventRepository.setDetectionContextValueByBusiness(
+                    event.getBusinessId(), event.getBusinessType(), key, eventTime);
+        }
 
-        } catch (Exception e) {
-            log.error("记录事件到 detection_context 时出现异常: businessId={}", event.getBusinessId(), e);
+        if (updated > 0) {
+            log.info("已更新事件上下文: exceptionEventId={}, businessId={}, eventType={}, count={}",
+                    event.getExceptionEventId(), event.getBusinessId(), event.getEventType(), updated);
+        } else {
+            log.debug("未找到需要更新的异常事件: eventType={}, businessId={}, exceptionEventId={}",
+                    event.getEventType(), event.getBusinessId(), event.getExceptionEventId());
         }
+        return updated;
     }
 
     /**
@@ -129,136 +108,150 @@ public class AlertDependencyManager {
      * <p>
      * 逻辑：
      * 1. 如果事件指定了 exceptionEventId，只检查该异常
-     * 2. 如果事件只有 businessId，检查所有归属于该业务的活跃异常
+     * 2. 如果事件只有 businessId，检查所有归属于该业务的活跃异常；
+     *    该业务下没有活跃异常（updated 为 0）时不查询，索引只用于跳过没有等级等待该事件的查询，
+     *    索引中没有该业务但 UPDATE 命中了异常时（其他节点新建、尚未对账）仍然查询
+     *
+     * @param updated recordEventToContext 更新的异常数
      */
-    private void checkAndTriggerPendingEscalations(AlertSystemEvent event) {
-        try {
-            List<ExceptionEvent> activeEvents = new ArrayList<>();
-
-            // 情况1：指定了异常事件ID，只检查该异常
-            if (event.getExceptionEventId() != null) {
-                ExceptionEvent exceptionEvent = exceptionEventRepository.selectById(event.getExceptionEventId());
-                if (exceptionEvent != null && ACTIVE.equals(exceptionEvent.getStatus())
-                        && exceptionEvent.getPendingEscalations() != null) {
-                    activeEvents.add(exceptionEvent);
-                }
+    private void checkAndTriggerPendingEscalations(AlertSystemEvent event, int updated) {
+        List<ExceptionEvent> activeEvents = new ArrayList<>();
+
+        // 情况1：指定了异常事件ID，只检查该异常
+        if (event.getExceptionEventId() != null) {
+            ExceptionEvent exceptionEvent = exceptionEventRepository.selectById(event.getExceptionEventId());
+            if (exceptionEvent != null && ACTIVE.equals(exceptionEvent.getStatus())
+                    && exceptionEvent.getPendingEscalations() != null) {
+                activeEvents.add(exceptionEvent);
             }
-            // 情况2：根据业务ID查询所有相关的活跃异常事件
-            else if (event.getBusinessId() != null) {
-                // 构建查询条件：ACTIVE状态 + 相同businessId + 有待机升级
-                LambdaQueryWrapper<ExceptionEvent> wrapper =
-                        new LambdaQueryWrapper<ExceptionEvent>()
-                                .eq(ExceptionEvent::getStatus, ACTIVE)
-                                .eq(ExceptionEvent::getBusinessId, event.getBusinessId())
-                                .isNotNull(ExceptionEvent::getPendingEscalations);
-
-                // 如果指定了业务类型，也加入过滤条件
-                if (event.getBusinessType() != null) {
-                    wrapper.eq(ExceptionEvent::getBusinessType, event.getBusinessType());
-                }
-
-                activeEvents = exceptionEventRepository.selectList(wrapper);
-
-                log.debug("根据业务ID查询到 {} 个待检查的异常事件: businessId={}, businessType={}",
-                        activeEvents.size(), event.getBusinessId(), event.getBusinessType());
+        }
+        // 情况2：根据业务ID查询所有相关的活跃异常事件（索引显示没有等待该事件的待机等级时跳过；
+        // 其他节点刚写入、尚未对账的依赖由对账后的 recheckWaitingLevels 补查）
+        else if (event.getBusinessId() != null && updated > 0
+                && (!activeExceptionIndex.mayHaveActive(event.getBusinessId(), event.getBusinessType())
+                || activeExceptionIndex.mayBeWaitingFor(event.getBusinessId(), event.getBusinessType(), event.getEventType()))) {
+            // 构建查询条件：ACTIVE状态 + 相同businessId + 有待机升级
+            LambdaQueryWrapper<ExceptionEvent> wrapper =
+                    new LambdaQueryWrapper<ExceptionEvent>()
+                            .eq(ExceptionEvent::getStatus, ACTIVE)
+                            .eq(ExceptionEvent::getBusinessId, event.getBusinessId())
+                            .isNotNull(ExceptionEvent::getPendingEscalations);
+
+            // 如果指定了业务类型，也加入过滤条件
+            if (event.getBusinessType() != null) {
+                wrapper.eq(ExceptionEvent::getBusinessType, event.getBusinessType());
             }
 
-            // 检查每个匹配的异常事件
-            for (ExceptionEvent exceptionEvent : activeEvents) {
-                checkPendingEscalationsForEvent(exceptionEvent, event);
-            }
+            activeEvents = exceptionEventRepository.selectList(wrapper);
 
-            if (activeEvents.isEmpty()) {
-                log.debug("未找到需要检查待机升级的异常事件: eventType={}, businessId={}",
-                        event.getEventType(), event.getBusinessId());
-            }
+            log.debug("根据业务ID查询到 {} 个待检查的异常事件: businessId={}, businessType={}",
+                    activeEvents.size(), event.getBusinessId(), event.getBusinessType());
+        }
 
-        } catch (Exception e) {
-            log.error("检查待机升级时出现异常: businessId={}", event.getBusinessId(), e);
+        // 检查每个匹配的异常事件
+        for (ExceptionEvent exceptionEvent : activeEvents) {
+            checkPendingEscalationsForEvent(exceptionEvent.getId(), event.getEventType());
+        }
+
+        if (activeEvents.isEmpty()) {
+            log.debug("未找到需要检查待机升级的异常事件: eventType={}, businessId={}",
+                    event.getEventType(), event.getBusinessId());
         }
     }
 
+    /**
+     * 按 detection_context 重新检查单个异常的 WAITING 等级（活跃异常索引对账发现新的待机事件类型时调用）
+     * 依赖事件可能在本节点索引得知该依赖之前到达并被跳过查询，事件时间已写入 detection_context，在此补做一次检查
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void recheckWaitingLevels(Long exceptionEventId) {
+        checkPendingEscalationsForEvent(exceptionEventId, "INDEX_RECONCILE");
+    }
+
     /**
      * 检查单个异常的待机升级
      * 遍历其 pending_escalations 中的每个等级，检查依赖是否满足
+     *
+     * @param trigger 触发本次检查的事件类型（仅用于日志）
      */
-    private void checkPendingEscalationsForEvent(ExceptionEvent exceptionEvent, AlertSystemEvent triggeringEvent) {
-        try {
-            if (exceptionEvent.getPendingEscalations() == null || exceptionEvent.getPendingEscalations().isEmpty()) {
-                return;
-            }
+    private void checkPendingEscalationsForEvent(Long exceptionEventId, String trigger) {
+        // 加锁重读：看到其他并发事件已提交的 detection_context，避免彼此都认为依赖未满足
+        ExceptionEvent exceptionEvent = exceptionEventRepository.selectByIdForUpdate(exceptionEventId);
+        if (exceptionEvent == null || !ACTIVE.equals(exceptionEvent.getStatus())) {
+            return;
+        }
+        if (exceptionEvent.getPendingEscalations() == null || exceptionEvent.getPendingEscalations().isEmpty()) {
+            return;
+        }
 
-            // 遍历每个待机的等级
-            for (Map.Entry<String, Object> entry : exceptionEvent.getPendingEscalations().entrySet()) {
-                String levelName = entry.getKey();
-                Object levelData = entry.getValue();
+        // 遍历每个待机的等级
+        for (Map.Entry<String, Object> entry : exceptionEvent.getPendingEscalations().entrySet()) {
+            String levelName = entry.getKey();
+            Object levelData = entry.getValue();
 
-                if (!(levelData instanceof Map)) {
-                    continue;
-                }
+            if (!(levelData instanceof Map)) {
+                continue;
+            }
 
-                @SuppressWarnings("unchecked")
-                Map<String, Object> levelStatus = (Map<String, Object>) levelData;
-                String status = (String) levelStatus.get(STATUS);
+            @SuppressWarnings("unchecked")
+            Map<String, Object> levelStatus = (Map<String, Object>) levelData;
+            String status = (String) levelStatus.get(STATUS);
 
-                // 只处理 WAITING 状态的升级
-                if (!WAITING.equals(status)) {
+            // 只处理 WAITING 状态的升级
+            if (!WAITING.equals(status)) {
+                continue;
+            }
+
+            Object depsObj = levelStatus.get(DEPENDENCIES);
+            Object hybridIdObj = levelStatus.get("hybridConditionId");
+
+            // 情况1：正常情况，有 dependencies 字段
+            if (depsObj instanceof List && !((List<?>) depsObj).isEmpty()) {
+                // 第一步：检查所有依赖事件是否都已发生（不考虑时间延迟）
+                boolean eventsSatisfied = checkAllEventsOccurred(levelStatus, exceptionEvent);
+                if (!eventsSatisfied) {
+                    log.debug("报警升级依赖事件未满足: exceptionEventId={}, level={}",
+                            exceptionEvent.getId(), levelName);
                     continue;
                 }
 
-                Object depsObj = levelStatus.get(DEPENDENCIES);
-                Object hybridIdObj = levelStatus.get("hybridConditionId");
-
-                // 情况1：正常情况，有 dependencies 字段
-                if (depsObj instanceof List && !((List<?>) depsObj).isEmpty()) {
-                    // 第一步：检查所有依赖事件是否都已发生（不考虑时间延迟）
-                    boolean eventsSatisfied = checkAllEventsOccurred(levelStatus, exceptionEvent);
-                    if (!eventsSatisfied) {
-                        log.debug("报警升级依赖事件未满足: exceptionEventId={}, level={}",
-                                exceptionEvent.getId(), levelName);
-                        continue;
-                    }
+                log.info("报警升级依赖事件已满足: exceptionEventId={}, level={}, triggeringEvent={}",
+                        exceptionEvent.getId(), levelName, trigger);
 
-                    log.info("报警升级依赖事件已满足: exceptionEventId={}, level={}, triggeringEvent={}",
-                            exceptionEvent.getId(), levelName, triggeringEvent.getEventType());
+                // 第二步：计算最晚需要等待的时间（考虑所有依赖的延迟时间）
+                LocalDateTime maxRequiredTime = calculateMaxRequiredTime(levelStatus, exceptionEvent);
 
-                    // 第二步：计算最晚需要等待的时间（考虑所有依赖的延迟时间）
-                    LocalDateTime maxRequiredTime = calculateMaxRequiredTime(levelStatus, exceptionEvent);
+                // 第三步：根据时间决定立即执行还是延迟执行
+                LocalDateTime scheduleTime = (maxRequiredTime != null && LocalDateTime.now().isBefore(maxRequiredTime))
+                        ? maxRequiredTime
+                        : LocalDateTime.now();
 
-                    // 第三步：更新 pending_escalations 状态为 READY
-                    levelStatus.put(STATUS, READY);
-                    levelStatus.put(READY_AT, LocalDateTime.now().toString());
-                    if (maxRequiredTime != null) {
-                        levelStatus.put("scheduledTime", maxRequiredTime.toString());
-                    }
-                    exceptionEventRepository.updateById(exceptionEvent);
-
-                    // 第四步：根据时间决定立即执行还是延迟执行
-                    LocalDateTime scheduleTime = (maxRequiredTime != null && LocalDateTime.now().isBefore(maxRequiredTime))
-                            ? maxRequiredTime
-                            : LocalDateTime.now();
-
-                    alertEscalationService.scheduleEscalationEvaluation(exceptionEvent.getId(), levelName, scheduleTime);
-                    
-                    if (scheduleTime.isAfter(LocalDateTime.now())) {
-                        log.info("延迟调度等级 [{}] 评估任务于 {}: exceptionEventId={}", levelName, scheduleTime, exceptionEvent.getId());
-                    } else {
-                        log.info("立即调度等级 [{}] 评估任务: exceptionEventId={}", levelName, exceptionEvent.getId());
-                    }
-                }
-                // 情况2：混合条件降级
-                else if (hybridIdObj != null) {
-                    log.warn("发现混合条件降级状态，暂不处理: exceptionEventId={}, level={}, hybridConditionId={}",
-                            exceptionEvent.getId(), levelName, hybridIdObj);
-                }
-                else {
-                    log.warn("待机等级缺少依赖信息: exceptionEventId={}, level={}",
+                // 第四步：pending_escalations 状态 WAITING -> READY，条件更新保证同一等级只调度一次
+                int marked = exceptionEventRepository.markPendingReady(exceptionEvent.getId(), levelName,
+                        LocalDateTime.now().toString(), scheduleTime.toString());
+                if (marked == 0) {
+                    log.debug("等级已被其他事件推进，跳过: exceptionEventId={}, level={}",
                             exceptionEvent.getId(), levelName);
+                    continue;
                 }
-            }
 
-        } catch (Exception e) {
-            log.error("检查单个异常的待机升级时出现异常: exceptionEventId={}", exceptionEvent.getId(), e);
+                alertEscalationService.scheduleEscalationEvaluation(exceptionEvent.getId(), levelName, scheduleTime);
+                
+                if (scheduleTime.isAfter(LocalDateTime.now())) {
+                    log.info("延迟调度等级 [{}] 评估任务于 {}: exceptionEventId={}", levelName, scheduleTime, exceptionEvent.getId());
+                } else {
+                    log.info("立即调度等级 [{}] 评估任务: exceptionEventId={}", levelName, exceptionEvent.getId());
+                }
+            }
+            // 情况2：混合条件降级
+            else if (hybridIdObj != null) {
+                log.warn("发现混合条件降级状态，暂不处理: exceptionEventId={}, level={}, hybridConditionId={}",
+                        exceptionEvent.getId(), levelName, hybridIdObj);
+            }
+            else {
+                log.warn("待机等级缺少依赖信息: exceptionEventId={}, level={}",
+                        exceptionEvent.getId(), levelName);
+            }
         }
     }
 
@@ -1,13 +1,11 @@
 package com.example.scheduled.alert.service;
 
-import com.example.scheduled.alert.constant.AlertConstants;
 import com.example.scheduled.alert.entity.*;
 import com.example.scheduled.alert.repository.AlertEventLogRepository;
-import com.example.scheduled.alert.repository.AlertRuleRepository;
 import com.example.scheduled.alert.repository.ExceptionEventRepository;
-import com.example.scheduled.alert.repository.TriggerConditionRepository;
 import com.example.scheduled.alert.trigger.TriggerStrategy;
-import com.example.scheduled.alert.trigger.TriggerStrategyFactory;
+import com.example.scheduled.alert.trigger.expression.TriggerExpression;
+import com.example.scheduled.alert.trigger.expression.TriggerExpressionCompiler;
 import com.example.scheduled.entity.ScheduledTask;
 import com.example.scheduled.service.TaskManagementService;
 import lombok.RequiredArgsConstructor;
@@ -16,30 +14,50 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import static com.example.scheduled.alert.constant.AlertConstants.ActionStatus.SENT;
+import static com.example.scheduled.alert.constant.AlertConstants.AlertEventType.ALERT_TRIGGERED;
 import static com.example.scheduled.alert.constant.AlertConstants.Defaults.*;
 import static com.example.scheduled.alert.constant.AlertConstants.PendingEscalationStatus.WAITING;
 import static com.example.scheduled.alert.constant.AlertConstants.TriggerType.*;
 
 /**
  * 报警升级服务 - 负责报警的升级流程和评估任务的创建
+ * 启用 AlertEscalationTimer 时评估由内存定时器调度，每次升级只写一次 pending_escalations；
+ * 关闭时为每次评估创建一次性 ALERT 任务
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class AlertEscalationService {
 
-    private final AlertRuleRepository alertRuleRepository;
+    private static final int EVENT_INSERT_BATCH_SIZE = 500;
+
+    /** 已到期的评估时间推迟到当前时间之后的秒数，满足一次性任务"执行时间不早于当前时间"的校验 */
+    private static final long DUE_TIME_MARGIN_SECONDS = 1;
+
     private final ExceptionEventRepository exceptionEventRepository;
     private final AlertEventLogRepository alertEventLogRepository;
     private final TaskManagementService taskManagementService;
-    private final TriggerStrategyFactory triggerStrategyFactory;
-    private final TriggerConditionRepository triggerConditionRepository;
+    private final TriggerExpressionCompiler triggerExpressionCompiler;
+    private final ActiveExceptionIndex activeExceptionIndex;
+    private final AlertRuleCache alertRuleCache;
+    private final AlertEscalationTimer alertEscalationTimer;
+
+    /**
+     * 写入异常事件并创建初始评估任务，两者在同一事务内
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void reportEvent(ExceptionEvent event) {
+        exceptionEventRepository.insert(event);
+        activeExceptionIndex.register(event);
+        scheduleInitialEvaluation(event);
+    }
 
     /**
      * 当异常事件创建时调用 - 为最低等级创建初始评估任务
@@ -48,47 +66,161 @@ public class AlertEscalationService {
     public void scheduleInitialEvaluation(ExceptionEvent event) {
         log.info("为异常事件 [{}] 创建初始评估任务", event.getId());
 
-        // 1. 获取该异常类型的所有启用的报警规则
-        List<AlertRule> allRules = alertRuleRepository
-                .findEnabledRulesByExceptionType(event.getExceptionTypeId());
-        
-        // 按等级优先级排序（从低到高）
+        // 1. 获取该异常类型的升级阶梯（已按等级优先级从低到高排序）
         // BLUE/LEVEL_1 (priority=1) < YELLOW/LEVEL_2 (priority=2) < RED/LEVEL_3 (priority=3)
-        allRules.sort(Comparator.comparingInt((AlertRule rule) -> AlertConstants.AlertLevels.getPriority(rule.getLevel()))
-                                .thenComparingLong(AlertRule::getId));
-
-        if (allRules.isEmpty()) {
+        RuleLadder ladder = alertRuleCache.getLadder(event.getExceptionTypeId());
+        if (ladder.isEmpty()) {
             log.warn("异常类型 [{}] 没有配置任何报警规则", event.getExceptionTypeId());
             return;
         }
 
         // 2. 只为最低等级规则创建评估任务
-        AlertRule lowestRule = allRules.get(0);
-        createEvaluationTask(event, lowestRule);
+        createEvaluationTask(event, ladder.lowest());
+    }
+
+    /**
+     * 批量写入异常事件并创建初始评估任务（批量上报异常时调用）
+     * 两者在同一事务内：任一评估任务创建失败时事件一并回滚，不会留下没有评估的 ACTIVE 事件，
+     * 客户端重试也不会产生重复事件；内存定时器在提交后才登记
+     *
+     * @return 创建的评估任务数
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public int reportEvents(List<ExceptionEvent> events) {
+        for (int from = 0; from < events.size(); from += EVENT_INSERT_BATCH_SIZE) {
+            exceptionEventRepository.insertBatch(
+                    events.subList(from, Math.min(from + EVENT_INSERT_BATCH_SIZE, events.size())));
+        }
+        // 索引只用于跳过查询，回滚后残留的条目只会多一次查询
+        events.forEach(activeExceptionIndex::register);
+        return scheduleInitialEvaluations(events);
+    }
+
+    /**
+     * 批量创建初始评估任务
+     * 按异常类型分组，每个类型只加载一次规则、触发条件和策略；可直接算出评估时间的事件登记内存定时器
+     * （未启用时合并为一次批量建任务），需要补偿（相对事件缺失、混合条件）的事件逐个走 createEvaluationTask
+     *
+     * @return 创建的评估任务数
+     */
+    @Transactional
+    public int scheduleInitialEvaluations(List<ExceptionEvent> events) {
+        Map<Long, List<ExceptionEvent>> eventsByType = new LinkedHashMap<>();
+        for (ExceptionEvent event : events) {
+            eventsByType.computeIfAbsent(event.getExceptionTypeId(), k -> new ArrayList<>()).add(event);
+        }
+
+        List<ScheduledTask> tasks = new ArrayList<>();
+        List<ExceptionEvent> taskEvents = new ArrayList<>();
+        List<AlertRule> taskRules = new ArrayList<>();
+        int timerCount = 0;
+        int fallback = 0;
+
+        for (Map.Entry<Long, List<ExceptionEvent>> entry : eventsByType.entrySet()) {
+            RuleLadder ladder = alertRuleCache.getLadder(entry.getKey());
+            if (ladder.isEmpty()) {
+                log.warn("异常类型 [{}] 没有配置任何报警规则", entry.getKey());
+                continue;
+            }
+            RuleLadder.Step lowest = ladder.lowest();
+            AlertRule lowestRule = lowest.getRule();
+
+            TriggerCondition condition = lowest.getCondition();
+            TriggerStrategy strategy = lowest.getStrategy();
+            if (condition == null || strategy == null) {
+                log.warn("触发条件不存在或类型无效: triggerConditionId={}", lowestRule.getTriggerConditionId());
+                continue;
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            for (ExceptionEvent event : entry.getValue()) {
+                LocalDateTime nextEvaluationTime = strategy.calculateNextEvaluationTime(condition, event, now);
+                if (nextEvaluationTime == null) {
+                    // 需要补偿推导或等待依赖事件，沿用单条处理逻辑
+                    createEvaluationTask(event, lowest);
+                    fallback++;
+                    continue;
+                }
+                // 条件已成立时策略返回的时刻不晚于 now（如混合条件的下次成立时间），按已到期立即评估
+                if (alertEscalationTimer.isEnabled()) {
+                    scheduleTimer(event, lowestRule, nextEvaluationTime);
+                    timerCount++;
+                    continue;
+                }
+
+                Map<String, Object> taskData = new HashMap<>();
+                taskData.put("exceptionEventId", event.getId());
+                taskData.put("alertRuleId", lowestRule.getId());
+                taskData.put("evaluationType", "ALERT_EVALUATION");
+
+                tasks.add(ScheduledTask.builder()
+                        .taskName("报警评估-异常[" + event.getId() + "]-规则[" + lowestRule.getId() + "]")
+                        .taskType(ScheduledTask.TaskType.ALERT)
+                        .executeTime(nextEvaluationTime)
+                        .taskData(taskData)
+                        .maxRetryCount(DEFAULT_MAX_RETRY_COUNT)
+                        .priority(lowestRule.getPriority())
+                        .executionTimeout(DEFAULT_EXECUTION_TIMEOUT)
+                        .build());
+                taskEvents.add(event);
+                taskRules.add(lowestRule);
+            }
+        }
+
+        if (!tasks.isEmpty()) {
+            // 以提交时的当前时间重新校正，构建任务期间已到期的评估时间不会让整批失败
+            for (ScheduledTask task : tasks) {
+                task.setExecuteTime(dueTime(task.getExecuteTime()));
+            }
+            taskManagementService.createOnceTasks(tasks);
+        }
+
+        for (int i = 0; i < tasks.size(); i++) {
+            ScheduledTask task = tasks.get(i);
+            ExceptionEvent event = taskEvents.get(i);
+            String taskId = String.valueOf(task.getId());
+            updatePendingEscalationsWithTaskId(event, taskRules.get(i).getLevel(), taskId, task.getExecuteTime());
+            recordPendingTask(event.getId(), taskId);
+        }
+
+        log.info("批量创建初始评估任务完成: 异常数={}, 异常类型数={}, 批量任务数={}, 定时器数={}, 单独处理数={}",
+                events.size(), eventsByType.size(), tasks.size(), timerCount, fallback);
+        return tasks.size() + timerCount + fallback;
     }
 
     /**
-     * 创建单个等级的评估任务
+     * 创建单个等级的评估任务（规则须为当前启用的规则）
      */
     @Transactional
     public void createEvaluationTask(ExceptionEvent event, AlertRule rule) {
+        RuleLadder.Step step = alertRuleCache.getLadder(rule.getExceptionTypeId()).findByRuleId(rule.getId());
+        if (step == null) {
+            log.warn("报警规则不存在或已禁用: ruleId={}", rule.getId());
+            return;
+        }
+        createEvaluationTask(event, step);
+    }
+
+    /**
+     * 为升级阶梯中的一级创建评估任务，触发条件与策略取自缓存
+     */
+    private void createEvaluationTask(ExceptionEvent event, RuleLadder.Step step) {
+        AlertRule rule = step.getRule();
         try {
-            // 从数据库加载完整的触发条件信息
-            TriggerCondition condition = triggerConditionRepository.selectById(rule.getTriggerConditionId());
-            if (condition == null) {
-                log.warn("触发条件不存在: triggerConditionId={}", rule.getTriggerConditionId());
+            TriggerCondition condition = step.getCondition();
+            TriggerStrategy strategy = step.getStrategy();
+            if (condition == null || strategy == null) {
+                log.warn("触发条件不存在或类型无效: triggerConditionId={}", rule.getTriggerConditionId());
                 return;
             }
 
-            TriggerStrategy strategy = triggerStrategyFactory.createStrategy(condition);
-
             // 计算下次评估时间
             LocalDateTime nextEvaluationTime = strategy
                     .calculateNextEvaluationTime(condition, event, LocalDateTime.now());
 
             // 如果策略返回 null，尝试闭环处理：
             // 1) 对相对事件：根据 detection_context 推导触发时间；缺少事件时写入 WAITING
-            // 2) 混合条件：遍历子条件并取最早时间；无法恢复则写入 WAITING
+            // 2) 混合条件：为缺失的相对事件写入 WAITING
             // 3) 绝对时间：不应返回 null，否则记警告
             if (nextEvaluationTime == null) {
                 String conditionType = condition.getConditionType();
@@ -100,13 +232,9 @@ public class AlertEscalationService {
                     }
                     nextEvaluationTime = recoveredTime;
                 } else if (HYBRID.equals(conditionType)) {
-                    LocalDateTime recoveredTime = recoverHybridTriggerTime(condition, event, rule);
-                    if (recoveredTime == null) {
-                        // recoverHybridTriggerTime 无法恢复，需要降级为 WAITING
-                        writeWaitingPendingForHybrid(event, rule, condition);
-                        return;
-                    }
-                    nextEvaluationTime = recoveredTime;
+                    // 表达式树的下次成立时间已覆盖所有可计算的子条件，只剩等待缺失的相对事件
+                    waitForHybridDependencies(condition, event, rule);
+                    return;
                 } else {
                     log.warn("无法计算下一次评估时间且无补偿: exceptionEventId={}, ruleId={}, type={}",
                             event.getId(), rule.getId(), conditionType);
@@ -114,13 +242,21 @@ public class AlertEscalationService {
                 }
             }
 
+            if (alertEscalationTimer.isEnabled()) {
+                scheduleTimer(event, rule, nextEvaluationTime);
+                log.info("已登记评估定时器: 异常[{}] 规则[{}] 等级[{}] 评估时间[{}]",
+                        event.getId(), rule.getId(), rule.getLevel(), nextEvaluationTime);
+                return;
+            }
+
             // 构造任务数据
             Map<String, Object> taskData = new HashMap<>();
             taskData.put("exceptionEventId", event.getId());
             taskData.put("alertRuleId", rule.getId());
             taskData.put("evaluationType", "ALERT_EVALUATION");
 
-            // 创建一个 ONCE 模式的定时任务提交给调度系统
+            // 创建一个 ONCE 模式的定时任务提交给调度系统（条件已成立、已过触发点时推迟到稍后立即评估）
+            nextEvaluationTime = dueTime(nextEvaluationTime);
             ScheduledTask task = taskManagementService.createOnceTask(
                     "报警评估-异常[" + event.getId() + "]-规则[" + rule.getId() + "]",
                     ScheduledTask.TaskType.ALERT,
@@ -181,57 +317,26 @@ public class AlertEscalationService {
     }
 
     /**
-     * 对混合条件进行补偿：
-     * - 遍历子条件，取可恢复的最早触发时间
-     * - 子条件为相对事件且缺少上下文时，降级为 WAITING 写入依赖
+     * 混合条件从现在起无法确定成立时刻时的补偿：
+     * - 编译后的表达式树中缺少事件时间的相对事件叶子，逐个写入 WAITING 依赖，等待外部事件到来后重新评估
+     * - 没有缺失的相对事件（如条件永远不会成立），整个混合条件写入待机状态以便排查
      */
-    private LocalDateTime recoverHybridTriggerTime(TriggerCondition condition, ExceptionEvent event, AlertRule rule) {
-        if (condition.getCombinedConditionIds() == null) {
-            log.warn("混合条件缺少子条件ID: exceptionEventId={}, ruleId={}, level={}",
-                    event.getId(), rule.getId(), rule.getLevel());
-            return null;
-        }
-
-        List<Long> conditionIds = parseConditionIds(condition.getCombinedConditionIds());
-        if (conditionIds.isEmpty()) {
-            log.warn("混合条件子条件列表为空: exceptionEventId={}, ruleId={}, level={}",
-                    event.getId(), rule.getId(), rule.getLevel());
-            return null;
-        }
-
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime earliest = null;
-
-        for (Long id : conditionIds) {
-            TriggerCondition subCondition = triggerConditionRepository.selectById(id);
-            if (subCondition == null) {
-                continue;
-            }
-
-            TriggerStrategy subStrategy = triggerStrategyFactory.createStrategy(subCondition);
-            LocalDateTime subNext = subStrategy.calculateNextEvaluationTime(subCondition, event, now);
-
-            if (subNext != null) {
-                if (earliest == null || subNext.isBefore(earliest)) {
-                    earliest = subNext;
-                }
-                continue;
-            }
-
-            if (RELATIVE.equals(subCondition.getConditionType())) {
-                LocalDateTime recovered = recoverRelativeTriggerTime(subCondition, event, rule);
-                if (recovered != null && (earliest == null || recovered.isBefore(earliest))) {
-                    earliest = recovered;
-                }
+    private void waitForHybridDependencies(TriggerCondition condition, ExceptionEvent event, AlertRule rule) {
+        List<TriggerExpression.Relative> relatives = new ArrayList<>();
+        triggerExpressionCompiler.compile(condition).collectRelative(relatives);
+
+        boolean waiting = false;
+        for (TriggerExpression.Relative relative : relatives) {
+            if (!relative.hasEventTime(event)) {
+                writeWaitingPending(event, rule, relative.getCondition());
+                waiting = true;
             }
         }
-
-        if (earliest == null) {
+        if (!waiting) {
             log.warn("混合条件未能恢复评估时间: exceptionEventId={}, ruleId={}, level={}",
                     event.getId(), rule.getId(), rule.getLevel());
+            writeWaitingPendingForHybrid(event, rule, condition);
         }
-
-        return earliest;
     }
 
     /**
@@ -263,123 +368,41 @@ public class AlertEscalationService {
      * - 如果该等级不存在，首次创建并设置 status=WAITING
      * - 如果已存在且是 WAITING，则增量追加 dependency，避免覆盖
      * - 支持混合条件中多个相对事件都缺失时的场景
+     * - 通过 JSON_INSERT / JSON_SET 原地更新，不回写整行，并发写入不同键互不覆盖
      */
     private void writeWaitingPending(ExceptionEvent event, AlertRule rule, TriggerCondition condition) {
-        Map<String, Object> pending = event.getPendingEscalations();
-        if (pending == null) {
-            pending = new HashMap<>();
-        }
-
-        @SuppressWarnings("unchecked")
-        Map<String, Object> levelStatus = (Map<String, Object>) pending.get(rule.getLevel());
-        boolean isNewLevel = (levelStatus == null);
-        if (levelStatus == null) {
-            levelStatus = new HashMap<>();
-            pending.put(rule.getLevel(), levelStatus);
-        }
+        String now = LocalDateTime.now().toString();
 
         // 仅在首次写入时设置 status 和 createdAt
-        if (isNewLevel) {
-            levelStatus.put("status", WAITING);
-            levelStatus.put("createdAt", LocalDateTime.now().toString());
-        }
-
-        // 构造当前条件的依赖项
-        Map<String, Object> dep = new HashMap<>();
-        dep.put("eventType", condition.getRelativeEventType());
-        dep.put("delayMinutes", condition.getRelativeDurationMinutes());
-        dep.put("required", true);
-
-        // 增量追加依赖（而不是覆盖）
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> dependencies = (List<Map<String, Object>>) levelStatus.get("dependencies");
-        if (dependencies == null) {
-            dependencies = new java.util.ArrayList<>();
-        } else {
-            // 检查重复，避免同一事件类型的依赖被重复添加
-            boolean exists = dependencies.stream()
-                    .anyMatch(d -> condition.getRelativeEventType().equals(d.get("eventType")));
-            if (exists) {
-                // 依赖已存在，仍然需要更新时间戳表示曾被检查过
-                levelStatus.put("updatedAt", LocalDateTime.now().toString());
-                event.setPendingEscalations(pending);
-                exceptionEventRepository.updateById(event);
-                log.debug("依赖已存在，跳过重复添加但更新时间戳: level={}, eventType={}",
-                        rule.getLevel(), condition.getRelativeEventType());
-                return;
-            }
-        }
-        dependencies.add(dep);
-        levelStatus.put("dependencies", dependencies);
-
-        // 仅在首次或尚未设置时，写入逻辑操作符
-        if (!levelStatus.containsKey("logicalOperator")) {
-            levelStatus.put("logicalOperator", "AND");
-        }
+        exceptionEventRepository.insertPendingLevel(event.getId(), rule.getLevel(), WAITING, now);
 
-        // 更新时间戳
-        levelStatus.put("updatedAt", LocalDateTime.now().toString());
+        // 增量追加依赖（同一事件类型的依赖不会重复添加），并更新时间戳
+        exceptionEventRepository.appendPendingDependency(event.getId(), rule.getLevel(),
+                condition.getRelativeEventType(), condition.getRelativeDurationMinutes(), now);
+        activeExceptionIndex.addWaiting(event, condition.getRelativeEventType());
 
-        event.setPendingEscalations(pending);
-        exceptionEventRepository.updateById(event);
-        
-        log.info("已写入待机状态: level={}, eventType={}, isNewLevel={}, totalDependencies={}",
-                rule.getLevel(), condition.getRelativeEventType(), isNewLevel, dependencies.size());
+        log.info("已写入待机状态: level={}, eventType={}", rule.getLevel(), condition.getRelativeEventType());
     }
 
     /**
      * 对混合条件无法恢复时，将整个混合条件作为待机状态（不展开子条件的依赖）
-     * 仅在 recoverHybridTriggerTime 完全失败时调用
+     * 仅在混合条件中没有可等待的相对事件时调用
      */
     private void writeWaitingPendingForHybrid(ExceptionEvent event, AlertRule rule, TriggerCondition condition) {
-        Map<String, Object> pending = event.getPendingEscalations();
-        if (pending == null) {
-            pending = new HashMap<>();
-        }
-
-        @SuppressWarnings("unchecked")
-        Map<String, Object> levelStatus = (Map<String, Object>) pending.get(rule.getLevel());
-        boolean isNewLevel = (levelStatus == null);
-        if (levelStatus == null) {
-            levelStatus = new HashMap<>();
-            pending.put(rule.getLevel(), levelStatus);
-        }
+        String now = LocalDateTime.now().toString();
 
         // 仅在首次写入时设置 status
-        if (isNewLevel) {
-            levelStatus.put("status", WAITING);
-            levelStatus.put("createdAt", LocalDateTime.now().toString());
-        }
+        exceptionEventRepository.insertPendingLevel(event.getId(), rule.getLevel(), WAITING, now);
 
         // 记录混合条件的ID和逻辑操作符，供后续 AlertDependencyManager 识别
-        levelStatus.put("hybridConditionId", condition.getId());
-        levelStatus.put("hybridLogicalOperator", condition.getLogicalOperator());
-        levelStatus.put("updatedAt", LocalDateTime.now().toString());
+        exceptionEventRepository.setPendingHybrid(event.getId(), rule.getLevel(),
+                condition.getId(), condition.getLogicalOperator(), now);
+        activeExceptionIndex.addWaiting(event, null);
 
-        event.setPendingEscalations(pending);
-        exceptionEventRepository.updateById(event);
-        
         log.warn("混合条件无法恢复，已写入待机状态: level={}, hybridConditionId={}, logicalOp={}",
                 rule.getLevel(), condition.getId(), condition.getLogicalOperator());
     }
 
-    private List<Long> parseConditionIds(String idString) {
-        if (idString == null || idString.trim().isEmpty()) {
-            return List.of();
-        }
-
-        String[] parts = idString.split(",");
-        List<Long> ids = new java.util.ArrayList<>();
-        for (String part : parts) {
-            try {
-                ids.add(Long.parseLong(part.trim()));
-            } catch (NumberFormatException ex) {
-                log.warn("无效的条件ID: {}", part);
-            }
-        }
-        return ids;
-    }
-    
     /**
      * 更新 pending_escalations，添加任务ID（用于恢复和取消）
      * 
@@ -388,33 +411,25 @@ public class AlertEscalationService {
      */
     private void updatePendingEscalationsWithTaskId(ExceptionEvent event, String level, 
                                                      String taskId, LocalDateTime scheduledTime) {
-        Map<String, Object> pendingEscalations = event.getPendingEscalations();
-        if (pendingEscalations == null) {
-            pendingEscalations = new HashMap<>();
-        }
+        String now = LocalDateTime.now().toString();
 
-        @SuppressWarnings("unchecked")
-        Map<String, Object> levelStatus = (Map<String, Object>) pendingEscalations.get(level);
-        if (levelStatus == null) {
-            // 如果该等级还未记录，创建新的记录，这种情况应该很少发生（因为通常已由recoverXxx方法写入）
-            levelStatus = new HashMap<>();
-            levelStatus.put("status", "SCHEDULED");  // 标记为已调度，与WAITING区分
-            levelStatus.put("createdAt", LocalDateTime.now().toString());
-            pendingEscalations.put(level, levelStatus);
-        }
-
-        // 仅更新任务相关字段，不修改状态和依赖信息
-        levelStatus.put("taskId", taskId);
-        levelStatus.put("scheduledTime", scheduledTime.toString());
-        levelStatus.put("updatedAt", LocalDateTime.now().toString());
-
-        event.setPendingEscalations(pendingEscalations);
-        exceptionEventRepository.updateById(event);
+        // 仅更新任务相关字段，不修改状态和依赖信息；
+        // 如果该等级还未记录，以 SCHEDULED 状态创建（与WAITING区分），这种情况应该很少发生（因为通常已由recoverXxx方法写入）
+        exceptionEventRepository.setPendingTask(event.getId(), level, taskId, scheduledTime.toString(), now);
         
         log.debug("已更新pending_escalations: exceptionEventId={}, level={}, taskId={}", 
                 event.getId(), level, taskId);
     }
 
+    /**
+     * 记录评估时间并登记内存定时器，pending_escalations 是唯一的持久化写入，重启后据此重建定时器
+     */
+    private void scheduleTimer(ExceptionEvent event, AlertRule rule, LocalDateTime evaluateAt) {
+        exceptionEventRepository.setPendingSchedule(event.getId(), rule.getLevel(),
+                evaluateAt.toString(), LocalDateTime.now().toString());
+        alertEscalationTimer.schedule(event.getId(), rule.getId(), rule.getLevel(), evaluateAt);
+    }
+
     /**
      * 当当前等级触发报警后，为下一个更高等级创建评估任务
      */
@@ -422,55 +437,37 @@ public class AlertEscalationService {
     public void scheduleNextLevelEvaluation(ExceptionEvent event, AlertRule triggeredRule) {
         log.info("为异常事件 [{}] 的下一等级创建评估任务，当前等级: {}", event.getId(), triggeredRule.getLevel());
 
-        // 1. 获取所有规则，找到下一个更高等级的规则
-        List<AlertRule> allRules = alertRuleRepository
-                .findEnabledRulesByExceptionType(event.getExceptionTypeId());
-        
-        // 按等级优先级排序（从低到高）
-        allRules.sort(Comparator.comparingInt((AlertRule rule) -> AlertConstants.AlertLevels.getPriority(rule.getLevel()))
-                                .thenComparingLong(AlertRule::getId));
-
-        // 2. 过滤出更高等级的规则
-        List<AlertRule> higherRules = allRules.stream()
-                .filter(rule -> isHigherLevel(rule.getLevel(), triggeredRule.getLevel()))
-                .toList();
-
-        if (higherRules.isEmpty()) {
+        // 1. 在升级阶梯中找到下一个更高等级
+        RuleLadder.Step next = alertRuleCache.getLadder(event.getExceptionTypeId()).next(triggeredRule.getLevel());
+        if (next == null) {
             log.info("异常事件 [{}] 已是最高等级 [{}]，无需继续升级", event.getId(), triggeredRule.getLevel());
             return;
         }
 
-        // 3. 为下一个等级创建评估任务
-        AlertRule nextRule = higherRules.get(0);
-        createEvaluationTask(event, nextRule);
+        // 2. 为下一个等级创建评估任务
+        createEvaluationTask(event, next);
     }
 
     /**
-     * 判断 level1 是否高于 level2
+     * 记录报警触发日志
+     * alert_event_log 对 (异常, 等级) 的 ALERT_TRIGGERED 记录有唯一约束，重复写入抛出 DuplicateKeyException
      */
-    private boolean isHigherLevel(String level1, String level2) {
-        int priority1 = getAlertLevelPriority(level1);
-        int priority2 = getAlertLevelPriority(level2);
-        return priority1 > priority2;
-    }
-
-    /**
-     * 获取报警等级的数字优先级
-     */
-    private int getAlertLevelPriority(String level) {
-        return AlertConstants.AlertLevels.getPriority(level);
+    @Transactional
+    public void logAlertEvent(ExceptionEvent event, AlertRule rule, String triggerReason) {
+        logAlertEvent(event, rule, triggerReason, ALERT_TRIGGERED);
     }
 
     /**
-     * 记录报警事件日志
+     * 记录指定类型的报警事件日志
      */
     @Transactional
-    public void logAlertEvent(ExceptionEvent event, AlertRule rule, String triggerReason) {
+    public void logAlertEvent(ExceptionEvent event, AlertRule rule, String triggerReason, String eventType) {
             AlertEventLog alertLog = AlertEventLog.builder()
                 .exceptionEventId(event.getId())
                 .alertRuleId(rule.getId())
                 .triggeredAt(LocalDateTime.now())
                 .alertLevel(rule.getLevel())
+                .eventType(eventType)
                 .triggerReason(triggerReason)
                 .actionStatus(SENT)
                 .build();
@@ -487,9 +484,12 @@ public class AlertEscalationService {
     public void resolveEvent(Long exceptionEventId) {
         ExceptionEvent event = exceptionEventRepository.selectById(exceptionEventId);
         if (event != null) {
-            event.setStatus("RESOLVED");
-            event.setResolvedAt(LocalDateTime.now());
-            exceptionEventRepository.updateById(event);
+            // 只更新状态列，避免用旧快照覆盖 JSON 字段
+            exceptionEventRepository.updateById(ExceptionEvent.builder()
+                    .id(exceptionEventId)
+                    .status("RESOLVED")
+                    .resolvedAt(LocalDateTime.now())
+                    .build());
             log.info("异常事件 [{}] 已解决", exceptionEventId);
         }
     }
@@ -513,26 +513,15 @@ public class AlertEscalationService {
                 return;
             }
             
-            // 2. 查询该等级的规则
-            List<AlertRule> rules = alertRuleRepository
-                    .findEnabledRulesByExceptionType(event.getExceptionTypeId());
-            
-            // 按等级优先级排序（从低到高）
-            rules.sort(Comparator.comparingInt((AlertRule rule) -> AlertConstants.AlertLevels.getPriority(rule.getLevel()))
-                                 .thenComparingLong(AlertRule::getId));
-            
-            AlertRule targetRule = rules.stream()
-                    .filter(rule -> rule.getLevel().equals(levelName))
-                    .findFirst()
-                    .orElse(null);
-            
-            if (targetRule == null) {
+            // 2. 在升级阶梯中查找该等级
+            RuleLadder.Step targetStep = alertRuleCache.getLadder(event.getExceptionTypeId()).findByLevel(levelName);
+            if (targetStep == null) {
                 log.warn("规则不存在: exceptionTypeId={}, level={}", event.getExceptionTypeId(), levelName);
                 return;
             }
             
             // 3. 创建评估任务
-            createEvaluationTask(event, targetRule);
+            createEvaluationTask(event, targetStep);
             
         } catch (Exception e) {
             log.error("恢复等级评估任务失败: exceptionEventId={}, level={}", exceptionEventId, levelName, e);
@@ -542,9 +531,20 @@ public class AlertEscalationService {
     /**
      * Schedule an escalation evaluation at an explicit trigger time.
      * This is used when a dependency event occurred with a required delay (delayMinutes > 0).
+     * With the in-memory timer the level's scheduledTime is rewritten to the trigger time (status and
+     * dependencies unchanged), so restarts and the overdue rescan in AlertRecoveryService see the
+     * deferred time instead of an earlier one that has already passed.
      */
     @Transactional
     public void scheduleEscalationEvaluation(Long exceptionEventId, String levelName, LocalDateTime triggerTime) {
+        if (alertEscalationTimer.isEnabled()) {
+            exceptionEventRepository.setPendingSchedule(exceptionEventId, levelName,
+                    triggerTime.toString(), LocalDateTime.now().toString());
+            alertEscalationTimer.schedule(exceptionEventId, null, levelName, triggerTime);
+            log.info("已为异常事件 [{}] 等级 [{}] 登记 [{}] 的评估定时器", exceptionEventId, levelName, triggerTime);
+            return;
+        }
+
         Map<String, Object> taskData = new HashMap<>();
         taskData.put("exceptionEventId", exceptionEventId);
         taskData.put("levelName", levelName);
@@ -553,7 +553,7 @@ public class AlertEscalationService {
         ScheduledTask task = taskManagementService.createOnceTask(
             "报警评估-异常[" + exceptionEventId + "]-等级[" + levelName + "]",
             ScheduledTask.TaskType.ALERT,
-            triggerTime,
+            dueTime(triggerTime),
             taskData,
             1,
             1,
@@ -564,6 +564,15 @@ public class AlertEscalationService {
             exceptionEventId, levelName, triggerTime, task.getId());
     }
 
+    /**
+     * 一次性评估任务的执行时间：已到期（不晚于当前时间）时取当前时间之后 DUE_TIME_MARGIN_SECONDS 秒，
+     * 内存定时器不需要校正，到期时刻已过时直接尽快评估
+     */
+    private static LocalDateTime dueTime(LocalDateTime time) {
+        LocalDateTime earliest = LocalDateTime.now().plusSeconds(DUE_TIME_MARGIN_SECONDS);
+        return time.isBefore(earliest) ? earliest : time;
+    }
+
     /**
      * 维护待机任务映射关系（支持任务取消）
      * 当创建评估任务时，记录该任务的ID以便后续取消
@@ -0,0 +1,243 @@
+package com.example.scheduled.alert.service;
+
+import com.example.scheduled.alert.executor.AlertExecutor;
+import com.example.scheduled.config.ScheduledTaskProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.scheduled.alert.constant.AlertConstants.Defaults.DEFAULT_MAX_RETRY_COUNT;
+
+/**
+ * 报警升级评估定时器
+ * 评估时刻只保存在内存延迟队列中，到期后直接交给 AlertExecutor 评估，不再为每次升级创建
+ * scheduled_task、调度器 Trigger 与执行日志；持久化的只有 pending_escalations 中的计划时间，
+ * 重启后由 AlertRecoveryService 按 ACTIVE 异常的 pending_escalations 重建。
+ * 同一（异常, 等级）只保留最新一个定时器，重复调度覆盖旧的评估时间
+ */
+@Slf4j
+@Component
+public class AlertEscalationTimer {
+
+    private final ObjectProvider<AlertExecutor> alertExecutorProvider;
+    private final ScheduledTaskProperties properties;
+
+    /** key 为 异常ID:等级，value 为当前有效的定时器；延迟队列中被覆盖或取消的旧定时器到期时丢弃 */
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final DelayQueue<Timer> queue = new DelayQueue<>();
+
+    private Thread dispatcher;
+    private ExecutorService workers;
+    private volatile boolean running;
+
+    private final AtomicLong scheduledCount = new AtomicLong();
+    private final AtomicLong firedCount = new AtomicLong();
+    private final AtomicLong cancelledCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong maxLagMs = new AtomicLong();
+
+    public AlertEscalationTimer(ObjectProvider<AlertExecutor> alertExecutorProvider,
+                                ScheduledTaskProperties properties) {
+        // AlertExecutor 依赖 AlertEscalationService，后者又依赖本类，到期时再取执行器以打破循环依赖
+        this.alertExecutorProvider = alertExecutorProvider;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!properties.isAlertEscalationTimerEnabled()) {
+            return;
+        }
+        AtomicInteger counter = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(Math.max(1, properties.getAlertEscalationTimerPoolSize()), r -> {
+            Thread thread = new Thread(r, "alert-escalation-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "alert-escalation-timer");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        log.info("报警升级评估定时器已启用，评估线程数：{}", properties.getAlertEscalationTimerPoolSize());
+    }
+
+    /**
+     * 是否由内存定时器调度评估（关闭时沿用 scheduled_task 一次性任务）
+     */
+    public boolean isEnabled() {
+        return running;
+    }
+
+    /**
+     * 在指定时刻评估异常的某一等级；时刻已过则尽快评估
+     * 处于事务中时在提交后才登记，避免评估线程读不到未提交的异常，事务回滚时不登记
+     *
+     * @param alertRuleId 规则ID，为 null 时按等级名称查找当前启用的规则
+     */
+    public void schedule(Long exceptionEventId, Long alertRuleId, String level, LocalDateTime evaluateAt) {
+        Timer timer = new Timer(exceptionEventId, alertRuleId, level, evaluateAt, 0);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(timer);
+                }
+            });
+        } else {
+            add(timer);
+        }
+    }
+
+    /**
+     * 取消异常的所有评估定时器
+     *
+     * @return 被取消的等级
+     */
+    public List<String> cancelAll(Long exceptionEventId) {
+        List<String> levels = new ArrayList<>();
+        String prefix = exceptionEventId + ":";
+        for (Iterator<Map.Entry<String, Timer>> it = timers.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Timer> entry = it.next();
+            if (entry.getKey().startsWith(prefix)) {
+                it.remove();
+                queue.remove(entry.getValue());
+                levels.add(entry.getValue().level);
+            }
+        }
+        cancelledCount.addAndGet(levels.size());
+        return levels;
+    }
+
+    /**
+     * 定时器数量、到期处理量与延迟统计
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", running);
+        metrics.put("pending", timers.size());
+        metrics.put("scheduled", scheduledCount.get());
+        metrics.put("fired", firedCount.get());
+        metrics.put("cancelled", cancelledCount.get());
+        metrics.put("failed", failedCount.get());
+        metrics.put("maxLagMs", maxLagMs.get());
+        Timer next = queue.peek();
+        metrics.put("nextEvaluateAt", next != null ? next.evaluateAt : null);
+        return metrics;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (!running) {
+            return;
+        }
+        // 未到期的定时器不需要处理，重启后按 pending_escalations 重建
+        running = false;
+        dispatcher.interrupt();
+        workers.shutdownNow();
+    }
+
+    private void add(Timer timer) {
+        Timer previous = timers.put(timer.key(), timer);
+        if (previous != null) {
+            queue.remove(previous);
+        }
+        queue.offer(timer);
+        scheduledCount.incrementAndGet();
+        log.debug("已登记评估定时器: exceptionEventId={}, level={}, evaluateAt={}",
+                timer.exceptionEventId, timer.level, timer.evaluateAt);
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                Timer timer = queue.take();
+                // 已被取消或被更新的评估时间覆盖
+                if (!timers.remove(timer.key(), timer)) {
+                    continue;
+                }
+                long lag = Duration.between(timer.evaluateAt, LocalDateTime.now()).toMillis();
+                maxLagMs.accumulateAndGet(lag, Math::max);
+                workers.execute(() -> fire(timer));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RejectedExecutionException e) {
+                return;
+            } catch (Exception e) {
+                log.error("报警升级评估定时器线程异常", e);
+            }
+        }
+    }
+
+    private void fire(Timer timer) {
+        firedCount.incrementAndGet();
+        try {
+            alertExecutorProvider.getObject().evaluate(timer.exceptionEventId, timer.alertRuleId, timer.level);
+        } catch (Exception e) {
+            failedCount.incrementAndGet();
+            // 重试语义与 ONCE 任务一致：失败次数达到最大重试次数后放弃
+            int failures = timer.failures + 1;
+            if (failures >= DEFAULT_MAX_RETRY_COUNT) {
+                log.error("报警评估失败，已达最大重试次数: exceptionEventId={}, level={}",
+                        timer.exceptionEventId, timer.level, e);
+                return;
+            }
+            log.warn("报警评估失败，{} 秒后重试: exceptionEventId={}, level={}",
+                    properties.getRetryIntervalSeconds(), timer.exceptionEventId, timer.level, e);
+            Timer retry = new Timer(timer.exceptionEventId, timer.alertRuleId, timer.level,
+                    LocalDateTime.now().plusSeconds(properties.getRetryIntervalSeconds()), failures);
+            // 失败期间已被重新调度时以新的评估时间为准
+            if (timers.putIfAbsent(retry.key(), retry) == null) {
+                queue.offer(retry);
+            }
+        }
+    }
+
+    /**
+     * 单个评估定时器（不可变）；到期判断基于登记时的单调时钟，不受系统时间调整影响
+     */
+    private static final class Timer implements Delayed {
+
+        private final Long exceptionEventId;
+        private final Long alertRuleId;
+        private final String level;
+        private final LocalDateTime evaluateAt;
+        private final int failures;
+        private final long deadlineNanos;
+
+        Timer(Long exceptionEventId, Long alertRuleId, String level, LocalDateTime evaluateAt, int failures) {
+            this.exceptionEventId = exceptionEventId;
+            this.alertRuleId = alertRuleId;
+            this.level = level;
+            this.evaluateAt = evaluateAt;
+            this.failures = failures;
+            long delayNanos = Math.max(0L, Duration.between(LocalDateTime.now(), evaluateAt).toNanos());
+            this.deadlineNanos = System.nanoTime() + delayNanos;
+        }
+
+        String key() {
+            return exceptionEventId + ":" + level;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(deadlineNanos, ((Timer) other).deadlineNanos);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.scheduled.alert.service;
+
+import com.example.scheduled.alert.event.AlertSystemEvent;
+import com.example.scheduled.alert.event.AlertTriggeredEvent;
+import com.example.scheduled.config.ScheduledTaskProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 告警系统事件异步处理管道
+ * 事件按业务ID分区排队，同一业务的事件由同一后台线程按序处理，不同业务并行；
+ * 合并窗口内重复的（业务, 事件类型）只处理最后一次，每批事件在一个事务内交给 AlertDependencyManager。
+ * 发布方只做一次入队；分区队列满时发布线程最多等待 alert-pipeline-offer-timeout-ms，
+ * 仍满则超出容量追加到同一分区末尾，保证同一业务的事件不会越过先入队的事件被处理。
+ * 队列只在内存中，进程崩溃时已入队未处理的事件会丢失（正常停机时处理完剩余事件）
+ */
+@Slf4j
+@Component
+public class AlertEventPipeline {
+
+    private final AlertDependencyManager dependencyManager;
+    private final ScheduledTaskProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    private Partition[] partitions;
+    private volatile boolean running;
+
+    private final AtomicLong processedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong overflowCount = new AtomicLong();
+    private final AtomicLong failedBatchCount = new AtomicLong();
+    private volatile long lastLagMs;
+    private final AtomicLong maxLagMs = new AtomicLong();
+
+    public AlertEventPipeline(AlertDependencyManager dependencyManager,
+                              ScheduledTaskProperties properties,
+                              PlatformTransactionManager transactionManager) {
+        this.dependencyManager = dependencyManager;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // 入队失败时在发布方的 AFTER_COMMIT 回调里处理，此时原事务资源仍绑定在线程上，必须开启新事务
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!properties.isAlertPipelineEnabled()) {
+            return;
+        }
+        int count = Math.max(1, properties.getAlertPipelinePartitions());
+        int capacity = Math.max(1, properties.getAlertPipelineQueueCapacity() / count);
+        running = true;
+        partitions = new Partition[count];
+        for (int i = 0; i < count; i++) {
+            partitions[i] = new Partition(capacity);
+            Thread thread = new Thread(partitions[i]::runLoop, "alert-pipeline-" + i);
+            thread.setDaemon(true);
+            partitions[i].thread = thread;
+            thread.start();
+        }
+        log.info("告警事件处理管道已启用，分区数：{}，每分区容量：{}", count, capacity);
+    }
+
+    /**
+     * 事务提交后入队（报警触发事件只用于推送，不参与依赖处理）
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAlertSystemEvent(AlertSystemEvent event) {
+        if (event instanceof AlertTriggeredEvent) {
+            return;
+        }
+        if (!running) {
+            processBatch(List.of(event));
+            return;
+        }
+        String partitionKey = partitionKey(event);
+        Partition partition = partitions[Math.floorMod(partitionKey.hashCode(), partitions.length)];
+        if (!partition.offer(partitionKey + "|" + event.getExceptionEventId() + "|" + event.getEventType(), event)) {
+            overflowCount.incrementAndGet();
+            log.warn("告警事件队列已满，超出容量入队: eventType={}, businessId={}",
+                    event.getEventType(), event.getBusinessId());
+        }
+    }
+
+    /**
+     * 队列深度、处理量与延迟统计
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", running);
+        int depth = 0;
+        List<Integer> partitionDepths = new ArrayList<>();
+        if (partitions != null) {
+            for (Partition partition : partitions) {
+                int size = partition.size();
+                partitionDepths.add(size);
+                depth += size;
+            }
+        }
+        metrics.put("queueDepth", depth);
+        metrics.put("partitionDepths", partitionDepths);
+        metrics.put("processed", processedCount.get());
+        metrics.put("coalesced", coalescedCount.get());
+        metrics.put("overflowed", overflowCount.get());
+        metrics.put("failedBatches", failedBatchCount.get());
+        metrics.put("lastLagMs", lastLagMs);
+        metrics.put("maxLagMs", maxLagMs.get());
+        return metrics;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (Partition partition : partitions) {
+            partition.thread.interrupt();
+        }
+        for (Partition partition : partitions) {
+            try {
+                partition.thread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // 停机前处理完剩余事件
+            List<AlertSystemEvent> remaining;
+            while (!(remaining = partition.drain(Integer.MAX_VALUE)).isEmpty()) {
+                processBatch(remaining);
+            }
+        }
+    }
+
+    /**
+     * 一批事件在同一事务内处理；任一事件抛出异常（含死锁回滚）时整批回滚，再逐条在各自事务内重试，
+     * 避免一条坏数据拖累同批其他事件。AlertDependencyManager.process 不吞异常，否则回滚后整批会被当作成功
+     */
+    private void processBatch(List<AlertSystemEvent> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> batch.forEach(dependencyManager::process));
+        } catch (Exception e) {
+            failedBatchCount.incrementAndGet();
+            log.error("告警事件批处理失败，逐条重试，批大小：{}", batch.size(), e);
+            for (AlertSystemEvent event : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> dependencyManager.process(event));
+                } catch (Exception ex) {
+                    log.error("告警事件处理失败: eventType={}, businessId={}",
+                            event.getEventType(), event.getBusinessId(), ex);
+                }
+            }
+        }
+        long now = System.currentTimeMillis();
+        for (AlertSystemEvent event : batch) {
+            long lag = now - event.getTimestamp();
+            lastLagMs = lag;
+            maxLagMs.accumulateAndGet(lag, Math::max);
+        }
+        processedCount.addAndGet(batch.size());
+    }
+
+    private static String partitionKey(AlertSystemEvent event) {
+        if (event.getBusinessId() != null) {
+            return event.getBusinessType() + ":" + event.getBusinessId();
+        }
+        return "event:" + event.getExceptionEventId();
+    }
+
+    /**
+     * 单个分区：有界的合并队列 + 一个处理线程
+     */
+    private class Partition {
+
+        private final int capacity;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Condition notFull = lock.newCondition();
+        /** key 为合并键，重复事件覆盖旧值但保留原排队位置 */
+        private final LinkedHashMap<String, AlertSystemEvent> queue = new LinkedHashMap<>();
+        private Thread thread;
+
+        Partition(int capacity) {
+            this.capacity = capacity;
+        }
+
+        /**
+         * 入队；队列满时限时等待，超时后仍追加到队尾并返回 false（超出容量）
+         */
+        boolean offer(String key, AlertSystemEvent event) {
+            lock.lock();
+            try {
+                long nanos = TimeUnit.MILLISECONDS.toNanos(properties.getAlertPipelineOfferTimeoutMs());
+                boolean interrupted = false;
+                while (queue.size() >= capacity && !queue.containsKey(key) && nanos > 0) {
+                    try {
+                        nanos = notFull.awaitNanos(nanos);
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                        break;
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                if (queue.containsKey(key)) {
+                    queue.put(key, event);
+                    coalescedCount.incrementAndGet();
+                    return true;
+                }
+                boolean withinCapacity = queue.size() < capacity;
+                queue.put(key, event);
+                notEmpty.signal();
+                return withinCapacity;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return queue.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        List<AlertSystemEvent> drain(int max) {
+            lock.lock();
+            try {
+                List<AlertSystemEvent> batch = new ArrayList<>(Math.min(max, queue.size()));
+                Iterator<AlertSystemEvent> iterator = queue.values().iterator();
+                while (iterator.hasNext() && batch.size() < max) {
+                    batch.add(iterator.next());
+                    iterator.remove();
+                }
+                if (!batch.isEmpty()) {
+                    notFull.signalAll();
+                }
+                return batch;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void runLoop() {
+            while (running) {
+                try {
+                    lock.lock();
+                    try {
+                        while (queue.isEmpty()) {
+                            notEmpty.await();
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                    // 等待合并窗口，让短时间内的重复事件合并为一次处理
+                    TimeUnit.MILLISECONDS.sleep(properties.getAlertPipelineCoalesceWindowMs());
+                    List<AlertSystemEvent> batch;
+                    while (!(batch = drain(properties.getAlertPipelineBatchSize())).isEmpty()) {
+                        processBatch(batch);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    log.error("告警事件处理线程异常", e);
+                }
+            }
+        }
+    }
+}
@@ -5,18 +5,25 @@ import com.example.scheduled.alert.entity.ExceptionEvent;
 import com.example.scheduled.alert.enums.ExceptionStatus;
 import com.example.scheduled.alert.event.AlertRecoveredEvent;
 import com.example.scheduled.alert.repository.ExceptionEventRepository;
+import com.example.scheduled.config.ScheduledTaskProperties;
 import com.example.scheduled.service.TaskManagementService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
+import static com.example.scheduled.alert.constant.AlertConstants.AlertLevels.bitOf;
+import static com.example.scheduled.alert.constant.AlertConstants.PendingEscalationStatus.READY;
+import static com.example.scheduled.alert.constant.AlertConstants.PendingEscalationStatus.SCHEDULED;
 import static com.example.scheduled.alert.constant.AlertConstants.PendingEscalationStatus.WAITING;
 
 /**
@@ -27,6 +34,8 @@ import static com.example.scheduled.alert.constant.AlertConstants.PendingEscalat
  * 1. 系统在 RESOLVING 状态下崩溃 -> 恢复为 RESOLVED
  * 2. 系统在等待事件状态下崩溃 -> 重新调度待机任务
  * 3. 系统在执行任务状态下崩溃 -> 继续执行任务
+ * 4. 内存评估定时器随进程丢失 -> 按 pending_escalations 中未关联任务的 SCHEDULED 等级及其计划时间重建
+ * 5. 其他节点宕机导致其定时器丢失 -> 运行期间定期扫描过期未触发的等级，在本节点立即评估
  * 
  * 设计原则：
  * - 不依赖 recovery_flag 字段（已废弃）
@@ -42,6 +51,8 @@ public class AlertRecoveryService {
     private final AlertEscalationService alertEscalationService;
     private final ApplicationEventPublisher eventPublisher;
     private final TaskManagementService taskManagementService;
+    private final AlertEscalationTimer alertEscalationTimer;
+    private final ScheduledTaskProperties properties;
 
     /**
      * 监听 Spring 应用启动完成事件
@@ -112,8 +123,10 @@ public class AlertRecoveryService {
             for (ExceptionEvent event : resolvingEvents) {
                 try {
                     // 完成解除过程，转换为 RESOLVED
-                    event.setStatus(ExceptionStatus.RESOLVED.name());
-                    exceptionEventRepository.updateById(event);
+                    exceptionEventRepository.updateById(ExceptionEvent.builder()
+                            .id(event.getId())
+                            .status(ExceptionStatus.RESOLVED.name())
+                            .build());
                     log.info("已完成RESOLVING异常的解除: exceptionEventId={}", event.getId());
                 } catch (Exception e) {
                     log.error("完成RESOLVING异常解除失败: exceptionEventId={}", event.getId(), e);
@@ -229,6 +242,26 @@ public class AlertRecoveryService {
                     Map<String, Object> levelStatus = (Map<String, Object>) levelData;
                     String status = (String) levelStatus.get("status");
                     
+                    if (isTriggered(event, levelName)) {
+                        continue;
+                    }
+
+                    // 内存定时器调度的等级：按原计划时间重建定时器（已过期则立即评估）
+                    if (isTimerScheduled(levelStatus)) {
+                        java.time.LocalDateTime scheduledTime;
+                        try {
+                            scheduledTime = java.time.LocalDateTime.parse(levelStatus.get("scheduledTime").toString());
+                        } catch (Exception parseEx) {
+                            log.warn("解析scheduledTime失败，降级为立即评估: scheduledTime={}",
+                                    levelStatus.get("scheduledTime"), parseEx);
+                            scheduledTime = java.time.LocalDateTime.now();
+                        }
+                        alertEscalationService.scheduleEscalationEvaluation(event.getId(), levelName, scheduledTime);
+                        log.info("重建评估定时器: exceptionEventId={}, level={}, scheduledTime={}",
+                                event.getId(), levelName, scheduledTime);
+                        continue;
+                    }
+
                     // WAITING 或 READY 状态都需要重新调度
                     if (WAITING.equals(status) || "READY".equals(status)) {
                         log.info("重新调度待机等级: exceptionEventId={}, level={}, status={}", 
@@ -267,14 +300,15 @@ public class AlertRecoveryService {
      * 检查异常事件是否有未完成的升级任务
      * 
      * @param event 异常事件
-     * @return true 表示有 WAITING 或 READY 状态的待机升级，需要恢复
+     * @return true 表示有 WAITING 或 READY 状态的待机升级，或由内存定时器调度的未触发等级，需要恢复
      */
     private boolean hasUnfinishedEscalations(ExceptionEvent event) {
         if (event.getPendingEscalations() == null || event.getPendingEscalations().isEmpty()) {
             return false;
         }
 
-        for (Object levelData : event.getPendingEscalations().values()) {
+        for (Map.Entry<String, Object> entry : event.getPendingEscalations().entrySet()) {
+            Object levelData = entry.getValue();
             if (levelData instanceof Map) {
                 @SuppressWarnings("unchecked")
                 Map<String, Object> levelStatus = (Map<String, Object>) levelData;
@@ -284,12 +318,82 @@ public class AlertRecoveryService {
                 if (WAITING.equals(status) || "READY".equals(status)) {
                     return true;
                 }
+                if (isTimerScheduled(levelStatus) && !isTriggered(event, entry.getKey())) {
+                    return true;
+                }
             }
         }
 
         return false;
     }
 
+    /**
+     * 由内存定时器调度的等级：SCHEDULED 且有计划时间、未关联调度任务（关联任务的由调度器自行恢复）
+     */
+    private boolean isTimerScheduled(Map<String, Object> levelStatus) {
+        return SCHEDULED.equals(levelStatus.get("status"))
+                && levelStatus.get("scheduledTime") != null
+                && levelStatus.get("taskId") == null;
+    }
+
+    /**
+     * 等级是否已触发（位集记录），已触发的等级无需重新调度
+     */
+    private boolean isTriggered(ExceptionEvent event, String levelName) {
+        int bit = bitOf(levelName);
+        return bit != 0 && event.getTriggeredLevels() != null && (event.getTriggeredLevels() & bit) != 0;
+    }
+
+    /**
+     * 内存定时器的故障转移：定时器只在登记它的节点上，该节点宕机后其他节点在此接管。
+     * 计划时间已过去超过宽限期仍未触发的 SCHEDULED（未关联任务）或 READY 等级在本节点立即评估；
+     * 原节点仍存活时可能重复评估，由 triggered_levels 的条件更新保证只触发一次，
+     * 评估后条件未满足的等级会写入新的计划时间，不会被反复扫描
+     */
+    @Scheduled(fixedDelayString = "${scheduled.task.alert-escalation-timer-rescan-interval-ms:60000}")
+    public void rescanOverdueTimers() {
+        if (!alertEscalationTimer.isEnabled()) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime overdueBefore = now.minus(Duration.ofMillis(properties.getAlertEscalationTimerOverdueGraceMs()));
+            int rescheduled = 0;
+            for (ExceptionEvent event : exceptionEventRepository.findActiveEscalationStates()) {
+                if (event.getPendingEscalations() == null) {
+                    continue;
+                }
+                for (Map.Entry<String, Object> entry : event.getPendingEscalations().entrySet()) {
+                    if (!(entry.getValue() instanceof Map) || isTriggered(event, entry.getKey())) {
+                        continue;
+                    }
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> levelStatus = (Map<String, Object>) entry.getValue();
+                    if (!isTimerScheduled(levelStatus) && !READY.equals(levelStatus.get("status"))) {
+                        continue;
+                    }
+                    Object scheduledTime = levelStatus.get("scheduledTime");
+                    try {
+                        if (scheduledTime == null || !LocalDateTime.parse(scheduledTime.toString()).isBefore(overdueBefore)) {
+                            continue;
+                        }
+                    } catch (Exception parseEx) {
+                        log.warn("解析scheduledTime失败，跳过: exceptionEventId={}, level={}, scheduledTime={}",
+                                event.getId(), entry.getKey(), scheduledTime);
+                        continue;
+                    }
+                    alertEscalationService.scheduleEscalationEvaluation(event.getId(), entry.getKey(), now);
+                    rescheduled++;
+                }
+            }
+            if (rescheduled > 0) {
+                log.warn("发现 {} 个过期未触发的评估等级（定时器所在节点可能已宕机），已在本节点立即评估", rescheduled);
+            }
+        } catch (Exception e) {
+            log.error("扫描过期未触发的评估等级失败", e);
+        }
+    }
+
     /**
      * 手动触发一次恢复（用于测试或管理界面）
      */
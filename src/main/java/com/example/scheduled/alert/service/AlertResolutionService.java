@@ -37,6 +37,7 @@ public class AlertResolutionService {
     private final AlertEventLogRepository alertEventLogRepository;
     private final TaskManagementService taskManagementService;
     private final AlertEscalationService alertEscalationService;
+    private final AlertEscalationTimer alertEscalationTimer;
     private final ApplicationEventPublisher eventPublisher;
 
     /**
@@ -67,7 +68,10 @@ public class AlertResolutionService {
 
             // 3. 转换为 RESOLVING 状态（防止系统中途崩溃）
             exceptionEvent.setStatus(RESOLVING);
-            exceptionEventRepository.updateById(exceptionEvent);
+            exceptionEventRepository.updateById(ExceptionEvent.builder()
+                    .id(exceptionEventId)
+                    .status(RESOLVING)
+                    .build());
             log.info("异常事件状态转换为RESOLVING: exceptionEventId={}", exceptionEventId);
 
             // 4. 查询所有相关的待机任务，并进行取消
@@ -81,7 +85,12 @@ public class AlertResolutionService {
             exceptionEvent.setStatus(RESOLVED);
             exceptionEvent.setResolvedAt(LocalDateTime.now());
             exceptionEvent.setResolutionReason(resolutionReason);
-            exceptionEventRepository.updateById(exceptionEvent);
+            exceptionEventRepository.updateById(ExceptionEvent.builder()
+                    .id(exceptionEventId)
+                    .status(RESOLVED)
+                    .resolvedAt(exceptionEvent.getResolvedAt())
+                    .resolutionReason(resolutionReason)
+                    .build());
             log.info("异常事件状态转换为RESOLVED: exceptionEventId={}", exceptionEventId);
 
             // 7. 发布报警解除事件（供其他系统监听）
@@ -104,7 +113,7 @@ public class AlertResolutionService {
     /**
      * 取消所有待机任务
      * 根据 pending_escalations 字段记录的所有待机任务，逐一取消
-     * 同时也使用内存Map作为补充，确保没有遗漏
+     * 同时也使用内存Map作为补充，确保没有遗漏；内存评估定时器一并取消
      *
      * @param exceptionEventId 异常事件ID
      * @return 取消的任务数量
@@ -112,6 +121,12 @@ public class AlertResolutionService {
     private int cancelAllPendingTasks(Long exceptionEventId) {
         try {
             int cancelledCount = 0;
+
+            // 本节点内存中的评估定时器（其他节点上的定时器到期时会因异常已解除而跳过）
+            for (String level : alertEscalationTimer.cancelAll(exceptionEventId)) {
+                recordTaskCancelledLog(exceptionEventId, String.format("评估定时器已取消: level=%s", level));
+                cancelledCount++;
+            }
             
             // 方案1：从 AlertEscalationService 的内存Map中获取待机任务ID（快速路径）
             List<String> pendingTaskIds = alertEscalationService.getPendingTasks(exceptionEventId);
@@ -161,7 +176,7 @@ public class AlertResolutionService {
         try {
             taskManagementService.cancelTask(Long.parseLong(taskId));
             log.info("已取消任务: exceptionEventId={}, taskId={}", exceptionEventId, taskId);
-            recordTaskCancelledLog(exceptionEventId, taskId);
+            recordTaskCancelledLog(exceptionEventId, String.format("任务已取消: taskId=%s", taskId));
             return true;
         } catch (NumberFormatException e) {
             log.warn("任务ID格式错误: taskId={}", taskId, e);
@@ -175,14 +190,14 @@ public class AlertResolutionService {
     /**
      * 记录任务取消日志
      */
-    private void recordTaskCancelledLog(Long exceptionEventId, String taskId) {
+    private void recordTaskCancelledLog(Long exceptionEventId, String reason) {
         try {
             AlertEventLog log = AlertEventLog.builder()
                     .exceptionEventId(exceptionEventId)
                     .triggeredAt(LocalDateTime.now())
                     .alertLevel("CANCELLED")
                     .eventType(TASK_CANCELLED)
-                    .triggerReason(String.format("任务已取消: taskId=%s", taskId))
+                    .triggerReason(reason)
                     .actionStatus(COMPLETED)
                     .createdAt(LocalDateTime.now())
                     .build();
@@ -190,7 +205,7 @@ public class AlertResolutionService {
             alertEventLogRepository.insert(log);
 
         } catch (Exception e) {
-            log.error("记录任务取消日志失败: exceptionEventId={}, taskId={}", exceptionEventId, taskId, e);
+            log.error("记录任务取消日志失败: exceptionEventId={}, reason={}", exceptionEventId, reason, e);
         }
     }
 
@@ -0,0 +1,202 @@
+package com.example.scheduled.alert.service;
+
+import com.example.scheduled.alert.action.AlertActionExecutor;
+import com.example.scheduled.alert.constant.AlertConstants;
+import com.example.scheduled.alert.detection.ExceptionDetectionStrategy;
+import com.example.scheduled.alert.entity.AlertRule;
+import com.example.scheduled.alert.entity.ExceptionType;
+import com.example.scheduled.alert.entity.TriggerCondition;
+import com.example.scheduled.alert.repository.AlertConfigVersionRepository;
+import com.example.scheduled.alert.repository.AlertRuleRepository;
+import com.example.scheduled.alert.repository.ExceptionTypeRepository;
+import com.example.scheduled.alert.repository.TriggerConditionRepository;
+import com.example.scheduled.alert.trigger.TriggerStrategy;
+import com.example.scheduled.alert.trigger.TriggerStrategyFactory;
+import com.example.scheduled.alert.trigger.expression.TriggerExpressionCompiler;
+import com.example.scheduled.config.ScheduledTaskProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 报警规则配置缓存
+ * 按异常类型缓存排好序的升级阶梯（规则 + 触发条件 + 策略 + 动作执行器 + 检测策略），评估路径不再查询配置表。
+ * 混合条件的编译结果由 TriggerExpressionCompiler 缓存，与本缓存同时失效。
+ * 规则、触发条件、异常类型的写接口调用 invalidateAll 清空本地缓存；开启集群模式（默认）时同时递增
+ * alert_config_version，其他节点定期比对版本号后清空各自的缓存。
+ * 每个阶梯加载后超过 alertRuleCacheTtlMs 重新加载，版本号不可用或直接改库时配置最迟在有效期后生效
+ */
+@Slf4j
+@Component
+public class AlertRuleCache {
+
+    private final AlertRuleRepository alertRuleRepository;
+    private final TriggerConditionRepository triggerConditionRepository;
+    private final ExceptionTypeRepository exceptionTypeRepository;
+    private final AlertConfigVersionRepository configVersionRepository;
+    private final TriggerStrategyFactory triggerStrategyFactory;
+    private final TriggerExpressionCompiler triggerExpressionCompiler;
+    private final List<AlertActionExecutor> actionExecutors;
+    private final List<ExceptionDetectionStrategy> detectionStrategies;
+    private final ScheduledTaskProperties properties;
+
+    private final Map<Long, RuleLadder> ladders = new ConcurrentHashMap<>();
+    /** 每次失效递增，失效前开始加载的阶梯不会被继续使用 */
+    private final AtomicLong generation = new AtomicLong();
+    /** 最近一次看到的集群配置版本号 */
+    private volatile Long clusterVersion;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+
+    public AlertRuleCache(AlertRuleRepository alertRuleRepository,
+                          TriggerConditionRepository triggerConditionRepository,
+                          ExceptionTypeRepository exceptionTypeRepository,
+                          AlertConfigVersionRepository configVersionRepository,
+                          TriggerStrategyFactory triggerStrategyFactory,
+                          TriggerExpressionCompiler triggerExpressionCompiler,
+                          List<AlertActionExecutor> actionExecutors,
+                          List<ExceptionDetectionStrategy> detectionStrategies,
+                          ScheduledTaskProperties properties) {
+        this.alertRuleRepository = alertRuleRepository;
+        this.triggerConditionRepository = triggerConditionRepository;
+        this.exceptionTypeRepository = exceptionTypeRepository;
+        this.configVersionRepository = configVersionRepository;
+        this.triggerStrategyFactory = triggerStrategyFactory;
+        this.triggerExpressionCompiler = triggerExpressionCompiler;
+        this.actionExecutors = actionExecutors;
+        this.detectionStrategies = detectionStrategies;
+        this.properties = properties;
+    }
+
+    /**
+     * 获取异常类型的升级阶梯（没有启用的规则时返回空阶梯）
+     */
+    public RuleLadder getLadder(Long exceptionTypeId) {
+        RuleLadder ladder = ladders.get(exceptionTypeId);
+        if (ladder != null && ladder.generation == generation.get() && !isExpired(ladder)) {
+            hitCount.incrementAndGet();
+            return ladder;
+        }
+        ladder = load(exceptionTypeId);
+        ladders.put(exceptionTypeId, ladder);
+        return ladder;
+    }
+
+    /**
+     * 配置变更后调用：清空本地缓存，集群模式下递增版本号通知其他节点
+     */
+    public void invalidateAll() {
+        clearLocal();
+        if (properties.isAlertRuleCacheClusterEnabled()) {
+            try {
+                configVersionRepository.increment();
+            } catch (Exception e) {
+                log.warn("递增报警配置版本号失败，其他节点最多在缓存有效期（{}ms）后加载新配置",
+                        properties.getAlertRuleCacheTtlMs(), e);
+            }
+        }
+    }
+
+    /**
+     * 集群模式下定期比对配置版本号
+     */
+    @Scheduled(fixedDelayString = "${scheduled.task.alert-rule-cache-version-check-interval-ms:2000}")
+    public void checkClusterVersion() {
+        if (!properties.isAlertRuleCacheClusterEnabled()) {
+            return;
+        }
+        try {
+            Long version = configVersionRepository.currentVersion();
+            Long previous = clusterVersion;
+            clusterVersion = version;
+            if (previous != null && !Objects.equals(previous, version)) {
+                log.info("报警配置版本号变化 {} -> {}，清空本地规则缓存", previous, version);
+                clearLocal();
+            }
+        } catch (Exception e) {
+            log.warn("读取报警配置版本号失败", e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cachedTypes", ladders.size());
+        stats.put("generation", generation.get());
+        stats.put("clusterVersion", clusterVersion);
+        stats.put("hits", hitCount.get());
+        stats.put("loads", loadCount.get());
+        return stats;
+    }
+
+    private boolean isExpired(RuleLadder ladder) {
+        long ttlMs = properties.getAlertRuleCacheTtlMs();
+        return ttlMs > 0 && System.nanoTime() - ladder.loadedAtNanos >= TimeUnit.MILLISECONDS.toNanos(ttlMs);
+    }
+
+    private void clearLocal() {
+        generation.incrementAndGet();
+        ladders.clear();
+        triggerExpressionCompiler.invalidateAll();
+    }
+
+    private RuleLadder load(Long exceptionTypeId) {
+        long loadGeneration = generation.get();
+        loadCount.incrementAndGet();
+
+        List<AlertRule> rules = alertRuleRepository.findEnabledRulesByExceptionType(exceptionTypeId);
+        // 按等级优先级排序（从低到高），同级按规则ID
+        rules.sort(Comparator.comparingInt((AlertRule rule) -> AlertConstants.AlertLevels.getPriority(rule.getLevel()))
+                .thenComparingLong(AlertRule::getId));
+
+        List<RuleLadder.Step> steps = new ArrayList<>(rules.size());
+        for (AlertRule rule : rules) {
+            TriggerCondition condition = triggerConditionRepository.selectById(rule.getTriggerConditionId());
+            TriggerStrategy strategy = null;
+            if (condition == null) {
+                log.warn("触发条件不存在: ruleId={}, triggerConditionId={}", rule.getId(), rule.getTriggerConditionId());
+            } else {
+                try {
+                    strategy = triggerStrategyFactory.getStrategy(condition);
+                } catch (IllegalArgumentException e) {
+                    log.warn("无法创建触发策略: ruleId={}, conditionType={}", rule.getId(), condition.getConditionType());
+                }
+            }
+            steps.add(new RuleLadder.Step(rule, condition, strategy, findActionExecutor(rule.getActionType())));
+        }
+
+        ExceptionType exceptionType = exceptionTypeRepository.selectById(exceptionTypeId);
+        ExceptionDetectionStrategy detectionStrategy = exceptionType != null
+                ? findDetectionStrategy(exceptionType.getDetectionLogicType())
+                : null;
+
+        log.debug("已加载异常类型 [{}] 的升级阶梯，规则数：{}", exceptionTypeId, steps.size());
+        return new RuleLadder(exceptionTypeId, exceptionType, detectionStrategy, steps, loadGeneration);
+    }
+
+    private AlertActionExecutor findActionExecutor(String actionType) {
+        for (AlertActionExecutor executor : actionExecutors) {
+            if (executor.supports(actionType)) {
+                return executor;
+            }
+        }
+        return null;
+    }
+
+    private ExceptionDetectionStrategy findDetectionStrategy(String logicType) {
+        if (logicType == null || logicType.isBlank()) {
+            return null;
+        }
+        for (ExceptionDetectionStrategy strategy : detectionStrategies) {
+            if (logicType.equalsIgnoreCase(strategy.getStrategyName())) {
+                return strategy;
+            }
+        }
+        return null;
+    }
+}
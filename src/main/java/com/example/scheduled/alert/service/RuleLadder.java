@@ -0,0 +1,103 @@
+package com.example.scheduled.alert.service;
+
+import com.example.scheduled.alert.action.AlertActionExecutor;
+import com.example.scheduled.alert.constant.AlertConstants;
+import com.example.scheduled.alert.detection.ExceptionDetectionStrategy;
+import com.example.scheduled.alert.entity.AlertRule;
+import com.example.scheduled.alert.entity.ExceptionType;
+import com.example.scheduled.alert.entity.TriggerCondition;
+import com.example.scheduled.alert.trigger.TriggerStrategy;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 某个异常类型的报警升级阶梯（不可变）
+ * 启用的规则按等级优先级从低到高排好序，每级的触发条件、触发策略、报警动作执行器均已解析；
+ * 其中的实体对象由缓存共享，只读使用
+ */
+@Getter
+public final class RuleLadder {
+
+    private final Long exceptionTypeId;
+    private final ExceptionType exceptionType;
+    /** 检测策略；异常类型未配置检测逻辑或找不到对应策略时为 null */
+    private final ExceptionDetectionStrategy detectionStrategy;
+    private final List<Step> steps;
+    /** 构建时的缓存代次，失效后不再使用 */
+    final long generation;
+    /** 构建时刻（单调时钟），超过缓存有效期后重新加载 */
+    final long loadedAtNanos = System.nanoTime();
+
+    RuleLadder(Long exceptionTypeId, ExceptionType exceptionType, ExceptionDetectionStrategy detectionStrategy,
+               List<Step> steps, long generation) {
+        this.exceptionTypeId = exceptionTypeId;
+        this.exceptionType = exceptionType;
+        this.detectionStrategy = detectionStrategy;
+        this.steps = List.copyOf(steps);
+        this.generation = generation;
+    }
+
+    public boolean isEmpty() {
+        return steps.isEmpty();
+    }
+
+    /**
+     * 最低等级
+     */
+    public Step lowest() {
+        return steps.isEmpty() ? null : steps.get(0);
+    }
+
+    /**
+     * 高于指定等级的第一级，已是最高等级时返回 null
+     */
+    public Step next(String level) {
+        int priority = AlertConstants.AlertLevels.getPriority(level);
+        for (Step step : steps) {
+            if (step.priority > priority) {
+                return step;
+            }
+        }
+        return null;
+    }
+
+    public Step findByLevel(String level) {
+        for (Step step : steps) {
+            if (step.rule.getLevel().equals(level)) {
+                return step;
+            }
+        }
+        return null;
+    }
+
+    public Step findByRuleId(Long ruleId) {
+        for (Step step : steps) {
+            if (step.rule.getId().equals(ruleId)) {
+                return step;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 阶梯中的一级：规则及其预先解析的触发条件、策略和动作执行器
+     */
+    @Getter
+    public static final class Step {
+        private final AlertRule rule;
+        private final TriggerCondition condition;
+        private final TriggerStrategy strategy;
+        /** 找不到支持该动作类型的执行器时为 null */
+        private final AlertActionExecutor actionExecutor;
+        private final int priority;
+
+        Step(AlertRule rule, TriggerCondition condition, TriggerStrategy strategy, AlertActionExecutor actionExecutor) {
+            this.rule = rule;
+            this.condition = condition;
+            this.strategy = strategy;
+            this.actionExecutor = actionExecutor;
+            this.priority = AlertConstants.AlertLevels.getPriority(rule.getLevel());
+        }
+    }
+}
@@ -12,10 +12,18 @@ import java.time.LocalDateTime;
  * 1. shouldTrigger - 在评估时刻判断报警是否应该立即触发
  * 2. calculateNextEvaluationTime - 为调度系统安排下一次评估时间，实现精准调度
  * 
- * 支持多种触发策略：绝对时间、相对时间、混合条件等
+ * 支持多种触发策略：绝对时间、相对时间、混合条件、Cron、每周 / 每月等
+ *
+ * 实现类注册为 Spring 单例 Bean，由 TriggerStrategyFactory 按 getConditionType 自动发现；
+ * 同一实例会被并发调用，实现必须无状态或线程安全。新增条件类型只需添加一个实现 Bean
  */
 public interface TriggerStrategy {
 
+    /**
+     * 该策略处理的条件类型（对应 trigger_condition.condition_type，如 ABSOLUTE）
+     */
+    String getConditionType();
+
     /**
      * 在指定时刻判断是否满足触发条件
      * 
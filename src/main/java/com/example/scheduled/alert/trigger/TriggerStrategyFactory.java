@@ -1,46 +1,58 @@
 package com.example.scheduled.alert.trigger;
 
 import com.example.scheduled.alert.entity.TriggerCondition;
-import com.example.scheduled.alert.repository.TriggerConditionRepository;
-import com.example.scheduled.alert.trigger.strategy.AbsoluteTimeTrigger;
-import com.example.scheduled.alert.trigger.strategy.HybridTrigger;
-import com.example.scheduled.alert.trigger.strategy.RelativeEventTrigger;
-import lombok.Data;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import static com.example.scheduled.alert.constant.AlertConstants.TriggerType.*;
-
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 
 /**
- * 触发策略工厂 - 根据条件类型创建相应的策略实现
+ * 触发策略注册表 - 按条件类型返回对应的单例策略
+ * 所有 TriggerStrategy Bean 在启动时按 getConditionType 注册，同一类型存在多个实现时启动失败
  */
 @Slf4j
-@Data
 @Component
-@RequiredArgsConstructor
 public class TriggerStrategyFactory {
 
-    private final TriggerConditionRepository triggerConditionRepository;
+    private final Map<String, TriggerStrategy> strategies;
+
+    public TriggerStrategyFactory(List<TriggerStrategy> strategyBeans) {
+        Map<String, TriggerStrategy> registry = new HashMap<>();
+        for (TriggerStrategy strategy : strategyBeans) {
+            TriggerStrategy previous = registry.put(strategy.getConditionType(), strategy);
+            if (previous != null) {
+                throw new IllegalStateException("触发条件类型 [" + strategy.getConditionType() + "] 存在多个策略实现: "
+                        + previous.getClass().getSimpleName() + ", " + strategy.getClass().getSimpleName());
+            }
+        }
+        this.strategies = Map.copyOf(registry);
+        log.info("已注册触发策略: {}", strategies.keySet());
+    }
 
     /**
-     * 根据触发条件创建对应的策略实例
+     * 根据触发条件获取对应的策略（单例，可并发使用）
      */
-    public TriggerStrategy createStrategy(TriggerCondition condition) {
+    public TriggerStrategy getStrategy(TriggerCondition condition) {
         if (condition == null) {
             throw new IllegalArgumentException("触发条件不能为空");
         }
 
-        String conditionType = condition.getConditionType();
+        TriggerStrategy strategy = strategies.get(condition.getConditionType());
+        if (strategy == null) {
+            throw new IllegalArgumentException("未知的触发条件类型: " + condition.getConditionType());
+        }
+        return strategy;
+    }
 
-        return switch(conditionType) {
-            case ABSOLUTE -> new AbsoluteTimeTrigger();
-            case RELATIVE -> new RelativeEventTrigger();
-            case HYBRID -> new HybridTrigger(this);
-            default -> throw new IllegalArgumentException("未知的触发条件类型: " + conditionType);
-        };
+    /**
+     * 已注册的条件类型
+     */
+    public Set<String> getSupportedTypes() {
+        return strategies.keySet();
     }
 
 }
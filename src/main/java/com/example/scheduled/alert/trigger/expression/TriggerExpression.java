@@ -0,0 +1,414 @@
+package com.example.scheduled.alert.trigger.expression;
+
+import com.example.scheduled.alert.entity.ExceptionEvent;
+import com.example.scheduled.alert.entity.TriggerCondition;
+import com.example.scheduled.alert.trigger.schedule.FireSchedule;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编译后的触发条件表达式树（不可变）
+ * 由 TriggerExpressionCompiler 从 trigger_condition 编译而来，评估时不再查库、不再解析 ID 字符串。
+ * 每个节点除了判断某时刻是否成立，还能给出从某时刻起最早成立 / 最早不成立的时间，
+ * 整棵树的下次评估时间据此闭式计算（AND 取各子条件同时成立的最早时刻，而不是简单取最小值）
+ */
+public abstract class TriggerExpression {
+
+    /**
+     * AND / OR 寻找"所有子条件同时成立"时刻的最大迭代次数；叶子条件都是按天周期或单调的，通常 2~3 轮即收敛
+     */
+    private static final int MAX_ALIGN_ITERATIONS = 32;
+
+    /** 永不成立（子条件缺失、存在循环引用或配置无效时使用） */
+    public static final TriggerExpression NEVER = new Never();
+
+    /**
+     * 指定时刻是否成立
+     */
+    public abstract boolean evaluate(ExceptionEvent event, LocalDateTime now);
+
+    /**
+     * 从 from（含）起最早成立的时刻；无法确定（如依赖的事件尚未发生）或永不成立时返回 null
+     */
+    public abstract LocalDateTime nextTrueTime(ExceptionEvent event, LocalDateTime from);
+
+    /**
+     * 从 from（含）起最早不成立的时刻；此后一直成立时返回 null
+     */
+    public abstract LocalDateTime nextFalseTime(ExceptionEvent event, LocalDateTime from);
+
+    /**
+     * 收集树中所有相对事件叶子（用于相对事件缺失时登记待机依赖）
+     */
+    public abstract void collectRelative(List<Relative> out);
+
+    /**
+     * 多个条件同时满足的最早时刻：轮流把时间推进到每个条件的下一个满足时刻，直到所有条件在同一时刻满足
+     *
+     * @param forTrue true 求同时成立，false 求同时不成立
+     */
+    private static LocalDateTime align(TriggerExpression[] children, ExceptionEvent event,
+                                       LocalDateTime from, boolean forTrue) {
+        LocalDateTime time = from;
+        for (int round = 0; round < MAX_ALIGN_ITERATIONS; round++) {
+            boolean aligned = true;
+            for (TriggerExpression child : children) {
+                LocalDateTime next = forTrue ? child.nextTrueTime(event, time) : child.nextFalseTime(event, time);
+                if (next == null) {
+                    return null;
+                }
+                if (next.isAfter(time)) {
+                    time = next;
+                    aligned = false;
+                }
+            }
+            if (aligned) {
+                return time;
+            }
+        }
+        return null;
+    }
+
+    private static LocalDateTime earliest(TriggerExpression[] children, ExceptionEvent event,
+                                          LocalDateTime from, boolean forTrue) {
+        LocalDateTime earliest = null;
+        for (TriggerExpression child : children) {
+            LocalDateTime next = forTrue ? child.nextTrueTime(event, from) : child.nextFalseTime(event, from);
+            if (next != null && (earliest == null || next.isBefore(earliest))) {
+                earliest = next;
+            }
+        }
+        return earliest;
+    }
+
+    /**
+     * 所有子条件都成立（短路求值）
+     */
+    static final class And extends TriggerExpression {
+        private final TriggerExpression[] children;
+
+        And(TriggerExpression[] children) {
+            this.children = children;
+        }
+
+        @Override
+        public boolean evaluate(ExceptionEvent event, LocalDateTime now) {
+            for (TriggerExpression child : children) {
+                if (!child.evaluate(event, now)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public LocalDateTime nextTrueTime(ExceptionEvent event, LocalDateTime from) {
+            return align(children, event, from, true);
+        }
+
+        @Override
+        public LocalDateTime nextFalseTime(ExceptionEvent event, LocalDateTime from) {
+            return earliest(children, event, from, false);
+        }
+
+        @Override
+        public void collectRelative(List<Relative> out) {
+            for (TriggerExpression child : children) {
+                child.collectRelative(out);
+            }
+        }
+    }
+
+    /**
+     * 任一子条件成立（短路求值）
+     */
+    static final class Or extends TriggerExpression {
+        private final TriggerExpression[] children;
+
+        Or(TriggerExpression[] children) {
+            this.children = children;
+        }
+
+        @Override
+        public boolean evaluate(ExceptionEvent event, LocalDateTime now) {
+            for (TriggerExpression child : children) {
+                if (child.evaluate(event, now)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public LocalDateTime nextTrueTime(ExceptionEvent event, LocalDateTime from) {
+            return earliest(children, event, from, true);
+        }
+
+        @Override
+        public LocalDateTime nextFalseTime(ExceptionEvent event, LocalDateTime from) {
+            return align(children, event, from, false);
+        }
+
+        @Override
+        public void collectRelative(List<Relative> out) {
+            for (TriggerExpression child : children) {
+                child.collectRelative(out);
+            }
+        }
+    }
+
+    /**
+     * 子条件取反
+     */
+    static final class Not extends TriggerExpression {
+        private final TriggerExpression child;
+
+        Not(TriggerExpression child) {
+            this.child = child;
+        }
+
+        @Override
+        public boolean evaluate(ExceptionEvent event, LocalDateTime now) {
+            return !child.evaluate(event, now);
+        }
+
+        @Override
+        public LocalDateTime nextTrueTime(ExceptionEvent event, LocalDateTime from) {
+            return child.nextFalseTime(event, from);
+        }
+
+        @Override
+        public LocalDateTime nextFalseTime(ExceptionEvent event, LocalDateTime from) {
+            return child.nextTrueTime(event, from);
+        }
+
+        @Override
+        public void collectRelative(List<Relative> out) {
+            child.collectRelative(out);
+        }
+    }
+
+    /**
+     * 每天的时刻区间：绝对时间条件为 [absoluteTime, 24:00)，时间窗口为 (windowStart, windowEnd)，
+     * 与 AbsoluteTimeTrigger / RelativeEventTrigger 的判断方式一致
+     */
+    static final class DailyRange extends TriggerExpression {
+        private final LocalTime start;
+        private final boolean startInclusive;
+        /** 不含；null 表示到当天结束 */
+        private final LocalTime end;
+
+        DailyRange(LocalTime start, boolean startInclusive, LocalTime end) {
+            this.start = start;
+            this.startInclusive = startInclusive;
+            this.end = end;
+        }
+
+        @Override
+        public boolean evaluate(ExceptionEvent event, LocalDateTime now) {
+            return contains(now.toLocalTime());
+        }
+
+        private boolean contains(LocalTime time) {
+            boolean afterStart = startInclusive ? !time.isBefore(start) : time.isAfter(start);
+            return afterStart && (end == null || time.isBefore(end));
+        }
+
+        /**
+         * 区间内最早的时刻（开区间取下一秒）；区间为空时返回 null
+         */
+        private LocalTime firstInstant() {
+            LocalTime first = startInclusive ? start : start.plusSeconds(1);
+            if (!startInclusive && first.isBefore(start)) {
+                return null;
+            }
+            return contains(first) ? first : null;
+        }
+
+        @Override
+        public LocalDateTime nextTrueTime(ExceptionEvent event, LocalDateTime from) {
+            if (contains(from.toLocalTime())) {
+                return from;
+            }
+            LocalTime first = firstInstant();
+            if (first == null) {
+                return null;
+            }
+            LocalDateTime today = from.toLocalDate().atTime(first);
+            return today.isAfter(from) ? today : today.plusDays(1);
+        }
+
+        @Override
+        public LocalDateTime nextFalseTime(ExceptionEvent event, LocalDateTime from) {
+            if (!contains(from.toLocalTime())) {
+                return from;
+            }
+            if (end != null) {
+                return from.toLocalDate().atTime(end);
+            }
+            // 成立到当天结束，次日 00:00 是否成立取决于起点
+            LocalDateTime midnight = from.toLocalDate().plusDays(1).atStartOfDay();
+            return contains(LocalTime.MIDNIGHT) ? null : midnight;
+        }
+
+        @Override
+        public void collectRelative(List<Relative> out) {
+        }
+    }
+
+    /**
+     * 日历条件（Cron / 每周 / 每月）：当天的触发时刻到达后成立，直到当天结束
+     */
+    static final class Scheduled extends TriggerExpression {
+        /** 连续成立的天数上限（如每天 00:00 触发的 Cron），超过后视为一直成立 */
+        private static final int MAX_CONSECUTIVE_DAYS = 366;
+
+        private final FireSchedule schedule;
+
+        Scheduled(FireSchedule schedule) {
+            this.schedule = schedule;
+        }
+
+        @Override
+        public boolean evaluate(ExceptionEvent event, LocalDateTime now) {
+            return schedule.firedOn(now);
+        }
+
+        @Override
+        public LocalDateTime nextTrueTime(ExceptionEvent event, LocalDateTime from) {
+            return schedule.firedOn(from) ? from : schedule.nextFireAfter(from);
+        }
+
+        @Override
+        public LocalDateTime nextFalseTime(ExceptionEvent event, LocalDateTime from) {
+            if (!schedule.firedOn(from)) {
+                return from;
+            }
+            LocalDateTime midnight = from.toLocalDate().plusDays(1).atStartOfDay();
+            for (int i = 0; i < MAX_CONSECUTIVE_DAYS; i++) {
+                if (!schedule.firedOn(midnight)) {
+                    return midnight;
+                }
+                midnight = midnight.plusDays(1);
+            }
+            return null;
+        }
+
+        @Override
+        public void collectRelative(List<Relative> out) {
+        }
+    }
+
+    /**
+     * 相对事件条件：事件发生后经过指定分钟数起一直成立；事件未发生时不成立
+     */
+    public static final class Relative extends TriggerExpression {
+        private final TriggerCondition condition;
+        private final boolean fromDetectedAt;
+        /** detection_context 中候选的事件时间键，编译时确定 */
+        private final String[] contextKeys;
+        private final long durationMinutes;
+
+        Relative(TriggerCondition condition, boolean fromDetectedAt, String[] contextKeys) {
+            this.condition = condition;
+            this.fromDetectedAt = fromDetectedAt;
+            this.contextKeys = contextKeys;
+            this.durationMinutes = condition.getRelativeDurationMinutes();
+        }
+
+        /**
+         * 来源触发条件（只读）
+         */
+        public TriggerCondition getCondition() {
+            return condition;
+        }
+
+        /**
+         * 事件是否已记录到异常事件中
+         */
+        public boolean hasEventTime(ExceptionEvent event) {
+            return triggerTime(event) != null;
+        }
+
+        private LocalDateTime triggerTime(ExceptionEvent event) {
+            LocalDateTime eventTime = null;
+            if (fromDetectedAt) {
+                eventTime = event.getDetectedAt();
+            } else {
+                Map<String, Object> context = event.getDetectionContext();
+                if (context != null) {
+                    for (String key : contextKeys) {
+                        Object value = context.get(key);
+                        if (value instanceof LocalDateTime time) {
+                            eventTime = time;
+                            break;
+                        }
+                        if (value != null) {
+                            try {
+                                eventTime = LocalDateTime.parse(value.toString());
+                                break;
+                            } catch (RuntimeException ignored) {
+                                // 非法时间格式按未发生处理
+                            }
+                        }
+                    }
+                }
+            }
+            return eventTime != null ? eventTime.plusMinutes(durationMinutes) : null;
+        }
+
+        @Override
+        public boolean evaluate(ExceptionEvent event, LocalDateTime now) {
+            LocalDateTime triggerTime = triggerTime(event);
+            return triggerTime != null && !now.isBefore(triggerTime);
+        }
+
+        @Override
+        public LocalDateTime nextTrueTime(ExceptionEvent event, LocalDateTime from) {
+            LocalDateTime triggerTime = triggerTime(event);
+            if (triggerTime == null) {
+                return null;
+            }
+            return from.isBefore(triggerTime) ? triggerTime : from;
+        }
+
+        @Override
+        public LocalDateTime nextFalseTime(ExceptionEvent event, LocalDateTime from) {
+            LocalDateTime triggerTime = triggerTime(event);
+            if (triggerTime == null || from.isBefore(triggerTime)) {
+                return from;
+            }
+            return null;
+        }
+
+        @Override
+        public void collectRelative(List<Relative> out) {
+            out.add(this);
+        }
+    }
+
+    private static final class Never extends TriggerExpression {
+
+        @Override
+        public boolean evaluate(ExceptionEvent event, LocalDateTime now) {
+            return false;
+        }
+
+        @Override
+        public LocalDateTime nextTrueTime(ExceptionEvent event, LocalDateTime from) {
+            return null;
+        }
+
+        @Override
+        public LocalDateTime nextFalseTime(ExceptionEvent event, LocalDateTime from) {
+            return from;
+        }
+
+        @Override
+        public void collectRelative(List<Relative> out) {
+        }
+    }
+}
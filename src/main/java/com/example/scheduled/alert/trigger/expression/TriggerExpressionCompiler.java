@@ -0,0 +1,191 @@
+package com.example.scheduled.alert.trigger.expression;
+
+import com.example.scheduled.alert.entity.TriggerCondition;
+import com.example.scheduled.alert.repository.TriggerConditionRepository;
+import com.example.scheduled.alert.trigger.RelativeEventType;
+import com.example.scheduled.alert.trigger.schedule.FireSchedule;
+import com.example.scheduled.alert.trigger.schedule.FireScheduleCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.example.scheduled.alert.constant.AlertConstants.LogicalOperator.*;
+import static com.example.scheduled.alert.constant.AlertConstants.TimeFieldSuffix.TIME;
+import static com.example.scheduled.alert.constant.AlertConstants.TriggerType.*;
+
+/**
+ * 触发条件编译器
+ * 将 trigger_condition（含任意层级嵌套的 HYBRID）编译为 TriggerExpression 树，子条件只在编译时查询一次。
+ * 编译结果按条件ID缓存，条件的 updatedAt 变化或配置变更调用 invalidateAll 后重新编译；
+ * 循环引用、无效的逻辑操作符等配置错误编译为永不成立，并记录错误日志
+ */
+@Slf4j
+@Component
+public class TriggerExpressionCompiler {
+
+    private final TriggerConditionRepository triggerConditionRepository;
+    private final FireScheduleCache fireScheduleCache;
+
+    private final Map<Long, Compiled> cache = new ConcurrentHashMap<>();
+
+    public TriggerExpressionCompiler(TriggerConditionRepository triggerConditionRepository,
+                                     FireScheduleCache fireScheduleCache) {
+        this.triggerConditionRepository = triggerConditionRepository;
+        this.fireScheduleCache = fireScheduleCache;
+    }
+
+    /**
+     * 获取触发条件的编译结果
+     */
+    public TriggerExpression compile(TriggerCondition condition) {
+        if (condition.getId() == null) {
+            return compileRoot(condition);
+        }
+        Compiled compiled = cache.get(condition.getId());
+        if (compiled != null && Objects.equals(compiled.version, condition.getUpdatedAt())) {
+            return compiled.expression;
+        }
+        TriggerExpression expression = compileRoot(condition);
+        cache.put(condition.getId(), new Compiled(condition.getUpdatedAt(), expression));
+        return expression;
+    }
+
+    /**
+     * 清空编译缓存（子条件变更不会改变父条件的 updatedAt，配置变更时整体失效）
+     */
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    private TriggerExpression compileRoot(TriggerCondition condition) {
+        try {
+            return build(condition, new HashSet<>());
+        } catch (IllegalStateException e) {
+            log.error("触发条件编译失败，按永不触发处理: conditionId={}, 原因: {}", condition.getId(), e.getMessage());
+            return TriggerExpression.NEVER;
+        }
+    }
+
+    /**
+     * @param path 当前编译路径上的条件ID，用于检测循环引用
+     */
+    private TriggerExpression build(TriggerCondition condition, Set<Long> path) {
+        Long id = condition.getId();
+        if (id != null && !path.add(id)) {
+            throw new IllegalStateException("混合条件存在循环引用: " + path + " -> " + id);
+        }
+        TriggerExpression expression = switch (String.valueOf(condition.getConditionType())) {
+            case ABSOLUTE -> buildAbsolute(condition);
+            case RELATIVE -> buildRelative(condition);
+            case HYBRID -> buildHybrid(condition, path);
+            case CRON, WEEKLY, MONTHLY -> buildScheduled(condition);
+            default -> {
+                log.warn("未知的触发条件类型: conditionId={}, conditionType={}", id, condition.getConditionType());
+                yield TriggerExpression.NEVER;
+            }
+        };
+        if (id != null) {
+            path.remove(id);
+        }
+
+        // 时间窗口作用于任意类型的条件（包括 HYBRID 本身）
+        if (condition.getTimeWindowStart() != null && condition.getTimeWindowEnd() != null
+                && expression != TriggerExpression.NEVER) {
+            TriggerExpression window = new TriggerExpression.DailyRange(
+                    condition.getTimeWindowStart(), false, condition.getTimeWindowEnd());
+            expression = new TriggerExpression.And(new TriggerExpression[]{expression, window});
+        }
+        return expression;
+    }
+
+    private TriggerExpression buildAbsolute(TriggerCondition condition) {
+        if (condition.getAbsoluteTime() == null) {
+            log.warn("绝对时间条件缺少触发时刻: conditionId={}", condition.getId());
+            return TriggerExpression.NEVER;
+        }
+        return new TriggerExpression.DailyRange(condition.getAbsoluteTime(), true, null);
+    }
+
+    private TriggerExpression buildScheduled(TriggerCondition condition) {
+        FireSchedule schedule = fireScheduleCache.forCondition(condition);
+        return schedule != null ? new TriggerExpression.Scheduled(schedule) : TriggerExpression.NEVER;
+    }
+
+    private TriggerExpression buildRelative(TriggerCondition condition) {
+        String eventType = condition.getRelativeEventType();
+        if (eventType == null || condition.getRelativeDurationMinutes() == null) {
+            log.warn("相对事件条件缺少事件类型或时长: conditionId={}", condition.getId());
+            return TriggerExpression.NEVER;
+        }
+        RelativeEventType type = RelativeEventType.fromString(eventType);
+        if (type == RelativeEventType.EXCEPTION_DETECTED) {
+            return new TriggerExpression.Relative(condition, true, new String[0]);
+        }
+        // 依赖管理器按 eventType + "_time" 记录外部事件，枚举定义的上下文字段作为兼容
+        List<String> keys = new ArrayList<>(2);
+        keys.add(eventType + TIME);
+        if (type != null && !keys.contains(type.getContextKey())) {
+            keys.add(type.getContextKey());
+        }
+        return new TriggerExpression.Relative(condition, false, keys.toArray(new String[0]));
+    }
+
+    private TriggerExpression buildHybrid(TriggerCondition condition, Set<Long> path) {
+        String operator = condition.getLogicalOperator() == null
+                ? null : condition.getLogicalOperator().trim().toUpperCase(Locale.ROOT);
+        if (!AND.equals(operator) && !OR.equals(operator) && !NOT.equals(operator)) {
+            log.warn("混合条件逻辑操作符无效: conditionId={}, logicalOperator={}",
+                    condition.getId(), condition.getLogicalOperator());
+            return TriggerExpression.NEVER;
+        }
+
+        List<TriggerExpression> children = new ArrayList<>();
+        for (Long childId : parseConditionIds(condition.getCombinedConditionIds())) {
+            TriggerCondition child = triggerConditionRepository.selectById(childId);
+            if (child == null) {
+                log.warn("混合条件的子条件不存在，按不成立处理: conditionId={}, childId={}", condition.getId(), childId);
+                children.add(TriggerExpression.NEVER);
+                continue;
+            }
+            children.add(build(child, path));
+        }
+        if (children.isEmpty()) {
+            log.warn("混合条件子条件列表为空: conditionId={}", condition.getId());
+            return TriggerExpression.NEVER;
+        }
+
+        if (NOT.equals(operator)) {
+            if (children.size() != 1) {
+                log.warn("NOT 混合条件只能有一个子条件: conditionId={}, 子条件数={}", condition.getId(), children.size());
+                return TriggerExpression.NEVER;
+            }
+            return new TriggerExpression.Not(children.get(0));
+        }
+        if (children.size() == 1) {
+            return children.get(0);
+        }
+        TriggerExpression[] array = children.toArray(new TriggerExpression[0]);
+        return AND.equals(operator) ? new TriggerExpression.And(array) : new TriggerExpression.Or(array);
+    }
+
+    private List<Long> parseConditionIds(String idString) {
+        if (idString == null || idString.trim().isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>();
+        for (String part : idString.split(",")) {
+            try {
+                ids.add(Long.parseLong(part.trim()));
+            } catch (NumberFormatException e) {
+                log.warn("无效的条件ID: {}", part);
+            }
+        }
+        return ids;
+    }
+
+    private record Compiled(LocalDateTime version, TriggerExpression expression) {
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.scheduled.alert.trigger.schedule;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * 每周 / 每月固定时刻（不可变），下次触发时刻直接计算，无需迭代
+ * 每月的日期超过当月天数时取月末，例如 31 号在 2 月按 28/29 号触发
+ */
+public final class CalendarSchedule implements FireSchedule {
+
+    /** 每周触发的星期几；每月触发时为 null */
+    private final DayOfWeek dayOfWeek;
+    /** 每月触发的日期；每周触发时为 0 */
+    private final int dayOfMonth;
+    private final LocalTime time;
+
+    private CalendarSchedule(DayOfWeek dayOfWeek, int dayOfMonth, LocalTime time) {
+        this.dayOfWeek = dayOfWeek;
+        this.dayOfMonth = dayOfMonth;
+        this.time = time;
+    }
+
+    public static CalendarSchedule weekly(DayOfWeek dayOfWeek, LocalTime time) {
+        return new CalendarSchedule(dayOfWeek, 0, time);
+    }
+
+    public static CalendarSchedule monthly(int dayOfMonth, LocalTime time) {
+        return new CalendarSchedule(null, dayOfMonth, time);
+    }
+
+    @Override
+    public LocalDateTime firstFireOn(LocalDate date) {
+        return matches(date) ? date.atTime(time) : null;
+    }
+
+    @Override
+    public LocalDateTime nextFireAfter(LocalDateTime from) {
+        LocalDate date = from.toLocalDate();
+        if (matches(date) && date.atTime(time).isAfter(from)) {
+            return date.atTime(time);
+        }
+        if (dayOfWeek != null) {
+            return date.with(TemporalAdjusters.next(dayOfWeek)).atTime(time);
+        }
+        LocalDate thisMonth = fireDateIn(YearMonth.from(date));
+        LocalDate next = thisMonth.isAfter(date) ? thisMonth : fireDateIn(YearMonth.from(date).plusMonths(1));
+        return next.atTime(time);
+    }
+
+    private boolean matches(LocalDate date) {
+        if (dayOfWeek != null) {
+            return date.getDayOfWeek() == dayOfWeek;
+        }
+        return date.getDayOfMonth() == Math.min(dayOfMonth, date.lengthOfMonth());
+    }
+
+    private LocalDate fireDateIn(YearMonth month) {
+        return month.atDay(Math.min(dayOfMonth, month.lengthOfMonth()));
+    }
+}
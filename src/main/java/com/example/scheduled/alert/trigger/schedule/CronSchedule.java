@@ -0,0 +1,71 @@
+package com.example.scheduled.alert.trigger.schedule;
+
+import org.quartz.CronExpression;
+
+import java.text.ParseException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * 预编译的 Cron 时刻表
+ * 表达式只解析一次；最近一次计算的区间 [from, next) 与当天首次触发时刻被缓存，
+ * 同一区间内的重复查询（大量异常共用同一条件）直接返回，不再调用 CronExpression
+ */
+public final class CronSchedule implements FireSchedule {
+
+    private final CronExpression cronExpression;
+    private final ZoneId zone;
+
+    /** 区间 [from, next) 内任意时刻之后的下一次触发都是 next */
+    private volatile NextFire lastNextFire;
+    private volatile DayFire lastDayFire;
+
+    /**
+     * @throws ParseException 表达式无效
+     */
+    public CronSchedule(String expression, ZoneId zone) throws ParseException {
+        this.cronExpression = new CronExpression(expression);
+        this.cronExpression.setTimeZone(TimeZone.getTimeZone(zone));
+        this.zone = zone;
+    }
+
+    @Override
+    public LocalDateTime firstFireOn(LocalDate date) {
+        DayFire cached = lastDayFire;
+        if (cached != null && cached.date.equals(date)) {
+            return cached.firstFire;
+        }
+        LocalDateTime next = nextFireAfter(date.atStartOfDay().minusSeconds(1));
+        LocalDateTime firstFire = next != null && next.toLocalDate().equals(date) ? next : null;
+        lastDayFire = new DayFire(date, firstFire);
+        return firstFire;
+    }
+
+    @Override
+    public LocalDateTime nextFireAfter(LocalDateTime from) {
+        NextFire cached = lastNextFire;
+        if (cached != null && !from.isBefore(cached.from) && from.isBefore(cached.next)) {
+            return cached.next;
+        }
+        Date fireTime;
+        // CronExpression 未声明线程安全
+        synchronized (cronExpression) {
+            fireTime = cronExpression.getNextValidTimeAfter(Date.from(from.atZone(zone).toInstant()));
+        }
+        if (fireTime == null) {
+            return null;
+        }
+        LocalDateTime next = LocalDateTime.ofInstant(fireTime.toInstant(), zone);
+        lastNextFire = new NextFire(from, next);
+        return next;
+    }
+
+    private record NextFire(LocalDateTime from, LocalDateTime next) {
+    }
+
+    private record DayFire(LocalDate date, LocalDateTime firstFire) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.scheduled.alert.trigger.schedule;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 日历触发时刻表（Cron / 每周 / 每月），实现须不可变或线程安全
+ * 条件在某天第一次触发时刻到达后成立，直到当天结束，与绝对时间条件"每天到点后成立"的语义一致
+ */
+public interface FireSchedule {
+
+    /**
+     * 指定日期的第一次触发时刻，当天不触发时返回 null
+     */
+    LocalDateTime firstFireOn(LocalDate date);
+
+    /**
+     * 严格晚于 from 的下一次触发时刻，之后不再触发时返回 null
+     */
+    LocalDateTime nextFireAfter(LocalDateTime from);
+
+    /**
+     * 当天的触发时刻是否已到达
+     */
+    default boolean firedOn(LocalDateTime now) {
+        LocalDateTime first = firstFireOn(now.toLocalDate());
+        return first != null && !now.isBefore(first);
+    }
+}
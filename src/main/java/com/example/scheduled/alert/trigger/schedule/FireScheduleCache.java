@@ -0,0 +1,86 @@
+package com.example.scheduled.alert.trigger.schedule;
+
+import com.example.scheduled.alert.entity.TriggerCondition;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.text.ParseException;
+import java.time.DayOfWeek;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.example.scheduled.alert.constant.AlertConstants.TriggerType.*;
+
+/**
+ * 日历触发时刻表缓存
+ * 按条件内容（类型 + 表达式 / 日期 / 时刻）缓存编译好的时刻表，相同配置的条件共用同一实例；
+ * 配置无效的条件同样缓存结果，避免每次评估重复解析和打印日志
+ */
+@Slf4j
+@Component
+public class FireScheduleCache {
+
+    private final Map<String, Optional<FireSchedule>> schedules = new ConcurrentHashMap<>();
+
+    /**
+     * 获取条件对应的时刻表；条件类型不是 CRON / WEEKLY / MONTHLY 或配置无效时返回 null
+     */
+    public FireSchedule forCondition(TriggerCondition condition) {
+        String key = cacheKey(condition);
+        if (key == null) {
+            return null;
+        }
+        return schedules.computeIfAbsent(key, k -> Optional.ofNullable(compile(condition))).orElse(null);
+    }
+
+    private static String cacheKey(TriggerCondition condition) {
+        String type = condition.getConditionType();
+        if (CRON.equals(type)) {
+            return CRON + "|" + condition.getCronExpression();
+        }
+        if (WEEKLY.equals(type)) {
+            return WEEKLY + "|" + condition.getDayOfWeek() + "|" + condition.getAbsoluteTime();
+        }
+        if (MONTHLY.equals(type)) {
+            return MONTHLY + "|" + condition.getDayOfMonth() + "|" + condition.getAbsoluteTime();
+        }
+        return null;
+    }
+
+    private FireSchedule compile(TriggerCondition condition) {
+        String type = condition.getConditionType();
+        if (CRON.equals(type)) {
+            if (condition.getCronExpression() == null || condition.getCronExpression().isBlank()) {
+                log.warn("Cron 条件缺少表达式: conditionId={}", condition.getId());
+                return null;
+            }
+            try {
+                return new CronSchedule(condition.getCronExpression().trim(), ZoneId.systemDefault());
+            } catch (ParseException e) {
+                log.error("Cron表达式解析失败: conditionId={}, expression={}",
+                        condition.getId(), condition.getCronExpression(), e);
+                return null;
+            }
+        }
+        if (condition.getAbsoluteTime() == null) {
+            log.warn("{} 条件缺少触发时刻: conditionId={}", type, condition.getId());
+            return null;
+        }
+        if (WEEKLY.equals(type)) {
+            Integer day = condition.getDayOfWeek();
+            if (day == null || day < 1 || day > 7) {
+                log.warn("每周条件的星期几无效: conditionId={}, dayOfWeek={}", condition.getId(), day);
+                return null;
+            }
+            return CalendarSchedule.weekly(DayOfWeek.of(day), condition.getAbsoluteTime());
+        }
+        Integer day = condition.getDayOfMonth();
+        if (day == null || day < 1 || day > 31) {
+            log.warn("每月条件的日期无效: conditionId={}, dayOfMonth={}", condition.getId(), day);
+            return null;
+        }
+        return CalendarSchedule.monthly(day, condition.getAbsoluteTime());
+    }
+}
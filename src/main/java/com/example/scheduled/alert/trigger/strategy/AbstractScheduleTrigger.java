@@ -0,0 +1,45 @@
+package com.example.scheduled.alert.trigger.strategy;
+
+import com.example.scheduled.alert.entity.ExceptionEvent;
+import com.example.scheduled.alert.entity.TriggerCondition;
+import com.example.scheduled.alert.trigger.TriggerStrategy;
+import com.example.scheduled.alert.trigger.schedule.FireSchedule;
+import com.example.scheduled.alert.trigger.schedule.FireScheduleCache;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * 日历类触发策略基类（Cron / 每周 / 每月）
+ * 当天的触发时刻到达后成立（直到当天结束），下次评估时间为下一次触发时刻，与绝对时间策略的语义一致；
+ * 时刻表由 FireScheduleCache 预编译并缓存，策略本身无状态
+ */
+public abstract class AbstractScheduleTrigger implements TriggerStrategy {
+
+    private final FireScheduleCache fireScheduleCache;
+
+    protected AbstractScheduleTrigger(FireScheduleCache fireScheduleCache) {
+        this.fireScheduleCache = fireScheduleCache;
+    }
+
+    @Override
+    public boolean shouldTrigger(TriggerCondition condition, ExceptionEvent event, LocalDateTime now) {
+        FireSchedule schedule = fireScheduleCache.forCondition(condition);
+        if (schedule == null || !schedule.firedOn(now)) {
+            return false;
+        }
+
+        // 检查是否在时间窗口内（如果配置了）
+        if (condition.getTimeWindowStart() != null && condition.getTimeWindowEnd() != null) {
+            LocalTime currentTime = now.toLocalTime();
+            return currentTime.isAfter(condition.getTimeWindowStart()) && currentTime.isBefore(condition.getTimeWindowEnd());
+        }
+        return true;
+    }
+
+    @Override
+    public LocalDateTime calculateNextEvaluationTime(TriggerCondition condition, ExceptionEvent event, LocalDateTime now) {
+        FireSchedule schedule = fireScheduleCache.forCondition(condition);
+        return schedule != null ? schedule.nextFireAfter(now) : null;
+    }
+}
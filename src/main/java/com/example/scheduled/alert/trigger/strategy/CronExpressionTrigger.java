@@ -0,0 +1,23 @@
+package com.example.scheduled.alert.trigger.strategy;
+
+import com.example.scheduled.alert.trigger.schedule.FireScheduleCache;
+import org.springframework.stereotype.Component;
+
+import static com.example.scheduled.alert.constant.AlertConstants.TriggerType.CRON;
+
+/**
+ * Cron 表达式触发策略 - 按 Quartz Cron 表达式触发
+ * 示例：cronExpression = "0 0 16 ? * WED" 每周三 16:00 触发报警
+ */
+@Component
+public class CronExpressionTrigger extends AbstractScheduleTrigger {
+
+    public CronExpressionTrigger(FireScheduleCache fireScheduleCache) {
+        super(fireScheduleCache);
+    }
+
+    @Override
+    public String getConditionType() {
+        return CRON;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.scheduled.alert.trigger.strategy;
+
+import com.example.scheduled.alert.trigger.schedule.FireScheduleCache;
+import org.springframework.stereotype.Component;
+
+import static com.example.scheduled.alert.constant.AlertConstants.TriggerType.MONTHLY;
+
+/**
+ * 每月触发策略 - 每月固定日期的固定时刻触发（日期超过当月天数时取月末）
+ * 示例：dayOfMonth = 15, absoluteTime = 16:00 每月 15 号 16:00 触发报警
+ */
+@Component
+public class MonthlyTrigger extends AbstractScheduleTrigger {
+
+    public MonthlyTrigger(FireScheduleCache fireScheduleCache) {
+        super(fireScheduleCache);
+    }
+
+    @Override
+    public String getConditionType() {
+        return MONTHLY;
+    }
+}
@@ -5,19 +5,28 @@ import com.example.scheduled.alert.entity.TriggerCondition;
 import com.example.scheduled.alert.trigger.RelativeEventType;
 import com.example.scheduled.alert.trigger.TriggerStrategy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Map;
 
+import static com.example.scheduled.alert.constant.AlertConstants.TriggerType.RELATIVE;
+
 /**
  * 相对时间触发策略 - 从某个事件开始计时，经过指定时间后触发
  * 示例：班次开始后 8 小时触发报警
  */
 @SuppressWarnings("all")
 @Slf4j
+@Component
 public class RelativeEventTrigger implements TriggerStrategy {
 
+    @Override
+    public String getConditionType() {
+        return RELATIVE;
+    }
+
     @Override
     public boolean shouldTrigger(TriggerCondition condition, ExceptionEvent event, LocalDateTime now) {
         if (condition.getRelativeEventType() == null || condition.getRelativeDurationMinutes() == null) {
@@ -0,0 +1,23 @@
+package com.example.scheduled.alert.trigger.strategy;
+
+import com.example.scheduled.alert.trigger.schedule.FireScheduleCache;
+import org.springframework.stereotype.Component;
+
+import static com.example.scheduled.alert.constant.AlertConstants.TriggerType.WEEKLY;
+
+/**
+ * 每周触发策略 - 每周固定星期几的固定时刻触发
+ * 示例：dayOfWeek = 3, absoluteTime = 16:00 每周三 16:00 触发报警
+ */
+@Component
+public class WeeklyTrigger extends AbstractScheduleTrigger {
+
+    public WeeklyTrigger(FireScheduleCache fireScheduleCache) {
+        super(fireScheduleCache);
+    }
+
+    @Override
+    public String getConditionType() {
+        return WEEKLY;
+    }
+}
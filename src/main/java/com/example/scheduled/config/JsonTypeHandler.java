@@ -2,6 +2,7 @@ package com.example.scheduled.config;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.apache.ibatis.type.BaseTypeHandler;
 import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.MappedJdbcTypes;
@@ -15,16 +16,25 @@ import java.util.Map;
 
 /**
  * MyBatis JSON TypeHandler
- * 处理 Map<String, Object> 与 MySQL JSON 类型的转换
+ * 处理 Map<String, Object> 与 MySQL JSON 类型的转换；
+ * 读取时返回延迟解析的 {@link LazyJsonMap}，未访问过的字段回写时直接使用原始文本
  */
 @MappedTypes({Map.class})
 @MappedJdbcTypes({JdbcType.VARCHAR, JdbcType.OTHER})
 public class JsonTypeHandler extends BaseTypeHandler<Map<String, Object>> {
 
     private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final ObjectReader mapReader = objectMapper.reader();
 
     @Override
     public void setNonNullParameter(PreparedStatement ps, int i, Map<String, Object> parameter, JdbcType jdbcType) throws SQLException {
+        if (parameter instanceof LazyJsonMap lazy) {
+            String raw = lazy.rawJson();
+            if (raw != null) {
+                ps.setString(i, raw);
+                return;
+            }
+        }
         try {
             ps.setString(i, objectMapper.writeValueAsString(parameter));
         } catch (JsonProcessingException e) {
@@ -47,15 +57,20 @@ public class JsonTypeHandler extends BaseTypeHandler<Map<String, Object>> {
         return parseJson(cs.getString(columnIndex));
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * JSON 字面量 null 按空值处理；读取时只校验是否为 JSON 对象的外形，完整解析推迟到首次访问
+     */
     private Map<String, Object> parseJson(String json) throws SQLException {
-        if (json == null || json.trim().isEmpty()) {
+        if (json == null) {
             return null;
         }
-        try {
-            return objectMapper.readValue(json, Map.class);
-        } catch (JsonProcessingException e) {
-            throw new SQLException("JSON 反序列化失败", e);
+        String trimmed = json.trim();
+        if (trimmed.isEmpty() || "null".equals(trimmed)) {
+            return null;
+        }
+        if (trimmed.charAt(0) != '{' || trimmed.charAt(trimmed.length() - 1) != '}') {
+            throw new SQLException("JSON 反序列化失败：不是 JSON 对象");
         }
+        return new LazyJsonMap(trimmed, mapReader);
     }
 }
@@ -0,0 +1,153 @@
+package com.example.scheduled.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * 延迟解析的 JSON Map
+ * 从数据库读出时只保存原始 JSON 文本，首次访问内容时才解析；
+ * 未被访问过时，回写数据库和 Jackson 序列化都直接输出原始文本，省去一次解析和序列化
+ */
+public class LazyJsonMap implements Map<String, Object>, JsonSerializable {
+
+    private static final TypeReference<LinkedHashMap<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private final ObjectReader reader;
+    private volatile String rawJson;
+    private volatile Map<String, Object> delegate;
+
+    LazyJsonMap(String rawJson, ObjectReader reader) {
+        this.rawJson = rawJson;
+        this.reader = reader.forType(MAP_TYPE);
+    }
+
+    /**
+     * 尚未解析时返回原始 JSON 文本；一旦解析（内容可能已被修改）返回 null
+     */
+    public String rawJson() {
+        return rawJson;
+    }
+
+    private Map<String, Object> decoded() {
+        Map<String, Object> map = delegate;
+        if (map == null) {
+            synchronized (this) {
+                map = delegate;
+                if (map == null) {
+                    try {
+                        map = reader.readValue(rawJson);
+                    } catch (IOException e) {
+                        // 保留原始文本，解析失败不影响原样回写
+                        throw new IllegalStateException("JSON 反序列化失败", e);
+                    }
+                    if (map == null) {
+                        map = new LinkedHashMap<>();
+                    }
+                    delegate = map;
+                    rawJson = null;
+                }
+            }
+        }
+        return map;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        String raw = rawJson;
+        if (raw != null) {
+            gen.writeRawValue(raw);
+        } else {
+            serializers.defaultSerializeValue(delegate, gen);
+        }
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers,
+                                  TypeSerializer typeSer) throws IOException {
+        serialize(gen, serializers);
+    }
+
+    @Override
+    public int size() {
+        return decoded().size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return decoded().isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return decoded().containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return decoded().containsValue(value);
+    }
+
+    @Override
+    public Object get(Object key) {
+        return decoded().get(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        return decoded().put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return decoded().remove(key);
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ?> m) {
+        decoded().putAll(m);
+    }
+
+    @Override
+    public void clear() {
+        decoded().clear();
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return decoded().keySet();
+    }
+
+    @Override
+    public Collection<Object> values() {
+        return decoded().values();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return decoded().entrySet();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o == this || decoded().equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return decoded().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        String raw = rawJson;
+        return raw != null ? raw : decoded().toString();
+    }
+}
@@ -36,4 +36,246 @@ public class ScheduledTaskProperties {
      * 锁类型：local（本地）/ redis（Redis）
      */
     private String lockType = "local";
+
+    /**
+     * Quartz Job 模式（仅 quartz 模式使用）：per-task（每个任务一个 JobDetail）/ shared（每个任务类型共享一个 JobDetail，任务只写 Trigger）
+     */
+    private String quartzJobMode = "per-task";
+
+    /**
+     * Quartz 存储模式（仅 quartz 模式使用）：jdbc（JDBC JobStore 持久化）/ hybrid（RAMJobStore 触发，scheduled_task 为事实来源）
+     */
+    private String quartzStoreMode = "jdbc";
+
+    /**
+     * 近期任务预加载窗口（秒，仅 hybrid 模式使用）
+     */
+    private long hybridWindowSeconds = 300;
+
+    /**
+     * 近期任务加载间隔（毫秒，仅 hybrid 模式使用）
+     */
+    private long hybridLoadIntervalMs = 30000;
+
+    /**
+     * 分片任务线程池大小（taskData 声明 shardCount 的任务在此并行执行各分片）
+     */
+    private int shardPoolSize = Runtime.getRuntime().availableProcessors() * 2;
+
+    /**
+     * 单个任务允许声明的最大分片数（taskData.shardCount），超出范围的任务创建时拒绝
+     */
+    private int maxShardCount = 256;
+
+    /**
+     * 是否启用执行日志保留（按月分区清理）
+     */
+    private boolean logRetentionEnabled = false;
+
+    /**
+     * 执行日志保留月数，更早月份的分区会被删除
+     */
+    private int logRetentionMonths = 6;
+
+    /**
+     * 删除过期分区前是否导出为本地压缩归档
+     */
+    private boolean logArchiveEnabled = false;
+
+    /**
+     * 执行日志归档目录
+     */
+    private String logArchiveDir = "./archive/task-execution-log";
+
+    /**
+     * 是否启用本地执行日志（执行结果先写内存映射日志，再异步批量同步到数据库）
+     */
+    private boolean journalEnabled = false;
+
+    /**
+     * 本地执行日志目录
+     */
+    private String journalDir = "./journal";
+
+    /**
+     * 日志段文件大小（MB）
+     */
+    private int journalSegmentSizeMb = 64;
+
+    /**
+     * 每批同步到数据库的最大记录数
+     */
+    private int journalBatchSize = 500;
+
+    /**
+     * 无新记录时的同步轮询间隔（毫秒）
+     */
+    private long journalShipIntervalMs = 500;
+
+    /**
+     * 单条记录连续同步失败达到该次数后写入死信文件并跳过（数据库不可用不计入）
+     */
+    private int journalMaxShipAttempts = 5;
+
+    /**
+     * 是否启用执行统计汇总（统计接口读取 task_execution_rollup，需先执行 task-statistics-rollup.sql）
+     */
+    private boolean statisticsRollupEnabled = false;
+
+    /**
+     * 汇总增量写入间隔（毫秒）
+     */
+    private long statisticsRollupFlushIntervalMs = 5000;
+
+    /**
+     * 是否定期发布本节点实时计数器快照，用于合并集群视图（需先执行 task-statistics-rollup.sql）
+     */
+    private boolean liveMetricsClusterEnabled = false;
+
+    /**
+     * 实时计数器快照发布间隔（毫秒）
+     */
+    private long liveMetricsPublishIntervalMs = 10000;
+
+    /**
+     * 分布统计缓存有效期（毫秒），本节点任务状态变更时立即失效
+     */
+    private long statisticsCacheTtlMs = 5000;
+
+    /**
+     * 状态推送中任务变更的合并窗口（毫秒），窗口内同一任务的多次变更只推送最终状态
+     */
+    private long pushCoalesceWindowMs = 200;
+
+    /**
+     * 状态推送环形缓冲容量（条），用于断线重连时按 Last-Event-ID 补发
+     */
+    private int pushBufferSize = 1000;
+
+    /**
+     * 状态推送心跳间隔（毫秒）
+     */
+    private long pushHeartbeatIntervalMs = 15000;
+
+    /**
+     * 状态推送单次发送耗时上限（毫秒），超过的慢连接会被断开，客户端可凭 Last-Event-ID 重连续传
+     */
+    private long pushSendTimeoutMs = 5000;
+
+    /**
+     * 批量上报异常事件（POST /api/alert/events/batch）单次最大条数
+     */
+    private int alertEventBatchMaxSize = 1000;
+
+    /**
+     * 是否异步处理告警系统事件（按业务ID分区排队、合并、批量处理）；关闭时在发布方提交后同步处理
+     */
+    private boolean alertPipelineEnabled = true;
+
+    /**
+     * 告警事件处理分区数（后台线程数），同一业务的事件总落在同一分区
+     */
+    private int alertPipelinePartitions = 4;
+
+    /**
+     * 告警事件队列总容量，平均分给各分区；分区满时发布线程限时等待，超时后超出容量入队
+     */
+    private int alertPipelineQueueCapacity = 10000;
+
+    /**
+     * 告警事件分区队列满时发布线程的最长等待时间（毫秒）
+     */
+    private long alertPipelineOfferTimeoutMs = 50;
+
+    /**
+     * 告警事件合并窗口（毫秒），窗口内重复的（业务, 事件类型）只处理一次
+     */
+    private long alertPipelineCoalesceWindowMs = 100;
+
+    /**
+     * 告警事件单批最大条数，每批在一个事务内处理
+     */
+    private int alertPipelineBatchSize = 200;
+
+    /**
+     * 是否启用活跃异常内存索引，只带业务ID的告警系统事件在该业务无活跃异常时不访问数据库
+     */
+    private boolean alertActiveIndexEnabled = true;
+
+    /**
+     * 活跃异常索引与数据库全量对账间隔（毫秒），也是其他节点新建异常在本节点可见的最大延迟
+     */
+    private long alertActiveIndexReconcileIntervalMs = 5000;
+
+    /**
+     * 报警规则缓存是否通过 alert_config_version 版本号在集群内失效（表包含在 alert-schema.sql 中，
+     * 已有库执行 alert-config-version.sql 补建）
+     */
+    private boolean alertRuleCacheClusterEnabled = true;
+
+    /**
+     * 报警规则缓存有效期（毫秒），超过后重新加载；0 表示只靠失效通知
+     */
+    private long alertRuleCacheTtlMs = 60000;
+
+    /**
+     * 集群模式下比对报警配置版本号的间隔（毫秒）
+     */
+    private long alertRuleCacheVersionCheckIntervalMs = 2000;
+
+    /**
+     * 是否用内存定时器调度报警升级评估（只持久化 pending_escalations，重启时重建）；关闭时每次评估创建一次性 ALERT 任务
+     * 定时器只在登记它的节点上，集群部署默认关闭，开启时由过期扫描接管宕机节点的等级
+     */
+    private boolean alertEscalationTimerEnabled = false;
+
+    /**
+     * 报警升级评估线程数
+     */
+    private int alertEscalationTimerPoolSize = 4;
+
+    /**
+     * 扫描过期未触发的定时器等级的间隔（毫秒）
+     */
+    private long alertEscalationTimerRescanIntervalMs = 60000;
+
+    /**
+     * 计划时间已过去超过该时长（毫秒）仍未触发的等级视为定时器丢失，由扫描节点立即评估
+     */
+    private long alertEscalationTimerOverdueGraceMs = 60000;
+
+    /**
+     * 是否异步发送报警通知（邮件、短信按渠道排队、按收件人合并摘要、批量发送）；关闭时在评估线程内逐条发送
+     */
+    private boolean alertNotifyAsyncEnabled = true;
+
+    /**
+     * 每个渠道最多排队的收件人数，已满时新收件人的通知被丢弃，已排队收件人的通知继续合并
+     */
+    private int alertNotifyQueueCapacity = 10000;
+
+    /**
+     * 摘要窗口（毫秒），同一收件人首条通知后窗口内的通知合并为一条发送
+     */
+    private long alertNotifyDigestWindowMs = 10000;
+
+    /**
+     * 单条摘要最多列出的报警数，其余只计数
+     */
+    private int alertNotifyDigestMaxItems = 20;
+
+    /**
+     * 单次调用发送器的最大通知条数
+     */
+    private int alertNotifyBatchSize = 100;
+
+    /**
+     * 发送失败的最大重试次数，超过后丢弃
+     */
+    private int alertNotifyMaxRetries = 3;
+
+    /**
+     * 首次重试等待时间（毫秒），之后每次翻倍
+     */
+    private long alertNotifyRetryBackoffMs = 1000;
 }
@@ -0,0 +1,92 @@
+package com.example.scheduled.controller;
+
+import com.example.scheduled.dto.ExportFilter;
+import com.example.scheduled.service.DataExportService;
+import com.example.scheduled.service.DataExportService.ExportFormat;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 数据流式导出接口（NDJSON / CSV，可选 gzip）
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/tasks")
+@RequiredArgsConstructor
+public class DataExportController {
+
+    private static final DateTimeFormatter FILE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private final DataExportService exportService;
+
+    /**
+     * 导出任务（按 taskType / status / created_at 范围过滤）
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTasks(ExportFilter filter,
+                                                             @RequestParam(defaultValue = "ndjson") String format,
+                                                             @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.of(format);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+        return stream("scheduled_task", exportFormat, gzip,
+                out -> exportService.exportTasks(filter, exportFormat, gzip, out));
+    }
+
+    /**
+     * 导出执行日志（按 taskId / taskType / status / execute_time 范围过滤）
+     */
+    @GetMapping("/logs/export")
+    public ResponseEntity<StreamingResponseBody> exportLogs(ExportFilter filter,
+                                                            @RequestParam(defaultValue = "ndjson") String format,
+                                                            @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.of(format);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+        return stream("task_execution_log", exportFormat, gzip,
+                out -> exportService.exportLogs(filter, exportFormat, gzip, out));
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(String name, ExportFormat format, boolean gzip,
+                                                         StreamingResponseBody body) {
+        String fileName = name + "-" + LocalDateTime.now().format(FILE_TIME_FORMAT) + "." + format.getExtension()
+                + (gzip ? ".gz" : "");
+        MediaType contentType = gzip
+                ? MediaType.parseMediaType("application/gzip")
+                : MediaType.parseMediaType(format.getContentType() + ";charset=UTF-8");
+        StreamingResponseBody loggingBody = out -> {
+            try {
+                body.writeTo(out);
+            } catch (Exception e) {
+                // 客户端中断或数据库异常：响应头已发出，只能记录日志并中断连接
+                log.error("数据导出中断：{}", fileName, e);
+                throw e;
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(contentType)
+                .body(loggingBody);
+    }
+
+    private static ResponseEntity<StreamingResponseBody> badRequest(String message) {
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.parseMediaType("text/plain;charset=UTF-8"))
+                .body(out -> out.write(message.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.scheduled.controller;
+
+import com.example.scheduled.push.StatePushService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 状态推送接口（Server-Sent Events）
+ */
+@RestController
+@RequestMapping("/api/events")
+@RequiredArgsConstructor
+public class EventStreamController {
+
+    private final StatePushService pushService;
+
+    /**
+     * 订阅任务与报警状态变更；浏览器重连时自动携带 Last-Event-ID 请求头，
+     * 首次连接也可通过 lastEventId 参数指定续传位置
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+                             @RequestParam(required = false) String lastEventId) {
+        return pushService.subscribe(lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+    }
+}
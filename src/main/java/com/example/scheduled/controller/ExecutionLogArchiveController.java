@@ -0,0 +1,78 @@
+package com.example.scheduled.controller;
+
+import com.example.scheduled.dto.ApiResponse;
+import com.example.scheduled.entity.ScheduledTask;
+import com.example.scheduled.entity.TaskExecutionLog;
+import com.example.scheduled.service.ExecutionLogArchiveService;
+import com.example.scheduled.service.ExecutionLogRetentionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 执行日志归档接口
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/tasks/log-archives")
+@RequiredArgsConstructor
+public class ExecutionLogArchiveController {
+
+    private final ExecutionLogArchiveService archiveService;
+    private final ExecutionLogRetentionService retentionService;
+
+    /**
+     * 查询归档文件列表
+     */
+    @GetMapping
+    public ApiResponse<List<Map<String, Object>>> listArchives() {
+        try {
+            return ApiResponse.success(archiveService.listArchives());
+        } catch (Exception e) {
+            log.error("查询归档列表失败", e);
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 读取某月归档的执行日志
+     * @param month 归档月份，格式 yyyyMM
+     */
+    @GetMapping("/{month}")
+    public ApiResponse<List<TaskExecutionLog>> readArchive(
+            @PathVariable String month,
+            @RequestParam(required = false) Long taskId,
+            @RequestParam(required = false) ScheduledTask.TaskStatus status,
+            @RequestParam(defaultValue = "100") int limit) {
+        try {
+            if (limit < 1 || limit > 10000) {
+                return ApiResponse.error(400, "limit 必须在 1-10000 之间");
+            }
+            YearMonth yearMonth = YearMonth.parse(month, DateTimeFormatter.ofPattern("yyyyMM"));
+            return ApiResponse.success(archiveService.readArchive(yearMonth, taskId, status, limit));
+        } catch (Exception e) {
+            log.error("读取执行日志归档失败，月份：{}", month, e);
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 手动触发一次分区维护与过期清理（需已启用日志保留，集群内与定时维护互斥）
+     */
+    @PostMapping("/maintain")
+    public ApiResponse<Long> maintain() {
+        try {
+            return ApiResponse.success("执行日志保留维护完成", retentionService.maintainManually());
+        } catch (IllegalStateException e) {
+            return ApiResponse.error(409, e.getMessage());
+        } catch (Exception e) {
+            log.error("执行日志保留维护失败", e);
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.example.scheduled.controller;
 
 import com.example.scheduled.dto.ApiResponse;
 import com.example.scheduled.dto.CreateTaskRequest;
+import com.example.scheduled.dto.TaskPage;
+import com.example.scheduled.dto.TaskQueryRequest;
 import com.example.scheduled.dto.TaskTypeInfo;
 import com.example.scheduled.entity.*;
 import com.example.scheduled.service.TaskManagementService;
@@ -115,6 +117,22 @@ public class TaskController {
         return ApiResponse.success(tasks);
     }
 
+    /**
+     * 分页查询任务（键集分页，支持类型/模式/状态/优先级/时间范围/名称前缀过滤）
+     */
+    @GetMapping("/page")
+    public ApiResponse<TaskPage> queryTasks(TaskQueryRequest query) {
+        try {
+            TaskPage page = taskManagementService.queryTasks(query);
+            return ApiResponse.success(page);
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(400, e.getMessage());
+        } catch (Exception e) {
+            log.error("分页查询任务失败", e);
+            return ApiResponse.error("分页查询任务失败：" + e.getMessage());
+        }
+    }
+
     /**
      * 取消任务
      */
@@ -243,6 +261,50 @@ public class TaskController {
         return ApiResponse.success(distribution);
     }
 
+    /**
+     * 获取任务分布统计（类型、调度模式、状态合并返回）
+     */
+    @GetMapping("/statistics/distributions")
+    public ApiResponse<TaskDistributionStatistics> getDistributions() {
+        TaskDistributionStatistics distributions = taskStatisticsService.getDistributions();
+        return ApiResponse.success(distributions);
+    }
+
+    /**
+     * 获取执行耗时与调度延迟分位数（window=1h/24h/30d，bucketed=true 时按时间桶返回）
+     */
+    @GetMapping("/statistics/percentiles")
+    public ApiResponse<List<LatencyPercentiles>> getLatencyPercentiles(
+            @RequestParam(defaultValue = "24h") String window,
+            @RequestParam(required = false) ScheduledTask.TaskType taskType,
+            @RequestParam(defaultValue = "false") boolean bucketed) {
+        try {
+            List<LatencyPercentiles> percentiles =
+                    taskStatisticsService.getLatencyPercentiles(window, taskType, bucketed);
+            return ApiResponse.success(percentiles);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ApiResponse.error(e.getMessage());
+        } catch (Exception e) {
+            log.error("获取分位数统计失败", e);
+            return ApiResponse.error("获取分位数统计失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取实时统计（scope=node 本节点内存计数器，scope=cluster 合并各节点快照）
+     */
+    @GetMapping("/statistics/live")
+    public ApiResponse<LiveTaskStatistics> getLiveStatistics(
+            @RequestParam(defaultValue = "node") String scope) {
+        try {
+            LiveTaskStatistics statistics = taskStatisticsService.getLiveStatistics("cluster".equalsIgnoreCase(scope));
+            return ApiResponse.success(statistics);
+        } catch (Exception e) {
+            log.error("获取实时统计失败", e);
+            return ApiResponse.error("获取实时统计失败：" + e.getMessage());
+        }
+    }
+
     /**
      * 获取任务类型枚举的展示列表（基于执行器注解收集）
      */
@@ -0,0 +1,49 @@
+package com.example.scheduled.controller;
+
+import com.example.scheduled.dto.ApiResponse;
+import com.example.scheduled.dto.CreateWorkflowRequest;
+import com.example.scheduled.entity.Workflow;
+import com.example.scheduled.service.WorkflowService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 工作流（任务 DAG）接口
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/workflows")
+@RequiredArgsConstructor
+public class WorkflowController {
+
+    private final WorkflowService workflowService;
+
+    /**
+     * 创建工作流
+     * 根节点立即创建任务执行，其余节点在全部上游成功后触发
+     */
+    @PostMapping
+    public ApiResponse<Workflow> createWorkflow(@Valid @RequestBody CreateWorkflowRequest request) {
+        try {
+            Workflow workflow = workflowService.createWorkflow(request);
+            return ApiResponse.success("工作流创建成功", workflow);
+        } catch (Exception e) {
+            log.error("创建工作流失败", e);
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 查询工作流详情（含节点状态）
+     */
+    @GetMapping("/{id}")
+    public ApiResponse<Workflow> getWorkflow(@PathVariable Long id) {
+        Workflow workflow = workflowService.getWorkflowById(id);
+        if (workflow == null) {
+            return ApiResponse.error(404, "工作流不存在");
+        }
+        return ApiResponse.success(workflow);
+    }
+}
@@ -53,7 +53,7 @@ public class AlertRuleConfigDTO {
     @Builder
     public static class TriggerConditionInfo {
         private Long id;                      // 触发条件ID
-        private String conditionType;         // 条件类型 (ABSOLUTE/RELATIVE/HYBRID)
+        private String conditionType;         // 条件类型 (ABSOLUTE/RELATIVE/HYBRID/CRON/WEEKLY/MONTHLY)
         
         // ABSOLUTE 类型字段
         private String absoluteTime;          // 固定时刻 (如: 16:00:00)
@@ -67,9 +67,14 @@ public class AlertRuleConfigDTO {
         private String timeWindowEnd;         // 时间窗口结束 (如: 22:00:00)
         
         // HYBRID 类型字段
-        private String logicalOperator;       // 逻辑运算符 (AND/OR)
+        private String logicalOperator;       // 逻辑运算符 (AND/OR/NOT)
         private String combinedConditionIds;  // 组合条件IDs (如: 10,11)
         
+        // CRON / WEEKLY / MONTHLY 类型字段（WEEKLY、MONTHLY 的触发时刻取 absoluteTime）
+        private String cronExpression;        // Cron 表达式 (如: 0 0 16 ? * WED)
+        private Integer dayOfWeek;            // 星期几 (1=周一 ... 7=周日)
+        private Integer dayOfMonth;           // 每月几号 (1-31)
+        
         // 显示名称
         private String displayName;           // 用于前端展示的易读名称
     }
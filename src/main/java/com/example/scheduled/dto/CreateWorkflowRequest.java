@@ -0,0 +1,68 @@
+package com.example.scheduled.dto;
+
+import com.example.scheduled.entity.ScheduledTask;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 创建工作流请求DTO
+ */
+@Data
+public class CreateWorkflowRequest {
+
+    @NotBlank(message = "工作流名称不能为空")
+    private String workflowName;
+
+    @Valid
+    @NotEmpty(message = "工作流节点不能为空")
+    private List<Node> nodes;
+
+    /**
+     * 依赖边：from 节点成功后才会触发 to 节点
+     */
+    @Valid
+    private List<Edge> edges;
+
+    /**
+     * 工作流节点（节点就绪时按此模板创建 ONCE 任务）
+     */
+    @Data
+    public static class Node {
+
+        @NotBlank(message = "节点标识不能为空")
+        private String key;
+
+        @NotBlank(message = "任务名称不能为空")
+        private String taskName;
+
+        @NotNull(message = "任务类型不能为空")
+        private ScheduledTask.TaskType taskType;
+
+        private Map<String, Object> taskData;
+
+        private Integer priority;
+
+        private Long executionTimeout;
+
+        private Integer maxRetryCount;
+    }
+
+    /**
+     * 依赖边
+     */
+    @Data
+    public static class Edge {
+
+        @NotBlank(message = "上游节点不能为空")
+        private String from;
+
+        @NotBlank(message = "下游节点不能为空")
+        private String to;
+    }
+}
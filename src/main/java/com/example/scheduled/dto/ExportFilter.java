@@ -0,0 +1,37 @@
+package com.example.scheduled.dto;
+
+import com.example.scheduled.entity.ScheduledTask;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * 导出过滤条件（任务导出按 created_at 过滤时间范围，执行日志按 execute_time 过滤）
+ */
+@Data
+public class ExportFilter {
+
+    private Long taskId;
+
+    private ScheduledTask.TaskType taskType;
+
+    private ScheduledTask.TaskStatus status;
+
+    /**
+     * 时间范围起点（含）
+     */
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime from;
+
+    /**
+     * 时间范围终点（不含）
+     */
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime to;
+
+    /**
+     * 任务导出是否包含 task_data
+     */
+    private boolean includeTaskData = false;
+}
@@ -0,0 +1,33 @@
+package com.example.scheduled.dto;
+
+import com.example.scheduled.entity.ScheduledTask;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 任务分页结果
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskPage {
+
+    private List<ScheduledTask> items;
+
+    /**
+     * 下一页游标（没有更多数据时为 null）
+     */
+    private String nextCursor;
+
+    private boolean hasMore;
+
+    /**
+     * 近似总数（来自内存计数器，仅按类型/状态过滤时提供，其他过滤条件下为 null）
+     */
+    private Long approximateTotal;
+}
@@ -0,0 +1,62 @@
+package com.example.scheduled.dto;
+
+import com.example.scheduled.entity.ScheduledTask;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * 任务分页查询请求（键集分页）
+ */
+@Data
+public class TaskQueryRequest {
+
+    /**
+     * 排序键：createdAt（默认，按创建时间倒序）/ executeTime（按执行时间正序，只返回有执行时间的任务）
+     */
+    private String sortBy = "createdAt";
+
+    /**
+     * 上一页返回的 nextCursor，首页不传
+     */
+    private String cursor;
+
+    /**
+     * 每页条数（1-500，默认 50）
+     */
+    private Integer limit = 50;
+
+    private ScheduledTask.TaskType taskType;
+
+    private ScheduledTask.ScheduleMode scheduleMode;
+
+    private ScheduledTask.TaskStatus status;
+
+    /**
+     * 最低优先级（含）
+     */
+    private Integer minPriority;
+
+    /**
+     * 排序键时间范围起点（含）
+     */
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime from;
+
+    /**
+     * 排序键时间范围终点（不含）
+     */
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime to;
+
+    /**
+     * 任务名称前缀
+     */
+    private String namePrefix;
+
+    /**
+     * 是否返回 task_data（默认不返回）
+     */
+    private boolean includeTaskData = false;
+}
@@ -0,0 +1,50 @@
+package com.example.scheduled.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 执行耗时与调度延迟分位数（毫秒）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LatencyPercentiles {
+
+    /**
+     * 时间桶起始时间（按窗口整体汇总时为 null）
+     */
+    private LocalDateTime bucketStart;
+
+    /**
+     * 任务类型（汇总所有类型时为 null）
+     */
+    private ScheduledTask.TaskType taskType;
+
+    /**
+     * 执行次数
+     */
+    private Long sampleCount;
+
+    private Long durationP50;
+
+    private Long durationP95;
+
+    private Long durationP99;
+
+    /**
+     * 参与调度延迟统计的次数（仅 ONCE 任务）
+     */
+    private Long lagSampleCount;
+
+    private Long lagP50;
+
+    private Long lagP95;
+
+    private Long lagP99;
+}
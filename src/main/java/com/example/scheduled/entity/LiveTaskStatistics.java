@@ -0,0 +1,74 @@
+package com.example.scheduled.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 实时任务统计（内存计数器快照）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LiveTaskStatistics {
+
+    /**
+     * 统计范围：node（本节点）/ cluster（合并各节点快照）
+     */
+    private String scope;
+
+    /**
+     * 本节点标识
+     */
+    private String nodeId;
+
+    /**
+     * 参与合并的节点数
+     */
+    private Integer nodeCount;
+
+    private LocalDateTime generatedAt;
+
+    /**
+     * 各状态任务数
+     */
+    private Map<String, Long> statusCounts;
+
+    /**
+     * 任务类型 -> 状态 -> 任务数
+     */
+    private Map<String, Map<String, Long>> typeStatusCounts;
+
+    /**
+     * 任务类型 -> 执行结果 -> 次数（节点启动以来）
+     */
+    private Map<String, Map<String, Long>> executionCounts;
+
+    /**
+     * 任务类型 -> 执行耗时分布（节点启动以来）
+     */
+    private Map<String, DurationSummary> durations;
+
+    /**
+     * 耗时分布摘要（毫秒）
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DurationSummary {
+
+        private Long count;
+
+        private Long p50;
+
+        private Long p95;
+
+        private Long p99;
+    }
+}
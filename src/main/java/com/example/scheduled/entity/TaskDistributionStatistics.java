@@ -0,0 +1,31 @@
+package com.example.scheduled.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 任务分布统计（类型、调度模式、状态）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskDistributionStatistics {
+
+    private List<TaskTypeStatistics> typeDistribution;
+
+    private Map<String, Long> scheduleModeDistribution;
+
+    private Map<String, Long> statusDistribution;
+
+    /**
+     * 统计生成时间（命中缓存时为缓存生成时间）
+     */
+    private LocalDateTime generatedAt;
+}
@@ -33,5 +33,11 @@ public class TaskExecutionLog {
 
     private LocalDateTime createdAt;
 
+    /**
+     * 计划执行时间（ONCE 任务，用于统计调度延迟，不落库）
+     */
+    @TableField(exist = false)
+    private LocalDateTime scheduledTime;
+
     // 可用 @TableField(fill = FieldFill.INSERT) 实现自动填充
 }
@@ -0,0 +1,79 @@
+package com.example.scheduled.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 执行统计汇总（按 时间粒度 + 时间桶 + 任务类型 + 执行结果 聚合）
+ */
+@TableName("task_execution_rollup")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskExecutionRollup {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Granularity granularity;
+
+    /**
+     * 时间桶起始时间（按粒度截断）
+     */
+    private LocalDateTime bucketStart;
+
+    private ScheduledTask.TaskType taskType;
+
+    /**
+     * 执行结果：SUCCESS / FAILED / TIMEOUT
+     */
+    private ScheduledTask.TaskStatus status;
+
+    private Long execCount;
+
+    private Long durationSum;
+
+    private Long durationMin;
+
+    private Long durationMax;
+
+    /**
+     * 耗时直方图（LatencyHistogram 稀疏编码，可合并）
+     */
+    private String durationSketch;
+
+    /**
+     * 调度延迟直方图（实际开始时间 - 计划执行时间，仅 ONCE 任务）
+     */
+    private String lagSketch;
+
+    private LocalDateTime updatedAt;
+
+    /**
+     * 时间粒度
+     */
+    public enum Granularity {
+        MINUTE(ChronoUnit.MINUTES),
+        HOUR(ChronoUnit.HOURS),
+        DAY(ChronoUnit.DAYS);
+
+        private final ChronoUnit unit;
+
+        Granularity(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        public LocalDateTime truncate(LocalDateTime time) {
+            return time.truncatedTo(unit);
+        }
+    }
+}
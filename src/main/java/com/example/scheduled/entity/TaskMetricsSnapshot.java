@@ -0,0 +1,32 @@
+package com.example.scheduled.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 节点实时计数器快照（用于合并集群视图）
+ */
+@TableName("task_metrics_node_snapshot")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskMetricsSnapshot {
+
+    @TableId(type = IdType.INPUT)
+    private String nodeId;
+
+    /**
+     * 快照内容（JSON：executions 执行次数、durations 耗时直方图编码）
+     */
+    private String snapshot;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,69 @@
+package com.example.scheduled.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import com.example.scheduled.config.JsonTypeHandler;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 工作流实例（任务 DAG）
+ * 节点定义与运行状态各存为一个紧凑 JSON 字段，推进时只更新本行
+ */
+@TableName(value = "workflow", autoResultMap = true)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Workflow {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private String workflowName;
+
+    private WorkflowStatus status;
+
+    /**
+     * DAG 定义：nodes（节点任务模板列表）、downstream（按节点下标的下游下标列表）
+     */
+    @TableField(value = "definition", typeHandler = JsonTypeHandler.class)
+    private Map<String, Object> definition;
+
+    /**
+     * DAG 运行状态：remaining（各节点未完成的上游数）、nodeStatus（各节点状态字符）
+     */
+    @TableField(value = "dag_state", typeHandler = JsonTypeHandler.class)
+    private Map<String, Object> dagState;
+
+    private Integer totalNodes;
+
+    private Integer completedNodes;
+
+    /**
+     * 乐观锁版本号，集群中多个节点推进同一工作流时保证状态不丢失
+     */
+    private Integer version;
+
+    private String errorMessage;
+
+    private LocalDateTime finishedAt;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    /**
+     * 工作流状态枚举
+     */
+    public enum WorkflowStatus {
+        RUNNING,    // 运行中
+        SUCCESS,    // 全部节点成功
+        FAILED,     // 有节点最终失败
+        CANCELLED   // 有节点任务被取消
+    }
+}
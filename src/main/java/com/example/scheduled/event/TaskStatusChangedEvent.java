@@ -0,0 +1,44 @@
+package com.example.scheduled.event;
+
+import com.example.scheduled.entity.ScheduledTask;
+import com.example.scheduled.entity.TaskExecutionLog;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 任务状态变更事件
+ * 任务创建、抢占执行、执行结果落库、取消、暂停、恢复时发布，供工作流推进、统计等模块订阅
+ */
+@Getter
+public class TaskStatusChangedEvent extends ApplicationEvent {
+
+    /**
+     * 变更后的任务快照
+     */
+    private final ScheduledTask task;
+
+    /**
+     * 变更后的状态（发布时捕获，任务快照后续可能继续被修改）
+     */
+    private final ScheduledTask.TaskStatus status;
+
+    /**
+     * 变更前的状态（新建任务为 null）
+     */
+    private final ScheduledTask.TaskStatus previousStatus;
+
+    /**
+     * 本次执行日志（非执行引起的变更为 null）
+     */
+    private final TaskExecutionLog executionLog;
+
+    public TaskStatusChangedEvent(Object source, ScheduledTask task,
+                                  ScheduledTask.TaskStatus previousStatus,
+                                  TaskExecutionLog executionLog) {
+        super(source);
+        this.task = task;
+        this.status = task.getStatus();
+        this.previousStatus = previousStatus;
+        this.executionLog = executionLog;
+    }
+}
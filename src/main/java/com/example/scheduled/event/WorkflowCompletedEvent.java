@@ -0,0 +1,22 @@
+package com.example.scheduled.event;
+
+import com.example.scheduled.entity.Workflow;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 工作流完成事件（全部节点成功或有节点最终失败）
+ */
+@Getter
+public class WorkflowCompletedEvent extends ApplicationEvent {
+
+    private final Long workflowId;
+
+    private final Workflow.WorkflowStatus status;
+
+    public WorkflowCompletedEvent(Object source, Long workflowId, Workflow.WorkflowStatus status) {
+        super(source);
+        this.workflowId = workflowId;
+        this.status = status;
+    }
+}
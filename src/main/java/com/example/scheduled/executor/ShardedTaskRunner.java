@@ -0,0 +1,279 @@
+package com.example.scheduled.executor;
+
+import com.example.scheduled.config.ScheduledTaskProperties;
+import com.example.scheduled.entity.ScheduledTask;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分片任务执行器
+ * taskData 声明 shardCount（可选 shardKeyStart/shardKeyEnd 键范围）时，将任务拆成多个分片并行执行，
+ * 每个分片的 taskData 附带 shardIndex/shardCount（及 shardKeyFrom/shardKeyTo）；
+ * ONCE 任务的失败分片记录在 failedShards 中，重试时只执行失败分片；CRON 任务每次触发都执行全部分片，不记录
+ */
+@Slf4j
+@Component
+public class ShardedTaskRunner {
+
+    public static final String SHARD_COUNT = "shardCount";
+    public static final String SHARD_KEY_START = "shardKeyStart";
+    public static final String SHARD_KEY_END = "shardKeyEnd";
+    public static final String SHARD_INDEX = "shardIndex";
+    public static final String SHARD_KEY_FROM = "shardKeyFrom";
+    public static final String SHARD_KEY_TO = "shardKeyTo";
+    public static final String FAILED_SHARDS = "failedShards";
+
+    private final ExecutorService shardPool;
+    private final int maxShardCount;
+
+    /** 正在执行的分片任务（按任务对象识别），超时时调度线程据此在本线程内写回失败分片 */
+    private final Map<ScheduledTask, ShardRun> runs = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    public ShardedTaskRunner(ScheduledTaskProperties properties) {
+        this.maxShardCount = properties.getMaxShardCount();
+        AtomicInteger counter = new AtomicInteger();
+        this.shardPool = Executors.newFixedThreadPool(properties.getShardPoolSize(), r -> {
+            Thread thread = new Thread(r, "task-shard-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 校验 taskData 中的分片数：声明时必须是 1 到 max-shard-count 之间的整数，创建任务时调用
+     */
+    public void validateShardCount(Map<String, Object> taskData) {
+        if (taskData == null || !taskData.containsKey(SHARD_COUNT)) {
+            return;
+        }
+        Object value = taskData.get(SHARD_COUNT);
+        if (!(value instanceof Integer || value instanceof Long || value instanceof Short)
+                || ((Number) value).longValue() < 1 || ((Number) value).longValue() > maxShardCount) {
+            throw new IllegalArgumentException("分片数 shardCount 应为 1-" + maxShardCount + " 之间的整数：" + value);
+        }
+    }
+
+    /**
+     * 执行任务：非分片任务直接调用执行器，分片任务并行执行并等待全部分片完成
+     */
+    public void run(TaskExecutor executor, ScheduledTask task) throws Exception {
+        int shardCount = shardCount(task);
+        if (shardCount < 1 || shardCount > maxShardCount) {
+            // 校验之前创建的任务
+            throw new IllegalArgumentException("分片数 shardCount 超出范围（1-" + maxShardCount + "）：" + shardCount);
+        }
+        if (shardCount == 1) {
+            executor.execute(task);
+            return;
+        }
+
+        List<Integer> shards = shardsToRun(task, shardCount);
+        log.info("任务 [{}] 分片执行，分片总数：{}，本次执行分片：{}", task.getTaskName(), shardCount, shards);
+
+        // 先登记再提交，超时时调度线程总能找到本次执行
+        ShardRun run = new ShardRun(shards);
+        runs.put(task, run);
+        try {
+            synchronized (run) {
+                for (Integer shardIndex : shards) {
+                    if (run.recorded) {
+                        break;
+                    }
+                    ScheduledTask shardTask = copyForShard(task, shardIndex, shardCount);
+                    run.futures.put(shardIndex, shardPool.submit(() -> {
+                        executor.execute(shardTask);
+                        return null;
+                    }));
+                }
+            }
+
+            String firstError = null;
+            try {
+                for (Map.Entry<Integer, Future<?>> entry : run.futures.entrySet()) {
+                    try {
+                        entry.getValue().get();
+                    } catch (ExecutionException e) {
+                        if (firstError == null) {
+                            Throwable cause = e.getCause() != null ? e.getCause() : e;
+                            firstError = cause.getMessage();
+                        }
+                        log.warn("任务 [{}] 分片 {} 执行失败", task.getTaskName(), entry.getKey(), e.getCause());
+                    }
+                }
+            } catch (InterruptedException e) {
+                // 整体超时被中断：调度线程通常已通过 cancel 写回结果，这里只兜底
+                finish(task, run, true);
+                Thread.currentThread().interrupt();
+                throw e;
+            }
+
+            SortedSet<Integer> failed = finish(task, run, false);
+            if (failed == null) {
+                // 调度线程已按超时处理并写回失败分片
+                return;
+            }
+            if (!failed.isEmpty()) {
+                throw new IllegalStateException("分片执行失败：" + failed + " / " + shardCount + "，首个错误：" + firstError);
+            }
+            log.info("任务 [{}] 全部分片执行成功，本次执行分片数：{}", task.getTaskName(), shards.size());
+        } finally {
+            runs.remove(task);
+        }
+    }
+
+    /**
+     * 任务执行超时时由调度线程调用：取消未完成的分片，并在调用线程内写回失败分片，
+     * 返回后 taskData 即为最终结果，调度线程可直接持久化；非分片任务或已结束的任务不做处理
+     */
+    public void cancel(ScheduledTask task) {
+        ShardRun run = runs.get(task);
+        if (run != null) {
+            finish(task, run, true);
+        }
+    }
+
+    /**
+     * 写回本次执行的失败分片，同一次执行只写回一次（调度线程与执行线程先到者生效）
+     *
+     * @param cancel 是否先取消未完成的分片（未成功的分片都视为失败）
+     * @return 失败分片；已由另一方写回时返回 null
+     */
+    private static SortedSet<Integer> finish(ScheduledTask task, ShardRun run, boolean cancel) {
+        synchronized (run) {
+            if (run.recorded) {
+                return null;
+            }
+            run.recorded = true;
+            SortedSet<Integer> failed = new TreeSet<>();
+            for (Integer shardIndex : run.shards) {
+                Future<?> future = run.futures.get(shardIndex);
+                if (future == null) {
+                    // 尚未提交即被取消
+                    failed.add(shardIndex);
+                    continue;
+                }
+                if (cancel) {
+                    future.cancel(true);
+                }
+                if (isFailed(future)) {
+                    failed.add(shardIndex);
+                }
+            }
+            recordFailedShards(task, failed);
+            return failed;
+        }
+    }
+
+    private static boolean isFailed(Future<?> future) {
+        try {
+            future.get(0, TimeUnit.MILLISECONDS);
+            return false;
+        } catch (Exception e) {
+            return true;
+        }
+    }
+
+    /**
+     * 一次分片执行的各分片结果
+     */
+    private static final class ShardRun {
+
+        private final List<Integer> shards;
+        /** 提交完成后只读；提交与写回都在 ShardRun 上同步 */
+        private final Map<Integer, Future<?>> futures = new LinkedHashMap<>();
+        private boolean recorded;
+
+        ShardRun(List<Integer> shards) {
+            this.shards = shards;
+        }
+    }
+
+    private static int shardCount(ScheduledTask task) {
+        Map<String, Object> taskData = task.getTaskData();
+        if (taskData == null || !(taskData.get(SHARD_COUNT) instanceof Number count)) {
+            return 1;
+        }
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, count.longValue()));
+    }
+
+    /**
+     * 本次需要执行的分片：ONCE 任务重试时只执行上次失败的分片
+     */
+    private static List<Integer> shardsToRun(ScheduledTask task, int shardCount) {
+        Object failedShards = task.getTaskData().get(FAILED_SHARDS);
+        if (task.getScheduleMode() == ScheduledTask.ScheduleMode.ONCE
+                && failedShards instanceof Collection<?> previous && !previous.isEmpty()) {
+            List<Integer> shards = new ArrayList<>(previous.size());
+            for (Object index : previous) {
+                if (index instanceof Number number && number.intValue() < shardCount) {
+                    shards.add(number.intValue());
+                }
+            }
+            return shards;
+        }
+        List<Integer> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(i);
+        }
+        return shards;
+    }
+
+    /**
+     * 写回失败分片（整体替换 taskData 引用，避免与调度线程读取时竞争）；
+     * 只有 ONCE 任务的重试会读取，CRON 任务不写入，taskData 无需变化时保持原对象
+     */
+    private static void recordFailedShards(ScheduledTask task, SortedSet<Integer> failed) {
+        boolean keep = task.getScheduleMode() == ScheduledTask.ScheduleMode.ONCE && !failed.isEmpty();
+        if (!keep && !task.getTaskData().containsKey(FAILED_SHARDS)) {
+            return;
+        }
+        Map<String, Object> taskData = new HashMap<>(task.getTaskData());
+        if (keep) {
+            taskData.put(FAILED_SHARDS, new ArrayList<>(failed));
+        } else {
+            taskData.remove(FAILED_SHARDS);
+        }
+        task.setTaskData(taskData);
+    }
+
+    private static ScheduledTask copyForShard(ScheduledTask task, int shardIndex, int shardCount) {
+        Map<String, Object> shardData = new HashMap<>(task.getTaskData());
+        shardData.remove(FAILED_SHARDS);
+        shardData.put(SHARD_INDEX, shardIndex);
+        shardData.put(SHARD_COUNT, shardCount);
+
+        // 键范围 [start, end) 均分到各分片
+        if (shardData.get(SHARD_KEY_START) instanceof Number start
+                && shardData.get(SHARD_KEY_END) instanceof Number end) {
+            long total = end.longValue() - start.longValue();
+            shardData.put(SHARD_KEY_FROM, start.longValue() + total * shardIndex / shardCount);
+            shardData.put(SHARD_KEY_TO, start.longValue() + total * (shardIndex + 1) / shardCount);
+        }
+
+        return ScheduledTask.builder()
+                .id(task.getId())
+                .taskName(task.getTaskName() + "#" + shardIndex)
+                .taskType(task.getTaskType())
+                .scheduleMode(task.getScheduleMode())
+                .executeTime(task.getExecuteTime())
+                .cronExpression(task.getCronExpression())
+                .priority(task.getPriority())
+                .executionTimeout(task.getExecutionTimeout())
+                .taskData(shardData)
+                .status(task.getStatus())
+                .retryCount(task.getRetryCount())
+                .maxRetryCount(task.getMaxRetryCount())
+                .lastExecuteTime(task.getLastExecuteTime())
+                .build();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        shardPool.shutdownNow();
+    }
+}
@@ -24,7 +24,8 @@ public class ScheduledTaskJob extends QuartzJobBean {
 
     @Override
     protected void executeInternal(JobExecutionContext context) throws JobExecutionException {
-        JobDataMap dataMap = context.getJobDetail().getJobDataMap();
+        // 合并后的 JobDataMap：兼容 taskId 存在 JobDetail（per-task 模式）或 Trigger（shared 模式）中
+        JobDataMap dataMap = context.getMergedJobDataMap();
         Long taskId = dataMap.getLong("taskId");
         
         log.debug("Quartz 触发任务执行，任务ID：{}", taskId);
@@ -0,0 +1,544 @@
+package com.example.scheduled.journal;
+
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.example.scheduled.config.ScheduledTaskProperties;
+import com.example.scheduled.entity.ScheduledTask;
+import com.example.scheduled.entity.TaskExecutionLog;
+import com.example.scheduled.repository.ExecutionJournalCheckpointRepository;
+import com.example.scheduled.repository.ScheduledTaskRepository;
+import com.example.scheduled.repository.TaskExecutionLogRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 本地执行日志（预写日志）
+ * 执行结果先追加到内存映射的段文件（微秒级，不依赖数据库），后台线程按批同步到
+ * scheduled_task 和 task_execution_log，同步进度与该批记录在同一事务内写入 execution_journal_checkpoint
+ * （本地 checkpoint 文件只用于清理已同步的段）；重启时先从数据库中的进度重放未同步的记录再开始调度。
+ * 任务状态只在仍为执行时的状态（EXECUTING）时更新，不覆盖执行期间的取消、暂停。
+ * 逐条同步仍反复失败的记录写入 dead-letter.log 后跳过，不阻塞后续记录。
+ * 记录格式：[int 长度][int CRC32][JSON]，长度为 0 表示段内数据结束
+ */
+@Slf4j
+@Component
+public class ExecutionJournal {
+
+    private static final Pattern SEGMENT_FILE = Pattern.compile("segment-(\\d+)\\.log");
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String JOURNAL_ID_FILE = "journal-id";
+    private static final String DEAD_LETTER_FILE = "dead-letter.log";
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    private final ScheduledTaskProperties properties;
+    private final SqlSessionTemplate batchSqlSession;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    /** 所有未删除的段，key 为段序号 */
+    private final ConcurrentSkipListMap<Long, MappedByteBuffer> segments = new ConcurrentSkipListMap<>();
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Condition appended = appendLock.newCondition();
+
+    private Path journalDir;
+    /** 本目录在 execution_journal_checkpoint 中的标识 */
+    private String journalId;
+    private int segmentSize;
+    private long currentSegment;
+    private MappedByteBuffer currentBuffer;
+
+    /** 已同步到数据库的位置 */
+    private long shippedSegment;
+    private int shippedOffset;
+
+    /** 逐条同步失败的记录位置及连续失败次数，位置变化时重新计数 */
+    private long failingSegment = -1;
+    private int failingOffset;
+    private int failingAttempts;
+
+    private Thread shipperThread;
+    private volatile boolean running;
+
+    public ExecutionJournal(ScheduledTaskProperties properties,
+                            SqlSessionFactory sqlSessionFactory,
+                            PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.batchSqlSession = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public boolean isEnabled() {
+        return properties.isJournalEnabled();
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        journalDir = Paths.get(properties.getJournalDir());
+        segmentSize = properties.getJournalSegmentSizeMb() * 1024 * 1024;
+        Files.createDirectories(journalDir);
+
+        // 映射已存在的段，并读取同步进度
+        try (Stream<Path> files = Files.list(journalDir)) {
+            for (Path file : files.toList()) {
+                Matcher matcher = SEGMENT_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.put(Long.parseLong(matcher.group(1)), map(file, Files.size(file)));
+                }
+            }
+        }
+        readCheckpoint();
+
+        // 重放上次未同步的记录，保证调度器加载任务前数据库状态已是最新；
+        // 数据库不可用时启动失败，单条记录失败重试到写入死信为止
+        int replayed = 0;
+        while (true) {
+            try {
+                int shipped;
+                while ((shipped = shipAvailable(Integer.MAX_VALUE)) > 0) {
+                    replayed += shipped;
+                }
+                break;
+            } catch (RuntimeException e) {
+                if (isUnavailable(e)) {
+                    throw e;
+                }
+                log.warn("执行日志重放失败，重试: {}", e.getMessage());
+            }
+        }
+        if (replayed > 0) {
+            log.info("执行日志重放完成，记录数：{}", replayed);
+        }
+
+        // 新记录写入新段
+        currentSegment = segments.isEmpty() ? shippedSegment : segments.lastKey() + 1;
+        currentSegment = Math.max(currentSegment, shippedSegment);
+        openSegment(currentSegment);
+
+        running = true;
+        shipperThread = new Thread(this::shipLoop, "execution-journal-shipper");
+        shipperThread.setDaemon(true);
+        shipperThread.start();
+        log.info("执行日志已启用，目录：{}，段大小：{}MB", journalDir, properties.getJournalSegmentSizeMb());
+    }
+
+    /**
+     * 追加一次执行结果（任务状态 + 执行日志）
+     */
+    public void append(ScheduledTask task, TaskExecutionLog executionLog) {
+        ExecutionJournalRecord record = ExecutionJournalRecord.builder()
+                .taskId(task.getId())
+                .status(task.getStatus())
+                .expectedStatus(ScheduledTask.TaskStatus.EXECUTING)
+                .retryCount(task.getRetryCount())
+                .executeTime(task.getExecuteTime())
+                .lastExecuteTime(task.getLastExecuteTime())
+                .errorMessage(task.getErrorMessage())
+                .taskData(task.getTaskData())
+                .executionLog(executionLog)
+                .build();
+
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(record);
+        } catch (IOException e) {
+            throw new IllegalStateException("执行日志序列化失败", e);
+        }
+        int needed = RECORD_HEADER_BYTES + payload.length;
+        if (needed + 4 > segmentSize) {
+            throw new IllegalArgumentException("执行日志记录超过段大小：" + needed);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        appendLock.lock();
+        try {
+            if (currentBuffer.remaining() < needed + 4) {
+                openSegment(currentSegment + 1);
+            }
+            int position = currentBuffer.position();
+            currentBuffer.putInt(position + 4, (int) crc.getValue());
+            currentBuffer.put(position + RECORD_HEADER_BYTES, payload);
+            // 最后写长度，读取方看到非 0 长度时记录已完整
+            currentBuffer.putInt(position, payload.length);
+            currentBuffer.position(position + needed);
+            appended.signal();
+        } catch (IOException e) {
+            throw new IllegalStateException("执行日志写入失败", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void shipLoop() {
+        while (running) {
+            try {
+                if (shipAvailable(properties.getJournalBatchSize()) == 0) {
+                    appendLock.lock();
+                    try {
+                        appended.await(properties.getJournalShipIntervalMs(), TimeUnit.MILLISECONDS);
+                    } finally {
+                        appendLock.unlock();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // 数据库不可用时保留在本地，稍后重试
+                log.error("执行日志同步失败，稍后重试", e);
+                sleepQuietly(properties.getJournalShipIntervalMs());
+            }
+        }
+    }
+
+    /**
+     * 读取已提交但未同步的记录，批量写入数据库并推进 checkpoint，返回处理条数（含写入死信的记录）
+     * 整批失败且不是数据库不可用时改为逐条同步，找出导致失败的记录
+     */
+    private int shipAvailable(int maxRecords) throws IOException {
+        Scan scan = scan(maxRecords);
+        List<Entry> entries = scan.entries();
+        if (entries.isEmpty()) {
+            if (scan.segment() != shippedSegment || scan.offset() != shippedOffset) {
+                commit(List.of(), scan.segment(), scan.offset());
+            }
+            return 0;
+        }
+        if (entries.get(0).record() == null) {
+            // 无法解析的记录重试也不会成功，直接写入死信
+            deadLetter(entries.get(0), "记录无法解析");
+            commit(List.of(), entries.get(0).nextSegment(), entries.get(0).nextOffset());
+            return 1;
+        }
+        try {
+            commit(entries, scan.segment(), scan.offset());
+            log.debug("执行日志同步到数据库，记录数：{}", entries.size());
+            return entries.size();
+        } catch (RuntimeException e) {
+            if (isUnavailable(e) || entries.size() == 1 && !recordFailure(entries.get(0))) {
+                throw e;
+            }
+            if (entries.size() == 1) {
+                deadLetter(entries.get(0), e.toString());
+                commit(List.of(), scan.segment(), scan.offset());
+                return 1;
+            }
+            log.warn("执行日志批量同步失败，改为逐条同步: {}", e.getMessage());
+            return shipOneByOne(entries);
+        }
+    }
+
+    /**
+     * 逐条同步；单条连续失败达到 journalMaxShipAttempts 次时写入死信并跳过
+     */
+    private int shipOneByOne(List<Entry> entries) throws IOException {
+        int shipped = 0;
+        for (Entry entry : entries) {
+            try {
+                commit(List.of(entry), entry.nextSegment(), entry.nextOffset());
+            } catch (RuntimeException e) {
+                if (isUnavailable(e) || !recordFailure(entry)) {
+                    throw e;
+                }
+                deadLetter(entry, e.toString());
+                commit(List.of(), entry.nextSegment(), entry.nextOffset());
+            }
+            shipped++;
+        }
+        return shipped;
+    }
+
+    /**
+     * 从已同步位置开始读取最多 maxRecords 条完整记录；遇到无法解析的记录时在其前面截止，
+     * 它位于首条时单独返回（record 为 null）
+     */
+    private Scan scan(int maxRecords) {
+        List<Entry> entries = new ArrayList<>();
+        long segment = shippedSegment;
+        int offset = shippedOffset;
+
+        while (entries.size() < maxRecords) {
+            MappedByteBuffer buffer = segments.get(segment);
+            if (buffer == null) {
+                Long next = segments.higherKey(segment);
+                if (next == null) {
+                    break;
+                }
+                segment = next;
+                offset = 0;
+                continue;
+            }
+
+            int limit = committedLimit(segment, buffer);
+            if (offset + RECORD_HEADER_BYTES > limit) {
+                if (isSealed(segment)) {
+                    segment++;
+                    offset = 0;
+                    continue;
+                }
+                break;
+            }
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + RECORD_HEADER_BYTES + length > limit) {
+                // 段内数据结束（或崩溃时未写完的记录）
+                if (isSealed(segment)) {
+                    segment++;
+                    offset = 0;
+                    continue;
+                }
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(offset + RECORD_HEADER_BYTES, payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                log.warn("执行日志段 {} 偏移 {} 校验失败，跳过该段剩余数据", segment, offset);
+                if (isSealed(segment)) {
+                    segment++;
+                    offset = 0;
+                    continue;
+                }
+                break;
+            }
+            int nextOffset = offset + RECORD_HEADER_BYTES + length;
+            ExecutionJournalRecord record;
+            try {
+                record = objectMapper.readValue(payload, ExecutionJournalRecord.class);
+            } catch (IOException e) {
+                log.warn("执行日志段 {} 偏移 {} 无法解析: {}", segment, offset, e.getMessage());
+                if (entries.isEmpty()) {
+                    entries.add(new Entry(segment, offset, segment, nextOffset, payload, null));
+                    return new Scan(entries, segment, nextOffset);
+                }
+                break;
+            }
+            entries.add(new Entry(segment, offset, segment, nextOffset, payload, record));
+            offset = nextOffset;
+        }
+        return new Scan(entries, segment, offset);
+    }
+
+    /**
+     * 一个事务内用 BATCH 执行器按期望状态条件更新任务、插入执行日志，并写入同步进度；
+     * 提交后再推进本地 checkpoint 文件
+     */
+    private void commit(List<Entry> entries, long segment, int offset) throws IOException {
+        transactionTemplate.executeWithoutResult(status -> {
+            ScheduledTaskRepository taskMapper = batchSqlSession.getMapper(ScheduledTaskRepository.class);
+            TaskExecutionLogRepository logMapper = batchSqlSession.getMapper(TaskExecutionLogRepository.class);
+            for (Entry entry : entries) {
+                ExecutionJournalRecord record = entry.record();
+                ScheduledTask.TaskStatus expectedStatus = record.getExpectedStatus() != null
+                        ? record.getExpectedStatus() : ScheduledTask.TaskStatus.EXECUTING;
+                taskMapper.update(record.toTaskUpdate(), new LambdaUpdateWrapper<ScheduledTask>()
+                        .eq(ScheduledTask::getId, record.getTaskId())
+                        .eq(ScheduledTask::getStatus, expectedStatus));
+                if (record.getExecutionLog() != null) {
+                    logMapper.insert(record.getExecutionLog());
+                }
+            }
+            batchSqlSession.getMapper(ExecutionJournalCheckpointRepository.class)
+                    .upsert(journalId, segment, offset, LocalDateTime.now());
+            batchSqlSession.flushStatements();
+        });
+        advanceCheckpoint(segment, offset);
+    }
+
+    /**
+     * 数据库连接类、锁冲突类异常不计入单条记录的失败次数，保留原位置等待重试
+     */
+    private static boolean isUnavailable(Throwable e) {
+        return e instanceof DataAccessResourceFailureException
+                || e instanceof TransientDataAccessException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    /**
+     * 记录一次单条同步失败，返回是否已达到最大尝试次数
+     */
+    private boolean recordFailure(Entry entry) {
+        if (entry.segment() != failingSegment || entry.offset() != failingOffset) {
+            failingSegment = entry.segment();
+            failingOffset = entry.offset();
+            failingAttempts = 0;
+        }
+        return ++failingAttempts >= Math.max(1, properties.getJournalMaxShipAttempts());
+    }
+
+    /**
+     * 以单行 JSON 追加到死信文件：位置、原因与原始记录
+     */
+    private void deadLetter(Entry entry, String reason) throws IOException {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("segment", entry.segment());
+        line.put("offset", entry.offset());
+        line.put("deadLetteredAt", LocalDateTime.now().toString());
+        line.put("reason", reason);
+        line.put("payload", new String(entry.payload(), StandardCharsets.UTF_8));
+        Files.writeString(journalDir.resolve(DEAD_LETTER_FILE), objectMapper.writeValueAsString(line) + "\n",
+                StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        log.error("执行日志记录已写入死信并跳过: 段 {} 偏移 {}，原因: {}", entry.segment(), entry.offset(), reason);
+    }
+
+    /**
+     * 当前写入段只读到已提交位置，已封存的段读到末尾
+     */
+    private int committedLimit(long segment, MappedByteBuffer buffer) {
+        appendLock.lock();
+        try {
+            if (currentBuffer != null && segment == currentSegment) {
+                return currentBuffer.position();
+            }
+            return buffer.capacity();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private boolean isSealed(long segment) {
+        appendLock.lock();
+        try {
+            return currentBuffer == null ? segments.higherKey(segment) != null : segment < currentSegment;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void openSegment(long segment) throws IOException {
+        Path file = journalDir.resolve("segment-" + segment + ".log");
+        MappedByteBuffer buffer = map(file, segmentSize);
+        segments.put(segment, buffer);
+        currentSegment = segment;
+        currentBuffer = buffer;
+    }
+
+    private static MappedByteBuffer map(Path file, long size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            if (raf.length() < size) {
+                raf.setLength(size);
+            }
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * 读取同步进度：以数据库中与数据同事务提交的进度为准，本地 checkpoint 文件可能落后于它；
+     * 数据库中尚无进度时（首次启用或升级前的目录）使用本地文件
+     */
+    private void readCheckpoint() throws IOException {
+        Path idFile = journalDir.resolve(JOURNAL_ID_FILE);
+        if (Files.exists(idFile)) {
+            journalId = Files.readString(idFile, StandardCharsets.UTF_8).trim();
+        } else {
+            journalId = UUID.randomUUID().toString();
+            Files.writeString(idFile, journalId, StandardCharsets.UTF_8);
+        }
+
+        String position = batchSqlSession.getMapper(ExecutionJournalCheckpointRepository.class).findPosition(journalId);
+        Path file = journalDir.resolve(CHECKPOINT_FILE);
+        if (position == null && Files.exists(file)) {
+            position = Files.readString(file, StandardCharsets.UTF_8).trim();
+        }
+        if (position == null) {
+            shippedSegment = segments.isEmpty() ? 0 : segments.firstKey();
+            shippedOffset = 0;
+            return;
+        }
+        String[] parts = position.split(" ");
+        shippedSegment = Long.parseLong(parts[0]);
+        shippedOffset = Integer.parseInt(parts[1]);
+    }
+
+    /**
+     * 数据库中的进度已提交后推进内存中的位置并写入本地 checkpoint 文件，删除已全部同步的段；
+     * 文件写入失败不会导致重复同步，重启时以数据库中的进度为准
+     */
+    private void advanceCheckpoint(long segment, int offset) throws IOException {
+        shippedSegment = segment;
+        shippedOffset = offset;
+        Path tmp = journalDir.resolve(CHECKPOINT_FILE + ".tmp");
+        Files.writeString(tmp, segment + " " + offset, StandardCharsets.UTF_8);
+        Files.move(tmp, journalDir.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        for (Map.Entry<Long, MappedByteBuffer> entry : segments.headMap(segment).entrySet()) {
+            segments.remove(entry.getKey());
+            Files.deleteIfExists(journalDir.resolve("segment-" + entry.getKey() + ".log"));
+        }
+    }
+
+    /**
+     * 段中的一条记录及其后一条记录的位置
+     */
+    private record Entry(long segment, int offset, long nextSegment, int nextOffset,
+                         byte[] payload, ExecutionJournalRecord record) {
+    }
+
+    /**
+     * 一次读取的结果：记录与读取结束位置（可能已跳过空段）
+     */
+    private record Scan(List<Entry> entries, long segment, int offset) {
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        shipperThread.interrupt();
+        try {
+            shipperThread.join(5000);
+            // 关闭前尽量把剩余记录同步完，未同步的记录下次启动重放
+            shipAvailable(Integer.MAX_VALUE);
+            currentBuffer.force();
+        } catch (Exception e) {
+            log.warn("关闭时同步执行日志失败，将在下次启动时重放", e);
+        }
+    }
+}
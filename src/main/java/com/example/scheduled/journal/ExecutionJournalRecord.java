@@ -0,0 +1,58 @@
+package com.example.scheduled.journal;
+
+import com.example.scheduled.entity.ScheduledTask;
+import com.example.scheduled.entity.TaskExecutionLog;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 执行日志记录：一次执行结果对应的任务状态变更 + 执行日志
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionJournalRecord {
+
+    private Long taskId;
+
+    private ScheduledTask.TaskStatus status;
+
+    /**
+     * 写入时数据库中任务应处于的状态（执行期间为 EXECUTING）；状态已被改变（如被取消、暂停）时不覆盖。
+     * 旧版本写入的记录没有该字段，按 EXECUTING 处理
+     */
+    private ScheduledTask.TaskStatus expectedStatus;
+
+    private Integer retryCount;
+
+    private LocalDateTime executeTime;
+
+    private LocalDateTime lastExecuteTime;
+
+    private String errorMessage;
+
+    private Map<String, Object> taskData;
+
+    private TaskExecutionLog executionLog;
+
+    /**
+     * 还原为只包含变更字段的任务实体（用于按 ID + 期望状态条件更新）
+     */
+    public ScheduledTask toTaskUpdate() {
+        return ScheduledTask.builder()
+                .id(taskId)
+                .status(status)
+                .retryCount(retryCount)
+                .executeTime(executeTime)
+                .lastExecuteTime(lastExecuteTime)
+                .errorMessage(errorMessage)
+                .taskData(taskData)
+                .build();
+    }
+}
@@ -0,0 +1,321 @@
+package com.example.scheduled.push;
+
+import com.example.scheduled.alert.event.AlertRecoveredEvent;
+import com.example.scheduled.alert.event.AlertResolutionEvent;
+import com.example.scheduled.alert.event.AlertSystemEvent;
+import com.example.scheduled.alert.event.AlertTriggeredEvent;
+import com.example.scheduled.config.ScheduledTaskProperties;
+import com.example.scheduled.entity.ScheduledTask;
+import com.example.scheduled.entity.TaskExecutionLog;
+import com.example.scheduled.event.TaskStatusChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 状态推送服务（Server-Sent Events）
+ * 任务状态变更按任务在合并窗口内去重后推送，报警触发/升级/解除/恢复即时推送；
+ * 每条推送带递增事件 ID 并保留在有界环形缓冲中，客户端断线重连时凭 Last-Event-ID 补发，
+ * 缓冲已覆盖不到（或节点重启过）时推送 reset 事件，提示客户端重新拉取全量数据。
+ * 序号分配与入缓冲在锁内完成，实际发送统一交给单个推送线程按序执行，事件发布线程和调度线程不会被慢客户端阻塞
+ */
+@Slf4j
+@Component
+public class StatePushService {
+
+    public static final String EVENT_TASK = "task";
+    public static final String EVENT_ALERT = "alert";
+    public static final String EVENT_RESET = "reset";
+
+    /**
+     * 事件 ID 形如 {bootId}-{seq}，bootId 区分节点的不同启动，避免重启后序号回绕导致漏推
+     */
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+
+    private final ScheduledTaskProperties properties;
+    private final ObjectMapper objectMapper;
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    /**
+     * 已推送事件的环形缓冲，与序号分配、订阅登记共用同一把锁，保证补发与实时推送不重不漏
+     */
+    private final Object bufferLock = new Object();
+    private final ArrayDeque<PushEvent> buffer = new ArrayDeque<>();
+    private long sequence;
+
+    /**
+     * 合并窗口内待推送的任务变更，按任务 ID 去重并保持首次出现的顺序
+     */
+    private final Object pendingLock = new Object();
+    private Map<Long, Map<String, Object>> pendingTasks = new LinkedHashMap<>();
+
+    /**
+     * 推送线程：单线程保证各连接收到的事件按序号顺序到达
+     */
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "state-push-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public StatePushService(ScheduledTaskProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 订阅推送；lastEventId 非空时先补发其后的缓冲事件
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = new SseEmitter(0L);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+
+        synchronized (bufferLock) {
+            // 补发内容在锁内确定并先于之后的实时事件入队，发送在推送线程中进行
+            List<PushEvent> missed = missedEvents(lastEventId);
+            emitters.add(emitter);
+            sender.execute(() -> {
+                for (PushEvent event : missed) {
+                    if (!deliver(emitter, event)) {
+                        return;
+                    }
+                }
+            });
+        }
+        log.debug("新增推送订阅，当前订阅数：{}", emitters.size());
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return emitters.size();
+    }
+
+    /**
+     * 任务状态变更（事务提交后）：只登记到合并窗口，由 flushTaskChanges 统一推送
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTaskStatusChanged(TaskStatusChangedEvent event) {
+        ScheduledTask task = event.getTask();
+        if (task.getId() == null) {
+            return;
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("taskId", task.getId());
+        payload.put("taskName", task.getTaskName());
+        payload.put("taskType", task.getTaskType());
+        payload.put("status", event.getStatus());
+        payload.put("previousStatus", event.getPreviousStatus());
+        payload.put("retryCount", task.getRetryCount());
+        payload.put("executeTime", task.getExecuteTime());
+        TaskExecutionLog executionLog = event.getExecutionLog();
+        if (executionLog != null) {
+            payload.put("executionDurationMs", executionLog.getExecutionDurationMs());
+            payload.put("errorMessage", executionLog.getErrorMessage());
+        }
+        payload.put("changedAt", LocalDateTime.now());
+
+        synchronized (pendingLock) {
+            Map<String, Object> previous = pendingTasks.get(task.getId());
+            if (previous != null) {
+                // 窗口内多次变更只推最终状态，previousStatus 保留窗口开始前的状态
+                payload.put("previousStatus", previous.get("previousStatus"));
+            }
+            pendingTasks.put(task.getId(), payload);
+        }
+    }
+
+    /**
+     * 报警状态变化即时推送（外部业务事件不推送）
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAlertSystemEvent(AlertSystemEvent event) {
+        if (!(event instanceof AlertTriggeredEvent
+                || event instanceof AlertResolutionEvent
+                || event instanceof AlertRecoveredEvent)) {
+            return;
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("eventType", event.getEventType());
+        payload.put("exceptionEventId", event.getExceptionEventId());
+        payload.put("businessId", event.getBusinessId());
+        payload.put("businessType", event.getBusinessType());
+        if (event instanceof AlertTriggeredEvent triggered) {
+            payload.put("alertRuleId", triggered.getAlertRuleId());
+            payload.put("level", triggered.getLevel());
+            payload.put("previousLevel", triggered.getPreviousLevel());
+        } else if (event instanceof AlertResolutionEvent resolution) {
+            payload.put("resolutionReason", resolution.getResolutionReason());
+        }
+        payload.put("changedAt", LocalDateTime.now());
+        broadcast(EVENT_ALERT, payload);
+    }
+
+    /**
+     * 合并窗口到期，推送窗口内各任务的最终状态
+     */
+    @Scheduled(fixedDelayString = "${scheduled.task.push-coalesce-window-ms:200}")
+    public void flushTaskChanges() {
+        Map<Long, Map<String, Object>> changes;
+        synchronized (pendingLock) {
+            if (pendingTasks.isEmpty()) {
+                return;
+            }
+            changes = pendingTasks;
+            pendingTasks = new LinkedHashMap<>();
+        }
+        for (Map<String, Object> payload : changes.values()) {
+            broadcast(EVENT_TASK, payload);
+        }
+    }
+
+    /**
+     * 定期发送注释行保活，同时清理已断开的连接
+     */
+    @Scheduled(fixedDelayString = "${scheduled.task.push-heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        sender.execute(() -> {
+            for (SseEmitter emitter : emitters) {
+                deliver(emitter, null);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flushTaskChanges();
+        sender.shutdown();
+        try {
+            sender.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sender.shutdownNow();
+        for (SseEmitter emitter : emitters) {
+            emitter.complete();
+        }
+        emitters.clear();
+    }
+
+    private void broadcast(String name, Map<String, Object> payload) {
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            log.warn("推送事件序列化失败：{}", name, e);
+            return;
+        }
+        synchronized (bufferLock) {
+            PushEvent event = new PushEvent(++sequence, name, data);
+            buffer.addLast(event);
+            while (buffer.size() > properties.getPushBufferSize()) {
+                buffer.removeFirst();
+            }
+            // 锁内只复制当前订阅列表并入队，保证入队顺序与序号一致
+            List<SseEmitter> targets = List.copyOf(emitters);
+            if (targets.isEmpty()) {
+                return;
+            }
+            sender.execute(() -> {
+                for (SseEmitter emitter : targets) {
+                    deliver(emitter, event);
+                }
+            });
+        }
+    }
+
+    /**
+     * 计算 lastEventId 之后需要补发的缓冲事件，调用方持有 bufferLock
+     */
+    private List<PushEvent> missedEvents(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return List.of();
+        }
+        long lastSeq = parseSequence(lastEventId);
+        long oldest = buffer.isEmpty() ? sequence + 1 : buffer.peekFirst().seq();
+        if (lastSeq < 0 || lastSeq > sequence || lastSeq < oldest - 1) {
+            return List.of(new PushEvent(sequence, EVENT_RESET, "{}"));
+        }
+        List<PushEvent> missed = new ArrayList<>();
+        for (PushEvent event : buffer) {
+            if (event.seq() > lastSeq) {
+                missed.add(event);
+            }
+        }
+        return missed;
+    }
+
+    /**
+     * 在推送线程中发送单个事件（event 为 null 时发送心跳注释）；
+     * 发送失败或单次发送超过 push-send-timeout-ms 的连接视为不可用，移除并关闭，避免拖慢其他客户端
+     */
+    private boolean deliver(SseEmitter emitter, PushEvent event) {
+        if (!emitters.contains(emitter)) {
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            if (event == null) {
+                emitter.send(SseEmitter.event().comment("ping"));
+            } else {
+                send(emitter, event);
+            }
+        } catch (Exception e) {
+            emitters.remove(emitter);
+            emitter.completeWithError(e);
+            return false;
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        if (elapsed > properties.getPushSendTimeoutMs()) {
+            log.warn("推送连接发送耗时 {}ms，超过阈值，断开该连接", elapsed);
+            emitters.remove(emitter);
+            emitter.complete();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 解析事件 ID 中的序号，非本次启动产生的 ID 返回 -1
+     */
+    private long parseSequence(String lastEventId) {
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator <= 0 || !bootId.equals(lastEventId.substring(0, separator))) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void send(SseEmitter emitter, PushEvent event) throws IOException {
+        emitter.send(SseEmitter.event()
+                .id(eventId(event.seq()))
+                .name(event.name())
+                .data(event.data()));
+    }
+
+    private String eventId(long seq) {
+        return bootId + "-" + seq;
+    }
+
+    private record PushEvent(long seq, String name, String data) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.scheduled.repository;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+
+/**
+ * 本地执行日志同步进度数据访问层
+ */
+@Mapper
+public interface ExecutionJournalCheckpointRepository {
+
+    /**
+     * 查询同步进度，格式为 "段序号 段内偏移"，不存在时返回 null
+     */
+    @Select("SELECT CONCAT(segment, ' ', segment_offset) FROM execution_journal_checkpoint WHERE journal_id = #{journalId}")
+    String findPosition(String journalId);
+
+    /**
+     * 写入或覆盖同步进度
+     */
+    @Insert("INSERT INTO execution_journal_checkpoint (journal_id, segment, segment_offset, updated_at) " +
+            "VALUES (#{journalId}, #{segment}, #{offset}, #{updatedAt}) " +
+            "ON DUPLICATE KEY UPDATE segment = VALUES(segment), segment_offset = VALUES(segment_offset), " +
+            "updated_at = VALUES(updated_at)")
+    int upsert(String journalId, long segment, int offset, LocalDateTime updatedAt);
+}
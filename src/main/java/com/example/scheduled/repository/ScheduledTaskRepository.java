@@ -1,8 +1,20 @@
 package com.example.scheduled.repository;
 
+import com.example.scheduled.dto.ExportFilter;
 import com.example.scheduled.entity.ScheduledTask;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.ResultMap;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 定时任务数据访问层
@@ -12,4 +24,72 @@ public interface ScheduledTaskRepository extends BaseMapper<ScheduledTask> {
 
     // 复杂查询建议用 XML 或 Wrapper 实现
 
+    /**
+     * 条件更新抢占执行权：仅当任务仍为 PENDING 时置为 EXECUTING，返回 1 表示抢占成功
+     */
+    @Update("UPDATE scheduled_task SET status = 'EXECUTING', last_execute_time = #{executeTime} " +
+            "WHERE id = #{id} AND status = 'PENDING'")
+    int claimPendingTask(Long id, LocalDateTime executeTime);
+
+    /**
+     * 将执行超时仍处于 EXECUTING 的任务（节点宕机遗留）恢复为 PENDING
+     */
+    @Update("UPDATE scheduled_task SET status = 'PENDING' WHERE status = 'EXECUTING' " +
+            "AND last_execute_time < DATE_SUB(#{now}, INTERVAL (COALESCE(execution_timeout, 300) + #{graceSeconds}) SECOND)")
+    int resetStaleExecutingTasks(LocalDateTime now, long graceSeconds);
+
+    /**
+     * 按状态分组计数（返回 status、cnt 两列）
+     */
+    @Select("SELECT status, COUNT(*) AS cnt FROM scheduled_task GROUP BY status")
+    List<Map<String, Object>> countGroupByStatus();
+
+    /**
+     * 按任务类型和状态分组计数（返回 task_type、status、cnt 三列）
+     */
+    @Select("SELECT task_type, status, COUNT(*) AS cnt FROM scheduled_task GROUP BY task_type, status")
+    List<Map<String, Object>> countGroupByTypeAndStatus();
+
+    /**
+     * 按任务类型分组计数（返回 task_type、cnt 两列）
+     */
+    @Select("SELECT task_type, COUNT(*) AS cnt FROM scheduled_task GROUP BY task_type")
+    List<Map<String, Object>> countGroupByTaskType();
+
+    /**
+     * 按调度模式分组计数（返回 schedule_mode、cnt 两列）
+     */
+    @Select("SELECT schedule_mode, COUNT(*) AS cnt FROM scheduled_task GROUP BY schedule_mode")
+    List<Map<String, Object>> countGroupByScheduleMode();
+
+    /**
+     * 流式读取任务（MySQL 逐行流式返回，需在事务内消费 Cursor；默认不读取 task_data）
+     */
+    @Select("<script>SELECT id, task_name, task_type, schedule_mode, execute_time, cron_expression, priority, " +
+            "execution_timeout, status, retry_count, max_retry_count, last_execute_time, error_message, created_at, updated_at" +
+            "<if test='includeTaskData'>, task_data</if> FROM scheduled_task" +
+            "<where>" +
+            "<if test='taskId != null'>AND id = #{taskId}</if>" +
+            "<if test='taskType != null'>AND task_type = #{taskType}</if>" +
+            "<if test='status != null'>AND status = #{status}</if>" +
+            "<if test='from != null'>AND created_at &gt;= #{from}</if>" +
+            "<if test='to != null'>AND created_at &lt; #{to}</if>" +
+            "</where> ORDER BY id</script>")
+    @ResultMap("mybatis-plus_ScheduledTask")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    Cursor<ScheduledTask> streamForExport(ExportFilter filter);
+
+    /**
+     * 多行 INSERT 批量写入任务，自增 ID 回填到各任务对象
+     */
+    @Insert("<script>INSERT INTO scheduled_task (task_name, task_type, schedule_mode, execute_time, cron_expression, " +
+            "priority, execution_timeout, task_data, status, retry_count, max_retry_count) VALUES " +
+            "<foreach collection='list' item='t' separator=','>" +
+            "(#{t.taskName}, #{t.taskType}, #{t.scheduleMode}, #{t.executeTime}, #{t.cronExpression}, " +
+            "#{t.priority}, #{t.executionTimeout}, " +
+            "#{t.taskData,typeHandler=com.example.scheduled.config.JsonTypeHandler}, " +
+            "#{t.status}, #{t.retryCount}, #{t.maxRetryCount})" +
+            "</foreach></script>")
+    @Options(useGeneratedKeys = true, keyProperty = "id", keyColumn = "id")
+    int insertBatch(List<ScheduledTask> tasks);
 }
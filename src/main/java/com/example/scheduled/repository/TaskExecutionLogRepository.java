@@ -1,8 +1,20 @@
 package com.example.scheduled.repository;
 
+import com.example.scheduled.dto.ExportFilter;
+import com.example.scheduled.entity.DailyTaskStatistics;
 import com.example.scheduled.entity.TaskExecutionLog;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * 任务执行日志数据访问层
@@ -12,4 +24,61 @@ public interface TaskExecutionLogRepository extends BaseMapper<TaskExecutionLog>
 
     // 复杂查询建议用 XML 或 Wrapper 实现
 
+    /**
+     * 查询执行日志表的分区名（未分区时返回空列表）
+     */
+    @Select("SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'task_execution_log' AND PARTITION_NAME IS NOT NULL " +
+            "ORDER BY PARTITION_ORDINAL_POSITION")
+    List<String> findPartitionNames();
+
+    /**
+     * 删除整个分区（分区名由调用方校验，只允许 pYYYYMM 格式）
+     */
+    @Update("ALTER TABLE task_execution_log DROP PARTITION ${partitionName}")
+    void dropPartition(@Param("partitionName") String partitionName);
+
+    /**
+     * 拆分 pmax 分区，追加新的月分区（分区定义由调用方生成）
+     */
+    @Update("ALTER TABLE task_execution_log REORGANIZE PARTITION pmax INTO (${partitionDefinitions})")
+    void reorganizeMaxPartition(@Param("partitionDefinitions") String partitionDefinitions);
+
+    /**
+     * 未分区时的兜底清理：按批删除早于指定时间的日志
+     */
+    @Delete("DELETE FROM task_execution_log WHERE execute_time < #{before} LIMIT #{limit}")
+    int deleteBefore(LocalDateTime before, int limit);
+
+    /**
+     * 按 ID 游标分批读取时间范围内的日志（用于归档导出）
+     */
+    @Select("SELECT * FROM task_execution_log WHERE execute_time >= #{start} AND execute_time < #{end} " +
+            "AND id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<TaskExecutionLog> findRangeAfterId(LocalDateTime start, LocalDateTime end, long afterId, int limit);
+
+    /**
+     * 按天聚合执行结果（单次分组查询，只读 (execute_time, status) 索引；没有日志的日期不返回）
+     */
+    @Select("SELECT DATE_FORMAT(execute_time, '%Y-%m-%d') AS date, COUNT(*) AS executed_count, " +
+            "SUM(status = 'SUCCESS') AS success_count, SUM(status = 'FAILED') AS failed_count, " +
+            "SUM(status = 'TIMEOUT') AS timeout_count FROM task_execution_log " +
+            "WHERE execute_time >= #{start} AND execute_time < #{end} " +
+            "GROUP BY DATE_FORMAT(execute_time, '%Y-%m-%d')")
+    List<DailyTaskStatistics> aggregateDaily(LocalDateTime start, LocalDateTime end);
+
+    /**
+     * 流式读取执行日志（MySQL 逐行流式返回，需在事务内消费 Cursor）
+     */
+    @Select("<script>SELECT l.* FROM task_execution_log l " +
+            "<if test='taskType != null'>JOIN scheduled_task t ON t.id = l.task_id</if>" +
+            "<where>" +
+            "<if test='taskId != null'>AND l.task_id = #{taskId}</if>" +
+            "<if test='taskType != null'>AND t.task_type = #{taskType}</if>" +
+            "<if test='status != null'>AND l.status = #{status}</if>" +
+            "<if test='from != null'>AND l.execute_time &gt;= #{from}</if>" +
+            "<if test='to != null'>AND l.execute_time &lt; #{to}</if>" +
+            "</where> ORDER BY l.id</script>")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    Cursor<TaskExecutionLog> streamForExport(ExportFilter filter);
 }
@@ -0,0 +1,55 @@
+package com.example.scheduled.repository;
+
+import com.example.scheduled.entity.ScheduledTask;
+import com.example.scheduled.entity.TaskExecutionRollup;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 执行统计汇总数据访问层
+ */
+@Mapper
+public interface TaskExecutionRollupRepository extends BaseMapper<TaskExecutionRollup> {
+
+    /**
+     * 按唯一键加锁读取汇总行（合并直方图前使用）
+     */
+    @Select("SELECT * FROM task_execution_rollup WHERE granularity = #{granularity} AND bucket_start = #{bucketStart} " +
+            "AND task_type = #{taskType} AND status = #{status} FOR UPDATE")
+    TaskExecutionRollup selectForUpdate(TaskExecutionRollup.Granularity granularity, LocalDateTime bucketStart,
+                                        ScheduledTask.TaskType taskType, ScheduledTask.TaskStatus status);
+
+    /**
+     * 按粒度读取时间范围内的汇总行
+     */
+    @Select("SELECT * FROM task_execution_rollup WHERE granularity = #{granularity} " +
+            "AND bucket_start >= #{start} AND bucket_start < #{end}")
+    List<TaskExecutionRollup> findRange(TaskExecutionRollup.Granularity granularity,
+                                        LocalDateTime start, LocalDateTime end);
+
+    /**
+     * 按天汇总各执行结果的次数
+     */
+    @Select("SELECT bucket_start, status, SUM(exec_count) AS exec_count FROM task_execution_rollup " +
+            "WHERE granularity = 'DAY' AND bucket_start >= #{start} GROUP BY bucket_start, status")
+    List<TaskExecutionRollup> sumDailyByStatus(LocalDateTime start);
+
+    /**
+     * 某执行结果的全量耗时汇总（基于天粒度）
+     */
+    @Select("SELECT SUM(exec_count) AS exec_count, SUM(duration_sum) AS duration_sum, " +
+            "MIN(duration_min) AS duration_min, MAX(duration_max) AS duration_max FROM task_execution_rollup " +
+            "WHERE granularity = 'DAY' AND status = #{status}")
+    TaskExecutionRollup sumDurationByStatus(ScheduledTask.TaskStatus status);
+
+    /**
+     * 删除某粒度下早于指定时间的汇总行
+     */
+    @Delete("DELETE FROM task_execution_rollup WHERE granularity = #{granularity} AND bucket_start < #{before}")
+    int deleteBefore(TaskExecutionRollup.Granularity granularity, LocalDateTime before);
+}
@@ -0,0 +1,30 @@
+package com.example.scheduled.repository;
+
+import com.example.scheduled.entity.TaskMetricsSnapshot;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 节点实时计数器快照数据访问层
+ */
+@Mapper
+public interface TaskMetricsSnapshotRepository extends BaseMapper<TaskMetricsSnapshot> {
+
+    /**
+     * 写入或覆盖本节点快照
+     */
+    @Insert("INSERT INTO task_metrics_node_snapshot (node_id, snapshot, updated_at) VALUES (#{nodeId}, #{snapshot}, #{updatedAt}) " +
+            "ON DUPLICATE KEY UPDATE snapshot = VALUES(snapshot), updated_at = VALUES(updated_at)")
+    int upsert(TaskMetricsSnapshot snapshot);
+
+    /**
+     * 查询指定时间之后更新过的快照（过期节点视为已下线）
+     */
+    @Select("SELECT * FROM task_metrics_node_snapshot WHERE updated_at >= #{since}")
+    List<TaskMetricsSnapshot> findUpdatedSince(LocalDateTime since);
+}
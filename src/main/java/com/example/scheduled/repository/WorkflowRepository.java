@@ -0,0 +1,13 @@
+package com.example.scheduled.repository;
+
+import com.example.scheduled.entity.Workflow;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 工作流数据访问层
+ */
+@Mapper
+public interface WorkflowRepository extends BaseMapper<Workflow> {
+
+}
@@ -2,6 +2,7 @@ package com.example.scheduled.scheduler;
 
 import com.example.scheduled.entity.ScheduledTask;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -21,6 +22,16 @@ public interface TaskScheduler {
      */
     void scheduleTask(ScheduledTask task);
 
+    /**
+     * 批量调度任务，默认逐个调度，实现类可合并为一次提交
+     * @param tasks 待调度的任务
+     */
+    default void scheduleTasks(List<ScheduledTask> tasks) {
+        for (ScheduledTask task : tasks) {
+            scheduleTask(task);
+        }
+    }
+
     /**
      * 执行任务
      * @param taskId 任务ID
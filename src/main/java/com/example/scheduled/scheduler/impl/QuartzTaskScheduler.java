@@ -3,7 +3,10 @@ package com.example.scheduled.scheduler.impl;
 import com.example.scheduled.config.ScheduledTaskProperties;
 import com.example.scheduled.entity.ScheduledTask;
 import com.example.scheduled.entity.TaskExecutionLog;
+import com.example.scheduled.event.TaskStatusChangedEvent;
+import com.example.scheduled.executor.ShardedTaskRunner;
 import com.example.scheduled.executor.TaskExecutor;
+import com.example.scheduled.journal.ExecutionJournal;
 import com.example.scheduled.job.ScheduledTaskJob;
 import com.example.scheduled.lock.DistributedLock;
 import com.example.scheduled.repository.ScheduledTaskRepository;
@@ -13,16 +16,25 @@ import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.*;
+import org.quartz.impl.matchers.GroupMatcher;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -30,30 +42,52 @@ import java.util.stream.Collectors;
 /**
  * Quartz 任务调度器实现
  * 支持 ONCE（一次性定时）和 CRON（周期性调度）两种模式
+ * Job 模式：per-task（每个任务一个 JobDetail）/ shared（每个任务类型一个持久化 JobDetail，任务只写 Trigger）
+ * 存储模式：jdbc（Quartz JDBC JobStore 持久化）/ hybrid（RAMJobStore 触发，scheduled_task 为唯一事实来源）
  */
 @Slf4j
 @Service
 @ConditionalOnProperty(name = "scheduled.task.scheduler-type", havingValue = "quartz")
 public class QuartzTaskScheduler implements TaskScheduler {
 
+    private static final String GROUP_KEY = "scheduled-tasks";
+    private static final String LEGACY_JOB_PREFIX = "task-";
+    private static final String SHARED_JOB_PREFIX = "type-";
+    private static final String TASK_ID_KEY = "taskId";
+    private static final long STALE_EXECUTING_GRACE_SECONDS = 60;
+
     private final Scheduler quartzScheduler;
     private final ScheduledTaskRepository taskRepository;
     private final TaskExecutionLogRepository logRepository;
     private final ScheduledTaskProperties properties;
     private final DistributedLock distributedLock;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ShardedTaskRunner shardedTaskRunner;
+    private final ExecutionJournal executionJournal;
     private final Map<ScheduledTask.TaskType, TaskExecutor> executorMap;
+    private final Set<JobKey> sharedJobKeys = ConcurrentHashMap.newKeySet();
+    private final TransactionTemplate claimTransaction;
 
     public QuartzTaskScheduler(Scheduler quartzScheduler,
                                ScheduledTaskRepository taskRepository,
                                TaskExecutionLogRepository logRepository,
                                ScheduledTaskProperties properties,
                                DistributedLock distributedLock,
-                               List<TaskExecutor> executors) {
+                               List<TaskExecutor> executors,
+                               PlatformTransactionManager transactionManager,
+                               ApplicationEventPublisher eventPublisher,
+                               ShardedTaskRunner shardedTaskRunner,
+                               ExecutionJournal executionJournal) {
         this.quartzScheduler = quartzScheduler;
         this.taskRepository = taskRepository;
         this.logRepository = logRepository;
         this.properties = properties;
         this.distributedLock = distributedLock;
+        this.eventPublisher = eventPublisher;
+        this.shardedTaskRunner = shardedTaskRunner;
+        this.executionJournal = executionJournal;
+        this.claimTransaction = new TransactionTemplate(transactionManager);
+        this.claimTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
         // 构建执行器映射表
         this.executorMap = executors.stream()
                 .collect(Collectors.toMap(
@@ -75,6 +109,14 @@ public class QuartzTaskScheduler implements TaskScheduler {
         log.info("初始化 Quartz 任务调度器");
 
         try {
+            if (isHybridStoreMode() && quartzScheduler.getMetaData().isJobStoreSupportsPersistence()) {
+                log.warn("当前为 hybrid 存储模式，但 Quartz 仍使用持久化 JobStore，" +
+                        "请配置 spring.quartz.job-store-type=memory 并关闭 isClustered");
+            }
+
+            // 按当前 Job 模式清理遗留的 Job 布局
+            migrateJobLayout();
+
             // 加载所有待执行任务（支持 ONCE 和 CRON 模式）
             loadAllPendingTasks();
 
@@ -93,6 +135,12 @@ public class QuartzTaskScheduler implements TaskScheduler {
      */
     @Transactional(readOnly = true)
     public void loadAllPendingTasks() throws SchedulerException {
+        if (isHybridStoreMode()) {
+            // 混合模式：只把近期窗口内的任务物化到内存，其余由 loadNearTermTasks 定期补充
+            loadNearTermTasks();
+            return;
+        }
+
         List<ScheduledTask> tasks = taskRepository.selectList(
             new LambdaQueryWrapper<ScheduledTask>()
                 .eq(ScheduledTask::getStatus, ScheduledTask.TaskStatus.PENDING)
@@ -105,14 +153,63 @@ public class QuartzTaskScheduler implements TaskScheduler {
         }
     }
 
+    /**
+     * 混合模式：定期把即将到期的任务加载到 RAMJobStore
+     * CRON 任务全部加载，ONCE 任务仅加载 execute_time 落在预加载窗口内的
+     */
+    @Scheduled(fixedDelayString = "${scheduled.task.hybrid-load-interval-ms:30000}",
+            initialDelayString = "${scheduled.task.hybrid-load-interval-ms:30000}")
+    public void loadNearTermTasks() {
+        if (!isHybridStoreMode()) {
+            return;
+        }
+
+        try {
+            LocalDateTime now = LocalDateTime.now();
+
+            // 恢复宕机节点遗留的 EXECUTING 任务，使其能被重新抢占
+            int reset = taskRepository.resetStaleExecutingTasks(now, STALE_EXECUTING_GRACE_SECONDS);
+            if (reset > 0) {
+                log.warn("已恢复超时未完成的 EXECUTING 任务，数量：{}", reset);
+            }
+
+            LocalDateTime horizon = now.plusSeconds(properties.getHybridWindowSeconds());
+            List<ScheduledTask> tasks = taskRepository.selectList(
+                new LambdaQueryWrapper<ScheduledTask>()
+                    .eq(ScheduledTask::getStatus, ScheduledTask.TaskStatus.PENDING)
+                    .and(w -> w.eq(ScheduledTask::getScheduleMode, ScheduledTask.ScheduleMode.CRON)
+                            .or()
+                            .le(ScheduledTask::getExecuteTime, horizon))
+                    .orderByAsc(ScheduledTask::getExecuteTime)
+            );
+
+            int loaded = 0;
+            for (ScheduledTask task : tasks) {
+                // RAMJobStore 中查询存在性是内存操作，已加载的任务直接跳过
+                if (quartzScheduler.checkExists(taskTriggerKey(task.getId()))) {
+                    continue;
+                }
+                scheduleTask(task);
+                loaded++;
+            }
+            if (loaded > 0) {
+                log.info("混合模式加载近期任务，窗口：{} 秒，新加载数量：{}", properties.getHybridWindowSeconds(), loaded);
+            }
+        } catch (Exception e) {
+            log.error("混合模式加载近期任务失败", e);
+        }
+    }
+
     @Override
     public void scheduleTask(ScheduledTask task) {
         try {
-            String jobKey = "task-" + task.getId();
-            String groupKey = "scheduled-tasks";
+            if (isSharedJobMode()) {
+                scheduleSharedTrigger(task);
+                return;
+            }
 
             // 检查任务是否已存在
-            JobKey jKey = JobKey.jobKey(jobKey, groupKey);
+            JobKey jKey = JobKey.jobKey(LEGACY_JOB_PREFIX + task.getId(), GROUP_KEY);
             if (quartzScheduler.checkExists(jKey)) {
                 log.debug("任务 [{}] 已在 Quartz 调度队列中，跳过", task.getTaskName());
                 return;
@@ -121,65 +218,229 @@ public class QuartzTaskScheduler implements TaskScheduler {
             // 创建 JobDetail
             JobDetail jobDetail = JobBuilder.newJob(ScheduledTaskJob.class)
                     .withIdentity(jKey)
-                    .usingJobData("taskId", task.getId())
+                    .usingJobData(TASK_ID_KEY, task.getId())
                     .storeDurably(false)
                     .build();
 
-            // 获取任务优先级，默认为5
-            Integer priority = task.getPriority();
-            if (priority == null || priority < 0 || priority > 10) {
-                priority = 5;
-            }
-
-            Trigger trigger;
+            Trigger trigger = newTaskTrigger(task).build();
 
-            if (task.getScheduleMode() == ScheduledTask.ScheduleMode.CRON) {
-                // CRON 模式：使用 Cron 表达式
-                trigger = TriggerBuilder.newTrigger()
-                        .withIdentity("trigger-" + task.getId(), groupKey)
-                        .withPriority(priority)  // 设置优先级
-                        .withSchedule(CronScheduleBuilder.cronSchedule(task.getCronExpression())
-                                .withMisfireHandlingInstructionDoNothing())
-                        .build();
+            // 调度任务
+            quartzScheduler.scheduleJob(jobDetail, trigger);
 
-                log.info("任务 [{}] 已加入 Quartz CRON 调度，表达式：{}，优先级：{}",
-                        task.getTaskName(), task.getCronExpression(), priority);
+        } catch (Exception e) {
+            log.error("调度任务失败：{}", task.getTaskName(), e);
+            throw new RuntimeException("调度任务失败", e);
+        }
+    }
 
+    /**
+     * 批量调度：所有 Job/Trigger 通过一次 scheduleJobs 提交（JDBC JobStore 下只占用一次锁和事务）
+     * 存在重复的 Job/Trigger 时整批回退为逐个调度
+     */
+    @Override
+    public void scheduleTasks(List<ScheduledTask> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        try {
+            Map<JobDetail, Set<? extends Trigger>> jobs = new LinkedHashMap<>();
+            if (isSharedJobMode()) {
+                Map<JobKey, Set<Trigger>> triggersByJob = new LinkedHashMap<>();
+                for (ScheduledTask task : tasks) {
+                    JobKey sharedKey = ensureSharedJob(task.getTaskType());
+                    triggersByJob.computeIfAbsent(sharedKey, k -> new LinkedHashSet<>())
+                            .add(newTaskTrigger(task)
+                                    .forJob(sharedKey)
+                                    .usingJobData(TASK_ID_KEY, task.getId())
+                                    .build());
+                }
+                for (Map.Entry<JobKey, Set<Trigger>> entry : triggersByJob.entrySet()) {
+                    jobs.put(quartzScheduler.getJobDetail(entry.getKey()), entry.getValue());
+                }
+                // 共享 Job 已存在，需以 replace 方式提交（Job 定义不变，只新增 Trigger）
+                quartzScheduler.scheduleJobs(jobs, true);
             } else {
-                // ONCE 模式：一次性定时执行
-                LocalDateTime executeTime = task.getExecuteTime();
-                Date startTime = Date.from(executeTime.atZone(ZoneId.systemDefault()).toInstant());
-
-                // 如果时间已过期，立即执行
-                if (startTime.before(new Date())) {
-                    log.warn("任务 [{}] 的执行时间已过期，立即执行", task.getTaskName());
-                    startTime = new Date();
+                for (ScheduledTask task : tasks) {
+                    JobDetail jobDetail = JobBuilder.newJob(ScheduledTaskJob.class)
+                            .withIdentity(JobKey.jobKey(LEGACY_JOB_PREFIX + task.getId(), GROUP_KEY))
+                            .usingJobData(TASK_ID_KEY, task.getId())
+                            .storeDurably(false)
+                            .build();
+                    jobs.put(jobDetail, Set.of(newTaskTrigger(task).build()));
                 }
+                quartzScheduler.scheduleJobs(jobs, false);
+            }
+            log.info("批量调度任务完成，数量：{}", tasks.size());
+        } catch (ObjectAlreadyExistsException e) {
+            log.debug("批量调度存在已调度的任务，回退为逐个调度");
+            TaskScheduler.super.scheduleTasks(tasks);
+        } catch (SchedulerException e) {
+            log.error("批量调度任务失败，数量：{}", tasks.size(), e);
+            throw new RuntimeException("批量调度任务失败", e);
+        }
+    }
 
-                trigger = TriggerBuilder.newTrigger()
-                        .withIdentity("trigger-" + task.getId(), groupKey)
-                        .withPriority(priority)  // 设置优先级
-                        .startAt(startTime)
-                        .withSchedule(SimpleScheduleBuilder.simpleSchedule()
-                                .withMisfireHandlingInstructionFireNow())
-                        .build();
+    /**
+     * 共享 Job 模式：任务只作为挂在类型级 Job 上的 Trigger，taskId 存在 Trigger 的 JobDataMap 中
+     */
+    private void scheduleSharedTrigger(ScheduledTask task) throws SchedulerException {
+        JobKey sharedKey = ensureSharedJob(task.getTaskType());
+        Trigger trigger = newTaskTrigger(task)
+                .forJob(sharedKey)
+                .usingJobData(TASK_ID_KEY, task.getId())
+                .build();
+        try {
+            // 直接插入 Trigger，依赖唯一键判重，省去 checkExists 查询
+            quartzScheduler.scheduleJob(trigger);
+        } catch (ObjectAlreadyExistsException e) {
+            log.debug("任务 [{}] 已在 Quartz 调度队列中，跳过", task.getTaskName());
+        }
+    }
 
-                log.info("任务 [{}] 已加入 Quartz ONCE 调度，执行时间：{}，优先级：{}",
-                        task.getTaskName(), executeTime, priority);
+    /**
+     * 确保任务类型对应的共享 JobDetail 已存在（持久化、可复用）
+     */
+    private JobKey ensureSharedJob(ScheduledTask.TaskType taskType) throws SchedulerException {
+        JobKey sharedKey = sharedJobKey(taskType);
+        if (sharedJobKeys.contains(sharedKey)) {
+            return sharedKey;
+        }
+        if (!quartzScheduler.checkExists(sharedKey)) {
+            JobDetail jobDetail = JobBuilder.newJob(ScheduledTaskJob.class)
+                    .withIdentity(sharedKey)
+                    .withDescription("共享任务 Job：" + taskType)
+                    .storeDurably(true)
+                    .build();
+            try {
+                quartzScheduler.addJob(jobDetail, false);
+                log.info("已创建共享 Quartz Job：{}", sharedKey);
+            } catch (ObjectAlreadyExistsException e) {
+                // 集群中其他节点已创建
+                log.debug("共享 Quartz Job 已存在：{}", sharedKey);
             }
+        }
+        sharedJobKeys.add(sharedKey);
+        return sharedKey;
+    }
 
-            // 调度任务
-            quartzScheduler.scheduleJob(jobDetail, trigger);
+    /**
+     * 构建任务 Trigger（身份、优先级、调度计划）
+     */
+    private TriggerBuilder<? extends Trigger> newTaskTrigger(ScheduledTask task) {
+        // 获取任务优先级，默认为5
+        Integer priority = task.getPriority();
+        if (priority == null || priority < 0 || priority > 10) {
+            priority = 5;
+        }
 
-        } catch (Exception e) {
-            log.error("调度任务失败：{}", task.getTaskName(), e);
-            throw new RuntimeException("调度任务失败", e);
+        TriggerBuilder<Trigger> builder = TriggerBuilder.newTrigger()
+                .withIdentity(taskTriggerKey(task.getId()))
+                .withPriority(priority);  // 设置优先级
+
+        if (task.getScheduleMode() == ScheduledTask.ScheduleMode.CRON) {
+            // CRON 模式：使用 Cron 表达式
+            log.info("任务 [{}] 已加入 Quartz CRON 调度，表达式：{}，优先级：{}",
+                    task.getTaskName(), task.getCronExpression(), priority);
+
+            return builder.withSchedule(CronScheduleBuilder.cronSchedule(task.getCronExpression())
+                    .withMisfireHandlingInstructionDoNothing());
+        }
+
+        // ONCE 模式：一次性定时执行
+        LocalDateTime executeTime = task.getExecuteTime();
+        Date startTime = Date.from(executeTime.atZone(ZoneId.systemDefault()).toInstant());
+
+        // 如果时间已过期，立即执行
+        if (startTime.before(new Date())) {
+            log.warn("任务 [{}] 的执行时间已过期，立即执行", task.getTaskName());
+            startTime = new Date();
         }
+
+        log.info("任务 [{}] 已加入 Quartz ONCE 调度，执行时间：{}，优先级：{}",
+                task.getTaskName(), executeTime, priority);
+
+        return builder.startAt(startTime)
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withMisfireHandlingInstructionFireNow());
+    }
+
+    /**
+     * 重试时重新调度：共享模式下原地替换 Trigger，不删除/重建 Job
+     */
+    private void rescheduleForRetry(ScheduledTask task) {
+        if (!isSharedJobMode()) {
+            cancelTask(task.getId());
+            scheduleTask(task);
+            return;
+        }
+        try {
+            Trigger trigger = newTaskTrigger(task)
+                    .forJob(ensureSharedJob(task.getTaskType()))
+                    .usingJobData(TASK_ID_KEY, task.getId())
+                    .build();
+            if (quartzScheduler.rescheduleJob(trigger.getKey(), trigger) == null) {
+                quartzScheduler.scheduleJob(trigger);
+            }
+        } catch (SchedulerException e) {
+            log.error("重新调度任务失败：{}", task.getTaskName(), e);
+            throw new RuntimeException("重新调度任务失败", e);
+        }
+    }
+
+    /**
+     * 启动时迁移 Job 布局：切换模式后，把另一种模式遗留的 Job 清理掉，
+     * 随后由 loadAllPendingTasks 按当前模式重新挂载 PENDING 任务
+     */
+    private void migrateJobLayout() throws SchedulerException {
+        int removed = 0;
+        for (JobKey jobKey : quartzScheduler.getJobKeys(GroupMatcher.jobGroupEquals(GROUP_KEY))) {
+            boolean legacy = jobKey.getName().startsWith(LEGACY_JOB_PREFIX);
+            boolean shared = jobKey.getName().startsWith(SHARED_JOB_PREFIX);
+            if ((isSharedJobMode() && legacy) || (!isSharedJobMode() && shared)) {
+                // 删除 Job 会级联删除其 Trigger
+                if (quartzScheduler.deleteJob(jobKey)) {
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            log.info("Quartz Job 布局迁移完成（模式：{}），已清理旧 Job 数量：{}",
+                    properties.getQuartzJobMode(), removed);
+        }
+    }
+
+    private boolean isHybridStoreMode() {
+        return "hybrid".equalsIgnoreCase(properties.getQuartzStoreMode());
+    }
+
+    private boolean isSharedJobMode() {
+        return "shared".equalsIgnoreCase(properties.getQuartzJobMode());
+    }
+
+    private static JobKey sharedJobKey(ScheduledTask.TaskType taskType) {
+        return JobKey.jobKey(SHARED_JOB_PREFIX + taskType.name(), GROUP_KEY);
+    }
+
+    private static TriggerKey taskTriggerKey(Long taskId) {
+        return TriggerKey.triggerKey("trigger-" + taskId, GROUP_KEY);
     }
 
     @Override
     @Transactional
     public void executeTask(Long taskId) {
+        if (isHybridStoreMode()) {
+            // 混合模式：以 scheduled_task 行的条件 UPDATE 抢占执行权，替代分布式锁和 Quartz 集群锁
+            // 抢占在独立事务中立即提交，避免执行期间长时间持有行锁阻塞其他节点
+            Integer claimed = claimTransaction.execute(status ->
+                    taskRepository.claimPendingTask(taskId, LocalDateTime.now()));
+            if (claimed == null || claimed == 0) {
+                log.debug("任务 [{}] 已被其他节点抢占或状态不是PENDING，跳过执行", taskId);
+                return;
+            }
+            doExecuteTask(taskId, true);
+            return;
+        }
+
         String lockKey = "task:" + taskId;
 
         // 尝试获取分布式锁（防止集群重复执行）
@@ -189,12 +450,25 @@ public class QuartzTaskScheduler implements TaskScheduler {
         }
 
         try {
-            ScheduledTask task = taskRepository.selectById(taskId);
-            if (task == null) {
-                log.error("任务不存在，ID：{}", taskId);
-                return;
-            }
+            doExecuteTask(taskId, false);
+        } finally {
+            distributedLock.unlock(lockKey);
+        }
+    }
+
+    /**
+     * 执行任务主体
+     *
+     * @param claimed 是否已通过条件 UPDATE 抢占（此时任务已是 EXECUTING 状态）
+     */
+    private void doExecuteTask(Long taskId, boolean claimed) {
+        ScheduledTask task = taskRepository.selectById(taskId);
+        if (task == null) {
+            log.error("任务不存在，ID：{}", taskId);
+            return;
+        }
 
+        if (!claimed) {
             // 对于 CRON 任务，不检查 PENDING 状态（允许周期执行）
             if (task.getScheduleMode() == ScheduledTask.ScheduleMode.ONCE) {
                 if (task.getStatus() != ScheduledTask.TaskStatus.PENDING) {
@@ -204,120 +478,86 @@ public class QuartzTaskScheduler implements TaskScheduler {
                 }
             }
 
-            log.info("开始执行任务 [{}]，任务ID：{}", task.getTaskName(), taskId);
-
             // 更新任务状态为执行中
+            ScheduledTask.TaskStatus previousStatus = task.getStatus();
             task.setStatus(ScheduledTask.TaskStatus.EXECUTING);
             task.setLastExecuteTime(LocalDateTime.now());
-            if (task.getId() == null) {
-                taskRepository.insert(task);
-            } else {
-                taskRepository.updateById(task);
-            }
+            taskRepository.updateById(task);
+            eventPublisher.publishEvent(new TaskStatusChangedEvent(this, task, previousStatus, null));
+        } else {
+            eventPublisher.publishEvent(new TaskStatusChangedEvent(
+                    this, task, ScheduledTask.TaskStatus.PENDING, null));
+        }
 
-            long startTime = System.currentTimeMillis();
-            TaskExecutionLog executionLog = TaskExecutionLog.builder()
-                    .taskId(taskId)
-                    .executeTime(LocalDateTime.now())
-                    .build();
+        log.info("开始执行任务 [{}]，任务ID：{}", task.getTaskName(), taskId);
 
-            boolean needReschedule = false;
-            try {
-                // 获取对应的执行器
-                TaskExecutor executor = executorMap.get(task.getTaskType());
-                if (executor == null) {
-                    throw new IllegalStateException("未找到任务类型 [" + task.getTaskType() + "] 的执行器");
-                }
+        long startTime = System.currentTimeMillis();
+        TaskExecutionLog executionLog = TaskExecutionLog.builder()
+                .taskId(taskId)
+                .executeTime(LocalDateTime.now())
+                .scheduledTime(task.getScheduleMode() == ScheduledTask.ScheduleMode.ONCE ? task.getExecuteTime() : null)
+                .build();
 
-                // 获取任务超时时间（秒），默认300秒（5分钟）
-                Long timeoutSeconds = task.getExecutionTimeout();
-                if (timeoutSeconds == null || timeoutSeconds <= 0) {
-                    timeoutSeconds = 300L;
-                }
+        boolean needReschedule = false;
+        try {
+            // 获取对应的执行器
+            TaskExecutor executor = executorMap.get(task.getTaskType());
+            if (executor == null) {
+                throw new IllegalStateException("未找到任务类型 [" + task.getTaskType() + "] 的执行器");
+            }
 
-                // 使用 ExecutorService 提交任务并设置超时
-                ExecutorService executorService = Executors.newSingleThreadExecutor();
-                Future<?> executionFuture = executorService.submit(() -> {
-                    try {
-                        executor.execute(task);
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
-                    }
-                });
+            // 获取任务超时时间（秒），默认300秒（5分钟）
+            Long timeoutSeconds = task.getExecutionTimeout();
+            if (timeoutSeconds == null || timeoutSeconds <= 0) {
+                timeoutSeconds = 300L;
+            }
 
+            // 使用 ExecutorService 提交任务并设置超时
+            ExecutorService executorService = Executors.newSingleThreadExecutor();
+            Future<?> executionFuture = executorService.submit(() -> {
                 try {
-                    // 等待任务完成，带超时控制
-                    executionFuture.get(timeoutSeconds, TimeUnit.SECONDS);
-
-                    // 更新任务状态
-                    if (task.getScheduleMode() == ScheduledTask.ScheduleMode.CRON) {
-                        // CRON 任务执行成功后恢复 PENDING 状态，等待下次触发
-                        task.setStatus(ScheduledTask.TaskStatus.PENDING);
-                    } else {
-                        // ONCE 任务执行成功后标记为 SUCCESS
-                        task.setStatus(ScheduledTask.TaskStatus.SUCCESS);
-                    }
-                    task.setErrorMessage(null);
-                    executionLog.setStatus(ScheduledTask.TaskStatus.SUCCESS);
-
-                    log.info("任务 [{}] 执行成功", task.getTaskName());
-
-                } catch (TimeoutException e) {
-                    log.error("任务 [{}] 执行超时，超时时间：{}秒", task.getTaskName(), timeoutSeconds);
-                    
-                    // 尝试取消任务
-                    executionFuture.cancel(true);
-                    
-                    // 增加重试次数
-                    task.setRetryCount(task.getRetryCount() + 1);
-                    task.setErrorMessage("任务执行超时：" + timeoutSeconds + "秒");
-
-                    // 判断是否还能重试（仅限 ONCE 模式）
-                    if (task.getScheduleMode() == ScheduledTask.ScheduleMode.ONCE) {
-                        if (task.getRetryCount() >= task.getMaxRetryCount()) {
-                            task.setStatus(ScheduledTask.TaskStatus.TIMEOUT);
-                            log.error("任务 [{}] 已达到最大重试次数，标记为超时失败", task.getTaskName());
-                            // 从 Quartz 移除任务
-                            cancelTask(taskId);
-                        } else {
-                            // 即时重新调度
-                            task.setExecuteTime(LocalDateTime.now().plusSeconds(properties.getRetryIntervalSeconds()));
-                            task.setStatus(ScheduledTask.TaskStatus.PENDING);
-                            needReschedule = true;
-                            log.warn("任务 [{}] 将在 {} 秒后重试，当前重试次数：{}/{}",
-                                    task.getTaskName(), properties.getRetryIntervalSeconds(),
-                                    task.getRetryCount(), task.getMaxRetryCount());
-                        }
-                    } else {
-                        // CRON 任务超时后保持 PENDING，等待下次调度
-                        task.setStatus(ScheduledTask.TaskStatus.PENDING);
-                        log.warn("CRON 任务 [{}] 执行超时，将等待下次触发", task.getTaskName());
-                    }
-
-                    executionLog.setStatus(ScheduledTask.TaskStatus.TIMEOUT);
-                    executionLog.setErrorMessage("执行超时：" + timeoutSeconds + "秒");
-                    
-                } catch (ExecutionException e) {
-                    throw e.getCause() != null ? (Exception) e.getCause() : e;
-                } finally {
-                    executorService.shutdownNow();
+                    // 分片任务由 ShardedTaskRunner 并行执行各分片
+                    shardedTaskRunner.run(executor, task);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
                 }
+            });
 
-            } catch (Exception e) {
-                log.error("任务 [{}] 执行失败", task.getTaskName(), e);
+            try {
+                // 等待任务完成，带超时控制
+                executionFuture.get(timeoutSeconds, TimeUnit.SECONDS);
 
+                // 更新任务状态
+                if (task.getScheduleMode() == ScheduledTask.ScheduleMode.CRON) {
+                    // CRON 任务执行成功后恢复 PENDING 状态，等待下次触发
+                    task.setStatus(ScheduledTask.TaskStatus.PENDING);
+                } else {
+                    // ONCE 任务执行成功后标记为 SUCCESS
+                    task.setStatus(ScheduledTask.TaskStatus.SUCCESS);
+                }
+                task.setErrorMessage(null);
+                executionLog.setStatus(ScheduledTask.TaskStatus.SUCCESS);
+
+                log.info("任务 [{}] 执行成功", task.getTaskName());
+
+            } catch (TimeoutException e) {
+                log.error("任务 [{}] 执行超时，超时时间：{}秒", task.getTaskName(), timeoutSeconds);
+                
+                // 先在本线程内取消分片并写回失败分片，再中断执行线程，随后持久化的 taskData 不会缺失或过期
+                shardedTaskRunner.cancel(task);
+                executionFuture.cancel(true);
+                
                 // 增加重试次数
                 task.setRetryCount(task.getRetryCount() + 1);
-                task.setErrorMessage(e.getMessage());
+                task.setErrorMessage("任务执行超时：" + timeoutSeconds + "秒");
 
                 // 判断是否还能重试（仅限 ONCE 模式）
                 if (task.getScheduleMode() == ScheduledTask.ScheduleMode.ONCE) {
                     if (task.getRetryCount() >= task.getMaxRetryCount()) {
-                        task.setStatus(ScheduledTask.TaskStatus.FAILED);
-                        log.error("任务 [{}] 已达到最大重试次数，标记为失败", task.getTaskName());
-                        
-                        // 从 Quartz 移除任务
-                        cancelTask(taskId);
+                        task.setStatus(ScheduledTask.TaskStatus.TIMEOUT);
+                        log.error("任务 [{}] 已达到最大重试次数，标记为超时失败", task.getTaskName());
+                        // 从 Quartz 移除任务（不改写任务行，终态由下方保存结果写入）
+                        unscheduleQuartz(taskId);
                     } else {
                         // 即时重新调度
                         task.setExecuteTime(LocalDateTime.now().plusSeconds(properties.getRetryIntervalSeconds()));
@@ -328,19 +568,61 @@ public class QuartzTaskScheduler implements TaskScheduler {
                                 task.getRetryCount(), task.getMaxRetryCount());
                     }
                 } else {
-                    // CRON 任务失败后保持 PENDING，等待下次调度
+                    // CRON 任务超时后保持 PENDING，等待下次调度
                     task.setStatus(ScheduledTask.TaskStatus.PENDING);
-                    log.warn("CRON 任务 [{}] 执行失败，将等待下次触发", task.getTaskName());
+                    log.warn("CRON 任务 [{}] 执行超时，将等待下次触发", task.getTaskName());
                 }
 
-                executionLog.setStatus(ScheduledTask.TaskStatus.FAILED);
-                executionLog.setErrorMessage(e.getMessage());
+                executionLog.setStatus(ScheduledTask.TaskStatus.TIMEOUT);
+                executionLog.setErrorMessage("执行超时：" + timeoutSeconds + "秒");
+                
+            } catch (ExecutionException e) {
+                throw e.getCause() != null ? (Exception) e.getCause() : e;
+            } finally {
+                executorService.shutdownNow();
             }
 
-            long duration = System.currentTimeMillis() - startTime;
-            executionLog.setExecutionDurationMs(duration);
+        } catch (Exception e) {
+            log.error("任务 [{}] 执行失败", task.getTaskName(), e);
 
-            // 保存执行结果
+            // 增加重试次数
+            task.setRetryCount(task.getRetryCount() + 1);
+            task.setErrorMessage(e.getMessage());
+
+            // 判断是否还能重试（仅限 ONCE 模式）
+            if (task.getScheduleMode() == ScheduledTask.ScheduleMode.ONCE) {
+                if (task.getRetryCount() >= task.getMaxRetryCount()) {
+                    task.setStatus(ScheduledTask.TaskStatus.FAILED);
+                    log.error("任务 [{}] 已达到最大重试次数，标记为失败", task.getTaskName());
+                    
+                    // 从 Quartz 移除任务（不改写任务行，终态由下方保存结果写入）
+                    unscheduleQuartz(taskId);
+                } else {
+                    // 即时重新调度
+                    task.setExecuteTime(LocalDateTime.now().plusSeconds(properties.getRetryIntervalSeconds()));
+                    task.setStatus(ScheduledTask.TaskStatus.PENDING);
+                    needReschedule = true;
+                    log.warn("任务 [{}] 将在 {} 秒后重试，当前重试次数：{}/{}",
+                            task.getTaskName(), properties.getRetryIntervalSeconds(),
+                            task.getRetryCount(), task.getMaxRetryCount());
+                }
+            } else {
+                // CRON 任务失败后保持 PENDING，等待下次调度
+                task.setStatus(ScheduledTask.TaskStatus.PENDING);
+                log.warn("CRON 任务 [{}] 执行失败，将等待下次触发", task.getTaskName());
+            }
+
+            executionLog.setStatus(ScheduledTask.TaskStatus.FAILED);
+            executionLog.setErrorMessage(e.getMessage());
+        }
+
+        long duration = System.currentTimeMillis() - startTime;
+        executionLog.setExecutionDurationMs(duration);
+
+        // 保存执行结果（启用执行日志时先追加到本地日志，由后台批量同步到数据库）
+        if (executionJournal.isEnabled()) {
+            executionJournal.append(task, executionLog);
+        } else {
             if (task.getId() == null) {
                 taskRepository.insert(task);
             } else {
@@ -351,15 +633,15 @@ public class QuartzTaskScheduler implements TaskScheduler {
             } else {
                 logRepository.updateById(executionLog);
             }
+        }
 
-            // 如需重试（ONCE 模式），先取消再重新调度
-            if (needReschedule) {
-                cancelTask(taskId);
-                scheduleTask(task);
-            }
+        // 发布任务状态变更事件
+        eventPublisher.publishEvent(new TaskStatusChangedEvent(
+                this, task, ScheduledTask.TaskStatus.EXECUTING, executionLog));
 
-        } finally {
-            distributedLock.unlock(lockKey);
+        // 如需重试（ONCE 模式），先取消再重新调度
+        if (needReschedule) {
+            rescheduleForRetry(task);
         }
     }
 
@@ -372,21 +654,21 @@ public class QuartzTaskScheduler implements TaskScheduler {
                 return false;
             }
 
-            String jobKey = "task-" + taskId;
-            String groupKey = "scheduled-tasks";
-            JobKey jKey = JobKey.jobKey(jobKey, groupKey);
-
-            // 从 Quartz 删除任务
-            boolean deleted = quartzScheduler.deleteJob(jKey);
+            // 从 Quartz 删除任务（共享模式下只移除 Trigger，保留类型级 Job）
+            boolean deleted = isSharedJobMode()
+                    ? quartzScheduler.unscheduleJob(taskTriggerKey(taskId))
+                    : quartzScheduler.deleteJob(JobKey.jobKey(LEGACY_JOB_PREFIX + taskId, GROUP_KEY));
 
             if (deleted) {
                 // 更新状态
+                ScheduledTask.TaskStatus previousStatus = task.getStatus();
                 task.setStatus(ScheduledTask.TaskStatus.CANCELLED);
                 if (task.getId() == null) {
                     taskRepository.insert(task);
                 } else {
                     taskRepository.updateById(task);
                 }
+                eventPublisher.publishEvent(new TaskStatusChangedEvent(this, task, previousStatus, null));
 
                 log.info("任务 [{}] 已从 Quartz 取消", task.getTaskName());
                 return true;
@@ -399,6 +681,23 @@ public class QuartzTaskScheduler implements TaskScheduler {
         }
     }
 
+    /**
+     * 只从 Quartz 移除任务的 Trigger/Job，不修改 scheduled_task。
+     * 执行结束时用于重试耗尽的 ONCE 任务：任务行仍为 EXECUTING，启用执行日志时由同步线程按期望状态写入 FAILED/TIMEOUT，
+     * 若先写成 CANCELLED 条件更新将不再命中，终态、错误信息与重试次数会丢失
+     */
+    private void unscheduleQuartz(Long taskId) {
+        try {
+            if (isSharedJobMode()) {
+                quartzScheduler.unscheduleJob(taskTriggerKey(taskId));
+            } else {
+                quartzScheduler.deleteJob(JobKey.jobKey(LEGACY_JOB_PREFIX + taskId, GROUP_KEY));
+            }
+        } catch (SchedulerException e) {
+            log.error("从 Quartz 移除任务失败，任务ID：{}", taskId, e);
+        }
+    }
+
     @PreDestroy
     @Override
     public void destroy() {
@@ -3,7 +3,10 @@ package com.example.scheduled.scheduler.impl;
 import com.example.scheduled.config.ScheduledTaskProperties;
 import com.example.scheduled.entity.ScheduledTask;
 import com.example.scheduled.entity.TaskExecutionLog;
+import com.example.scheduled.event.TaskStatusChangedEvent;
+import com.example.scheduled.executor.ShardedTaskRunner;
 import com.example.scheduled.executor.TaskExecutor;
+import com.example.scheduled.journal.ExecutionJournal;
 import com.example.scheduled.lock.DistributedLock;
 import com.example.scheduled.repository.ScheduledTaskRepository;
 import com.example.scheduled.repository.TaskExecutionLogRepository;
@@ -12,6 +15,7 @@ import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
@@ -36,6 +40,9 @@ public class SimpleTaskScheduler implements TaskScheduler {
     private final TaskExecutionLogRepository logRepository;
     private final ScheduledTaskProperties properties;
     private final DistributedLock distributedLock;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ShardedTaskRunner shardedTaskRunner;
+    private final ExecutionJournal executionJournal;
     private final Map<ScheduledTask.TaskType, TaskExecutor> executorMap;
 
     private ScheduledThreadPoolExecutor scheduler;
@@ -45,11 +52,17 @@ public class SimpleTaskScheduler implements TaskScheduler {
                                TaskExecutionLogRepository logRepository,
                                ScheduledTaskProperties properties,
                                DistributedLock distributedLock,
-                               List<TaskExecutor> executors) {
+                               List<TaskExecutor> executors,
+                               ApplicationEventPublisher eventPublisher,
+                               ShardedTaskRunner shardedTaskRunner,
+                               ExecutionJournal executionJournal) {
         this.taskRepository = taskRepository;
         this.logRepository = logRepository;
         this.properties = properties;
         this.distributedLock = distributedLock;
+        this.eventPublisher = eventPublisher;
+        this.shardedTaskRunner = shardedTaskRunner;
+        this.executionJournal = executionJournal;
         // 构建执行器映射表
         this.executorMap = executors.stream()
                 .collect(Collectors.toMap(
@@ -180,11 +193,14 @@ public class SimpleTaskScheduler implements TaskScheduler {
             } else {
                 taskRepository.updateById(task);
             }
+            eventPublisher.publishEvent(new TaskStatusChangedEvent(
+                    this, task, ScheduledTask.TaskStatus.PENDING, null));
 
             long startTime = System.currentTimeMillis();
             TaskExecutionLog executionLog = TaskExecutionLog.builder()
                     .taskId(taskId)
                     .executeTime(LocalDateTime.now())
+                    .scheduledTime(task.getScheduleMode() == ScheduledTask.ScheduleMode.ONCE ? task.getExecuteTime() : null)
                     .build();
 
             boolean needReschedule = false;
@@ -205,7 +221,8 @@ public class SimpleTaskScheduler implements TaskScheduler {
                 ExecutorService executorService = Executors.newSingleThreadExecutor();
                 Future<?> executionFuture = executorService.submit(() -> {
                     try {
-                        executor.execute(task);
+                        // 分片任务由 ShardedTaskRunner 并行执行各分片
+                        shardedTaskRunner.run(executor, task);
                     } catch (Exception e) {
                         throw new RuntimeException(e);
                     }
@@ -225,7 +242,8 @@ public class SimpleTaskScheduler implements TaskScheduler {
                 } catch (TimeoutException e) {
                     log.error("任务 [{}] 执行超时，超时时间：{}秒", task.getTaskName(), timeoutSeconds);
                     
-                    // 尝试取消任务
+                    // 先在本线程内取消分片并写回失败分片，再中断执行线程，随后持久化的 taskData 不会缺失或过期
+                    shardedTaskRunner.cancel(task);
                     executionFuture.cancel(true);
                     
                     // 增加重试次数
@@ -283,18 +301,26 @@ public class SimpleTaskScheduler implements TaskScheduler {
             long duration = System.currentTimeMillis() - startTime;
             executionLog.setExecutionDurationMs(duration);
 
-            // 保存执行结果
-            if (task.getId() == null) {
-                taskRepository.insert(task);
-            } else {
-                taskRepository.updateById(task);
-            }
-            if (executionLog.getId() == null) {
-                logRepository.insert(executionLog);
+            // 保存执行结果（启用执行日志时先追加到本地日志，由后台批量同步到数据库）
+            if (executionJournal.isEnabled()) {
+                executionJournal.append(task, executionLog);
             } else {
-                logRepository.updateById(executionLog);
+                if (task.getId() == null) {
+                    taskRepository.insert(task);
+                } else {
+                    taskRepository.updateById(task);
+                }
+                if (executionLog.getId() == null) {
+                    logRepository.insert(executionLog);
+                } else {
+                    logRepository.updateById(executionLog);
+                }
             }
 
+            // 发布任务状态变更事件
+            eventPublisher.publishEvent(new TaskStatusChangedEvent(
+                    this, task, ScheduledTask.TaskStatus.EXECUTING, executionLog));
+
             // 从调度队列中移除
             scheduledTasks.remove(taskId);
 
@@ -323,12 +349,14 @@ public class SimpleTaskScheduler implements TaskScheduler {
         }
 
         // 更新状态
+        ScheduledTask.TaskStatus previousStatus = task.getStatus();
         task.setStatus(ScheduledTask.TaskStatus.CANCELLED);
         if (task.getId() == null) {
             taskRepository.insert(task);
         } else {
             taskRepository.updateById(task);
         }
+        eventPublisher.publishEvent(new TaskStatusChangedEvent(this, task, previousStatus, null));
 
         log.info("任务 [{}] 已取消", task.getTaskName());
         return true;
@@ -0,0 +1,182 @@
+package com.example.scheduled.service;
+
+import com.example.scheduled.dto.ExportFilter;
+import com.example.scheduled.entity.ScheduledTask;
+import com.example.scheduled.entity.TaskExecutionLog;
+import com.example.scheduled.repository.ScheduledTaskRepository;
+import com.example.scheduled.repository.TaskExecutionLogRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 数据导出服务
+ * 通过 MyBatis Cursor 逐行读取并直接写出到响应流，内存占用与导出行数无关；
+ * 写出为阻塞 IO，客户端读取慢时自然阻塞读取端（数据库流式结果集随之暂停）
+ */
+@Slf4j
+@Service
+public class DataExportService {
+
+    private static final int FLUSH_EVERY_ROWS = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String[] TASK_HEADER = {"id", "task_name", "task_type", "schedule_mode", "execute_time",
+            "cron_expression", "priority", "execution_timeout", "status", "retry_count", "max_retry_count",
+            "last_execute_time", "error_message", "created_at", "updated_at", "task_data"};
+    private static final String[] LOG_HEADER = {"id", "task_id", "execute_time", "status",
+            "execution_duration_ms", "error_message", "created_at"};
+
+    private final ScheduledTaskRepository taskRepository;
+    private final TaskExecutionLogRepository logRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate streamTransaction;
+
+    public DataExportService(ScheduledTaskRepository taskRepository,
+                             TaskExecutionLogRepository logRepository,
+                             ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager) {
+        this.taskRepository = taskRepository;
+        this.logRepository = logRepository;
+        this.objectMapper = objectMapper;
+        this.streamTransaction = new TransactionTemplate(transactionManager);
+        this.streamTransaction.setReadOnly(true);
+    }
+
+    /**
+     * 导出格式
+     */
+    public enum ExportFormat {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        ExportFormat(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static ExportFormat of(String value) {
+            for (ExportFormat format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("不支持的导出格式：" + value + "，可选 ndjson / csv");
+        }
+    }
+
+    /**
+     * 导出任务，返回导出行数
+     */
+    public long exportTasks(ExportFilter filter, ExportFormat format, boolean gzip, OutputStream out) throws IOException {
+        return export(() -> taskRepository.streamForExport(filter), format, gzip, out, TASK_HEADER, task -> new Object[]{
+                task.getId(), task.getTaskName(), task.getTaskType(), task.getScheduleMode(), task.getExecuteTime(),
+                task.getCronExpression(), task.getPriority(), task.getExecutionTimeout(), task.getStatus(),
+                task.getRetryCount(), task.getMaxRetryCount(), task.getLastExecuteTime(), task.getErrorMessage(),
+                task.getCreatedAt(), task.getUpdatedAt(),
+                task.getTaskData() != null ? toJson(task.getTaskData()) : null});
+    }
+
+    /**
+     * 导出执行日志，返回导出行数
+     */
+    public long exportLogs(ExportFilter filter, ExportFormat format, boolean gzip, OutputStream out) throws IOException {
+        return export(() -> logRepository.streamForExport(filter), format, gzip, out, LOG_HEADER, executionLog -> new Object[]{
+                executionLog.getId(), executionLog.getTaskId(), executionLog.getExecuteTime(), executionLog.getStatus(),
+                executionLog.getExecutionDurationMs(), executionLog.getErrorMessage(), executionLog.getCreatedAt()});
+    }
+
+    private <T> long export(Supplier<Cursor<T>> cursorSupplier, ExportFormat format, boolean gzip, OutputStream out,
+                            String[] header, Function<T, Object[]> csvRow) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+        long rows;
+        try {
+            if (format == ExportFormat.CSV) {
+                writeCsvLine(writer, header);
+            }
+            // Cursor 必须在打开它的事务（连接）内消费完
+            Long written = streamTransaction.execute(status -> {
+                long count = 0;
+                try (Cursor<T> cursor = cursorSupplier.get()) {
+                    for (T row : cursor) {
+                        if (format == ExportFormat.CSV) {
+                            writeCsvLine(writer, csvRow.apply(row));
+                        } else {
+                            writer.write(objectMapper.writeValueAsString(row));
+                            writer.write('\n');
+                        }
+                        if (++count % FLUSH_EVERY_ROWS == 0) {
+                            writer.flush();
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return count;
+            });
+            rows = written != null ? written : 0;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        if (target instanceof GZIPOutputStream gzipOut) {
+            gzipOut.finish();
+        }
+        target.flush();
+        log.info("数据导出完成，格式：{}，行数：{}", format, rows);
+        return rows;
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeCsvLine(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            String text = value instanceof LocalDateTime time ? time.format(DATE_TIME_FORMAT) : value.toString();
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(text.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(text);
+            }
+        }
+        writer.write('\n');
+    }
+}
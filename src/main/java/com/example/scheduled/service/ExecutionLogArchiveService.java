@@ -0,0 +1,248 @@
+package com.example.scheduled.service;
+
+import com.example.scheduled.config.ScheduledTaskProperties;
+import com.example.scheduled.entity.ScheduledTask;
+import com.example.scheduled.entity.TaskExecutionLog;
+import com.example.scheduled.repository.TaskExecutionLogRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 执行日志归档服务
+ * 将过期月份的执行日志导出为本地 gzip 压缩的列式文件（按块存储，每块内逐列连续写入），并提供按条件读取
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExecutionLogArchiveService {
+
+    private static final int MAGIC = 0x54454C41;   // "TELA"
+    private static final byte FORMAT_VERSION = 1;
+    private static final int BLOCK_SIZE = 10000;
+    private static final String FILE_PREFIX = "task_execution_log-";
+    private static final String FILE_SUFFIX = ".cols.gz";
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final TaskExecutionLogRepository logRepository;
+    private final ScheduledTaskProperties properties;
+
+    /**
+     * 导出某个月的执行日志，返回导出行数
+     */
+    public long exportMonth(YearMonth month) throws IOException {
+        Path dir = Paths.get(properties.getLogArchiveDir());
+        Files.createDirectories(dir);
+        Path target = archivePath(month);
+        Path tmp = dir.resolve(target.getFileName() + ".tmp");
+
+        LocalDateTime start = month.atDay(1).atStartOfDay();
+        LocalDateTime end = month.plusMonths(1).atDay(1).atStartOfDay();
+
+        long total = 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(tmp)), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeByte(FORMAT_VERSION);
+
+            long afterId = 0;
+            while (true) {
+                List<TaskExecutionLog> batch = logRepository.findRangeAfterId(start, end, afterId, BLOCK_SIZE);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                writeBlock(out, batch);
+                total += batch.size();
+                afterId = batch.get(batch.size() - 1).getId();
+                if (batch.size() < BLOCK_SIZE) {
+                    break;
+                }
+            }
+            // 结束块
+            out.writeInt(0);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        log.info("执行日志归档完成：{}，行数：{}，文件：{}", month, total, target);
+        return total;
+    }
+
+    /**
+     * 列出所有归档文件
+     */
+    public List<Map<String, Object>> listArchives() throws IOException {
+        Path dir = Paths.get(properties.getLogArchiveDir());
+        if (!Files.isDirectory(dir)) {
+            return Collections.emptyList();
+        }
+        List<Map<String, Object>> archives = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.sorted().toList()) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX)) {
+                    Map<String, Object> archive = new LinkedHashMap<>();
+                    archive.put("month", name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+                    archive.put("fileName", name);
+                    archive.put("sizeBytes", Files.size(file));
+                    archives.add(archive);
+                }
+            }
+        }
+        return archives;
+    }
+
+    /**
+     * 读取归档日志，逐块解码并按条件过滤，读满 limit 条即停止
+     */
+    public List<TaskExecutionLog> readArchive(YearMonth month, Long taskId,
+                                              ScheduledTask.TaskStatus status, int limit) throws IOException {
+        Path file = archivePath(month);
+        if (!Files.exists(file)) {
+            throw new IllegalArgumentException("归档不存在：" + month.format(MONTH_FORMAT));
+        }
+
+        List<TaskExecutionLog> result = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file)), 64 * 1024))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("无效的归档文件：" + file);
+            }
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("不支持的归档版本：" + version);
+            }
+
+            int rows;
+            while ((rows = in.readInt()) > 0 && result.size() < limit) {
+                long[] ids = readLongs(in, rows);
+                long[] taskIds = readLongs(in, rows);
+                LocalDateTime[] executeTimes = readTimes(in, rows);
+                String[] statuses = readStrings(in, rows);
+                String[] errors = readStrings(in, rows);
+                Long[] durations = readNullableLongs(in, rows);
+                LocalDateTime[] createdAts = readTimes(in, rows);
+
+                for (int i = 0; i < rows && result.size() < limit; i++) {
+                    if (taskId != null && taskIds[i] != taskId) {
+                        continue;
+                    }
+                    if (status != null && !status.name().equals(statuses[i])) {
+                        continue;
+                    }
+                    result.add(TaskExecutionLog.builder()
+                            .id(ids[i])
+                            .taskId(taskIds[i])
+                            .executeTime(executeTimes[i])
+                            .status(statuses[i] != null ? ScheduledTask.TaskStatus.valueOf(statuses[i]) : null)
+                            .errorMessage(errors[i])
+                            .executionDurationMs(durations[i])
+                            .createdAt(createdAts[i])
+                            .build());
+                }
+            }
+        }
+        return result;
+    }
+
+    private Path archivePath(YearMonth month) {
+        return Paths.get(properties.getLogArchiveDir(), FILE_PREFIX + month.format(MONTH_FORMAT) + FILE_SUFFIX);
+    }
+
+    /**
+     * 写入一个数据块：行数 + 各列连续存储，同列数据相邻便于压缩
+     */
+    private static void writeBlock(DataOutputStream out, List<TaskExecutionLog> batch) throws IOException {
+        out.writeInt(batch.size());
+        for (TaskExecutionLog row : batch) {
+            out.writeLong(row.getId());
+        }
+        for (TaskExecutionLog row : batch) {
+            out.writeLong(row.getTaskId());
+        }
+        for (TaskExecutionLog row : batch) {
+            writeTime(out, row.getExecuteTime());
+        }
+        for (TaskExecutionLog row : batch) {
+            writeString(out, row.getStatus() != null ? row.getStatus().name() : null);
+        }
+        for (TaskExecutionLog row : batch) {
+            writeString(out, row.getErrorMessage());
+        }
+        for (TaskExecutionLog row : batch) {
+            writeNullableLong(out, row.getExecutionDurationMs());
+        }
+        for (TaskExecutionLog row : batch) {
+            writeTime(out, row.getCreatedAt());
+        }
+    }
+
+    private static void writeNullableLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        writeNullableLong(out, value != null ? value.toEpochSecond(ZoneOffset.UTC) : null);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static long[] readLongs(DataInputStream in, int rows) throws IOException {
+        long[] values = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            values[i] = in.readLong();
+        }
+        return values;
+    }
+
+    private static Long[] readNullableLongs(DataInputStream in, int rows) throws IOException {
+        Long[] values = new Long[rows];
+        for (int i = 0; i < rows; i++) {
+            values[i] = in.readBoolean() ? in.readLong() : null;
+        }
+        return values;
+    }
+
+    private static LocalDateTime[] readTimes(DataInputStream in, int rows) throws IOException {
+        LocalDateTime[] values = new LocalDateTime[rows];
+        for (int i = 0; i < rows; i++) {
+            values[i] = in.readBoolean() ? LocalDateTime.ofEpochSecond(in.readLong(), 0, ZoneOffset.UTC) : null;
+        }
+        return values;
+    }
+
+    private static String[] readStrings(DataInputStream in, int rows) throws IOException {
+        String[] values = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            int length = in.readInt();
+            if (length >= 0) {
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                values[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.scheduled.service;
+
+import com.example.scheduled.config.ScheduledTaskProperties;
+import com.example.scheduled.lock.DistributedLock;
+import com.example.scheduled.repository.TaskExecutionLogRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 执行日志保留服务
+ * task_execution_log 按月分区（pYYYYMM + pmax），定期预建后续月份分区，
+ * 过期月份先按需归档再整分区删除；表未分区时退化为分批删除。
+ * 归档整月数据与 DDL 耗时较长，在独立线程中执行，不占用 @Scheduled 共享线程池
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExecutionLogRetentionService {
+
+    private static final String LOCK_KEY = "task-log-retention";
+    private static final Pattern MONTH_PARTITION = Pattern.compile("p(\\d{6})");
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final int FUTURE_PARTITION_MONTHS = 3;
+    private static final int DELETE_BATCH_SIZE = 5000;
+
+    private final TaskExecutionLogRepository logRepository;
+    private final ExecutionLogArchiveService archiveService;
+    private final ScheduledTaskProperties properties;
+    private final DistributedLock distributedLock;
+
+    private final ExecutorService maintenanceExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "task-log-retention");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 定时维护分区并清理过期日志（提交到维护线程后立即返回）
+     */
+    @Scheduled(cron = "${scheduled.task.log-retention-cron:0 30 2 * * ?}")
+    public void scheduledMaintenance() {
+        if (!properties.isLogRetentionEnabled()) {
+            return;
+        }
+        maintenanceExecutor.execute(() -> {
+            try {
+                Long purged = maintainExclusively();
+                if (purged == null) {
+                    log.info("其他节点正在执行执行日志保留维护，本节点跳过");
+                }
+            } catch (Exception e) {
+                log.error("执行日志保留维护失败", e);
+            }
+        });
+    }
+
+    /**
+     * 手动触发一次维护：与定时维护相同，需已启用日志保留，并持有集群锁
+     *
+     * @return 清理的月份数（未分区时为删除行数）
+     * @throws IllegalStateException 未启用日志保留或其他节点正在维护
+     */
+    public long maintainManually() throws Exception {
+        if (!properties.isLogRetentionEnabled()) {
+            throw new IllegalStateException("未启用执行日志保留（scheduled.task.log-retention-enabled=false）");
+        }
+        Long purged = maintainExclusively();
+        if (purged == null) {
+            throw new IllegalStateException("其他节点正在执行执行日志保留维护");
+        }
+        return purged;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        maintenanceExecutor.shutdownNow();
+    }
+
+    /**
+     * 集群中只需一个节点执行；未获取到锁时返回 null
+     */
+    private Long maintainExclusively() throws Exception {
+        if (!distributedLock.tryLock(LOCK_KEY, 3600)) {
+            return null;
+        }
+        try {
+            return maintain();
+        } finally {
+            distributedLock.unlock(LOCK_KEY);
+        }
+    }
+
+    /**
+     * 执行一次分区维护，返回清理的月份数（未分区时返回删除行数）
+     */
+    private long maintain() throws Exception {
+        YearMonth cutoff = YearMonth.now().minusMonths(properties.getLogRetentionMonths());
+        List<String> partitions = logRepository.findPartitionNames();
+
+        if (partitions.isEmpty()) {
+            log.warn("task_execution_log 未分区，按行分批清理 {} 之前的日志，建议执行 task-log-partition-migration.sql",
+                    cutoff.atDay(1));
+            return purgeByRows(cutoff.atDay(1).atStartOfDay());
+        }
+
+        ensureFuturePartitions(partitions);
+
+        long purged = 0;
+        for (String partition : partitions) {
+            Matcher matcher = MONTH_PARTITION.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.parse(matcher.group(1), MONTH_FORMAT);
+            if (!month.isBefore(cutoff)) {
+                continue;
+            }
+            if (properties.isLogArchiveEnabled()) {
+                archiveService.exportMonth(month);
+            }
+            logRepository.dropPartition(partition);
+            purged++;
+            log.info("已删除过期执行日志分区：{}", partition);
+        }
+        return purged;
+    }
+
+    /**
+     * 从 pmax 拆出当前月之后若干个月的分区，保证新数据落在月分区中
+     */
+    private void ensureFuturePartitions(List<String> partitions) {
+        if (!partitions.contains("pmax")) {
+            return;
+        }
+        YearMonth last = null;
+        for (String partition : partitions) {
+            Matcher matcher = MONTH_PARTITION.matcher(partition);
+            if (matcher.matches()) {
+                YearMonth month = YearMonth.parse(matcher.group(1), MONTH_FORMAT);
+                if (last == null || month.isAfter(last)) {
+                    last = month;
+                }
+            }
+        }
+
+        YearMonth target = YearMonth.now().plusMonths(FUTURE_PARTITION_MONTHS);
+        YearMonth next = last != null ? last.plusMonths(1) : YearMonth.now();
+        if (next.isAfter(target)) {
+            return;
+        }
+
+        StringBuilder definitions = new StringBuilder();
+        for (YearMonth month = next; !month.isAfter(target); month = month.plusMonths(1)) {
+            definitions.append("PARTITION p").append(month.format(MONTH_FORMAT))
+                    .append(" VALUES LESS THAN (TO_DAYS('").append(month.plusMonths(1).atDay(1)).append("')), ");
+        }
+        definitions.append("PARTITION pmax VALUES LESS THAN MAXVALUE");
+        logRepository.reorganizeMaxPartition(definitions.toString());
+        log.info("已预建执行日志分区：{} ~ {}", next, target);
+    }
+
+    private long purgeByRows(LocalDateTime before) {
+        long total = 0;
+        int deleted;
+        do {
+            deleted = logRepository.deleteBefore(before, DELETE_BATCH_SIZE);
+            total += deleted;
+        } while (deleted == DELETE_BATCH_SIZE);
+        if (total > 0) {
+            log.info("已分批删除过期执行日志，行数：{}", total);
+        }
+        return total;
+    }
+}
@@ -1,17 +1,25 @@
 package com.example.scheduled.service;
 
+import com.example.scheduled.dto.TaskPage;
+import com.example.scheduled.dto.TaskQueryRequest;
 import com.example.scheduled.entity.ScheduledTask;
 import com.example.scheduled.entity.TaskExecutionLog;
+import com.example.scheduled.event.TaskStatusChangedEvent;
+import com.example.scheduled.executor.ShardedTaskRunner;
 import com.example.scheduled.repository.ScheduledTaskRepository;
 import com.example.scheduled.repository.TaskExecutionLogRepository;
 import com.example.scheduled.scheduler.TaskScheduler;
+import com.example.scheduled.statistics.LiveTaskMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 
@@ -23,9 +31,14 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class TaskManagementService {
 
+    private static final int BATCH_INSERT_SIZE = 500;
+
     private final ScheduledTaskRepository taskRepository;
     private final TaskExecutionLogRepository logRepository;
     private final TaskScheduler taskScheduler;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LiveTaskMetrics liveTaskMetrics;
+    private final ShardedTaskRunner shardedTaskRunner;
 
     /**
      * 创建一次性定时任务（ONCE 模式）
@@ -43,6 +56,7 @@ public class TaskManagementService {
         if (executeTime.isBefore(LocalDateTime.now())) {
             throw new IllegalArgumentException("执行时间不能早于当前时间");
         }
+        shardedTaskRunner.validateShardCount(taskData);
 
         ScheduledTask task = ScheduledTask.builder()
                 .taskName(taskName)
@@ -65,12 +79,52 @@ public class TaskManagementService {
         log.info("创建一次性任务成功：{}, ID: {}, 执行时间: {}, 优先级: {}, 超时: {}秒", 
                 taskName, task.getId(), executeTime, task.getPriority(), task.getExecutionTimeout());
 
+        eventPublisher.publishEvent(new TaskStatusChangedEvent(this, task, null, null));
+
         // 立即调度任务
         taskScheduler.scheduleTask(task);
 
         return task;
     }
 
+    /**
+     * 批量创建一次性定时任务：多行 INSERT 一次写入，再整批提交调度器
+     * 传入的任务只需设置名称、类型、执行时间、数据与重试/优先级/超时参数
+     */
+    @Transactional
+    public List<ScheduledTask> createOnceTasks(List<ScheduledTask> tasks) {
+        if (tasks.isEmpty()) {
+            return tasks;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (ScheduledTask task : tasks) {
+            if (task.getExecuteTime() == null || task.getExecuteTime().isBefore(now)) {
+                throw new IllegalArgumentException("执行时间不能早于当前时间：" + task.getTaskName());
+            }
+            shardedTaskRunner.validateShardCount(task.getTaskData());
+            task.setScheduleMode(ScheduledTask.ScheduleMode.ONCE);
+            task.setStatus(ScheduledTask.TaskStatus.PENDING);
+            task.setRetryCount(0);
+            if (task.getMaxRetryCount() == null) {
+                task.setMaxRetryCount(3);
+            }
+        }
+
+        for (int from = 0; from < tasks.size(); from += BATCH_INSERT_SIZE) {
+            taskRepository.insertBatch(tasks.subList(from, Math.min(from + BATCH_INSERT_SIZE, tasks.size())));
+        }
+        log.info("批量创建一次性任务成功，数量：{}", tasks.size());
+
+        for (ScheduledTask task : tasks) {
+            eventPublisher.publishEvent(new TaskStatusChangedEvent(this, task, null, null));
+        }
+
+        // 整批提交调度器
+        taskScheduler.scheduleTasks(tasks);
+
+        return tasks;
+    }
+
     /**
      * 创建周期性 Cron 任务（CRON 模式）
      */
@@ -86,6 +140,7 @@ public class TaskManagementService {
         if (cronExpression == null || cronExpression.trim().isEmpty()) {
             throw new IllegalArgumentException("Cron 表达式不能为空");
         }
+        shardedTaskRunner.validateShardCount(taskData);
 
         ScheduledTask task = ScheduledTask.builder()
                 .taskName(taskName)
@@ -108,6 +163,8 @@ public class TaskManagementService {
         log.info("创建 Cron 任务成功：{}, ID: {}, Cron: {}, 优先级: {}, 超时: {}秒", 
                 taskName, task.getId(), cronExpression, task.getPriority(), task.getExecutionTimeout());
 
+        eventPublisher.publishEvent(new TaskStatusChangedEvent(this, task, null, null));
+
         // 立即调度任务
         taskScheduler.scheduleTask(task);
 
@@ -139,6 +196,101 @@ public class TaskManagementService {
         );
     }
 
+    /**
+     * 键集分页查询任务
+     * 按 (created_at, id) 倒序或 (execute_time, id) 正序翻页，默认不返回 task_data
+     */
+    public TaskPage queryTasks(TaskQueryRequest query) {
+        boolean byExecuteTime = "executeTime".equals(query.getSortBy());
+        if (!byExecuteTime && !"createdAt".equals(query.getSortBy())) {
+            throw new IllegalArgumentException("不支持的排序键：" + query.getSortBy() + "，可选 createdAt / executeTime");
+        }
+        int limit = query.getLimit() != null ? query.getLimit() : 50;
+        if (limit <= 0 || limit > 500) {
+            throw new IllegalArgumentException("每页条数范围应在 1-500 之间");
+        }
+
+        LambdaQueryWrapper<ScheduledTask> wrapper = new LambdaQueryWrapper<>();
+        if (!query.isIncludeTaskData()) {
+            wrapper.select(ScheduledTask.class, field -> !"task_data".equals(field.getColumn()));
+        }
+        wrapper.eq(query.getTaskType() != null, ScheduledTask::getTaskType, query.getTaskType())
+                .eq(query.getScheduleMode() != null, ScheduledTask::getScheduleMode, query.getScheduleMode())
+                .eq(query.getStatus() != null, ScheduledTask::getStatus, query.getStatus())
+                .ge(query.getMinPriority() != null, ScheduledTask::getPriority, query.getMinPriority())
+                .likeRight(query.getNamePrefix() != null && !query.getNamePrefix().isEmpty(),
+                        ScheduledTask::getTaskName, query.getNamePrefix());
+
+        if (byExecuteTime) {
+            wrapper.isNotNull(ScheduledTask::getExecuteTime)
+                    .ge(query.getFrom() != null, ScheduledTask::getExecuteTime, query.getFrom())
+                    .lt(query.getTo() != null, ScheduledTask::getExecuteTime, query.getTo());
+        } else {
+            wrapper.ge(query.getFrom() != null, ScheduledTask::getCreatedAt, query.getFrom())
+                    .lt(query.getTo() != null, ScheduledTask::getCreatedAt, query.getTo());
+        }
+
+        // 游标条件：从上一页最后一行之后继续
+        if (query.getCursor() != null && !query.getCursor().isEmpty()) {
+            Object[] cursor = decodeCursor(query.getCursor());
+            LocalDateTime sortValue = (LocalDateTime) cursor[0];
+            Long lastId = (Long) cursor[1];
+            if (byExecuteTime) {
+                wrapper.and(w -> w.gt(ScheduledTask::getExecuteTime, sortValue)
+                        .or(o -> o.eq(ScheduledTask::getExecuteTime, sortValue).gt(ScheduledTask::getId, lastId)));
+            } else {
+                wrapper.and(w -> w.lt(ScheduledTask::getCreatedAt, sortValue)
+                        .or(o -> o.eq(ScheduledTask::getCreatedAt, sortValue).lt(ScheduledTask::getId, lastId)));
+            }
+        }
+
+        if (byExecuteTime) {
+            wrapper.orderByAsc(ScheduledTask::getExecuteTime).orderByAsc(ScheduledTask::getId);
+        } else {
+            wrapper.orderByDesc(ScheduledTask::getCreatedAt).orderByDesc(ScheduledTask::getId);
+        }
+        // 多取一行判断是否还有下一页
+        wrapper.last("LIMIT " + (limit + 1));
+
+        List<ScheduledTask> rows = taskRepository.selectList(wrapper);
+        boolean hasMore = rows.size() > limit;
+        List<ScheduledTask> items = hasMore ? rows.subList(0, limit) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            ScheduledTask last = items.get(items.size() - 1);
+            nextCursor = encodeCursor(byExecuteTime ? last.getExecuteTime() : last.getCreatedAt(), last.getId());
+        }
+
+        // 只按类型/状态过滤时可直接用内存计数器估算总数，避免 COUNT(*)
+        boolean countable = query.getScheduleMode() == null && query.getMinPriority() == null
+                && query.getFrom() == null && query.getTo() == null
+                && (query.getNamePrefix() == null || query.getNamePrefix().isEmpty()) && !byExecuteTime;
+        Long approximateTotal = countable ? liveTaskMetrics.countTasks(query.getTaskType(), query.getStatus()) : null;
+
+        return TaskPage.builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .approximateTotal(approximateTotal)
+                .build();
+    }
+
+    private static String encodeCursor(LocalDateTime sortValue, Long id) {
+        String raw = sortValue + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Object[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new Object[]{LocalDateTime.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1))};
+        } catch (Exception e) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+    }
+
     /**
      * 取消任务
      */
@@ -163,12 +315,14 @@ public class TaskManagementService {
             return false;
         }
 
-        // 取消调度
-        taskScheduler.cancelTask(taskId);
+        // 取消调度（调度器会先将任务置为 CANCELLED）
+        boolean cancelled = taskScheduler.cancelTask(taskId);
 
         // 更新状态为暂停
         task.setStatus(ScheduledTask.TaskStatus.PAUSED);
         taskRepository.updateById(task);
+        eventPublisher.publishEvent(new TaskStatusChangedEvent(this, task,
+                cancelled ? ScheduledTask.TaskStatus.CANCELLED : ScheduledTask.TaskStatus.PENDING, null));
 
         log.info("任务 [{}] 已暂停", task.getTaskName());
         return true;
@@ -193,6 +347,8 @@ public class TaskManagementService {
         // 更新状态为待执行
         task.setStatus(ScheduledTask.TaskStatus.PENDING);
         taskRepository.updateById(task);
+        eventPublisher.publishEvent(new TaskStatusChangedEvent(
+                this, task, ScheduledTask.TaskStatus.PAUSED, null));
 
         // 重新调度
         taskScheduler.scheduleTask(task);
@@ -212,12 +368,16 @@ public class TaskManagementService {
         }
 
         // 取消当前调度
-        taskScheduler.cancelTask(taskId);
+        ScheduledTask.TaskStatus previousStatus = task.getStatus();
+        if (taskScheduler.cancelTask(taskId)) {
+            previousStatus = ScheduledTask.TaskStatus.CANCELLED;
+        }
 
         // 重置执行时间为现在
         task.setExecuteTime(LocalDateTime.now());
         task.setStatus(ScheduledTask.TaskStatus.PENDING);
         taskRepository.updateById(task);
+        eventPublisher.publishEvent(new TaskStatusChangedEvent(this, task, previousStatus, null));
 
         // 重新调度（立即执行）
         taskScheduler.scheduleTask(task);
@@ -0,0 +1,223 @@
+package com.example.scheduled.service;
+
+import com.example.scheduled.config.ScheduledTaskProperties;
+import com.example.scheduled.entity.ScheduledTask;
+import com.example.scheduled.entity.TaskExecutionLog;
+import com.example.scheduled.entity.TaskExecutionRollup;
+import com.example.scheduled.entity.TaskExecutionRollup.Granularity;
+import com.example.scheduled.event.TaskStatusChangedEvent;
+import com.example.scheduled.repository.TaskExecutionRollupRepository;
+import com.example.scheduled.statistics.LatencyHistogram;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 执行统计汇总服务
+ * 订阅任务执行结果，在内存中按 (粒度, 时间桶, 任务类型, 执行结果) 累加，
+ * 定期合并写入 task_execution_rollup；统计查询只读汇总行
+ */
+@Slf4j
+@Service
+public class TaskStatisticsRollupService {
+
+    private static final Granularity[] GRANULARITIES = Granularity.values();
+    private static final int MINUTE_RETENTION_DAYS = 2;
+    private static final int HOUR_RETENTION_DAYS = 30;
+
+    private final TaskExecutionRollupRepository rollupRepository;
+    private final ScheduledTaskProperties properties;
+    private final TransactionTemplate rowTransaction;
+
+    private final Object pendingLock = new Object();
+    private Map<RollupKey, Accumulator> pending = new HashMap<>();
+    private volatile LocalDateTime lastPurgeTime = LocalDateTime.MIN;
+
+    public TaskStatisticsRollupService(TaskExecutionRollupRepository rollupRepository,
+                                       ScheduledTaskProperties properties,
+                                       PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.properties = properties;
+        this.rowTransaction = new TransactionTemplate(transactionManager);
+        this.rowTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 执行结果提交后累加到内存（只在本地加锁，不访问数据库）
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTaskStatusChanged(TaskStatusChangedEvent event) {
+        TaskExecutionLog executionLog = event.getExecutionLog();
+        if (!properties.isStatisticsRollupEnabled() || executionLog == null
+                || executionLog.getStatus() == null || event.getTask().getTaskType() == null) {
+            return;
+        }
+        LocalDateTime executeTime = executionLog.getExecuteTime() != null
+                ? executionLog.getExecuteTime() : LocalDateTime.now();
+        long duration = executionLog.getExecutionDurationMs() != null ? executionLog.getExecutionDurationMs() : 0L;
+        ScheduledTask task = event.getTask();
+        // 调度延迟只对有明确计划时间的 ONCE 任务计算（计划时间在执行开始时记录，重试会改写任务的 executeTime）
+        Long lag = executionLog.getScheduledTime() != null
+                ? Math.max(0L, Duration.between(executionLog.getScheduledTime(), executeTime).toMillis()) : null;
+
+        synchronized (pendingLock) {
+            for (Granularity granularity : GRANULARITIES) {
+                RollupKey key = new RollupKey(granularity, granularity.truncate(executeTime),
+                        task.getTaskType(), executionLog.getStatus());
+                pending.computeIfAbsent(key, k -> new Accumulator()).add(duration, lag);
+            }
+        }
+    }
+
+    /**
+     * 定期把内存中的增量合并到汇总表
+     */
+    @Scheduled(fixedDelayString = "${scheduled.task.statistics-rollup-flush-interval-ms:5000}")
+    public void flush() {
+        if (!properties.isStatisticsRollupEnabled()) {
+            return;
+        }
+        Map<RollupKey, Accumulator> batch;
+        synchronized (pendingLock) {
+            if (pending.isEmpty()) {
+                batch = null;
+            } else {
+                batch = pending;
+                pending = new HashMap<>();
+            }
+        }
+        if (batch != null) {
+            for (Map.Entry<RollupKey, Accumulator> entry : batch.entrySet()) {
+                try {
+                    mergeRow(entry.getKey(), entry.getValue());
+                } catch (Exception e) {
+                    log.warn("执行统计汇总写入失败，下次重试：{}", entry.getKey(), e);
+                    requeue(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        purgeExpiredRows();
+    }
+
+    /**
+     * 单行合并：加锁读取后合并计数与直方图，不存在则插入（并发插入冲突时改为合并）
+     */
+    private void mergeRow(RollupKey key, Accumulator delta) {
+        rowTransaction.executeWithoutResult(status -> {
+            TaskExecutionRollup row = rollupRepository.selectForUpdate(
+                    key.granularity(), key.bucketStart(), key.taskType(), key.status());
+            if (row == null) {
+                try {
+                    rollupRepository.insert(delta.toRow(key));
+                    return;
+                } catch (DuplicateKeyException e) {
+                    row = rollupRepository.selectForUpdate(
+                            key.granularity(), key.bucketStart(), key.taskType(), key.status());
+                }
+            }
+            LatencyHistogram histogram = LatencyHistogram.decode(row.getDurationSketch());
+            histogram.merge(delta.histogram);
+            LatencyHistogram lagHistogram = LatencyHistogram.decode(row.getLagSketch());
+            lagHistogram.merge(delta.lagHistogram);
+            row.setExecCount(row.getExecCount() + delta.count);
+            row.setDurationSum(row.getDurationSum() + delta.sum);
+            row.setDurationMin(row.getDurationMin() != null ? Math.min(row.getDurationMin(), delta.min) : delta.min);
+            row.setDurationMax(row.getDurationMax() != null ? Math.max(row.getDurationMax(), delta.max) : delta.max);
+            row.setDurationSketch(histogram.encode());
+            row.setLagSketch(lagHistogram.encode());
+            rollupRepository.updateById(row);
+        });
+    }
+
+    private void requeue(RollupKey key, Accumulator accumulator) {
+        synchronized (pendingLock) {
+            pending.merge(key, accumulator, Accumulator::mergeFrom);
+        }
+    }
+
+    /**
+     * 分钟、小时粒度只保留近期数据，每小时清理一次
+     */
+    private void purgeExpiredRows() {
+        LocalDateTime now = LocalDateTime.now();
+        if (lastPurgeTime.plusHours(1).isAfter(now)) {
+            return;
+        }
+        lastPurgeTime = now;
+        try {
+            rollupRepository.deleteBefore(Granularity.MINUTE, now.minusDays(MINUTE_RETENTION_DAYS));
+            rollupRepository.deleteBefore(Granularity.HOUR, now.minusDays(HOUR_RETENTION_DAYS));
+        } catch (Exception e) {
+            log.warn("清理过期执行统计汇总失败", e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+
+    private record RollupKey(Granularity granularity, LocalDateTime bucketStart,
+                             ScheduledTask.TaskType taskType, ScheduledTask.TaskStatus status) {
+    }
+
+    /**
+     * 单个汇总键的内存增量（只在 pendingLock 内修改）
+     */
+    private static class Accumulator {
+        private long count;
+        private long sum;
+        private long min = Long.MAX_VALUE;
+        private long max = Long.MIN_VALUE;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LatencyHistogram lagHistogram = new LatencyHistogram();
+
+        void add(long duration, Long lag) {
+            count++;
+            sum += duration;
+            min = Math.min(min, duration);
+            max = Math.max(max, duration);
+            histogram.record(duration);
+            if (lag != null) {
+                lagHistogram.record(lag);
+            }
+        }
+
+        Accumulator mergeFrom(Accumulator other) {
+            count += other.count;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            histogram.merge(other.histogram);
+            lagHistogram.merge(other.lagHistogram);
+            return this;
+        }
+
+        TaskExecutionRollup toRow(RollupKey key) {
+            return TaskExecutionRollup.builder()
+                    .granularity(key.granularity())
+                    .bucketStart(key.bucketStart())
+                    .taskType(key.taskType())
+                    .status(key.status())
+                    .execCount(count)
+                    .durationSum(sum)
+                    .durationMin(min)
+                    .durationMax(max)
+                    .durationSketch(histogram.encode())
+                    .lagSketch(lagHistogram.encode())
+                    .build();
+        }
+    }
+}
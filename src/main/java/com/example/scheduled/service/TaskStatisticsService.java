@@ -1,21 +1,31 @@
 package com.example.scheduled.service;
 
+import com.example.scheduled.config.ScheduledTaskProperties;
 import com.example.scheduled.entity.*;
+import com.example.scheduled.event.TaskStatusChangedEvent;
 import com.example.scheduled.repository.ScheduledTaskRepository;
 import com.example.scheduled.repository.TaskExecutionLogRepository;
+import com.example.scheduled.repository.TaskExecutionRollupRepository;
+import com.example.scheduled.statistics.LatencyHistogram;
+import com.example.scheduled.statistics.LiveTaskMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
 
 /**
  * 任务统计服务
@@ -27,20 +37,26 @@ public class TaskStatisticsService {
 
     private final ScheduledTaskRepository taskRepository;
     private final TaskExecutionLogRepository logRepository;
+    private final TaskExecutionRollupRepository rollupRepository;
+    private final ScheduledTaskProperties properties;
+    private final LiveTaskMetrics liveTaskMetrics;
+
+    private volatile CachedDistributions cachedDistributions;
 
     /**
      * 获取任务总体统计信息
      */
     @Transactional(readOnly = true)
     public TaskStatistics getOverallStatistics() {
-        // 统计各状态任务数
-        Long pendingCount = taskRepository.selectCount(new LambdaQueryWrapper<ScheduledTask>().eq(ScheduledTask::getStatus, ScheduledTask.TaskStatus.PENDING));
-        Long executingCount = taskRepository.selectCount(new LambdaQueryWrapper<ScheduledTask>().eq(ScheduledTask::getStatus, ScheduledTask.TaskStatus.EXECUTING));
-        Long successCount = taskRepository.selectCount(new LambdaQueryWrapper<ScheduledTask>().eq(ScheduledTask::getStatus, ScheduledTask.TaskStatus.SUCCESS));
-        Long failedCount = taskRepository.selectCount(new LambdaQueryWrapper<ScheduledTask>().eq(ScheduledTask::getStatus, ScheduledTask.TaskStatus.FAILED));
-        Long cancelledCount = taskRepository.selectCount(new LambdaQueryWrapper<ScheduledTask>().eq(ScheduledTask::getStatus, ScheduledTask.TaskStatus.CANCELLED));
-        Long pausedCount = taskRepository.selectCount(new LambdaQueryWrapper<ScheduledTask>().eq(ScheduledTask::getStatus, ScheduledTask.TaskStatus.PAUSED));
-        Long timeoutCount = taskRepository.selectCount(new LambdaQueryWrapper<ScheduledTask>().eq(ScheduledTask::getStatus, ScheduledTask.TaskStatus.TIMEOUT));
+        // 统计各状态任务数（单次分组查询）
+        Map<ScheduledTask.TaskStatus, Long> statusCounts = countTasksByStatus();
+        Long pendingCount = statusCounts.getOrDefault(ScheduledTask.TaskStatus.PENDING, 0L);
+        Long executingCount = statusCounts.getOrDefault(ScheduledTask.TaskStatus.EXECUTING, 0L);
+        Long successCount = statusCounts.getOrDefault(ScheduledTask.TaskStatus.SUCCESS, 0L);
+        Long failedCount = statusCounts.getOrDefault(ScheduledTask.TaskStatus.FAILED, 0L);
+        Long cancelledCount = statusCounts.getOrDefault(ScheduledTask.TaskStatus.CANCELLED, 0L);
+        Long pausedCount = statusCounts.getOrDefault(ScheduledTask.TaskStatus.PAUSED, 0L);
+        Long timeoutCount = statusCounts.getOrDefault(ScheduledTask.TaskStatus.TIMEOUT, 0L);
 
         Long totalCount = pendingCount + executingCount + successCount + failedCount + 
                           cancelledCount + pausedCount + timeoutCount;
@@ -51,20 +67,27 @@ public class TaskStatisticsService {
                 (successCount * 100.0 / completedCount) : 0.0;
 
         // 统计执行时长
-                List<TaskExecutionLog> successLogs = logRepository.selectList(
-                        new LambdaQueryWrapper<TaskExecutionLog>().eq(TaskExecutionLog::getStatus, ScheduledTask.TaskStatus.SUCCESS)
-                );
-        
         Double avgDuration = 0.0;
         Long maxDuration = 0L;
         Long minDuration = 0L;
-        
-        if (!successLogs.isEmpty()) {
+
+        if (properties.isStatisticsRollupEnabled()) {
+            // 从天粒度汇总行读取，与历史日志量无关
+            TaskExecutionRollup summary = rollupRepository.sumDurationByStatus(ScheduledTask.TaskStatus.SUCCESS);
+            if (summary != null && summary.getExecCount() != null && summary.getExecCount() > 0) {
+                avgDuration = summary.getDurationSum() * 1.0 / summary.getExecCount();
+                maxDuration = summary.getDurationMax() != null ? summary.getDurationMax() : 0L;
+                minDuration = summary.getDurationMin() != null ? summary.getDurationMin() : 0L;
+            }
+        } else {
+            List<TaskExecutionLog> successLogs = logRepository.selectList(
+                    new LambdaQueryWrapper<TaskExecutionLog>().eq(TaskExecutionLog::getStatus, ScheduledTask.TaskStatus.SUCCESS)
+            );
             List<Long> durations = successLogs.stream()
                     .map(TaskExecutionLog::getExecutionDurationMs)
                     .filter(d -> d != null && d > 0)
                     .toList();
-            
+
             if (!durations.isEmpty()) {
                 avgDuration = durations.stream()
                         .mapToLong(Long::longValue)
@@ -102,74 +125,127 @@ public class TaskStatisticsService {
      */
     @Transactional(readOnly = true)
     public List<DailyTaskStatistics> getDailyStatistics(int days) {
-        List<DailyTaskStatistics> result = new ArrayList<>();
+        if (properties.isStatisticsRollupEnabled()) {
+            return getDailyStatisticsFromRollup(days);
+        }
+
+        // 聚合下推到数据库：一次 GROUP BY，只返回每天一行
         LocalDate today = LocalDate.now();
+        LocalDate firstDay = today.minusDays(days - 1);
+        Map<String, DailyTaskStatistics> rowsByDate = new HashMap<>();
+        for (DailyTaskStatistics row : logRepository.aggregateDaily(
+                firstDay.atStartOfDay(), today.plusDays(1).atStartOfDay())) {
+            rowsByDate.put(row.getDate(), row);
+        }
 
-        for (int i = days - 1; i >= 0; i--) {
-            LocalDate date = today.minusDays(i);
-            LocalDateTime startOfDay = date.atStartOfDay();
-            LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
-
-            // 查询当天的执行日志
-                        List<TaskExecutionLog> logs = logRepository.selectList(
-                                new LambdaQueryWrapper<TaskExecutionLog>()
-                                        .between(TaskExecutionLog::getExecuteTime, startOfDay, endOfDay)
-                        );
-
-            long executedCount = logs.size();
-            long successCount = logs.stream()
-                    .filter(log -> log.getStatus() == ScheduledTask.TaskStatus.SUCCESS)
-                    .count();
-            long failedCount = logs.stream()
-                    .filter(log -> log.getStatus() == ScheduledTask.TaskStatus.FAILED)
-                    .count();
-            long timeoutCount = logs.stream()
-                    .filter(log -> log.getStatus() == ScheduledTask.TaskStatus.TIMEOUT)
-                    .count();
-
-            double successRate = executedCount > 0 ? 
-                    (successCount * 100.0 / executedCount) : 0.0;
-
-            result.add(DailyTaskStatistics.builder()
-                    .date(date.toString())
-                    .executedCount(executedCount)
-                    .successCount(successCount)
-                    .failedCount(failedCount)
-                    .timeoutCount(timeoutCount)
-                    .successRate(Math.round(successRate * 100.0) / 100.0)
-                    .build());
+        List<DailyTaskStatistics> result = new ArrayList<>(days);
+        for (LocalDate date = firstDay; !date.isAfter(today); date = date.plusDays(1)) {
+            DailyTaskStatistics row = rowsByDate.get(date.toString());
+            result.add(row == null
+                    ? buildDaily(date, 0, 0, 0, 0)
+                    : buildDaily(date, nullToZero(row.getExecutedCount()), nullToZero(row.getSuccessCount()),
+                            nullToZero(row.getFailedCount()), nullToZero(row.getTimeoutCount())));
         }
+        return result;
+    }
 
+    /**
+     * 从天粒度汇总行读取最近N天统计，一次查询，缺失的日期补零
+     */
+    private List<DailyTaskStatistics> getDailyStatisticsFromRollup(int days) {
+        LocalDate today = LocalDate.now();
+        LocalDate firstDay = today.minusDays(days - 1);
+
+        Map<LocalDate, Map<ScheduledTask.TaskStatus, Long>> countsByDay = new HashMap<>();
+        for (TaskExecutionRollup row : rollupRepository.sumDailyByStatus(firstDay.atStartOfDay())) {
+            countsByDay.computeIfAbsent(row.getBucketStart().toLocalDate(), d -> new EnumMap<>(ScheduledTask.TaskStatus.class))
+                    .merge(row.getStatus(), row.getExecCount(), Long::sum);
+        }
+
+        List<DailyTaskStatistics> result = new ArrayList<>(days);
+        for (LocalDate date = firstDay; !date.isAfter(today); date = date.plusDays(1)) {
+            Map<ScheduledTask.TaskStatus, Long> counts = countsByDay.getOrDefault(date, Map.of());
+            long successCount = counts.getOrDefault(ScheduledTask.TaskStatus.SUCCESS, 0L);
+            long failedCount = counts.getOrDefault(ScheduledTask.TaskStatus.FAILED, 0L);
+            long timeoutCount = counts.getOrDefault(ScheduledTask.TaskStatus.TIMEOUT, 0L);
+            long executedCount = counts.values().stream().mapToLong(Long::longValue).sum();
+            result.add(buildDaily(date, executedCount, successCount, failedCount, timeoutCount));
+        }
         return result;
     }
 
+    private static DailyTaskStatistics buildDaily(LocalDate date, long executedCount, long successCount,
+                                                  long failedCount, long timeoutCount) {
+        double successRate = executedCount > 0 ? 
+                (successCount * 100.0 / executedCount) : 0.0;
+
+        return DailyTaskStatistics.builder()
+                .date(date.toString())
+                .executedCount(executedCount)
+                .successCount(successCount)
+                .failedCount(failedCount)
+                .timeoutCount(timeoutCount)
+                .successRate(Math.round(successRate * 100.0) / 100.0)
+                .build();
+    }
+
+    private static long nullToZero(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    private Map<ScheduledTask.TaskStatus, Long> countTasksByStatus() {
+        Map<ScheduledTask.TaskStatus, Long> counts = new EnumMap<>(ScheduledTask.TaskStatus.class);
+        for (Map<String, Object> row : taskRepository.countGroupByStatus()) {
+            Object status = row.get("status");
+            if (status != null) {
+                counts.put(ScheduledTask.TaskStatus.valueOf(status.toString()), ((Number) row.get("cnt")).longValue());
+            }
+        }
+        return counts;
+    }
+
     /**
-     * 获取任务类型分布统计
+     * 获取任务分布统计（类型、调度模式、状态一次返回，带短时缓存）
      */
     @Transactional(readOnly = true)
-    public List<TaskTypeStatistics> getTaskTypeDistribution() {
-        List<ScheduledTask> allTasks = taskRepository.selectList(null);
-        long totalCount = allTasks.size();
-
-        if (totalCount == 0) {
-            return new ArrayList<>();
+    public TaskDistributionStatistics getDistributions() {
+        CachedDistributions cached = cachedDistributions;
+        if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+            return cached.statistics;
         }
 
-        // 按类型分组统计
-        Map<ScheduledTask.TaskType, Long> typeCountMap = allTasks.stream()
-                .collect(Collectors.groupingBy(
-                        ScheduledTask::getTaskType,
-                        Collectors.counting()
-                ));
+        // 每个维度一次 GROUP BY，只读分组列索引，与 task_data 大小无关
+        Map<String, Long> typeCounts = groupCounts(taskRepository.countGroupByTaskType(), "task_type");
+        Map<String, Long> modeCounts = groupCounts(taskRepository.countGroupByScheduleMode(), "schedule_mode");
+        Map<String, Long> statusCounts = groupCounts(taskRepository.countGroupByStatus(), "status");
 
-        return typeCountMap.entrySet().stream()
+        long totalCount = typeCounts.values().stream().mapToLong(Long::longValue).sum();
+        List<TaskTypeStatistics> typeDistribution = typeCounts.entrySet().stream()
                 .map(entry -> TaskTypeStatistics.builder()
-                        .taskType(entry.getKey())
+                        .taskType(ScheduledTask.TaskType.valueOf(entry.getKey()))
                         .count(entry.getValue())
                         .percentage(Math.round(entry.getValue() * 10000.0 / totalCount) / 100.0)
                         .build())
                 .sorted((a, b) -> Long.compare(b.getCount(), a.getCount()))
                 .toList();
+
+        TaskDistributionStatistics statistics = TaskDistributionStatistics.builder()
+                .typeDistribution(typeDistribution)
+                .scheduleModeDistribution(modeCounts)
+                .statusDistribution(statusCounts)
+                .generatedAt(LocalDateTime.now())
+                .build();
+        cachedDistributions = new CachedDistributions(statistics,
+                System.currentTimeMillis() + properties.getStatisticsCacheTtlMs());
+        return statistics;
+    }
+
+    /**
+     * 获取任务类型分布统计
+     */
+    @Transactional(readOnly = true)
+    public List<TaskTypeStatistics> getTaskTypeDistribution() {
+        return getDistributions().getTypeDistribution();
     }
 
     /**
@@ -177,13 +253,7 @@ public class TaskStatisticsService {
      */
     @Transactional(readOnly = true)
     public Map<String, Long> getScheduleModeDistribution() {
-        List<ScheduledTask> allTasks = taskRepository.selectList(null);
-        
-        return allTasks.stream()
-                .collect(Collectors.groupingBy(
-                        task -> task.getScheduleMode().name(),
-                        Collectors.counting()
-                ));
+        return getDistributions().getScheduleModeDistribution();
     }
 
     /**
@@ -191,12 +261,131 @@ public class TaskStatisticsService {
      */
     @Transactional(readOnly = true)
     public Map<String, Long> getStatusDistribution() {
-        List<ScheduledTask> allTasks = taskRepository.selectList(null);
-        
-        return allTasks.stream()
-                .collect(Collectors.groupingBy(
-                        task -> task.getStatus().name(),
-                        Collectors.counting()
-                ));
+        return getDistributions().getStatusDistribution();
+    }
+
+    /**
+     * 任务状态变更后使分布统计缓存失效
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTaskStatusChanged(TaskStatusChangedEvent event) {
+        if (event.getPreviousStatus() != event.getStatus()) {
+            cachedDistributions = null;
+        }
+    }
+
+    private static Map<String, Long> groupCounts(List<Map<String, Object>> rows, String keyColumn) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Map<String, Object> row : rows) {
+            Object key = row.get(keyColumn);
+            if (key != null) {
+                counts.put(key.toString(), ((Number) row.get("cnt")).longValue());
+            }
+        }
+        return counts;
+    }
+
+    private record CachedDistributions(TaskDistributionStatistics statistics, long expiresAt) {
+    }
+
+    /**
+     * 获取实时统计（内存计数器，不查询数据库；集群视图读取各节点快照）
+     */
+    public LiveTaskStatistics getLiveStatistics(boolean cluster) throws Exception {
+        return cluster ? liveTaskMetrics.clusterView() : liveTaskMetrics.nodeView();
+    }
+
+    /**
+     * 获取执行耗时与调度延迟分位数（合并汇总行中的直方图，不扫描执行日志）
+     *
+     * @param window   统计窗口：1h（分钟桶）/ 24h（小时桶）/ 30d（天桶）
+     * @param taskType 任务类型，为空表示全部类型
+     * @param bucketed true 按时间桶逐个返回，false 按任务类型汇总整个窗口（首行为全部类型合计）
+     */
+    @Transactional(readOnly = true)
+    public List<LatencyPercentiles> getLatencyPercentiles(String window, ScheduledTask.TaskType taskType,
+                                                          boolean bucketed) {
+        if (!properties.isStatisticsRollupEnabled()) {
+            throw new IllegalStateException("未启用执行统计汇总（scheduled.task.statistics-rollup-enabled）");
+        }
+        PercentileWindow percentileWindow = PercentileWindow.of(window);
+        TaskExecutionRollup.Granularity granularity = percentileWindow.granularity;
+        LocalDateTime now = LocalDateTime.now();
+        List<TaskExecutionRollup> rows = rollupRepository.findRange(granularity,
+                granularity.truncate(now.minus(percentileWindow.length)), now.plusDays(1));
+
+        // 分组键 -> [耗时直方图, 延迟直方图]
+        Map<Object, LatencyHistogram[]> groups = bucketed ? new TreeMap<>() : new LinkedHashMap<>();
+        String allTypes = "ALL";
+        if (!bucketed && taskType == null) {
+            groups.put(allTypes, newHistogramPair());
+        }
+        for (TaskExecutionRollup row : rows) {
+            if (taskType != null && row.getTaskType() != taskType) {
+                continue;
+            }
+            LatencyHistogram duration = LatencyHistogram.decode(row.getDurationSketch());
+            LatencyHistogram lag = LatencyHistogram.decode(row.getLagSketch());
+            if (bucketed) {
+                mergeInto(groups.computeIfAbsent(row.getBucketStart(), k -> newHistogramPair()), duration, lag);
+            } else {
+                mergeInto(groups.computeIfAbsent(row.getTaskType(), k -> newHistogramPair()), duration, lag);
+                if (taskType == null) {
+                    mergeInto(groups.get(allTypes), duration, lag);
+                }
+            }
+        }
+
+        List<LatencyPercentiles> result = new ArrayList<>(groups.size());
+        groups.forEach((key, pair) -> result.add(LatencyPercentiles.builder()
+                .bucketStart(key instanceof LocalDateTime bucketStart ? bucketStart : null)
+                .taskType(key instanceof ScheduledTask.TaskType type ? type : (bucketed ? taskType : null))
+                .sampleCount(pair[0].getTotalCount())
+                .durationP50(pair[0].quantile(0.50))
+                .durationP95(pair[0].quantile(0.95))
+                .durationP99(pair[0].quantile(0.99))
+                .lagSampleCount(pair[1].getTotalCount())
+                .lagP50(pair[1].quantile(0.50))
+                .lagP95(pair[1].quantile(0.95))
+                .lagP99(pair[1].quantile(0.99))
+                .build()));
+        return result;
+    }
+
+    private static LatencyHistogram[] newHistogramPair() {
+        return new LatencyHistogram[]{new LatencyHistogram(), new LatencyHistogram()};
+    }
+
+    private static void mergeInto(LatencyHistogram[] pair, LatencyHistogram duration, LatencyHistogram lag) {
+        pair[0].merge(duration);
+        pair[1].merge(lag);
+    }
+
+    /**
+     * 分位数统计窗口：窗口越长使用越粗的时间桶，读取行数保持在常数级
+     */
+    private enum PercentileWindow {
+        LAST_HOUR("1h", TaskExecutionRollup.Granularity.MINUTE, Duration.ofHours(1)),
+        LAST_DAY("24h", TaskExecutionRollup.Granularity.HOUR, Duration.ofDays(1)),
+        LAST_30_DAYS("30d", TaskExecutionRollup.Granularity.DAY, Duration.ofDays(30));
+
+        private final String code;
+        private final TaskExecutionRollup.Granularity granularity;
+        private final Duration length;
+
+        PercentileWindow(String code, TaskExecutionRollup.Granularity granularity, Duration length) {
+            this.code = code;
+            this.granularity = granularity;
+            this.length = length;
+        }
+
+        static PercentileWindow of(String code) {
+            for (PercentileWindow window : values()) {
+                if (window.code.equalsIgnoreCase(code)) {
+                    return window;
+                }
+            }
+            throw new IllegalArgumentException("不支持的统计窗口：" + code + "，可选 1h / 24h / 30d");
+        }
     }
 }
@@ -0,0 +1,396 @@
+package com.example.scheduled.service;
+
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.example.scheduled.dto.CreateWorkflowRequest;
+import com.example.scheduled.entity.ScheduledTask;
+import com.example.scheduled.entity.Workflow;
+import com.example.scheduled.event.TaskStatusChangedEvent;
+import com.example.scheduled.event.WorkflowCompletedEvent;
+import com.example.scheduled.repository.WorkflowRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 工作流（任务 DAG）服务
+ * 节点就绪时才创建对应的 ONCE 任务；上游成功后通过内存计数器推进，
+ * 每次推进只对 workflow 行做一次带版本号的更新，不按节点逐条查询
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WorkflowService {
+
+    /** 节点任务 taskData 中的工作流ID */
+    public static final String WORKFLOW_ID_KEY = "workflowId";
+    /** 节点任务 taskData 中的节点下标 */
+    public static final String WORKFLOW_NODE_KEY = "workflowNode";
+
+    private static final char NODE_WAITING = 'W';
+    private static final char NODE_RUNNING = 'R';
+    private static final char NODE_SUCCESS = 'S';
+    private static final char NODE_FAILED = 'F';
+    private static final char NODE_CANCELLED = 'C';
+    private static final char NODE_SKIPPED = 'K';
+
+    private static final int MAX_ADVANCE_ATTEMPTS = 5;
+
+    private final WorkflowRepository workflowRepository;
+    private final TaskManagementService taskManagementService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /** 运行中工作流的内存状态，重启或版本冲突后从 workflow 行重建 */
+    private final Map<Long, DagRuntime> runtimes = new ConcurrentHashMap<>();
+
+    /**
+     * 创建工作流并立即触发所有根节点
+     */
+    @Transactional
+    public Workflow createWorkflow(CreateWorkflowRequest request) {
+        List<CreateWorkflowRequest.Node> nodes = request.getNodes();
+        int size = nodes.size();
+
+        Map<String, Integer> indexByKey = new HashMap<>(size * 2);
+        List<Map<String, Object>> nodeSpecs = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            CreateWorkflowRequest.Node node = nodes.get(i);
+            if (indexByKey.put(node.getKey(), i) != null) {
+                throw new IllegalArgumentException("工作流节点标识重复：" + node.getKey());
+            }
+            Map<String, Object> spec = new HashMap<>();
+            spec.put("key", node.getKey());
+            spec.put("taskName", node.getTaskName());
+            spec.put("taskType", node.getTaskType().name());
+            spec.put("taskData", node.getTaskData());
+            spec.put("priority", node.getPriority());
+            spec.put("executionTimeout", node.getExecutionTimeout());
+            spec.put("maxRetryCount", node.getMaxRetryCount());
+            nodeSpecs.add(spec);
+        }
+
+        List<Set<Integer>> downstream = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            downstream.add(new LinkedHashSet<>());
+        }
+        int[] indegree = new int[size];
+        if (request.getEdges() != null) {
+            for (CreateWorkflowRequest.Edge edge : request.getEdges()) {
+                Integer from = indexByKey.get(edge.getFrom());
+                Integer to = indexByKey.get(edge.getTo());
+                if (from == null || to == null) {
+                    throw new IllegalArgumentException("依赖边引用了不存在的节点：" + edge.getFrom() + " -> " + edge.getTo());
+                }
+                if (from.equals(to)) {
+                    throw new IllegalArgumentException("节点不能依赖自身：" + edge.getFrom());
+                }
+                if (downstream.get(from).add(to)) {
+                    indegree[to]++;
+                }
+            }
+        }
+        checkAcyclic(downstream, indegree);
+
+        List<Integer> remaining = new ArrayList<>(size);
+        StringBuilder nodeStatus = new StringBuilder(size);
+        List<Integer> roots = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            remaining.add(indegree[i]);
+            if (indegree[i] == 0) {
+                nodeStatus.append(NODE_RUNNING);
+                roots.add(i);
+            } else {
+                nodeStatus.append(NODE_WAITING);
+            }
+        }
+
+        List<List<Integer>> downstreamList = new ArrayList<>(size);
+        for (Set<Integer> targets : downstream) {
+            downstreamList.add(new ArrayList<>(targets));
+        }
+
+        Map<String, Object> definition = new HashMap<>();
+        definition.put("nodes", nodeSpecs);
+        definition.put("downstream", downstreamList);
+
+        Map<String, Object> dagState = new HashMap<>();
+        dagState.put("remaining", remaining);
+        dagState.put("nodeStatus", nodeStatus.toString());
+
+        Workflow workflow = Workflow.builder()
+                .workflowName(request.getWorkflowName())
+                .status(Workflow.WorkflowStatus.RUNNING)
+                .definition(definition)
+                .dagState(dagState)
+                .totalNodes(size)
+                .completedNodes(0)
+                .version(0)
+                .build();
+        workflowRepository.insert(workflow);
+
+        for (Integer root : roots) {
+            submitNode(workflow.getId(), root, nodeSpecs.get(root));
+        }
+        runtimes.put(workflow.getId(), DagRuntime.from(workflow));
+
+        log.info("创建工作流成功：{}, ID: {}, 节点数: {}, 根节点数: {}",
+                workflow.getWorkflowName(), workflow.getId(), size, roots.size());
+        return workflow;
+    }
+
+    /**
+     * 根据ID查询工作流
+     */
+    public Workflow getWorkflowById(Long id) {
+        return workflowRepository.selectById(id);
+    }
+
+    /**
+     * 节点任务执行结果落库后推进工作流
+     * 重试中的任务（回到 PENDING）不推进，只处理最终成功、最终失败和取消；
+     * 暂停的节点任务可恢复，工作流保持运行直到该任务恢复执行或被取消
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onTaskStatusChanged(TaskStatusChangedEvent event) {
+        ScheduledTask task = event.getTask();
+        Map<String, Object> taskData = task.getTaskData();
+        if (taskData == null || !(taskData.get(WORKFLOW_ID_KEY) instanceof Number workflowId)
+                || !(taskData.get(WORKFLOW_NODE_KEY) instanceof Number nodeIndex)) {
+            return;
+        }
+
+        char outcome;
+        switch (event.getStatus()) {
+            case SUCCESS -> outcome = NODE_SUCCESS;
+            case FAILED, TIMEOUT -> outcome = NODE_FAILED;
+            case CANCELLED -> outcome = NODE_CANCELLED;
+            default -> {
+                return;
+            }
+        }
+
+        advance(workflowId.longValue(), nodeIndex.intValue(), outcome, task.getErrorMessage());
+    }
+
+    private void advance(Long workflowId, int nodeIndex, char outcome, String errorMessage) {
+        for (int attempt = 0; attempt < MAX_ADVANCE_ATTEMPTS; attempt++) {
+            DagRuntime runtime = runtimes.computeIfAbsent(workflowId, this::loadRuntime);
+            if (runtime == null) {
+                log.warn("工作流不存在，ID：{}", workflowId);
+                return;
+            }
+
+            if (nodeIndex < 0 || nodeIndex >= runtime.nodeStatus.length) {
+                log.warn("工作流 [{}] 节点下标 {} 超出范围（节点数 {}），忽略", workflowId, nodeIndex, runtime.nodeStatus.length);
+                return;
+            }
+
+            List<Integer> ready = new ArrayList<>();
+            synchronized (runtime) {
+                if (runtime.status != Workflow.WorkflowStatus.RUNNING
+                        || runtime.nodeStatus[nodeIndex] != NODE_RUNNING) {
+                    log.debug("工作流 [{}] 节点 {} 已处理或工作流已结束，忽略", workflowId, nodeIndex);
+                    return;
+                }
+
+                try {
+                    String error = null;
+                    if (outcome == NODE_SUCCESS) {
+                        runtime.markSuccess(nodeIndex, ready);
+                    } else if (outcome == NODE_CANCELLED) {
+                        runtime.markTerminated(nodeIndex, NODE_CANCELLED, Workflow.WorkflowStatus.CANCELLED);
+                        error = "节点 " + nodeIndex + " 的任务已取消";
+                    } else {
+                        runtime.markTerminated(nodeIndex, NODE_FAILED, Workflow.WorkflowStatus.FAILED);
+                        error = "节点 " + nodeIndex + " 执行失败：" + errorMessage;
+                    }
+
+                    Workflow update = Workflow.builder()
+                            .dagState(runtime.toStateMap())
+                            .completedNodes(runtime.completed)
+                            .status(runtime.status)
+                            .version(runtime.version + 1)
+                            .errorMessage(error)
+                            .finishedAt(runtime.status != Workflow.WorkflowStatus.RUNNING ? LocalDateTime.now() : null)
+                            .build();
+                    int rows = workflowRepository.update(update, new LambdaUpdateWrapper<Workflow>()
+                            .eq(Workflow::getId, workflowId)
+                            .eq(Workflow::getVersion, runtime.version));
+                    if (rows == 0) {
+                        // 其他节点已推进，丢弃本地状态后重新加载
+                        runtimes.remove(workflowId, runtime);
+                        continue;
+                    }
+                    runtime.version++;
+
+                    for (Integer next : ready) {
+                        submitNode(workflowId, next, runtime.nodes.get(next));
+                    }
+                } catch (RuntimeException e) {
+                    runtimes.remove(workflowId, runtime);
+                    throw e;
+                }
+            }
+
+            if (runtime.status != Workflow.WorkflowStatus.RUNNING) {
+                runtimes.remove(workflowId, runtime);
+                log.info("工作流 [{}] 已结束，状态：{}", workflowId, runtime.status);
+                eventPublisher.publishEvent(new WorkflowCompletedEvent(this, workflowId, runtime.status));
+            } else if (!ready.isEmpty()) {
+                log.info("工作流 [{}] 节点 {} 完成，触发下游节点数：{}", workflowId, nodeIndex, ready.size());
+            }
+            return;
+        }
+        throw new IllegalStateException("工作流推进冲突次数过多，ID：" + workflowId);
+    }
+
+    private DagRuntime loadRuntime(Long workflowId) {
+        Workflow workflow = workflowRepository.selectById(workflowId);
+        return workflow != null ? DagRuntime.from(workflow) : null;
+    }
+
+    /**
+     * 为就绪节点创建 ONCE 任务
+     */
+    @SuppressWarnings("unchecked")
+    private void submitNode(Long workflowId, int nodeIndex, Map<String, Object> spec) {
+        Map<String, Object> taskData = new HashMap<>();
+        if (spec.get("taskData") instanceof Map<?, ?> data) {
+            taskData.putAll((Map<String, Object>) data);
+        }
+        taskData.put(WORKFLOW_ID_KEY, workflowId);
+        taskData.put(WORKFLOW_NODE_KEY, nodeIndex);
+
+        taskManagementService.createOnceTask(
+                (String) spec.get("taskName"),
+                ScheduledTask.TaskType.valueOf((String) spec.get("taskType")),
+                LocalDateTime.now().plusSeconds(1),
+                taskData,
+                toInteger(spec.get("maxRetryCount")),
+                toInteger(spec.get("priority")),
+                spec.get("executionTimeout") instanceof Number timeout ? timeout.longValue() : null
+        );
+    }
+
+    /**
+     * 拓扑排序检测环
+     */
+    private static void checkAcyclic(List<Set<Integer>> downstream, int[] indegree) {
+        int[] degree = indegree.clone();
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int i = 0; i < degree.length; i++) {
+            if (degree[i] == 0) {
+                queue.add(i);
+            }
+        }
+        int visited = 0;
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            visited++;
+            for (int next : downstream.get(current)) {
+                if (--degree[next] == 0) {
+                    queue.add(next);
+                }
+            }
+        }
+        if (visited != degree.length) {
+            throw new IllegalArgumentException("工作流依赖存在环");
+        }
+    }
+
+    private static Integer toInteger(Object value) {
+        return value instanceof Number number ? number.intValue() : null;
+    }
+
+    /**
+     * 工作流内存运行状态：每个节点一个剩余上游计数，扇入时 O(1) 递减
+     */
+    private static final class DagRuntime {
+
+        private final List<Map<String, Object>> nodes;
+        private final int[][] downstream;
+        private final int[] remaining;
+        private final char[] nodeStatus;
+        private int completed;
+        private int version;
+        private Workflow.WorkflowStatus status;
+
+        private DagRuntime(List<Map<String, Object>> nodes, int[][] downstream, int[] remaining,
+                           char[] nodeStatus, int completed, int version, Workflow.WorkflowStatus status) {
+            this.nodes = nodes;
+            this.downstream = downstream;
+            this.remaining = remaining;
+            this.nodeStatus = nodeStatus;
+            this.completed = completed;
+            this.version = version;
+            this.status = status;
+        }
+
+        @SuppressWarnings("unchecked")
+        static DagRuntime from(Workflow workflow) {
+            List<Map<String, Object>> nodes = (List<Map<String, Object>>) workflow.getDefinition().get("nodes");
+            List<List<Number>> downstreamList = (List<List<Number>>) workflow.getDefinition().get("downstream");
+            List<Number> remainingList = (List<Number>) workflow.getDagState().get("remaining");
+
+            int[][] downstream = new int[downstreamList.size()][];
+            for (int i = 0; i < downstream.length; i++) {
+                downstream[i] = downstreamList.get(i).stream().mapToInt(Number::intValue).toArray();
+            }
+            int[] remaining = remainingList.stream().mapToInt(Number::intValue).toArray();
+            char[] nodeStatus = ((String) workflow.getDagState().get("nodeStatus")).toCharArray();
+
+            return new DagRuntime(nodes, downstream, remaining, nodeStatus,
+                    workflow.getCompletedNodes() != null ? workflow.getCompletedNodes() : 0,
+                    workflow.getVersion() != null ? workflow.getVersion() : 0,
+                    workflow.getStatus());
+        }
+
+        void markSuccess(int nodeIndex, List<Integer> ready) {
+            nodeStatus[nodeIndex] = NODE_SUCCESS;
+            completed++;
+            for (int next : downstream[nodeIndex]) {
+                if (--remaining[next] == 0 && nodeStatus[next] == NODE_WAITING) {
+                    nodeStatus[next] = NODE_RUNNING;
+                    ready.add(next);
+                }
+            }
+            if (completed == nodeStatus.length) {
+                status = Workflow.WorkflowStatus.SUCCESS;
+            }
+        }
+
+        /**
+         * 节点最终失败或被取消：工作流随之结束
+         */
+        void markTerminated(int nodeIndex, char nodeMark, Workflow.WorkflowStatus finalStatus) {
+            nodeStatus[nodeIndex] = nodeMark;
+            // 尚未触发的节点不再执行
+            for (int i = 0; i < nodeStatus.length; i++) {
+                if (nodeStatus[i] == NODE_WAITING) {
+                    nodeStatus[i] = NODE_SKIPPED;
+                }
+            }
+            status = finalStatus;
+        }
+
+        Map<String, Object> toStateMap() {
+            List<Integer> remainingList = new ArrayList<>(remaining.length);
+            for (int value : remaining) {
+                remainingList.add(value);
+            }
+            Map<String, Object> state = new HashMap<>();
+            state.put("remaining", remainingList);
+            state.put("nodeStatus", new String(nodeStatus));
+            return state;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.scheduled.statistics;
+
+import java.util.Arrays;
+
+/**
+ * 可合并的耗时直方图（对数-线性分桶）
+ * 小于 16 的值每个值一个桶，之后每个 2 的幂区间均分 16 个桶，相对误差约 6%；
+ * 合并即桶计数相加，适合按时间桶持久化后再任意组合时间窗口
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private long[] counts = new long[SUB_BUCKETS * 4];
+    private long totalCount;
+
+    /**
+     * 记录一个值（负数按 0 处理）
+     */
+    public void record(long value) {
+        recordCount(bucketIndex(Math.max(0, value)), 1);
+    }
+
+    /**
+     * 合并另一个直方图
+     */
+    public void merge(LatencyHistogram other) {
+        if (other == null) {
+            return;
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] > 0) {
+                recordCount(i, other.counts[i]);
+            }
+        }
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * 分位数（0-1），返回所在桶的中值；无数据时返回 0
+     */
+    public long quantile(double quantile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(Math.min(1.0, Math.max(0.0, quantile)) * totalCount);
+        rank = Math.max(rank, 1);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return bucketMidpoint(i);
+            }
+        }
+        return bucketMidpoint(counts.length - 1);
+    }
+
+    /**
+     * 编码为稀疏文本：index:count,index:count
+     */
+    public String encode() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                if (builder.length() > 0) {
+                    builder.append(',');
+                }
+                builder.append(i).append(':').append(counts[i]);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 从稀疏文本解码，空值返回空直方图
+     */
+    public static LatencyHistogram decode(String encoded) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        if (encoded == null || encoded.isBlank()) {
+            return histogram;
+        }
+        for (String entry : encoded.split(",")) {
+            int separator = entry.indexOf(':');
+            histogram.recordCount(Integer.parseInt(entry.substring(0, separator)),
+                    Long.parseLong(entry.substring(separator + 1)));
+        }
+        return histogram;
+    }
+
+    private void recordCount(int index, long count) {
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+        }
+        counts[index] += count;
+        totalCount += count;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    static long bucketMidpoint(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + subBucket) << shift;
+        return lower + ((1L << shift) >> 1);
+    }
+}
@@ -0,0 +1,293 @@
+package com.example.scheduled.statistics;
+
+import com.example.scheduled.config.ScheduledTaskProperties;
+import com.example.scheduled.entity.LiveTaskStatistics;
+import com.example.scheduled.entity.ScheduledTask;
+import com.example.scheduled.entity.TaskExecutionLog;
+import com.example.scheduled.entity.TaskMetricsSnapshot;
+import com.example.scheduled.event.TaskStatusChangedEvent;
+import com.example.scheduled.repository.ScheduledTaskRepository;
+import com.example.scheduled.repository.TaskMetricsSnapshotRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 实时任务计数器
+ * 启动时从数据库按 (任务类型, 状态) 分组计数一次作为基线，之后随任务状态变更事件增减；
+ * 另记录节点启动以来各类型的执行结果次数与耗时直方图。读取只访问内存，不查询数据库
+ */
+@Slf4j
+@Component
+public class LiveTaskMetrics {
+
+    private static final ScheduledTask.TaskType[] TASK_TYPES = ScheduledTask.TaskType.values();
+    private static final ScheduledTask.TaskStatus[] TASK_STATUSES = ScheduledTask.TaskStatus.values();
+
+    private final ScheduledTaskRepository taskRepository;
+    private final TaskMetricsSnapshotRepository snapshotRepository;
+    private final ScheduledTaskProperties properties;
+    private final ObjectMapper objectMapper;
+    private final String nodeId;
+
+    /**
+     * 结构在构造时建好，之后只读，计数器本身无锁累加
+     */
+    private final Map<ScheduledTask.TaskType, Map<ScheduledTask.TaskStatus, LongAdder>> stateCounters =
+            newCounterTable();
+    private final Map<ScheduledTask.TaskType, Map<ScheduledTask.TaskStatus, LongAdder>> executionCounters =
+            newCounterTable();
+    private final Map<ScheduledTask.TaskType, LatencyHistogram> durationHistograms =
+            new EnumMap<>(ScheduledTask.TaskType.class);
+
+    public LiveTaskMetrics(ScheduledTaskRepository taskRepository,
+                           TaskMetricsSnapshotRepository snapshotRepository,
+                           ScheduledTaskProperties properties,
+                           ObjectMapper objectMapper) {
+        this.taskRepository = taskRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.nodeId = resolveNodeId();
+        for (ScheduledTask.TaskType type : TASK_TYPES) {
+            durationHistograms.put(type, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * 启动完成后（调度器已恢复遗留任务状态）从数据库建立状态基线
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        try {
+            Map<ScheduledTask.TaskType, Map<ScheduledTask.TaskStatus, Long>> counts =
+                    new EnumMap<>(ScheduledTask.TaskType.class);
+            for (Map<String, Object> row : taskRepository.countGroupByTypeAndStatus()) {
+                Object type = row.get("task_type");
+                Object status = row.get("status");
+                if (type == null || status == null) {
+                    continue;
+                }
+                counts.computeIfAbsent(ScheduledTask.TaskType.valueOf(type.toString()),
+                                t -> new EnumMap<>(ScheduledTask.TaskStatus.class))
+                        .put(ScheduledTask.TaskStatus.valueOf(status.toString()), ((Number) row.get("cnt")).longValue());
+            }
+            for (ScheduledTask.TaskType type : TASK_TYPES) {
+                Map<ScheduledTask.TaskStatus, Long> typeCounts = counts.getOrDefault(type, Map.of());
+                for (ScheduledTask.TaskStatus status : TASK_STATUSES) {
+                    LongAdder counter = stateCounters.get(type).get(status);
+                    counter.reset();
+                    counter.add(typeCounts.getOrDefault(status, 0L));
+                }
+            }
+            log.info("实时任务计数器已从数据库建立基线，节点：{}", nodeId);
+        } catch (Exception e) {
+            log.warn("实时任务计数器建立基线失败，状态计数仅反映启动后的变更", e);
+        }
+    }
+
+    /**
+     * 任务状态变更（事务提交后）更新计数器
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTaskStatusChanged(TaskStatusChangedEvent event) {
+        ScheduledTask.TaskType type = event.getTask().getTaskType();
+        if (type == null) {
+            return;
+        }
+        Map<ScheduledTask.TaskStatus, LongAdder> typeCounters = stateCounters.get(type);
+        if (event.getPreviousStatus() != event.getStatus()) {
+            if (event.getPreviousStatus() != null) {
+                typeCounters.get(event.getPreviousStatus()).decrement();
+            }
+            if (event.getStatus() != null) {
+                typeCounters.get(event.getStatus()).increment();
+            }
+        }
+
+        TaskExecutionLog executionLog = event.getExecutionLog();
+        if (executionLog != null && executionLog.getStatus() != null) {
+            executionCounters.get(type).get(executionLog.getStatus()).increment();
+            if (executionLog.getExecutionDurationMs() != null) {
+                LatencyHistogram histogram = durationHistograms.get(type);
+                synchronized (histogram) {
+                    histogram.record(executionLog.getExecutionDurationMs());
+                }
+            }
+        }
+    }
+
+    /**
+     * 按类型、状态的当前任务数（参数为 null 表示不限）
+     */
+    public long countTasks(ScheduledTask.TaskType taskType, ScheduledTask.TaskStatus status) {
+        long total = 0;
+        for (Map.Entry<ScheduledTask.TaskType, Map<ScheduledTask.TaskStatus, LongAdder>> entry : stateCounters.entrySet()) {
+            if (taskType != null && entry.getKey() != taskType) {
+                continue;
+            }
+            for (Map.Entry<ScheduledTask.TaskStatus, LongAdder> counter : entry.getValue().entrySet()) {
+                if (status == null || counter.getKey() == status) {
+                    total += counter.getValue().sum();
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 本节点视图
+     */
+    public LiveTaskStatistics nodeView() {
+        Map<ScheduledTask.TaskType, LatencyHistogram> histograms = new EnumMap<>(ScheduledTask.TaskType.class);
+        for (ScheduledTask.TaskType type : TASK_TYPES) {
+            histograms.put(type, copyOf(type));
+        }
+        return buildView("node", 1, sumTable(executionCounters), histograms);
+    }
+
+    /**
+     * 集群视图：合并各节点最近发布的执行计数与耗时直方图（状态计数取本节点基线视图）
+     */
+    public LiveTaskStatistics clusterView() throws Exception {
+        LocalDateTime since = LocalDateTime.now().minus(Duration.ofMillis(properties.getLiveMetricsPublishIntervalMs() * 3));
+        Map<String, Map<String, Long>> executions = new TreeMap<>();
+        Map<ScheduledTask.TaskType, LatencyHistogram> histograms = new EnumMap<>(ScheduledTask.TaskType.class);
+        int nodeCount = 0;
+
+        for (TaskMetricsSnapshot row : snapshotRepository.findUpdatedSince(since)) {
+            NodeSnapshot snapshot = objectMapper.readValue(row.getSnapshot(), NodeSnapshot.class);
+            snapshot.executions().forEach((type, counts) -> counts.forEach((status, count) ->
+                    executions.computeIfAbsent(type, t -> new TreeMap<>()).merge(status, count, Long::sum)));
+            snapshot.durations().forEach((type, encoded) ->
+                    histograms.computeIfAbsent(ScheduledTask.TaskType.valueOf(type), t -> new LatencyHistogram())
+                            .merge(LatencyHistogram.decode(encoded)));
+            nodeCount++;
+        }
+        return buildView("cluster", nodeCount, executions, histograms);
+    }
+
+    /**
+     * 定期发布本节点快照；集群中其他节点的状态变更本节点不可见，同时从数据库重新校准状态基线
+     */
+    @Scheduled(fixedDelayString = "${scheduled.task.live-metrics-publish-interval-ms:10000}")
+    public void publishSnapshot() {
+        if (!properties.isLiveMetricsClusterEnabled()) {
+            return;
+        }
+        try {
+            Map<String, String> durations = new TreeMap<>();
+            for (ScheduledTask.TaskType type : TASK_TYPES) {
+                LatencyHistogram histogram = copyOf(type);
+                if (histogram.getTotalCount() > 0) {
+                    durations.put(type.name(), histogram.encode());
+                }
+            }
+            String json = objectMapper.writeValueAsString(new NodeSnapshot(sumTable(executionCounters), durations));
+            snapshotRepository.upsert(TaskMetricsSnapshot.builder()
+                    .nodeId(nodeId)
+                    .snapshot(json)
+                    .updatedAt(LocalDateTime.now())
+                    .build());
+        } catch (Exception e) {
+            log.warn("发布实时计数器快照失败", e);
+        }
+        seed();
+    }
+
+    private LiveTaskStatistics buildView(String scope, int nodeCount,
+                                         Map<String, Map<String, Long>> executions,
+                                         Map<ScheduledTask.TaskType, LatencyHistogram> histograms) {
+        Map<String, Map<String, Long>> typeStatusCounts = sumTable(stateCounters);
+        Map<String, Long> statusCounts = new TreeMap<>();
+        typeStatusCounts.values().forEach(counts ->
+                counts.forEach((status, count) -> statusCounts.merge(status, count, Long::sum)));
+
+        Map<String, LiveTaskStatistics.DurationSummary> durations = new TreeMap<>();
+        histograms.forEach((type, histogram) -> {
+            if (histogram.getTotalCount() > 0) {
+                durations.put(type.name(), LiveTaskStatistics.DurationSummary.builder()
+                        .count(histogram.getTotalCount())
+                        .p50(histogram.quantile(0.50))
+                        .p95(histogram.quantile(0.95))
+                        .p99(histogram.quantile(0.99))
+                        .build());
+            }
+        });
+
+        return LiveTaskStatistics.builder()
+                .scope(scope)
+                .nodeId(nodeId)
+                .nodeCount(nodeCount)
+                .generatedAt(LocalDateTime.now())
+                .statusCounts(statusCounts)
+                .typeStatusCounts(typeStatusCounts)
+                .executionCounts(executions)
+                .durations(durations)
+                .build();
+    }
+
+    private LatencyHistogram copyOf(ScheduledTask.TaskType type) {
+        LatencyHistogram source = durationHistograms.get(type);
+        LatencyHistogram copy = new LatencyHistogram();
+        synchronized (source) {
+            copy.merge(source);
+        }
+        return copy;
+    }
+
+    /**
+     * 计数表转为 类型 -> 状态 -> 数量，省略为 0 的项
+     */
+    private static Map<String, Map<String, Long>> sumTable(
+            Map<ScheduledTask.TaskType, Map<ScheduledTask.TaskStatus, LongAdder>> table) {
+        Map<String, Map<String, Long>> result = new TreeMap<>();
+        table.forEach((type, counters) -> counters.forEach((status, counter) -> {
+            long value = counter.sum();
+            if (value != 0) {
+                result.computeIfAbsent(type.name(), t -> new TreeMap<>()).put(status.name(), value);
+            }
+        }));
+        return result;
+    }
+
+    private static Map<ScheduledTask.TaskType, Map<ScheduledTask.TaskStatus, LongAdder>> newCounterTable() {
+        Map<ScheduledTask.TaskType, Map<ScheduledTask.TaskStatus, LongAdder>> table =
+                new EnumMap<>(ScheduledTask.TaskType.class);
+        for (ScheduledTask.TaskType type : TASK_TYPES) {
+            Map<ScheduledTask.TaskStatus, LongAdder> counters = new EnumMap<>(ScheduledTask.TaskStatus.class);
+            for (ScheduledTask.TaskStatus status : TASK_STATUSES) {
+                counters.put(status, new LongAdder());
+            }
+            table.put(type, counters);
+        }
+        return table;
+    }
+
+    private static String resolveNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + ":" + ProcessHandle.current().pid();
+    }
+
+    /**
+     * 节点快照（类型 -> 执行结果 -> 次数；类型 -> 耗时直方图编码）
+     */
+    record NodeSnapshot(Map<String, Map<String, Long>> executions, Map<String, String> durations) {
+    }
+}
@@ -0,0 +1,13 @@
+-- 报警配置版本号
+-- 规则、触发条件、异常类型变更时递增；各节点定期比对版本号，变化时清空本地规则缓存
+-- scheduled.task.alert-rule-cache-cluster-enabled 默认开启；新库由 alert-schema.sql 创建，已有库执行本文件补建
+
+USE scheduled_task;
+
+CREATE TABLE IF NOT EXISTS alert_config_version (
+    id TINYINT PRIMARY KEY COMMENT '固定为 1',
+    version BIGINT NOT NULL DEFAULT 0 COMMENT '配置版本号',
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='报警配置版本号';
+
+INSERT IGNORE INTO alert_config_version (id, version) VALUES (1, 0);
@@ -0,0 +1,20 @@
+-- 报警系统 - 日历触发条件迁移脚本 (v4)
+-- 为 trigger_condition 表添加 CRON / WEEKLY / MONTHLY 条件类型所需字段
+
+USE scheduled_task;
+
+ALTER TABLE trigger_condition
+ADD COLUMN IF NOT EXISTS cron_expression VARCHAR(120) COMMENT 'Quartz Cron 表达式，如 "0 0 16 ? * WED"' AFTER combined_condition_ids,
+ADD COLUMN IF NOT EXISTS day_of_week TINYINT COMMENT '每周触发的星期几：1-周一 ... 7-周日' AFTER cron_expression,
+ADD COLUMN IF NOT EXISTS day_of_month TINYINT COMMENT '每月触发的日期：1-31，超过当月天数时取月末' AFTER day_of_week;
+
+-- 说明：
+-- 1. CRON：使用 cron_expression，当天第一次触发时刻到达后成立，直到当天结束
+-- 2. WEEKLY：使用 day_of_week + absolute_time，如 day_of_week=3, absolute_time='16:00:00' 表示每周三 16:00
+-- 3. MONTHLY：使用 day_of_month + absolute_time，如 day_of_month=31 在 2 月按月末触发
+-- 4. 三种类型均支持 time_window_start / time_window_end，也可作为 HYBRID 的子条件
+
+-- 使用示例：
+-- INSERT INTO trigger_condition (condition_type, cron_expression) VALUES ('CRON', '0 0 16 ? * WED');
+-- INSERT INTO trigger_condition (condition_type, day_of_week, absolute_time) VALUES ('WEEKLY', 3, '16:00:00');
+-- INSERT INTO trigger_condition (condition_type, day_of_month, absolute_time) VALUES ('MONTHLY', 15, '16:00:00');
@@ -0,0 +1,49 @@
+-- 报警系统 - 等级触发幂等迁移脚本 (v5)
+-- 1. exception_event 增加 triggered_levels 位集，评估时按主键读出即可判断等级是否已触发
+-- 2. alert_event_log 对同一异常、同一等级的 ALERT_TRIGGERED 记录加唯一约束兜底
+-- 需在 alert-migration-v2.sql（event_type 字段）之后执行
+
+USE scheduled_task;
+
+-- 1. 已触发等级位集：LEVEL_1=1, LEVEL_2=2, LEVEL_3=4, BLUE=8, YELLOW=16, RED=32（见 AlertConstants.AlertLevels.bitOf）
+ALTER TABLE exception_event
+ADD COLUMN IF NOT EXISTS triggered_levels INT NOT NULL DEFAULT 0 COMMENT '已触发的报警等级位集' AFTER current_alert_level;
+
+-- 2. 旧版本把"评估异常"也记为 ALERT_TRIGGERED，先改为 EVALUATION_ERROR
+UPDATE alert_event_log
+SET event_type = 'EVALUATION_ERROR'
+WHERE event_type = 'ALERT_TRIGGERED'
+  AND trigger_reason LIKE '报警评估异常%';
+
+-- 3. 历史重复触发记录只保留最早一条，其余改为 ALERT_DUPLICATE 保留审计
+UPDATE alert_event_log l
+JOIN (
+    SELECT exception_event_id, alert_level, MIN(id) AS keep_id
+    FROM alert_event_log
+    WHERE event_type = 'ALERT_TRIGGERED'
+    GROUP BY exception_event_id, alert_level
+    HAVING COUNT(*) > 1
+) d ON l.exception_event_id = d.exception_event_id AND l.alert_level = d.alert_level
+SET l.event_type = 'ALERT_DUPLICATE'
+WHERE l.event_type = 'ALERT_TRIGGERED' AND l.id <> d.keep_id;
+
+-- 4. 唯一约束只作用于 ALERT_TRIGGERED 记录（TASK_CANCELLED 等同一异常可有多条），通过生成列实现
+ALTER TABLE alert_event_log
+ADD COLUMN IF NOT EXISTS triggered_level_key VARCHAR(64)
+    GENERATED ALWAYS AS (IF(event_type = 'ALERT_TRIGGERED', CONCAT(exception_event_id, ':', alert_level), NULL)) STORED
+    COMMENT '触发记录唯一键：异常ID:等级，非触发记录为 NULL',
+ADD UNIQUE INDEX IF NOT EXISTS uk_triggered_level (triggered_level_key);
+
+-- 5. 按历史触发记录回填位集
+UPDATE exception_event e
+JOIN (
+    SELECT exception_event_id,
+           BIT_OR(CASE alert_level
+                      WHEN 'LEVEL_1' THEN 1 WHEN 'LEVEL_2' THEN 2 WHEN 'LEVEL_3' THEN 4
+                      WHEN 'BLUE' THEN 8 WHEN 'YELLOW' THEN 16 WHEN 'RED' THEN 32
+                      ELSE 0 END) AS levels
+    FROM alert_event_log
+    WHERE event_type = 'ALERT_TRIGGERED'
+    GROUP BY exception_event_id
+) t ON e.id = t.exception_event_id
+SET e.triggered_levels = t.levels;
@@ -19,7 +19,7 @@ CREATE TABLE IF NOT EXISTS exception_type (
 -- 2. 触发条件表：定义报警的触发时机
 CREATE TABLE IF NOT EXISTS trigger_condition (
     id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键ID',
-    condition_type VARCHAR(50) NOT NULL COMMENT '条件类型：ABSOLUTE-固定时刻, RELATIVE-相对事件, HYBRID-混合',
+    condition_type VARCHAR(50) NOT NULL COMMENT '条件类型：ABSOLUTE-固定时刻, RELATIVE-相对事件, HYBRID-混合, CRON-Cron表达式, WEEKLY-每周, MONTHLY-每月',
     
     -- 绝对时间触发（固定时刻，如 16:00）
     absolute_time TIME COMMENT '固定触发时刻，如 16:00',
@@ -33,9 +33,14 @@ CREATE TABLE IF NOT EXISTS trigger_condition (
     time_window_end TIME COMMENT '时间窗口结束，如 17:00',
     
     -- 混合条件
-    logical_operator VARCHAR(10) COMMENT '逻辑操作符：AND, OR',
+    logical_operator VARCHAR(10) COMMENT '逻辑操作符：AND, OR, NOT',
     combined_condition_ids VARCHAR(500) COMMENT '组合的条件IDs（逗号分隔），如 "1,2,3"',
     
+    -- 日历触发（CRON / WEEKLY / MONTHLY，WEEKLY 与 MONTHLY 的触发时刻取 absolute_time）
+    cron_expression VARCHAR(120) COMMENT 'Quartz Cron 表达式，如 "0 0 16 ? * WED"',
+    day_of_week TINYINT COMMENT '每周触发的星期几：1-周一 ... 7-周日',
+    day_of_month TINYINT COMMENT '每月触发的日期：1-31，超过当月天数时取月末',
+    
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     INDEX idx_condition_type (condition_type)
@@ -102,6 +107,15 @@ CREATE TABLE IF NOT EXISTS alert_event_log (
     INDEX idx_alert_level (alert_level)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='报警事件日志表';
 
+-- 6. 报警配置版本号表：规则、触发条件、异常类型变更时递增，各节点比对后清空本地规则缓存
+CREATE TABLE IF NOT EXISTS alert_config_version (
+    id TINYINT PRIMARY KEY COMMENT '固定为 1',
+    version BIGINT NOT NULL DEFAULT 0 COMMENT '配置版本号',
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='报警配置版本号';
+
+INSERT IGNORE INTO alert_config_version (id, version) VALUES (1, 0);
+
 -- 创建索引优化查询
 CREATE INDEX idx_alert_rule_exception_type_enabled 
 ON alert_rule(exception_type_id, enabled);
@@ -0,0 +1,12 @@
+-- 本地执行日志同步进度表
+-- 启用 scheduled.task.journal-enabled 前执行；每批记录与同步进度在同一事务内写入，
+-- 提交后进程崩溃重启时从该进度继续重放，不会重复写入任务状态与执行日志
+
+USE scheduled_task;
+
+CREATE TABLE IF NOT EXISTS execution_journal_checkpoint (
+    journal_id VARCHAR(64) NOT NULL PRIMARY KEY COMMENT '执行日志目录标识（首次启用时生成，保存在目录下的 journal-id 文件中）',
+    segment BIGINT NOT NULL COMMENT '已同步到的段序号',
+    segment_offset INT NOT NULL COMMENT '已同步到的段内偏移',
+    updated_at DATETIME NOT NULL COMMENT '更新时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='本地执行日志同步进度表';
@@ -26,4 +26,14 @@ COMMENT '任务状态：PENDING-待执行, EXECUTING-执行中, SUCCESS-成功,
 UPDATE scheduled_task SET priority = 5 WHERE priority IS NULL;
 UPDATE scheduled_task SET execution_timeout = 300 WHERE execution_timeout IS NULL;
 
+-- 执行日志 (execute_time, status) 覆盖索引：每日统计按天分组聚合时只需扫描索引
+ALTER TABLE task_execution_log 
+ADD INDEX IF NOT EXISTS idx_execute_time_status (execute_time, status);
+
+-- 任务分页列表复合索引：按状态/类型过滤后沿 (created_at, id) 或 (execute_time, id) 翻页
+ALTER TABLE scheduled_task 
+ADD INDEX IF NOT EXISTS idx_status_created_at (status, created_at),
+ADD INDEX IF NOT EXISTS idx_type_created_at (task_type, created_at),
+ADD INDEX IF NOT EXISTS idx_status_execute_time (status, execute_time);
+
 SELECT '数据库迁移完成：已添加 priority 和 execution_timeout 字段' AS message;
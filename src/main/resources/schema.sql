@@ -28,7 +28,11 @@ CREATE TABLE IF NOT EXISTS scheduled_task (
     INDEX idx_task_type (task_type),
     INDEX idx_schedule_mode (schedule_mode),
     INDEX idx_priority (priority),
-    INDEX idx_created_at (created_at)
+    INDEX idx_created_at (created_at),
+    -- 分页列表：按状态/类型过滤后沿 (created_at, id) 或 (execute_time, id) 翻页（InnoDB 二级索引隐含主键 id）
+    INDEX idx_status_created_at (status, created_at),
+    INDEX idx_type_created_at (task_type, created_at),
+    INDEX idx_status_execute_time (status, execute_time)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='定时任务表';
 
 -- 任务执行历史表（可选，用于审计）
@@ -41,5 +45,6 @@ CREATE TABLE IF NOT EXISTS task_execution_log (
     execution_duration_ms BIGINT COMMENT '执行耗时（毫秒）',
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     INDEX idx_task_id (task_id),
-    INDEX idx_execute_time (execute_time)
+    INDEX idx_execute_time (execute_time),
+    INDEX idx_execute_time_status (execute_time, status)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='任务执行历史表';
@@ -0,0 +1,32 @@
+-- 数据库迁移脚本：task_execution_log 按月范围分区
+-- 分区后过期日志通过 DROP PARTITION 整体删除，不再逐行 DELETE
+-- 注意：分区列必须包含在主键中，因此主键调整为 (id, execute_time)
+-- 分区的后续维护（预建新月份分区、删除过期分区）由 ExecutionLogRetentionService 自动完成
+
+USE scheduled_task;
+
+-- 1. 调整主键（分区表要求所有唯一键包含分区列）
+ALTER TABLE task_execution_log
+    MODIFY COLUMN id BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, execute_time);
+
+-- 2. 按月分区（请根据现有数据的最早月份调整起始分区，早于第一个分区边界的数据落在 p_history）
+ALTER TABLE task_execution_log
+PARTITION BY RANGE (TO_DAYS(execute_time)) (
+    PARTITION p_history VALUES LESS THAN (TO_DAYS('2025-10-01')),
+    PARTITION p202510 VALUES LESS THAN (TO_DAYS('2025-11-01')),
+    PARTITION p202511 VALUES LESS THAN (TO_DAYS('2025-12-01')),
+    PARTITION p202512 VALUES LESS THAN (TO_DAYS('2026-01-01')),
+    PARTITION pmax VALUES LESS THAN MAXVALUE
+);
+
+-- 3. 验证分区
+SELECT PARTITION_NAME, PARTITION_DESCRIPTION, TABLE_ROWS
+FROM information_schema.PARTITIONS
+WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'task_execution_log';
+
+-- 说明：
+-- 1. 开启 scheduled.task.log-retention-enabled 后，每天 02:30 预建未来 3 个月分区并删除超过保留月数的 pYYYYMM 分区
+-- 2. p_history 不会被自动删除，确认无需保留后可手动执行：ALTER TABLE task_execution_log DROP PARTITION p_history;
+-- 3. 开启 log-archive-enabled 后，删除前会导出为 {log-archive-dir}/task_execution_log-YYYYMM.cols.gz
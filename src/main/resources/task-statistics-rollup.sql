@@ -0,0 +1,46 @@
+-- 执行统计汇总表
+-- 调度器每次执行落库后在内存中累加，按 scheduled.task.statistics-rollup-flush-interval-ms 合并写入；
+-- 统计接口直接读取汇总行，不再扫描 task_execution_log
+
+USE scheduled_task;
+
+CREATE TABLE IF NOT EXISTS task_execution_rollup (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键ID',
+    granularity VARCHAR(10) NOT NULL COMMENT '时间粒度：MINUTE/HOUR/DAY',
+    bucket_start DATETIME NOT NULL COMMENT '时间桶起始时间',
+    task_type VARCHAR(50) NOT NULL COMMENT '任务类型',
+    status VARCHAR(20) NOT NULL COMMENT '执行结果：SUCCESS/FAILED/TIMEOUT',
+    exec_count BIGINT NOT NULL DEFAULT 0 COMMENT '执行次数',
+    duration_sum BIGINT NOT NULL DEFAULT 0 COMMENT '耗时总和（毫秒）',
+    duration_min BIGINT COMMENT '最小耗时（毫秒）',
+    duration_max BIGINT COMMENT '最大耗时（毫秒）',
+    duration_sketch TEXT COMMENT '耗时直方图（稀疏编码 index:count，可合并）',
+    lag_sketch TEXT COMMENT '调度延迟直方图（实际开始 - 计划执行时间，毫秒，仅 ONCE 任务）',
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    UNIQUE KEY uk_bucket (granularity, bucket_start, task_type, status),
+    INDEX idx_granularity_status (granularity, status)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='执行统计汇总表';
+
+-- 已按旧版本建表时补充调度延迟列
+ALTER TABLE task_execution_rollup
+ADD COLUMN IF NOT EXISTS lag_sketch TEXT COMMENT '调度延迟直方图（实际开始 - 计划执行时间，毫秒，仅 ONCE 任务）'
+AFTER duration_sketch;
+
+-- 历史数据回填（只回填天粒度计数与耗时，直方图从启用后开始积累）
+INSERT INTO task_execution_rollup (granularity, bucket_start, task_type, status, exec_count, duration_sum, duration_min, duration_max)
+SELECT 'DAY', DATE(l.execute_time), t.task_type, l.status, COUNT(*),
+       COALESCE(SUM(l.execution_duration_ms), 0), MIN(l.execution_duration_ms), MAX(l.execution_duration_ms)
+FROM task_execution_log l
+JOIN scheduled_task t ON t.id = l.task_id
+WHERE l.status IN ('SUCCESS', 'FAILED', 'TIMEOUT')
+GROUP BY DATE(l.execute_time), t.task_type, l.status
+ON DUPLICATE KEY UPDATE exec_count = VALUES(exec_count), duration_sum = VALUES(duration_sum),
+                        duration_min = VALUES(duration_min), duration_max = VALUES(duration_max);
+
+-- 节点实时计数器快照（live-metrics-cluster-enabled 时各节点定期覆盖写入）
+CREATE TABLE IF NOT EXISTS task_metrics_node_snapshot (
+    node_id VARCHAR(128) PRIMARY KEY COMMENT '节点标识（主机名:进程号）',
+    snapshot TEXT NOT NULL COMMENT '快照内容（JSON）',
+    updated_at DATETIME NOT NULL COMMENT '更新时间',
+    INDEX idx_updated_at (updated_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='节点实时计数器快照表';
@@ -0,0 +1,20 @@
+-- 工作流（任务 DAG）表
+
+USE scheduled_task;
+
+CREATE TABLE IF NOT EXISTS workflow (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键ID',
+    workflow_name VARCHAR(255) NOT NULL COMMENT '工作流名称',
+    status VARCHAR(20) NOT NULL DEFAULT 'RUNNING' COMMENT '工作流状态：RUNNING-运行中, SUCCESS-成功, FAILED-失败, CANCELLED-已取消',
+    definition JSON NOT NULL COMMENT 'DAG定义：nodes-节点任务模板, downstream-按节点下标的下游下标列表',
+    dag_state JSON NOT NULL COMMENT 'DAG运行状态：remaining-各节点未完成上游数, nodeStatus-节点状态字符串（W等待/R运行/S成功/F失败/C取消/K跳过）',
+    total_nodes INT NOT NULL DEFAULT 0 COMMENT '节点总数',
+    completed_nodes INT NOT NULL DEFAULT 0 COMMENT '已成功节点数',
+    version INT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号',
+    error_message TEXT COMMENT '错误信息',
+    finished_at DATETIME COMMENT '结束时间',
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    INDEX idx_status (status),
+    INDEX idx_created_at (created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='工作流表';